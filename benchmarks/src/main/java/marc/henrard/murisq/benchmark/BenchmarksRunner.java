@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and exports the results in JSON format.
+ * <p>
+ * The standard JMH command line options are available, e.g. a regular expression to select the benchmarks or
+ * "-rff" to change the result file. By default all the benchmarks of the package are run and the results are
+ * written to "jmh-result.json". The runs should be started from the root directory of the models, the data sets
+ * read the test resources files.
+ *
+ * @author Marc Henrard
+ */
+public class BenchmarksRunner {
+
+  /** The default result file. */
+  private static final String RESULT_FILE = "jmh-result.json";
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args  the JMH command line options
+   * @throws CommandLineOptionException if the options are not valid
+   * @throws RunnerException if a benchmark fails
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+    if (commandLine.getIncludes().isEmpty()) {
+      options.include(BenchmarksRunner.class.getPackage().getName() + ".*Benchmark");
+    }
+    if (!commandLine.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    if (!commandLine.getResult().hasValue()) {
+      options.result(RESULT_FILE);
+    }
+    new Runner(options.build()).run();
+  }
+
+}
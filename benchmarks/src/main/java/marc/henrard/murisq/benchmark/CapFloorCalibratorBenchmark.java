@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.benchmark;
+
+import static com.opengamma.strata.basics.currency.Currency.EUR;
+import static com.opengamma.strata.basics.date.HolidayCalendarIds.EUTA;
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_6M;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.AdjustablePayment;
+import com.opengamma.strata.basics.date.BusinessDayAdjustment;
+import com.opengamma.strata.basics.date.BusinessDayConventions;
+import com.opengamma.strata.basics.schedule.Frequency;
+import com.opengamma.strata.basics.schedule.PeriodicSchedule;
+import com.opengamma.strata.basics.schedule.RollConventions;
+import com.opengamma.strata.basics.schedule.StubConvention;
+import com.opengamma.strata.basics.value.ValueSchedule;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.DiscountingPaymentPricer;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.swap.DiscountingSwapLegPricer;
+import com.opengamma.strata.product.TradeInfo;
+import com.opengamma.strata.product.capfloor.IborCapFloor;
+import com.opengamma.strata.product.capfloor.IborCapFloorLeg;
+import com.opengamma.strata.product.capfloor.IborCapFloorTrade;
+import com.opengamma.strata.product.capfloor.ResolvedIborCapFloorTrade;
+import com.opengamma.strata.product.common.PayReceive;
+import com.opengamma.strata.product.swap.IborRateCalculation;
+
+import marc.henrard.murisq.dataset.MulticurveStandardEurDataSet;
+import marc.henrard.murisq.dataset.RationalParametersDataSet;
+import marc.henrard.murisq.model.calibration.SingleCurrencyModelCapFloorLeastSquarePriceCalibrator;
+import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorHWShapePlusCstParameters;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorHWShapePlusCstTemplate;
+import marc.henrard.murisq.pricer.capfloor.RationalTwoFactorCapletFloorletPeriodSemiExplicitPricer;
+import marc.henrard.murisq.pricer.capfloor.SingleCurrencyModelCapFloorLegPricer;
+import marc.henrard.murisq.pricer.capfloor.SingleCurrencyModelCapFloorProductPricer;
+import marc.henrard.murisq.pricer.capfloor.SingleCurrencyModelCapFloorTradePricer;
+
+/**
+ * Benchmarks {@link SingleCurrencyModelCapFloorLeastSquarePriceCalibrator} with the rational two-factor model.
+ * <p>
+ * The cap prices are generated by the model; the calibrations are on a smile (5Y caps with 6 strikes) and on a
+ * term structure (1Y to 10Y caps at one strike). Same setup as the ad-hoc calibration performance test.
+ *
+ * @author Marc Henrard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CapFloorCalibratorBenchmark {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2017, 9, 6);
+  private static final LocalTime VALUATION_TIME = LocalTime.of(11, 0);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/Brussels");
+  private static final BusinessDayAdjustment BUSINESS_ADJ = BusinessDayAdjustment.of(
+      BusinessDayConventions.MODIFIED_FOLLOWING, EUTA);
+  private static final int NB_MATURITIES = 10;
+  private static final double[] STRIKES = new double[] {-0.0025, 0.0000, 0.0050, 0.0100, 0.0150, 0.0200};
+  private static final double NOTIONAL = 100_000_000.0d;
+
+  private static final DiscountingSwapLegPricer PRICER_SWAP_LEG = DiscountingSwapLegPricer.DEFAULT;
+  private static final DiscountingPaymentPricer PRICER_PAYMENT = DiscountingPaymentPricer.DEFAULT;
+  private static final SingleCurrencyModelCapFloorProductPricer PRICER_PRODUCT =
+      new SingleCurrencyModelCapFloorProductPricer(
+          new SingleCurrencyModelCapFloorLegPricer(RationalTwoFactorCapletFloorletPeriodSemiExplicitPricer.DEFAULT),
+          PRICER_SWAP_LEG);
+  private static final SingleCurrencyModelCapFloorTradePricer PRICER_TRADE =
+      new SingleCurrencyModelCapFloorTradePricer(PRICER_PRODUCT, PRICER_PAYMENT);
+
+  private ImmutableRatesProvider multicurve;
+  private RationalTwoFactorHWShapePlusCstParameters rational2F;
+  private List<ResolvedIborCapFloorTrade> tradesSmile;
+  private List<ResolvedIborCapFloorTrade> tradesTermStructure;
+  private RationalTwoFactorHWShapePlusCstTemplate templateSmile;
+  private RationalTwoFactorHWShapePlusCstTemplate templateTermStructure;
+
+  @Setup
+  public void setup() {
+    multicurve = MulticurveStandardEurDataSet.multicurve(VALUATION_DATE, REF_DATA);
+    rational2F = RationalParametersDataSet
+        .twoFactorHWShaped(VALUATION_TIME, VALUATION_ZONE, multicurve.discountFactors(EUR));
+    LocalDate spot = EUR_EURIBOR_6M.calculateEffectiveFromFixing(VALUATION_DATE, REF_DATA);
+    tradesSmile = new ArrayList<>();
+    for (double strike : STRIKES) {
+      tradesSmile.add(trade(spot, spot.plusYears(5), strike));
+    }
+    tradesTermStructure = new ArrayList<>();
+    for (int loopmat = 0; loopmat < NB_MATURITIES; loopmat++) {
+      tradesTermStructure.add(trade(spot, spot.plusYears(loopmat + 1), STRIKES[3]));
+    }
+    BitSet fixedSmile = new BitSet(8);
+    fixedSmile.set(0); // a1
+    fixedSmile.set(1); // a2
+    fixedSmile.set(2); // correlation
+    fixedSmile.set(5); // kappa
+    fixedSmile.set(6); // c1
+    fixedSmile.set(7); // c2
+    templateSmile = template(DoubleArray.of(0.75, 0.50, 0.00, 0.45, 0.012, 0.03, 0.00, 0.0020), fixedSmile);
+    BitSet fixedTermStructure = new BitSet(8);
+    fixedTermStructure.set(1); // a2
+    fixedTermStructure.set(2); // correlation
+    fixedTermStructure.set(3); // b00
+    fixedTermStructure.set(4); // eta
+    fixedTermStructure.set(6); // c1
+    fixedTermStructure.set(7); // c2
+    templateTermStructure =
+        template(DoubleArray.of(0.80, 0.50, 0.00, 0.50, 0.01, 0.05, 0.00, 0.0020), fixedTermStructure);
+  }
+
+  @Benchmark
+  public SingleCurrencyModelParameters calibrateSmile() {
+    return SingleCurrencyModelCapFloorLeastSquarePriceCalibrator.of(templateSmile)
+        .calibrateConstraints(tradesSmile, multicurve, PRICER_TRADE);
+  }
+
+  @Benchmark
+  public SingleCurrencyModelParameters calibrateTermStructure() {
+    return SingleCurrencyModelCapFloorLeastSquarePriceCalibrator.of(templateTermStructure)
+        .calibrateConstraints(tradesTermStructure, multicurve, PRICER_TRADE);
+  }
+
+  //-------------------------------------------------------------------------
+  private RationalTwoFactorHWShapePlusCstTemplate template(DoubleArray initialGuess, BitSet fixed) {
+    return RationalTwoFactorHWShapePlusCstTemplate.of(rational2F.getTimeMeasure(), rational2F.getDiscountFactors(),
+        rational2F.getValuationTime(), rational2F.getValuationZone(), initialGuess, fixed);
+  }
+
+  // cap trade with the model price as premium
+  private ResolvedIborCapFloorTrade trade(LocalDate spot, LocalDate maturity, double strike) {
+    PeriodicSchedule paySchedule = PeriodicSchedule
+        .of(spot, maturity, Frequency.P6M, BUSINESS_ADJ, StubConvention.NONE, RollConventions.NONE);
+    IborCapFloor cap = IborCapFloor.of(IborCapFloorLeg.builder()
+        .currency(EUR)
+        .calculation(IborRateCalculation.of(EUR_EURIBOR_6M))
+        .capSchedule(ValueSchedule.of(strike))
+        .notional(ValueSchedule.of(NOTIONAL))
+        .paymentSchedule(paySchedule)
+        .payReceive(PayReceive.PAY).build());
+    double pv = PRICER_PRODUCT.presentValue(cap.resolve(REF_DATA), multicurve, rational2F).getAmount(EUR).getAmount();
+    return IborCapFloorTrade.builder()
+        .product(cap)
+        .premium(AdjustablePayment.of(EUR, -pv, VALUATION_DATE))
+        .info(TradeInfo.of(VALUATION_DATE))
+        .build()
+        .resolve(REF_DATA);
+  }
+
+}
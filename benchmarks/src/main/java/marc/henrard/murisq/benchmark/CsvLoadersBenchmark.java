@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.benchmark;
+
+import static com.opengamma.strata.basics.date.DayCounts.ACT_365F;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.index.IborIndices;
+import com.opengamma.strata.basics.index.OvernightIndices;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.io.ResourceLocator;
+import com.opengamma.strata.loader.csv.QuotesCsvLoader;
+import com.opengamma.strata.market.curve.CurveGroupName;
+import com.opengamma.strata.market.curve.CurveName;
+import com.opengamma.strata.market.curve.Curves;
+import com.opengamma.strata.market.curve.InterpolatedNodalCurve;
+import com.opengamma.strata.market.curve.RatesCurveGroup;
+import com.opengamma.strata.market.curve.RatesCurveGroupDefinition;
+import com.opengamma.strata.market.curve.interpolator.CurveExtrapolators;
+import com.opengamma.strata.market.curve.interpolator.CurveInterpolators;
+import com.opengamma.strata.market.observable.QuoteId;
+import com.opengamma.strata.market.param.LabelDateParameterMetadata;
+import com.opengamma.strata.market.param.ParameterMetadata;
+
+import marc.henrard.murisq.loader.csv.RatesCalibrationCsvLoader2;
+import marc.henrard.murisq.loader.csv.RatesCurvesCsvLoader2;
+import marc.henrard.murisq.loader.csv.RatesCurvesCsvStreamingLoader;
+
+/**
+ * Benchmarks the CSV loaders.
+ * <p>
+ * The curve calibration configuration and the quotes are the files of the test resources. The curve values files
+ * are generated at setup for one year of daily curves.
+ *
+ * @author Marc Henrard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvLoadersBenchmark {
+
+  /* Curve calibration configuration */
+  private static final String PATH_CONFIG = "src/test/resources/curve-config/USD-DSCONOIS-IBOR3MIRS-RWM/";
+  private static final ResourceLocator GROUP_FILE =
+      ResourceLocator.of(PATH_CONFIG + "USD-DSCONOIS-IBOR3MIRS-RWM-group.csv");
+  private static final ResourceLocator SETTINGS_FILE =
+      ResourceLocator.of(PATH_CONFIG + "USD-DSCONOIS-IBOR3MIRS-RWM-settings-zrlinear.csv");
+  private static final ResourceLocator NODES_FILE =
+      ResourceLocator.of(PATH_CONFIG + "USD-DSCONOIS-IBOR3MIRS-RWM-nodes.csv");
+  /* Quotes */
+  private static final LocalDate QUOTES_DATE = LocalDate.of(2018, 8, 30);
+  private static final ResourceLocator QUOTES_FILE =
+      ResourceLocator.of("src/test/resources/quotes/MARKET-DATA-2018-08-30.csv");
+  /* Curve values */
+  private static final CurveGroupName GROUP_NAME = CurveGroupName.of("USD-DSCONOIS-L3MIRS");
+  private static final CurveName DSC_NAME = CurveName.of("USD-DSCON-OIS");
+  private static final CurveName FWD_NAME = CurveName.of("USD-LIBOR3M-IRS");
+  private static final String GROUPS_CSV = "Group Name,Curve Type,Reference,Curve Name\n"
+      + "USD-DSCONOIS-L3MIRS,Discount,USD,USD-DSCON-OIS\n"
+      + "USD-DSCONOIS-L3MIRS,Forward,USD-FED-FUND,USD-DSCON-OIS\n"
+      + "USD-DSCONOIS-L3MIRS,Forward,USD-LIBOR-3M,USD-LIBOR3M-IRS\n";
+  private static final LocalDate START_DATE = LocalDate.of(2018, 1, 1);
+  private static final int NB_DATES = 365;
+
+  private Path directory;
+  private ResourceLocator curveGroups;
+  private ResourceLocator curveSettings;
+  private Path curveNodes;
+
+  @Setup
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("murisq-benchmark");
+    Path groups = directory.resolve("groups.csv");
+    Path settings = directory.resolve("settings.csv");
+    curveNodes = directory.resolve("nodes.csv");
+    Files.write(groups, GROUPS_CSV.getBytes(StandardCharsets.UTF_8));
+    StringBuilder settingsCsv = new StringBuilder();
+    RatesCurvesCsvLoader2.writeCurveSettings(settingsCsv, group(START_DATE, 0.0));
+    Files.write(settings, settingsCsv.toString().getBytes(StandardCharsets.UTF_8));
+    StringBuilder nodesCsv = new StringBuilder();
+    for (int loopdate = 0; loopdate < NB_DATES; loopdate++) {
+      StringBuilder nodesDate = new StringBuilder();
+      LocalDate date = START_DATE.plusDays(loopdate);
+      RatesCurvesCsvLoader2.writeCurveNodes(nodesDate, date, group(date, 0.00001 * loopdate));
+      String csv = nodesDate.toString();
+      nodesCsv.append((loopdate == 0) ? csv : csv.substring(csv.indexOf('\n') + 1)); // header only once
+    }
+    Files.write(curveNodes, nodesCsv.toString().getBytes(StandardCharsets.UTF_8));
+    curveGroups = ResourceLocator.ofPath(groups);
+    curveSettings = ResourceLocator.ofPath(settings);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(directory.resolve("groups.csv"));
+    Files.deleteIfExists(directory.resolve("settings.csv"));
+    Files.deleteIfExists(curveNodes);
+    Files.deleteIfExists(directory);
+  }
+
+  /* Calibration configuration parsed each time. */
+  @Benchmark
+  public ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> calibrationDefinitions() {
+    RatesCalibrationCsvLoader2.clearCache();
+    return RatesCalibrationCsvLoader2.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE);
+  }
+
+  /* Calibration configuration from the cache of parsed definitions. */
+  @Benchmark
+  public ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> calibrationDefinitionsCached() {
+    return RatesCalibrationCsvLoader2.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE);
+  }
+
+  @Benchmark
+  public ImmutableMap<QuoteId, Double> quotes() {
+    return QuotesCsvLoader.load(QUOTES_DATE, QUOTES_FILE);
+  }
+
+  @Benchmark
+  public ImmutableListMultimap<LocalDate, RatesCurveGroup> curvesAllDates() {
+    return RatesCurvesCsvLoader2.loadAllDates(
+        curveGroups, curveSettings, ImmutableList.of(ResourceLocator.ofPath(curveNodes)));
+  }
+
+  @Benchmark
+  public int curvesStreaming() {
+    RatesCurvesCsvStreamingLoader loader =
+        RatesCurvesCsvStreamingLoader.of(curveGroups, curveSettings, ImmutableList.of(curveNodes));
+    return loader.stream().mapToInt(p -> p.getSecond().size()).sum();
+  }
+
+  //-------------------------------------------------------------------------
+  private static RatesCurveGroup group(LocalDate valuationDate, double shift) {
+    InterpolatedNodalCurve dsc = curve(DSC_NAME, valuationDate, 0.0200 + shift);
+    InterpolatedNodalCurve fwd = curve(FWD_NAME, valuationDate, 0.0230 + shift);
+    return RatesCurveGroup.of(GROUP_NAME,
+        ImmutableMap.of(Currency.USD, dsc),
+        ImmutableMap.of(OvernightIndices.USD_FED_FUND, dsc, IborIndices.USD_LIBOR_3M, fwd));
+  }
+
+  private static InterpolatedNodalCurve curve(CurveName name, LocalDate valuationDate, double rate) {
+    int nbNodes = 10;
+    List<ParameterMetadata> metadata = new ArrayList<>();
+    double[] times = new double[nbNodes];
+    double[] rates = new double[nbNodes];
+    for (int loopnode = 0; loopnode < nbNodes; loopnode++) {
+      LocalDate nodeDate = valuationDate.plusYears(loopnode + 1);
+      metadata.add(LabelDateParameterMetadata.of(nodeDate, (loopnode + 1) + "Y"));
+      times[loopnode] = ACT_365F.yearFraction(valuationDate, nodeDate);
+      rates[loopnode] = rate + 0.0005 * loopnode;
+    }
+    return InterpolatedNodalCurve.of(Curves.zeroRates(name, ACT_365F, metadata),
+        DoubleArray.ofUnsafe(times), DoubleArray.ofUnsafe(rates),
+        CurveInterpolators.LINEAR, CurveExtrapolators.FLAT, CurveExtrapolators.FLAT);
+  }
+
+}
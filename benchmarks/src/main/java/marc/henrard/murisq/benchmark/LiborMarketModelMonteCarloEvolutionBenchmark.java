@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.benchmark;
+
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_3M;
+import static com.opengamma.strata.basics.index.OvernightIndices.EUR_EONIA;
+import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_3M;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.date.Tenor;
+import com.opengamma.strata.math.impl.cern.MersenneTwister64;
+import com.opengamma.strata.math.impl.random.NormalRandomNumberGenerator;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+import com.opengamma.strata.product.swap.SwapPaymentPeriod;
+
+import marc.henrard.murisq.basics.time.ScaledSecondTime;
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.model.lmm.LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters;
+import marc.henrard.murisq.model.lmm.LiborMarketModelMonteCarloEvolution;
+import marc.henrard.murisq.model.lmm.LmmdddExamplesUtils;
+
+/**
+ * Benchmarks {@link LiborMarketModelMonteCarloEvolution#pathGeneratorForwards}.
+ * <p>
+ * HW-like LMM on the quarterly periods of a 5Yx10Y swap. The forward rates are evolved to the expiry, with jumps of
+ * at most one year.
+ *
+ * @author Marc Henrard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LiborMarketModelMonteCarloEvolutionBenchmark {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 29);
+  private static final ImmutableRatesProvider MULTICURVE_EUR =
+      MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+  private static final double MEAN_REVERTION = 0.02;
+  private static final double HW_SIGMA = 0.01;
+  private static final LiborMarketModelMonteCarloEvolution EVOLUTION = LiborMarketModelMonteCarloEvolution.DEFAULT;
+
+  /** The number of paths. */
+  @Param({"1000", "10000"})
+  public int nbPaths;
+
+  private LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters lmm;
+  private double[] stepTimes;
+  private double[][] initForwards;
+
+  @Setup
+  public void setup() {
+    LocalDate expiryDate = LocalDate.of(2020, 11, 20);
+    ResolvedSwap swap = EUR_FIXED_1Y_EURIBOR_3M
+        .createTrade(expiryDate, Tenor.TENOR_10Y, BuySell.BUY, 1.0d, 0.0d, REF_DATA).resolve(REF_DATA).getProduct();
+    List<LocalDate> iborDates = new ArrayList<>();
+    List<SwapPaymentPeriod> iborLeg = swap.getLegs().get(1).getPaymentPeriods();
+    iborDates.add(iborLeg.get(0).getStartDate());
+    for (SwapPaymentPeriod period : iborLeg) {
+      iborDates.add(period.getEndDate());
+    }
+    lmm = LmmdddExamplesUtils.lmmHw(MEAN_REVERTION, HW_SIGMA, iborDates, EUR_EONIA, EUR_EURIBOR_3M,
+        ScaledSecondTime.DEFAULT, MULTICURVE_EUR, VALUATION_ZONE, VALUATION_TIME, REF_DATA);
+    stepTimes = new double[] {lmm.relativeTime(expiryDate.atTime(VALUATION_TIME).atZone(VALUATION_ZONE))};
+    int nbPeriods = iborDates.size() - 1;
+    initForwards = new double[nbPeriods][nbPaths];
+    for (int loopperiod = 0; loopperiod < nbPeriods; loopperiod++) {
+      double dfStart = MULTICURVE_EUR.discountFactor(Currency.EUR, iborDates.get(loopperiod));
+      double dfEnd = MULTICURVE_EUR.discountFactor(Currency.EUR, iborDates.get(loopperiod + 1));
+      double forward = (dfStart / dfEnd - 1.0d) / lmm.getAccrualFactors().get(loopperiod);
+      for (int looppath = 0; looppath < nbPaths; looppath++) {
+        initForwards[loopperiod][looppath] = forward;
+      }
+    }
+  }
+
+  @Benchmark
+  public double[][][] pathGeneratorForwards() {
+    NormalRandomNumberGenerator numberGenerator =
+        new NormalRandomNumberGenerator(0.0d, 1.0d, new MersenneTwister64(0));
+    return EVOLUTION.pathGeneratorForwards(stepTimes, initForwards, lmm, numberGenerator);
+  }
+
+}
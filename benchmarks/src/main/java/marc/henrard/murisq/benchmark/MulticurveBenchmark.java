@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.benchmark;
+
+import static com.opengamma.strata.basics.currency.Currency.USD;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.date.DayCount;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.basics.date.HolidayCalendarIds;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.io.ResourceLocator;
+import com.opengamma.strata.loader.csv.RatesCalibrationCsvLoader;
+import com.opengamma.strata.market.ValueType;
+import com.opengamma.strata.market.curve.Curve;
+import com.opengamma.strata.market.curve.CurveGroupName;
+import com.opengamma.strata.market.curve.CurveName;
+import com.opengamma.strata.market.curve.DefaultCurveMetadata;
+import com.opengamma.strata.market.curve.InterpolatedNodalCurve;
+import com.opengamma.strata.market.curve.RatesCurveGroupDefinition;
+import com.opengamma.strata.market.curve.interpolator.CurveExtrapolators;
+import com.opengamma.strata.market.curve.interpolator.CurveInterpolators;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+
+import marc.henrard.murisq.dataset.MulticurveStandardDataSet;
+import marc.henrard.murisq.model.multicurve.CurveCtdVm;
+import marc.henrard.murisq.model.multicurve.RatesProviderImpliedGroupDefinition;
+
+/**
+ * Benchmarks the multi-curve constructions {@link CurveCtdVm#of} and
+ * {@link RatesProviderImpliedGroupDefinition#generate}.
+ * <p>
+ * The cheapest-to-deliver curve is built on three crossing USD curves up to 12Y, as in the curve tests. The implied
+ * group is the USD risk-free-rate-with-margin group generated from the standard USD calibrated multi-curve.
+ *
+ * @author Marc Henrard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MulticurveBenchmark {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+
+  /* CTD curve */
+  private static final LocalDate CTD_VALUATION_DATE = LocalDate.of(2018, 4, 9);
+  private static final LocalDate CTD_FINAL_DATE = CTD_VALUATION_DATE.plusYears(12);
+  private static final HolidayCalendar USNY_IMPL = REF_DATA.getValue(HolidayCalendarIds.USNY);
+  private static final DayCount DC_DF = DayCounts.ACT_365F;
+  private static final CurveName CTD_NAME = CurveName.of("CTD");
+  private static final DefaultCurveMetadata META_TEMPLATE = DefaultCurveMetadata.builder()
+      .xValueType(ValueType.YEAR_FRACTION).yValueType(ValueType.ZERO_RATE).dayCount(DC_DF)
+      .curveName(CurveName.of("tmp")).build();
+  private static final List<Curve> CTD_CURVES = ImmutableList.of(
+      InterpolatedNodalCurve.of(META_TEMPLATE.toBuilder().curveName(CurveName.of("On0")).build(),
+          DoubleArray.of(0.25, 0.5, 1.0, 2.0, 5.0, 10.0),
+          DoubleArray.of(0.01, 0.01, 0.01, 0.01, 0.01, 0.01), CurveInterpolators.LINEAR),
+      InterpolatedNodalCurve.of(META_TEMPLATE.toBuilder().curveName(CurveName.of("On1")).build(),
+          DoubleArray.of(0.25, 0.5, 1.0, 2.0, 5.0, 10.0),
+          DoubleArray.of(0.007, 0.009, 0.010, 0.012, 0.0115, 0.0121), CurveInterpolators.LINEAR),
+      InterpolatedNodalCurve.of(META_TEMPLATE.toBuilder().curveName(CurveName.of("On2"))
+          .yValueType(ValueType.DISCOUNT_FACTOR).build(),
+          DoubleArray.of(0.25, 0.5, 0.75, 1.1, 2.1, 5.1, 9.9),
+          DoubleArray.of(0.99875, 0.9930, 0.99325, 0.986, 0.97, 0.94, 0.90),
+          CurveInterpolators.LOG_LINEAR, CurveExtrapolators.EXPONENTIAL, CurveExtrapolators.EXPONENTIAL));
+
+  /* Implied group */
+  private static final LocalDate IMPLIED_VALUATION_DATE = LocalDate.of(2018, 8, 30);
+  private static final String PATH_CONFIG = "src/test/resources/curve-config/";
+  private static final CurveGroupName GROUP_NAME = CurveGroupName.of("USD-DSCONOIS-L3MIRS");
+  private static final CurveGroupName GROUP_NAME_RWM = CurveGroupName.of("USD-DSCONOIS-IBOR3MIRS-RWM");
+  private static final String QUOTES_FILE = "src/test/resources/quotes/MARKET-DATA-2018-08-30.csv";
+
+  private ImmutableRatesProvider multicurve;
+  private RatesCurveGroupDefinition groupDefinitionRwm;
+
+  @Setup
+  public void setup() {
+    String path = PATH_CONFIG + "USD-DSCONOIS-L3MIRS/USD-DSCONOIS-L3MIRS-";
+    multicurve = MulticurveStandardDataSet.multicurve(IMPLIED_VALUATION_DATE, GROUP_NAME,
+        ResourceLocator.of(path + "group.csv"), ResourceLocator.of(path + "settings-zrlinear.csv"),
+        ResourceLocator.of(path + "nodes.csv"), QUOTES_FILE, REF_DATA);
+    String pathRwm = PATH_CONFIG + "USD-DSCONOIS-IBOR3MIRS-RWM/USD-DSCONOIS-IBOR3MIRS-RWM-";
+    groupDefinitionRwm = RatesCalibrationCsvLoader.load(ResourceLocator.of(pathRwm + "group.csv"),
+        ResourceLocator.of(pathRwm + "settings-zrlinear.csv"), ResourceLocator.of(pathRwm + "nodes.csv"))
+        .get(GROUP_NAME_RWM);
+  }
+
+  @Benchmark
+  public CurveCtdVm curveCtdVm() {
+    return CurveCtdVm.of(CTD_NAME, CTD_FINAL_DATE, USNY_IMPL, CTD_VALUATION_DATE, DC_DF, USD, CTD_CURVES);
+  }
+
+  @Benchmark
+  public ImmutableRatesProvider impliedGroupDefinition() {
+    return RatesProviderImpliedGroupDefinition.generate(groupDefinitionRwm, multicurve, REF_DATA);
+  }
+
+}
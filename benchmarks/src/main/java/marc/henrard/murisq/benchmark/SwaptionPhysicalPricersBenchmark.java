@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.benchmark;
+
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_3M;
+import static com.opengamma.strata.basics.index.OvernightIndices.EUR_EONIA;
+import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_3M;
+import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_6M;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.date.AdjustableDate;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.date.Tenor;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParametersProvider;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.swap.DiscountingSwapProductPricer;
+import com.opengamma.strata.pricer.swaption.HullWhiteSwaptionPhysicalProductPricer;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.common.LongShort;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+import com.opengamma.strata.product.swap.SwapPaymentPeriod;
+import com.opengamma.strata.product.swap.type.FixedIborSwapConvention;
+import com.opengamma.strata.product.swaption.PhysicalSwaptionSettlement;
+import com.opengamma.strata.product.swaption.ResolvedSwaption;
+import com.opengamma.strata.product.swaption.Swaption;
+
+import marc.henrard.murisq.basics.time.ScaledSecondTime;
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.dataset.RationalTwoFactorParameters20151120DataSet;
+import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantParameters;
+import marc.henrard.murisq.model.lmm.LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters;
+import marc.henrard.murisq.model.lmm.LmmdddExamplesUtils;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorGenericParameters;
+import marc.henrard.murisq.pricer.swaption.G2ppSwaptionPhysicalProductExplicitApproxPricer;
+import marc.henrard.murisq.pricer.swaption.LmmdddSwaptionPhysicalProductExplicitApproxPricer;
+import marc.henrard.murisq.pricer.swaption.RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer;
+
+/**
+ * Benchmarks the physical delivery swaption pricers in the LMM, G2++, rational and Hull-White models.
+ * <p>
+ * Each benchmark prices a portfolio of 5Y expiry swaptions with tenors 2Y, 5Y and 10Y and 3 strikes around the
+ * money. The LMM, G2++ and Hull-White swaptions are on EURIBOR 3M swaps, the rational swaptions on EURIBOR 6M swaps,
+ * the index of the rational model data set.
+ *
+ * @author Marc Henrard
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SwaptionPhysicalPricersBenchmark {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 29);
+  private static final ImmutableRatesProvider MULTICURVE_EUR =
+      MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+  private static final LocalDate EXPIRY_DATE = LocalDate.of(2020, 11, 20);
+  private static final Tenor[] TENORS = new Tenor[] {Tenor.TENOR_2Y, Tenor.TENOR_5Y, Tenor.TENOR_10Y};
+  private static final double[] MONEYNESS = new double[] {-0.0050, 0.0, 0.0050};
+  private static final double NOTIONAL = 1_000_000.0d;
+
+  /* Models */
+  private static final double MEAN_REVERTION = 0.02;
+  private static final double HW_SIGMA = 0.01;
+  private static final HullWhiteOneFactorPiecewiseConstantParametersProvider HW_PROVIDER =
+      HullWhiteOneFactorPiecewiseConstantParametersProvider.of(
+          HullWhiteOneFactorPiecewiseConstantParameters.of(MEAN_REVERTION, DoubleArray.of(HW_SIGMA), DoubleArray.of()),
+          DayCounts.ACT_365F, VALUATION_DATE, VALUATION_TIME, VALUATION_ZONE);
+  private static final G2ppPiecewiseConstantParameters G2PP = G2ppPiecewiseConstantParameters.builder()
+      .currency(Currency.EUR)
+      .correlation(-0.50)
+      .kappa1(0.02)
+      .kappa2(0.20)
+      .volatility1(DoubleArray.of(0.01d))
+      .volatility2(DoubleArray.of(0.005d))
+      .volatilityTime(DoubleArray.of())
+      .valuationDate(VALUATION_DATE)
+      .valuationTime(VALUATION_TIME)
+      .valuationZone(VALUATION_ZONE)
+      .timeMeasure(ScaledSecondTime.DEFAULT)
+      .build();
+  private static final RationalTwoFactorGenericParameters RATIONAL_2F =
+      RationalTwoFactorParameters20151120DataSet.RATIONAL_2F;
+
+  /* Pricers */
+  private static final DiscountingSwapProductPricer PRICER_SWAP = DiscountingSwapProductPricer.DEFAULT;
+  private static final LmmdddSwaptionPhysicalProductExplicitApproxPricer PRICER_LMM =
+      LmmdddSwaptionPhysicalProductExplicitApproxPricer.DEFAULT;
+  private static final G2ppSwaptionPhysicalProductExplicitApproxPricer PRICER_G2PP =
+      G2ppSwaptionPhysicalProductExplicitApproxPricer.DEFAULT;
+  private static final RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer PRICER_RATIONAL =
+      RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer.DEFAULT;
+  private static final HullWhiteSwaptionPhysicalProductPricer PRICER_HW =
+      HullWhiteSwaptionPhysicalProductPricer.DEFAULT;
+
+  private LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters lmm;
+  private List<ResolvedSwaption> swaptions3M;
+  private List<ResolvedSwaption> swaptions6M;
+
+  @Setup
+  public void setup() {
+    ResolvedSwap swapMax = EUR_FIXED_1Y_EURIBOR_3M
+        .createTrade(EXPIRY_DATE, TENORS[TENORS.length - 1], BuySell.BUY, NOTIONAL, 0.0d, REF_DATA)
+        .resolve(REF_DATA).getProduct();
+    List<LocalDate> iborDates = new ArrayList<>();
+    List<SwapPaymentPeriod> iborLeg = swapMax.getLegs().get(1).getPaymentPeriods();
+    iborDates.add(iborLeg.get(0).getStartDate());
+    for (SwapPaymentPeriod period : iborLeg) {
+      iborDates.add(period.getEndDate());
+    }
+    lmm = LmmdddExamplesUtils.lmmHw(MEAN_REVERTION, HW_SIGMA, iborDates, EUR_EONIA, EUR_EURIBOR_3M,
+        ScaledSecondTime.DEFAULT, MULTICURVE_EUR, VALUATION_ZONE, VALUATION_TIME, REF_DATA);
+    swaptions3M = swaptions(EUR_FIXED_1Y_EURIBOR_3M);
+    swaptions6M = swaptions(EUR_FIXED_1Y_EURIBOR_6M);
+  }
+
+  @Benchmark
+  public double lmmExplicitApprox() {
+    double pv = 0.0d;
+    for (ResolvedSwaption swaption : swaptions3M) {
+      pv += PRICER_LMM.presentValue(swaption, MULTICURVE_EUR, lmm).getAmount();
+    }
+    return pv;
+  }
+
+  @Benchmark
+  public double g2ppExplicitApprox() {
+    double pv = 0.0d;
+    for (ResolvedSwaption swaption : swaptions3M) {
+      pv += PRICER_G2PP.presentValue(swaption, MULTICURVE_EUR, G2PP).getAmount();
+    }
+    return pv;
+  }
+
+  @Benchmark
+  public double rationalTwoFactorSemiExplicit() {
+    double pv = 0.0d;
+    for (ResolvedSwaption swaption : swaptions6M) {
+      pv += PRICER_RATIONAL.presentValue(swaption, MULTICURVE_EUR, RATIONAL_2F).getAmount();
+    }
+    return pv;
+  }
+
+  @Benchmark
+  public double hullWhite() {
+    double pv = 0.0d;
+    for (ResolvedSwaption swaption : swaptions3M) {
+      pv += PRICER_HW.presentValue(swaption, MULTICURVE_EUR, HW_PROVIDER).getAmount();
+    }
+    return pv;
+  }
+
+  //-------------------------------------------------------------------------
+  // long payer swaptions on all tenors and moneyness
+  private static List<ResolvedSwaption> swaptions(FixedIborSwapConvention convention) {
+    List<ResolvedSwaption> swaptions = new ArrayList<>();
+    for (Tenor tenor : TENORS) {
+      ResolvedSwap swap0 = convention
+          .createTrade(EXPIRY_DATE, tenor, BuySell.BUY, NOTIONAL, 0.0d, REF_DATA).resolve(REF_DATA).getProduct();
+      double parRate = PRICER_SWAP.parRate(swap0, MULTICURVE_EUR);
+      for (double moneyness : MONEYNESS) {
+        swaptions.add(Swaption.builder()
+            .expiryDate(AdjustableDate.of(EXPIRY_DATE)).expiryTime(VALUATION_TIME).expiryZone(VALUATION_ZONE)
+            .longShort(LongShort.LONG)
+            .swaptionSettlement(PhysicalSwaptionSettlement.DEFAULT)
+            .underlying(convention
+                .createTrade(EXPIRY_DATE, tenor, BuySell.BUY, NOTIONAL, parRate + moneyness, REF_DATA).getProduct())
+            .build().resolve(REF_DATA));
+      }
+    }
+    return swaptions;
+  }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.basics.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * Metrics sink keeping in memory a {@link LatencyHistogram} for each timer and a total for each counter.
+ * <p>
+ * The sink can be updated concurrently from several threads. The snapshots are taken without blocking the updates.
+ *
+ * @author Marc Henrard
+ */
+public final class HistogramMetricsSink implements MetricsSink {
+
+  /** The histograms of the timers. */
+  private final ConcurrentHashMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+  /** The counters. */
+  private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+  @Override
+  public void recordTime(String name, long nanos) {
+    timers.computeIfAbsent(name, n -> new LatencyHistogram()).record(nanos);
+  }
+
+  @Override
+  public void increment(String name, long count) {
+    counters.computeIfAbsent(name, n -> new LongAdder()).add(count);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the histogram of a timer.
+   *
+   * @param name  the metric name
+   * @return the histogram, empty if the timer has not been used
+   */
+  public LatencyHistogram timer(String name) {
+    LatencyHistogram histogram = timers.get(name);
+    return (histogram != null) ? histogram : new LatencyHistogram();
+  }
+
+  /**
+   * Returns the value of a counter.
+   *
+   * @param name  the metric name
+   * @return the value, 0 if the counter has not been used
+   */
+  public long counter(String name) {
+    LongAdder counter = counters.get(name);
+    return (counter != null) ? counter.sum() : 0L;
+  }
+
+  /**
+   * Returns the histograms of all the timers, sorted by name.
+   * <p>
+   * The histograms are the live ones; they continue to be updated.
+   *
+   * @return the histograms
+   */
+  public ImmutableSortedMap<String, LatencyHistogram> getTimers() {
+    return ImmutableSortedMap.copyOf(timers);
+  }
+
+  /**
+   * Returns the values of all the counters, sorted by name.
+   *
+   * @return the counter values
+   */
+  public ImmutableSortedMap<String, Long> getCounters() {
+    ImmutableSortedMap.Builder<String, Long> builder = ImmutableSortedMap.naturalOrder();
+    for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+      builder.put(entry.getKey(), entry.getValue().sum());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Removes all the timers and counters.
+   */
+  public void clear() {
+    timers.clear();
+    counters.clear();
+  }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.basics.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.opengamma.strata.collect.ArgChecker;
+
+/**
+ * Histogram of durations.
+ * <p>
+ * The durations are counted in buckets of powers of 2 nanoseconds: the bucket k contains the durations d with
+ * 2^(k-1) &lt;= d &lt; 2^k, the bucket 0 the durations below 1 nanosecond. The quantiles are estimated by the upper
+ * bound of the bucket in which they fall, i.e. within a factor 2. The count, the total and the maximum are exact.
+ * <p>
+ * The histogram can be updated concurrently from several threads.
+ *
+ * @author Marc Henrard
+ */
+public final class LatencyHistogram {
+
+  /** The number of buckets, one for each bit of a long. */
+  private static final int NB_BUCKETS = 64;
+
+  /** The number of durations in each bucket. */
+  private final AtomicLongArray buckets = new AtomicLongArray(NB_BUCKETS);
+  /** The number of durations. */
+  private final LongAdder count = new LongAdder();
+  /** The sum of the durations. */
+  private final LongAdder total = new LongAdder();
+  /** The maximum duration. */
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+  /**
+   * Records a duration.
+   * <p>
+   * Negative durations are recorded as 0.
+   *
+   * @param nanos  the duration in nanoseconds
+   */
+  public void record(long nanos) {
+    long d = Math.max(nanos, 0L);
+    buckets.incrementAndGet(NB_BUCKETS - Long.numberOfLeadingZeros(d));
+    count.increment();
+    total.add(d);
+    max.accumulate(d);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the number of durations recorded.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the sum of the durations recorded.
+   *
+   * @return the total in nanoseconds
+   */
+  public long getTotalNanos() {
+    return total.sum();
+  }
+
+  /**
+   * Returns the maximum duration recorded.
+   *
+   * @return the maximum in nanoseconds, 0 if no duration has been recorded
+   */
+  public long getMaxNanos() {
+    return max.get();
+  }
+
+  /**
+   * Returns the mean of the durations recorded.
+   *
+   * @return the mean in nanoseconds, 0 if no duration has been recorded
+   */
+  public double getMeanNanos() {
+    long n = count.sum();
+    return (n == 0L) ? 0.0d : (double) total.sum() / n;
+  }
+
+  /**
+   * Returns an upper bound of a quantile of the durations recorded.
+   * <p>
+   * The bound is the upper bound of the bucket containing the quantile, capped by the maximum.
+   *
+   * @param quantile  the quantile, between 0 and 1
+   * @return the quantile upper bound in nanoseconds, 0 if no duration has been recorded
+   */
+  public long quantileNanos(double quantile) {
+    ArgChecker.inRangeInclusive(quantile, 0.0d, 1.0d, "quantile");
+    long[] counts = new long[NB_BUCKETS];
+    long n = 0L;
+    for (int loopb = 0; loopb < NB_BUCKETS; loopb++) {
+      counts[loopb] = buckets.get(loopb);
+      n += counts[loopb];
+    }
+    if (n == 0L) {
+      return 0L;
+    }
+    long rank = Math.max((long) Math.ceil(quantile * n), 1L);
+    long cumulative = 0L;
+    for (int loopb = 0; loopb < NB_BUCKETS; loopb++) {
+      cumulative += counts[loopb];
+      if (cumulative >= rank) {
+        long upper = (loopb == NB_BUCKETS - 1) ? Long.MAX_VALUE : (1L << loopb) - 1L;
+        return Math.min(upper, max.get());
+      }
+    }
+    return max.get();
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyHistogram[count=" + getCount() + ", meanNanos=" + getMeanNanos() +
+        ", p50Nanos=" + quantileNanos(0.50) + ", p99Nanos=" + quantileNanos(0.99) +
+        ", maxNanos=" + getMaxNanos() + "]";
+  }
+
+}
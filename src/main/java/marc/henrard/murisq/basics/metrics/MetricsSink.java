@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.basics.metrics;
+
+/**
+ * Destination of the instrumentation data produced by the pricers, calibrators and curve constructions.
+ * <p>
+ * The metrics are identified by names of the form "ClassName.phase", e.g. "CurveCtdVm.of".
+ * The implementations must be thread-safe; the methods are called from the pricing threads and should return
+ * quickly.
+ * <p>
+ * The sink is installed with {@link PricingMetrics#setSink(MetricsSink)}. The default is {@link #NONE}.
+ *
+ * @author Marc Henrard
+ */
+public interface MetricsSink {
+
+  /**
+   * The sink ignoring all the data. When installed, the instrumentation is disabled.
+   */
+  public static final MetricsSink NONE = new MetricsSink() {
+    @Override
+    public void recordTime(String name, long nanos) {
+    }
+
+    @Override
+    public void increment(String name, long count) {
+    }
+  };
+
+  /**
+   * Records the duration of one execution of a phase.
+   *
+   * @param name  the metric name
+   * @param nanos  the duration in nanoseconds
+   */
+  public abstract void recordTime(String name, long nanos);
+
+  /**
+   * Increments a counter.
+   *
+   * @param name  the metric name
+   * @param count  the increment
+   */
+  public abstract void increment(String name, long count);
+
+}
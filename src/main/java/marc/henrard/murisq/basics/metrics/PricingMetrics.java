@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.basics.metrics;
+
+import com.opengamma.strata.collect.ArgChecker;
+
+/**
+ * Entry point of the instrumentation of the pricers, calibrators and curve constructions.
+ * <p>
+ * The instrumentation is opt-in. By default the sink is {@link MetricsSink#NONE} and each instrumentation point
+ * costs one volatile read; no time is measured and no metric name is built.
+ * <p>
+ * Typical use in an instrumented method:
+ * <pre>
+ *   long start = PricingMetrics.start();
+ *   ...
+ *   PricingMetrics.stop(METRIC_NAME, start);
+ * </pre>
+ *
+ * @author Marc Henrard
+ */
+public final class PricingMetrics {
+
+  /** The start value returned when the instrumentation is disabled. */
+  private static final long DISABLED = Long.MIN_VALUE;
+
+  /** The sink receiving the metrics. */
+  private static volatile MetricsSink sink = MetricsSink.NONE;
+
+  // Private constructor
+  private PricingMetrics() {
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Installs the sink receiving the metrics.
+   * <p>
+   * Use {@link MetricsSink#NONE} to disable the instrumentation.
+   *
+   * @param metricsSink  the sink
+   */
+  public static void setSink(MetricsSink metricsSink) {
+    sink = ArgChecker.notNull(metricsSink, "metricsSink");
+  }
+
+  /**
+   * Returns the sink receiving the metrics.
+   *
+   * @return the sink
+   */
+  public static MetricsSink getSink() {
+    return sink;
+  }
+
+  /**
+   * Returns true if a sink other than {@link MetricsSink#NONE} is installed.
+   *
+   * @return the flag
+   */
+  public static boolean isEnabled() {
+    return sink != MetricsSink.NONE;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Starts the measurement of a phase.
+   *
+   * @return the start time in nanoseconds, or a marker value if the instrumentation is disabled
+   */
+  public static long start() {
+    return (sink != MetricsSink.NONE) ? System.nanoTime() : DISABLED;
+  }
+
+  /**
+   * Ends the measurement of a phase and records its duration.
+   * <p>
+   * Nothing is recorded if the instrumentation was disabled at the start.
+   *
+   * @param name  the metric name
+   * @param start  the value returned by {@link #start()}
+   */
+  public static void stop(String name, long start) {
+    if (start != DISABLED) {
+      sink.recordTime(name, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Ends the measurement of a phase and records its duration.
+   * <p>
+   * The metric name is "SimpleClassName.phase"; it is built only if the duration is recorded.
+   *
+   * @param owner  the class of the object executing the phase
+   * @param phase  the phase
+   * @param start  the value returned by {@link #start()}
+   */
+  public static void stop(Class<?> owner, String phase, long start) {
+    if (start != DISABLED) {
+      long nanos = System.nanoTime() - start;
+      sink.recordTime(owner.getSimpleName() + "." + phase, nanos);
+    }
+  }
+
+  /**
+   * Increments a counter by one.
+   *
+   * @param name  the metric name
+   */
+  public static void count(String name) {
+    MetricsSink current = sink;
+    if (current != MetricsSink.NONE) {
+      current.increment(name, 1L);
+    }
+  }
+
+}
@@ -0,0 +1,8 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+
+/**
+ * Package with the opt-in instrumentation of the pricers, calibrators and curve constructions.
+ */
+package marc.henrard.murisq.basics.metrics;
@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.loader.csv;
+
+import static java.util.stream.Collectors.toList;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CharSource;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.Unchecked;
+import com.opengamma.strata.collect.io.ResourceLocator;
+import com.opengamma.strata.loader.csv.SeasonalityDefinitionCsvLoader;
+import com.opengamma.strata.market.curve.CurveGroupName;
+import com.opengamma.strata.market.curve.RatesCurveGroupDefinition;
+
+/**
+ * Cache of the curve group definitions parsed by {@link RatesCalibrationCsvLoader2}.
+ * <p>
+ * The entries are keyed by a hash of the content of the files, so loading an unchanged configuration a second time
+ * does not parse it again, whatever the source of the content. The number of entries is bounded; the least recently
+ * used entries are evicted first. Files that cannot be parsed are not cached.
+ * <p>
+ * The cache can be used concurrently from several threads.
+ *
+ * @author Marc Henrard
+ */
+public final class RatesCalibrationCsvCache {
+
+  /** The cached group definitions. */
+  private final Cache<HashCode, ImmutableMap<CurveGroupName, RatesCurveGroupDefinition>> cache;
+
+  // Private constructor
+  private RatesCalibrationCsvCache(long maximumSize) {
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .build();
+  }
+
+  /**
+   * Creates an empty cache with a maximum number of entries.
+   *
+   * @param maximumSize  the maximum number of entries
+   * @return the cache
+   */
+  public static RatesCalibrationCsvCache of(long maximumSize) {
+    ArgChecker.notNegativeOrZero(maximumSize, "maximumSize");
+    return new RatesCalibrationCsvCache(maximumSize);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Loads one or more CSV format curve calibration files.
+   * <p>
+   * See {@link RatesCalibrationCsvLoader2#load(ResourceLocator, ResourceLocator, ResourceLocator...)}.
+   *
+   * @param groupsResource  the curve groups CSV resource
+   * @param settingsResource  the curve settings CSV resource
+   * @param curveNodeResources  the CSV resources for curve nodes
+   * @return the group definitions, mapped by name
+   * @throws IllegalArgumentException if the files contain a duplicate entry
+   */
+  public ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> load(
+      ResourceLocator groupsResource,
+      ResourceLocator settingsResource,
+      ResourceLocator... curveNodeResources) {
+
+    return load(groupsResource, settingsResource, ImmutableList.copyOf(curveNodeResources));
+  }
+
+  /**
+   * Loads one or more CSV format curve calibration files.
+   * <p>
+   * See {@link RatesCalibrationCsvLoader2#load(ResourceLocator, ResourceLocator, Collection)}.
+   *
+   * @param groupsResource  the curve groups CSV resource
+   * @param settingsResource  the curve settings CSV resource
+   * @param curveNodeResources  the CSV resources for curve nodes
+   * @return the group definitions, mapped by name
+   * @throws IllegalArgumentException if the files contain a duplicate entry
+   */
+  public ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> load(
+      ResourceLocator groupsResource,
+      ResourceLocator settingsResource,
+      Collection<ResourceLocator> curveNodeResources) {
+
+    Collection<CharSource> curveNodeCharSources =
+        curveNodeResources.stream().map(r -> r.getCharSource()).collect(toList());
+    return parse(groupsResource.getCharSource(), settingsResource.getCharSource(), curveNodeCharSources);
+  }
+
+  /**
+   * Parses one or more CSV format curve calibration files.
+   * <p>
+   * See {@link RatesCalibrationCsvLoader2#parse(CharSource, CharSource, Collection)}.
+   *
+   * @param groupsCharSource  the curve groups CSV character source
+   * @param settingsCharSource  the curve settings CSV character source
+   * @param curveNodeCharSources  the CSV character sources for curve nodes
+   * @return the group definitions, mapped by name
+   * @throws IllegalArgumentException if the files contain a duplicate entry
+   */
+  public ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> parse(
+      CharSource groupsCharSource,
+      CharSource settingsCharSource,
+      Collection<CharSource> curveNodeCharSources) {
+
+    Hasher hasher = Hashing.sha256().newHasher();
+    CharSource groups = content(groupsCharSource, hasher);
+    CharSource settings = content(settingsCharSource, hasher);
+    List<CharSource> nodes = curveNodeCharSources.stream().map(c -> content(c, hasher)).collect(toList());
+    return get(hasher.hash(), () -> RatesCalibrationCsvLoader2.parse0(groups, settings, ImmutableMap.of(), nodes));
+  }
+
+  /**
+   * Parses one or more CSV format curve calibration files with seasonality.
+   * <p>
+   * See {@link RatesCalibrationCsvLoader2#parseWithSeasonality(CharSource, CharSource, CharSource, Collection)}.
+   *
+   * @param groupsCharSource  the curve groups CSV character source
+   * @param settingsCharSource  the curve settings CSV character source
+   * @param seasonalityResource  the seasonality CSV character source
+   * @param curveNodeCharSources  the CSV character sources for curve nodes
+   * @return the group definitions, mapped by name
+   * @throws IllegalArgumentException if the files contain a duplicate entry
+   */
+  public ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> parseWithSeasonality(
+      CharSource groupsCharSource,
+      CharSource settingsCharSource,
+      CharSource seasonalityResource,
+      Collection<CharSource> curveNodeCharSources) {
+
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString("Seasonality", StandardCharsets.UTF_8); // different key from the one without seasonality
+    CharSource seasonality = content(seasonalityResource, hasher);
+    CharSource groups = content(groupsCharSource, hasher);
+    CharSource settings = content(settingsCharSource, hasher);
+    List<CharSource> nodes = curveNodeCharSources.stream().map(c -> content(c, hasher)).collect(toList());
+    return get(hasher.hash(), () -> RatesCalibrationCsvLoader2.parse0(
+        groups, settings, SeasonalityDefinitionCsvLoader.parseSeasonalityDefinitions(seasonality), nodes));
+  }
+
+  /**
+   * Returns the approximate number of entries in the cache.
+   *
+   * @return the number of entries
+   */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Removes all the entries from the cache.
+   */
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  //-------------------------------------------------------------------------
+  // the cached value or the parsed value
+  private ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> get(
+      HashCode key,
+      Callable<ImmutableMap<CurveGroupName, RatesCurveGroupDefinition>> loader) {
+
+    try {
+      return cache.get(key, loader);
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  // reads the content of a source once, adding it to the hash
+  private static CharSource content(CharSource source, Hasher hasher) {
+    String content = Unchecked.wrap(() -> source.read());
+    hasher.putInt(content.length()).putString(content, StandardCharsets.UTF_8);
+    return CharSource.wrap(content);
+  }
+
+}
@@ -136,6 +136,9 @@ import marc.henrard.murisq.product.swap.type.OvernightOvernightSwapTemplate;
  * <p>
  * CSV files sometimes contain a Unicode Byte Order Mark.
  * Callers are responsible for handling this, such as by using {@link UnicodeBom}.
+ * <p>
+ * The curve nodes files are parsed in parallel. The loader does not cache the results; to avoid parsing unchanged
+ * configurations again, use a {@link RatesCalibrationCsvCache}.
  */
 public final class RatesCalibrationCsvLoader2 {
 
@@ -279,7 +282,7 @@ public final class RatesCalibrationCsvLoader2 {
   }
 
   // parse based on pre-parsed seasonality
-  private static ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> parse0(
+  static ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> parse0(
       CharSource groupsCharSource,
       CharSource settingsCharSource,
       Map<CurveName, SeasonalityDefinition> seasonality,
@@ -289,8 +292,8 @@ public final class RatesCalibrationCsvLoader2 {
     List<RatesCurveGroupDefinition> curveGroups = RatesCurveGroupDefinitionCsvLoader.parseCurveGroupDefinitions(groupsCharSource);
     Map<CurveName, LoadedCurveSettings2> settingsMap = RatesCurvesCsvLoader2.parseCurveSettings(settingsCharSource);
 
-    // load curve definitions
-    List<CurveDefinition> curveDefinitions = curveNodeCharSources.stream()
+    // load curve definitions, one file per task
+    List<CurveDefinition> curveDefinitions = curveNodeCharSources.parallelStream()
         .flatMap(res -> parseSingle(res, settingsMap).stream())
         .collect(toImmutableList());
 
@@ -372,6 +375,16 @@ public final class RatesCalibrationCsvLoader2 {
     return CurveNodeDateOrder.of(minGap.getDays(), clashAction);
   }
 
+  // parse the period in the first group of the regex
+  private static Period parsePeriod(Pattern regex, String timeStr, String instrumentName) {
+    Matcher matcher = regex.matcher(timeStr.toUpperCase(Locale.ENGLISH));
+    if (!matcher.matches()) {
+      throw new IllegalArgumentException(
+          Messages.format("Invalid time format for {}: {}", instrumentName, timeStr));
+    }
+    return Period.parse("P" + matcher.group(1));
+  }
+
   // build the curves
   private static List<CurveDefinition> buildCurveDefinition(
       Map<CurveName, LoadedCurveSettings2> settingsMap,
@@ -454,11 +467,7 @@ public final class RatesCalibrationCsvLoader2 {
       CurveNodeDate date,
       CurveNodeDateOrder order) {
 
-    Matcher matcher = SIMPLE_YMD_TIME_REGEX.matcher(timeStr.toUpperCase(Locale.ENGLISH));
-    if (!matcher.matches()) {
-      throw new IllegalArgumentException(Messages.format("Invalid time format for Term Deposit: {}", timeStr));
-    }
-    Period periodToEnd = Period.parse("P" + matcher.group(1));
+    Period periodToEnd = parsePeriod(SIMPLE_YMD_TIME_REGEX, timeStr, "Term Deposit");
     TermDepositConvention convention = TermDepositConvention.of(conventionStr);
     TermDepositTemplate template = TermDepositTemplate.of(periodToEnd, convention);
     return TermDepositCurveNode.builder()
@@ -571,11 +580,7 @@ public final class RatesCalibrationCsvLoader2 {
       CurveNodeDate date,
       CurveNodeDateOrder order) {
 
-    Matcher matcher = SIMPLE_YMD_TIME_REGEX.matcher(timeStr.toUpperCase(Locale.ENGLISH));
-    if (!matcher.matches()) {
-      throw new IllegalArgumentException(Messages.format("Invalid time format for Fixed-Overnight swap: {}", timeStr));
-    }
-    Period periodToEnd = Period.parse("P" + matcher.group(1));
+    Period periodToEnd = parsePeriod(SIMPLE_YMD_TIME_REGEX, timeStr, "Fixed-Overnight swap");
     FixedOvernightSwapConvention convention = FixedOvernightSwapConvention.of(conventionStr);
     FixedOvernightSwapTemplate template = FixedOvernightSwapTemplate.of(Tenor.of(periodToEnd), convention);
     return FixedOvernightSwapCurveNode.builder()
@@ -597,11 +602,7 @@ public final class RatesCalibrationCsvLoader2 {
       CurveNodeDate date,
       CurveNodeDateOrder order) {
 
-    Matcher matcher = SIMPLE_YMD_TIME_REGEX.matcher(timeStr.toUpperCase(Locale.ENGLISH));
-    if (!matcher.matches()) {
-      throw new IllegalArgumentException(Messages.format("Invalid time format for Fixed-Ibor swap: {}", timeStr));
-    }
-    Period periodToEnd = Period.parse("P" + matcher.group(1));
+    Period periodToEnd = parsePeriod(SIMPLE_YMD_TIME_REGEX, timeStr, "Fixed-Ibor swap");
     FixedIborSwapConvention convention = FixedIborSwapConvention.of(conventionStr);
     FixedIborSwapTemplate template = FixedIborSwapTemplate.of(Tenor.of(periodToEnd), convention);
     return FixedIborSwapCurveNode.builder()
@@ -623,11 +624,7 @@ public final class RatesCalibrationCsvLoader2 {
       CurveNodeDate date,
       CurveNodeDateOrder order) {
 
-    Matcher matcher = SIMPLE_YM_TIME_REGEX.matcher(timeStr.toUpperCase(Locale.ENGLISH));
-    if (!matcher.matches()) {
-      throw new IllegalArgumentException(Messages.format("Invalid time format for Ibor-Ibor swap: {}", timeStr));
-    }
-    Period periodToEnd = Period.parse("P" + matcher.group(1));
+    Period periodToEnd = parsePeriod(SIMPLE_YM_TIME_REGEX, timeStr, "Ibor-Ibor swap");
     IborIborSwapConvention convention = IborIborSwapConvention.of(conventionStr);
     IborIborSwapTemplate template = IborIborSwapTemplate.of(Tenor.of(periodToEnd), convention);
     return IborIborSwapCurveNode.builder()
@@ -649,11 +646,7 @@ public final class RatesCalibrationCsvLoader2 {
       CurveNodeDate date,
       CurveNodeDateOrder order) {
 
-    Matcher matcher = SIMPLE_YM_TIME_REGEX.matcher(timeStr.toUpperCase(Locale.ENGLISH));
-    if (!matcher.matches()) {
-      throw new IllegalArgumentException(Messages.format("Invalid time format for Three legs basis swap: {}", timeStr));
-    }
-    Period periodToEnd = Period.parse("P" + matcher.group(1));
+    Period periodToEnd = parsePeriod(SIMPLE_YM_TIME_REGEX, timeStr, "Three legs basis swap");
     ThreeLegBasisSwapConvention convention = ThreeLegBasisSwapConvention.of(conventionStr);
     ThreeLegBasisSwapTemplate template = ThreeLegBasisSwapTemplate.of(Tenor.of(periodToEnd), convention);
     return ThreeLegBasisSwapCurveNode.builder()
@@ -675,11 +668,7 @@ public final class RatesCalibrationCsvLoader2 {
       CurveNodeDate date,
       CurveNodeDateOrder order) {
 
-    Matcher matcher = SIMPLE_YM_TIME_REGEX.matcher(timeStr.toUpperCase(Locale.ENGLISH));
-    if (!matcher.matches()) {
-      throw new IllegalArgumentException(Messages.format("Invalid time format for Cross Currency Swap: {}", timeStr));
-    }
-    Period periodToEnd = Period.parse("P" + matcher.group(1));
+    Period periodToEnd = parsePeriod(SIMPLE_YM_TIME_REGEX, timeStr, "Cross Currency Swap");
     XCcyIborIborSwapConvention convention = XCcyIborIborSwapConvention.of(conventionStr);
     XCcyIborIborSwapTemplate template = XCcyIborIborSwapTemplate.of(Tenor.of(periodToEnd), convention);
     return XCcyIborIborSwapCurveNode.builder()
@@ -701,11 +690,7 @@ public final class RatesCalibrationCsvLoader2 {
       CurveNodeDate date,
       CurveNodeDateOrder order) {
 
-    Matcher matcher = SIMPLE_YMD_TIME_REGEX.matcher(timeStr.toUpperCase(Locale.ENGLISH));
-    if (!matcher.matches()) {
-      throw new IllegalArgumentException(Messages.format("Invalid time format for Overnight-Ibor swap: {}", timeStr));
-    }
-    Period periodToEnd = Period.parse("P" + matcher.group(1));
+    Period periodToEnd = parsePeriod(SIMPLE_YMD_TIME_REGEX, timeStr, "Overnight-Ibor swap");
     OvernightIborSwapConvention convention = OvernightIborSwapConvention.of(conventionStr);
     OvernightIborSwapTemplate template = OvernightIborSwapTemplate.of(Tenor.of(periodToEnd), convention);
     return OvernightIborSwapCurveNode.builder()
@@ -727,11 +712,7 @@ public final class RatesCalibrationCsvLoader2 {
       CurveNodeDate date,
       CurveNodeDateOrder order) {
 
-    Matcher matcher = SIMPLE_YMD_TIME_REGEX.matcher(timeStr.toUpperCase(Locale.ENGLISH));
-    if (!matcher.matches()) {
-      throw new IllegalArgumentException(Messages.format("Invalid time format for Overnight-Overnight swap: {}", timeStr));
-    }
-    Period periodToEnd = Period.parse("P" + matcher.group(1));
+    Period periodToEnd = parsePeriod(SIMPLE_YMD_TIME_REGEX, timeStr, "Overnight-Overnight swap");
     OvernightOvernightSwapConvention convention = OvernightOvernightSwapConvention.of(conventionStr);
     OvernightOvernightSwapTemplate template = OvernightOvernightSwapTemplate.of(Tenor.of(periodToEnd), convention);
     return OvernightOvernightSwapCurveNode.builder()
@@ -756,11 +737,7 @@ public final class RatesCalibrationCsvLoader2 {
     if (!DoubleMath.fuzzyEquals(spread, 0d, 1e-10d)) {
       throw new IllegalArgumentException("Additional spread must be zero for FX swaps");
     }
-    Matcher matcher = SIMPLE_YMD_TIME_REGEX.matcher(timeStr.toUpperCase(Locale.ENGLISH));
-    if (!matcher.matches()) {
-      throw new IllegalArgumentException(Messages.format("Invalid time format for FX swap: {}", timeStr));
-    }
-    Period periodToEnd = Period.parse("P" + matcher.group(1));
+    Period periodToEnd = parsePeriod(SIMPLE_YMD_TIME_REGEX, timeStr, "FX swap");
     FxSwapConvention convention = FxSwapConvention.of(conventionStr);
     FxSwapTemplate template = FxSwapTemplate.of(periodToEnd, convention);
     return FxSwapCurveNode.builder()
@@ -781,11 +758,7 @@ public final class RatesCalibrationCsvLoader2 {
       CurveNodeDate date,
       CurveNodeDateOrder order) {
 
-    Matcher matcher = SIMPLE_YM_TIME_REGEX.matcher(timeStr.toUpperCase(Locale.ENGLISH));
-    if (!matcher.matches()) {
-      throw new IllegalArgumentException(Messages.format("Invalid time format for Fixed-Inflation swap: {}", timeStr));
-    }
-    Period periodToEnd = Period.parse("P" + matcher.group(1));
+    Period periodToEnd = parsePeriod(SIMPLE_YM_TIME_REGEX, timeStr, "Fixed-Inflation swap");
     FixedInflationSwapConvention convention = FixedInflationSwapConvention.of(conventionStr);
     FixedInflationSwapTemplate template = FixedInflationSwapTemplate.of(Tenor.of(periodToEnd), convention);
     return FixedInflationSwapCurveNode.builder()
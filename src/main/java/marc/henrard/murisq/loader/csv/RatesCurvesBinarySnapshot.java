@@ -0,0 +1,378 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.loader.csv;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.date.DayCount;
+import com.opengamma.strata.basics.index.Index;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.market.ValueType;
+import com.opengamma.strata.market.curve.Curve;
+import com.opengamma.strata.market.curve.CurveGroupName;
+import com.opengamma.strata.market.curve.CurveInfoType;
+import com.opengamma.strata.market.curve.CurveMetadata;
+import com.opengamma.strata.market.curve.CurveName;
+import com.opengamma.strata.market.curve.DefaultCurveMetadata;
+import com.opengamma.strata.market.curve.InterpolatedNodalCurve;
+import com.opengamma.strata.market.curve.RatesCurveGroup;
+import com.opengamma.strata.market.curve.interpolator.CurveExtrapolator;
+import com.opengamma.strata.market.curve.interpolator.CurveInterpolator;
+import com.opengamma.strata.market.param.DatedParameterMetadata;
+import com.opengamma.strata.market.param.LabelDateParameterMetadata;
+import com.opengamma.strata.market.param.ParameterMetadata;
+
+/**
+ * Binary snapshot of a history of rates curve groups, with writer and memory-mapped reader.
+ * <p>
+ * The snapshot is an alternative to the CSV files of {@link RatesCurvesCsvLoader2} for large histories. It
+ * contains one curve group per valuation date; all the groups must have the same structure (group name,
+ * curves names and settings, discount and forward references). The format is:
+ * <ul>
+ * <li>Header: magic number and version.
+ * <li>Settings dictionary: for each curve, the name, value types, day count, interpolator and extrapolators.
+ * <li>Group structure: the group name and the curve used for each discount currency and forward index.
+ * <li>Labels dictionary: the distinct node labels.
+ * <li>Date index: for each valuation date, the date as epoch day and the position of its data.
+ * <li>Data: for each date and each curve, the number of nodes, the node dates as epoch days, the node label
+ *  indices and the node values as raw doubles.
+ * </ul>
+ * The reader maps the file in memory; opening the file only reads the dictionaries and the date index.
+ * The curves of a date are built directly from the mapped buffer, without parsing. The reader is immutable
+ * and can be used concurrently from several threads.
+ *
+ * @author Marc Henrard
+ */
+public final class RatesCurvesBinarySnapshot {
+
+  /** The magic number at the start of the file: "MRCG". */
+  private static final int MAGIC = 0x4D524347;
+  /** The version of the format. */
+  private static final int VERSION = 1;
+
+  /** The curve group name. */
+  private final CurveGroupName groupName;
+  /** The settings of the curves, in the dictionary order. */
+  private final ImmutableList<LoadedCurveSettings2> settings;
+  /** The curve index for each discount currency. */
+  private final ImmutableMap<Currency, Integer> discountCurves;
+  /** The curve index for each forward index. */
+  private final ImmutableMap<Index, Integer> forwardCurves;
+  /** The labels dictionary. */
+  private final ImmutableList<String> labels;
+  /** The valuation dates as epoch days, in increasing order. */
+  private final long[] dates;
+  /** The position of the data of each date in the buffer. */
+  private final int[] positions;
+  /** The mapped buffer. Read only with absolute methods, thread safe. */
+  private final ByteBuffer buffer;
+
+  // Private constructor
+  private RatesCurvesBinarySnapshot(
+      CurveGroupName groupName,
+      ImmutableList<LoadedCurveSettings2> settings,
+      ImmutableMap<Currency, Integer> discountCurves,
+      ImmutableMap<Index, Integer> forwardCurves,
+      ImmutableList<String> labels,
+      long[] dates,
+      int[] positions,
+      ByteBuffer buffer) {
+
+    this.groupName = groupName;
+    this.settings = settings;
+    this.discountCurves = discountCurves;
+    this.forwardCurves = forwardCurves;
+    this.labels = labels;
+    this.dates = dates;
+    this.positions = positions;
+    this.buffer = buffer;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Writes a history of curve groups in a binary snapshot file.
+   * <p>
+   * The curves must be interpolated nodal curves with dated parameter metadata.
+   *
+   * @param file  the file
+   * @param groups  the curve groups, by valuation date
+   */
+  public static void write(Path file, SortedMap<LocalDate, RatesCurveGroup> groups) {
+    ArgChecker.isFalse(groups.isEmpty(), "at least one curve group required");
+    RatesCurveGroup reference = groups.get(groups.firstKey());
+    // Curves dictionary
+    Map<CurveName, Integer> curveIndices = new LinkedHashMap<>();
+    List<InterpolatedNodalCurve> referenceCurves = new ArrayList<>();
+    Map<Currency, Integer> discountCurves = new LinkedHashMap<>();
+    for (Entry<Currency, Curve> entry : reference.getDiscountCurves().entrySet()) {
+      discountCurves.put(entry.getKey(), curveIndex(entry.getValue(), curveIndices, referenceCurves));
+    }
+    Map<Index, Integer> forwardCurves = new LinkedHashMap<>();
+    for (Entry<Index, Curve> entry : reference.getForwardCurves().entrySet()) {
+      forwardCurves.put(entry.getKey(), curveIndex(entry.getValue(), curveIndices, referenceCurves));
+    }
+    // Labels dictionary and data
+    Map<String, Integer> labelIndices = new LinkedHashMap<>();
+    for (RatesCurveGroup group : groups.values()) {
+      ArgChecker.isTrue(group.getName().equals(reference.getName()), "all groups must have the same name");
+      for (CurveName name : curveIndices.keySet()) {
+        InterpolatedNodalCurve curve = interpolated(group.findCurve(name)
+            .orElseThrow(() -> new IllegalArgumentException("Curve missing: " + name)));
+        for (int i = 0; i < curve.getParameterCount(); i++) {
+          labelIndices.computeIfAbsent(dated(curve.getParameterMetadata(i)).getLabel(), l -> labelIndices.size());
+        }
+      }
+    }
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      // settings
+      out.writeInt(referenceCurves.size());
+      for (InterpolatedNodalCurve curve : referenceCurves) {
+        CurveMetadata metadata = curve.getMetadata();
+        writeString(out, curve.getName().getName());
+        writeString(out, metadata.getXValueType().getName());
+        writeString(out, metadata.getYValueType().getName());
+        writeString(out, metadata.getInfo(CurveInfoType.DAY_COUNT).getName());
+        writeString(out, curve.getInterpolator().getName());
+        writeString(out, curve.getExtrapolatorLeft().getName());
+        writeString(out, curve.getExtrapolatorRight().getName());
+      }
+      // group structure
+      writeString(out, reference.getName().getName());
+      out.writeInt(discountCurves.size());
+      for (Entry<Currency, Integer> entry : discountCurves.entrySet()) {
+        writeString(out, entry.getKey().getCode());
+        out.writeInt(entry.getValue());
+      }
+      out.writeInt(forwardCurves.size());
+      for (Entry<Index, Integer> entry : forwardCurves.entrySet()) {
+        writeString(out, entry.getKey().getName());
+        out.writeInt(entry.getValue());
+      }
+      // labels
+      out.writeInt(labelIndices.size());
+      for (String label : labelIndices.keySet()) {
+        writeString(out, label);
+      }
+      // date index: the data starts after the index
+      out.writeInt(groups.size());
+      long position = out.size() + groups.size() * 16L;
+      for (Entry<LocalDate, RatesCurveGroup> entry : groups.entrySet()) {
+        out.writeLong(entry.getKey().toEpochDay());
+        out.writeLong(position);
+        for (CurveName name : curveIndices.keySet()) {
+          position += 4 + 16L * entry.getValue().findCurve(name).get().getParameterCount();
+        }
+      }
+      ArgChecker.isTrue(position <= Integer.MAX_VALUE, "snapshot limited to 2GB");
+      // data
+      for (RatesCurveGroup group : groups.values()) {
+        for (CurveName name : curveIndices.keySet()) {
+          InterpolatedNodalCurve curve = interpolated(group.findCurve(name).get());
+          int nbNodes = curve.getParameterCount();
+          out.writeInt(nbNodes);
+          for (int i = 0; i < nbNodes; i++) {
+            DatedParameterMetadata metadata = dated(curve.getParameterMetadata(i));
+            out.writeInt((int) metadata.getDate().toEpochDay());
+            out.writeInt(labelIndices.get(metadata.getLabel()));
+          }
+          for (int i = 0; i < nbNodes; i++) {
+            out.writeDouble(curve.getYValues().get(i));
+          }
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Opens a binary snapshot file.
+   * <p>
+   * The file is mapped in memory and only the dictionaries and the date index are read.
+   *
+   * @param file  the file
+   * @return the snapshot reader
+   */
+  public static RatesCurvesBinarySnapshot open(Path file) {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ArgChecker.isTrue(channel.size() <= Integer.MAX_VALUE, "snapshot limited to 2GB");
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    ByteBuffer header = buffer.duplicate();
+    ArgChecker.isTrue(header.getInt() == MAGIC, "not a curve group snapshot: {}", file);
+    int version = header.getInt();
+    ArgChecker.isTrue(version == VERSION, "unsupported snapshot version: {}", version);
+    int nbCurves = header.getInt();
+    ImmutableList.Builder<LoadedCurveSettings2> settings = ImmutableList.builder();
+    for (int loopc = 0; loopc < nbCurves; loopc++) {
+      settings.add(LoadedCurveSettings2.of(
+          CurveName.of(readString(header)),
+          ValueType.of(readString(header)),
+          ValueType.of(readString(header)),
+          DayCount.of(readString(header)),
+          CurveInterpolator.of(readString(header)),
+          CurveExtrapolator.of(readString(header)),
+          CurveExtrapolator.of(readString(header))));
+    }
+    CurveGroupName groupName = CurveGroupName.of(readString(header));
+    int nbDiscount = header.getInt();
+    ImmutableMap.Builder<Currency, Integer> discountCurves = ImmutableMap.builder();
+    for (int loopd = 0; loopd < nbDiscount; loopd++) {
+      discountCurves.put(Currency.of(readString(header)), header.getInt());
+    }
+    int nbForward = header.getInt();
+    ImmutableMap.Builder<Index, Integer> forwardCurves = ImmutableMap.builder();
+    for (int loopf = 0; loopf < nbForward; loopf++) {
+      forwardCurves.put(Index.of(readString(header)), header.getInt());
+    }
+    int nbLabels = header.getInt();
+    ImmutableList.Builder<String> labels = ImmutableList.builder();
+    for (int loopl = 0; loopl < nbLabels; loopl++) {
+      labels.add(readString(header));
+    }
+    int nbDates = header.getInt();
+    long[] dates = new long[nbDates];
+    int[] positions = new int[nbDates];
+    for (int loopd = 0; loopd < nbDates; loopd++) {
+      dates[loopd] = header.getLong();
+      positions[loopd] = Math.toIntExact(header.getLong());
+    }
+    return new RatesCurvesBinarySnapshot(groupName, settings.build(), discountCurves.build(),
+        forwardCurves.build(), labels.build(), dates, positions, buffer);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the valuation dates in the snapshot, in increasing order.
+   *
+   * @return the dates
+   */
+  public ImmutableList<LocalDate> getDates() {
+    ImmutableList.Builder<LocalDate> builder = ImmutableList.builder();
+    for (long date : dates) {
+      builder.add(LocalDate.ofEpochDay(date));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Loads the curve group for a given date.
+   *
+   * @param marketDataDate  the curve date to load
+   * @return the curve group
+   * @throws IllegalArgumentException if the date is not in the snapshot
+   */
+  public RatesCurveGroup load(LocalDate marketDataDate) {
+    int indexDate = Arrays.binarySearch(dates, marketDataDate.toEpochDay());
+    ArgChecker.isTrue(indexDate >= 0, "date not in snapshot: {}", marketDataDate);
+    int position = positions[indexDate];
+    List<Curve> curves = new ArrayList<>(settings.size());
+    for (LoadedCurveSettings2 setting : settings) {
+      int nbNodes = buffer.getInt(position);
+      position += 4;
+      double[] xValues = new double[nbNodes];
+      double[] yValues = new double[nbNodes];
+      List<ParameterMetadata> pointsMetadata = new ArrayList<>(nbNodes);
+      for (int i = 0; i < nbNodes; i++) {
+        LocalDate nodeDate = LocalDate.ofEpochDay(buffer.getInt(position));
+        String label = labels.get(buffer.getInt(position + 4));
+        position += 8;
+        xValues[i] = setting.getDayCount().yearFraction(marketDataDate, nodeDate);
+        pointsMetadata.add(LabelDateParameterMetadata.of(nodeDate, label));
+      }
+      for (int i = 0; i < nbNodes; i++) {
+        yValues[i] = buffer.getDouble(position);
+        position += 8;
+      }
+      CurveMetadata curveMetadata = DefaultCurveMetadata.builder()
+          .curveName(setting.getCurveName())
+          .xValueType(setting.getXValueType())
+          .yValueType(setting.getYValueType())
+          .dayCount(setting.getDayCount())
+          .parameterMetadata(pointsMetadata)
+          .build();
+      curves.add(InterpolatedNodalCurve.builder()
+          .metadata(curveMetadata)
+          .xValues(DoubleArray.ofUnsafe(xValues))
+          .yValues(DoubleArray.ofUnsafe(yValues))
+          .interpolator(setting.getInterpolator())
+          .extrapolatorLeft(setting.getExtrapolatorLeft())
+          .extrapolatorRight(setting.getExtrapolatorRight())
+          .build());
+    }
+    Map<Currency, Curve> discount = new HashMap<>();
+    discountCurves.forEach((ccy, i) -> discount.put(ccy, curves.get(i)));
+    Map<Index, Curve> forward = new HashMap<>();
+    forwardCurves.forEach((index, i) -> forward.put(index, curves.get(i)));
+    return RatesCurveGroup.of(groupName, discount, forward);
+  }
+
+  //-------------------------------------------------------------------------
+  // the index of a curve in the dictionary, adding it if necessary
+  private static int curveIndex(
+      Curve curve,
+      Map<CurveName, Integer> curveIndices,
+      List<InterpolatedNodalCurve> curves) {
+
+    Integer index = curveIndices.get(curve.getName());
+    if (index == null) {
+      index = curves.size();
+      curveIndices.put(curve.getName(), index);
+      curves.add(interpolated(curve));
+    }
+    return index;
+  }
+
+  private static InterpolatedNodalCurve interpolated(Curve curve) {
+    ArgChecker.isTrue(curve instanceof InterpolatedNodalCurve, "Curve must be an InterpolatedNodalCurve");
+    return (InterpolatedNodalCurve) curve;
+  }
+
+  private static DatedParameterMetadata dated(ParameterMetadata metadata) {
+    ArgChecker.isTrue(metadata instanceof DatedParameterMetadata,
+        "Curve metadata must contain a date, but was " + metadata.getClass().getSimpleName());
+    return (DatedParameterMetadata) metadata;
+  }
+
+  private static void writeString(DataOutputStream out, String str) throws IOException {
+    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
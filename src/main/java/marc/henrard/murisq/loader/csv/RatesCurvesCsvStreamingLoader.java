@@ -0,0 +1,366 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.loader.csv;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.io.CharSource;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.Messages;
+import com.opengamma.strata.collect.io.CsvFile;
+import com.opengamma.strata.collect.io.CsvRow;
+import com.opengamma.strata.collect.io.ResourceLocator;
+import com.opengamma.strata.collect.tuple.Pair;
+import com.opengamma.strata.loader.LoaderUtils;
+import com.opengamma.strata.loader.csv.RatesCurveGroupDefinitionCsvLoader;
+import com.opengamma.strata.market.curve.Curve;
+import com.opengamma.strata.market.curve.CurveName;
+import com.opengamma.strata.market.curve.RatesCurveGroup;
+import com.opengamma.strata.market.curve.RatesCurveGroupDefinition;
+
+/**
+ * Streaming loader of rates curves from CSV files with many valuation dates.
+ * <p>
+ * The files have the same format as the ones of {@link RatesCurvesCsvLoader2}. The curve values files are
+ * read once at construction to build an index: for each valuation date, the byte ranges of the lines with that
+ * date in each file. Only the valuation date column is parsed during the indexing. The curve groups for a given
+ * date are materialized on demand by reading and parsing only the lines of that date.
+ * <p>
+ * The memory used is proportional to the number of dates (index) and not to the number of nodes. The dates can be
+ * processed one after the other with the iterator or in parallel with the stream. The index is immutable and the
+ * materialization can be done concurrently from several threads.
+ * <p>
+ * The loader is most efficient when the lines of each date are contiguous in the files, which is the case of files
+ * written date by date with {@link RatesCurvesCsvLoader2#writeCurveNodes}; the lines do not need to be sorted.
+ * The date and curve name fields must not be quoted.
+ *
+ * @author Marc Henrard
+ */
+public final class RatesCurvesCsvStreamingLoader {
+
+  private static final String CURVE_DATE = "Valuation Date";
+  private static final String CURVE_NAME = "Curve Name";
+  private static final String CURVE_POINT_DATE = "Date";
+  private static final String CURVE_POINT_VALUE = "Value";
+  private static final String CURVE_POINT_LABEL = "Label";
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** The curve group definitions. */
+  private final ImmutableList<RatesCurveGroupDefinition> curveGroups;
+  /** The curve settings. */
+  private final ImmutableMap<CurveName, LoadedCurveSettings2> settingsMap;
+  /** The curve values files. */
+  private final ImmutableList<Path> curveFiles;
+  /** The header line of each file, including the line terminator. */
+  private final ImmutableList<String> headers;
+  /** The index: for each date, the segments of lines in the files. */
+  private final ImmutableSortedMap<LocalDate, ImmutableList<Segment>> index;
+
+  // Private constructor
+  private RatesCurvesCsvStreamingLoader(
+      ImmutableList<RatesCurveGroupDefinition> curveGroups,
+      ImmutableMap<CurveName, LoadedCurveSettings2> settingsMap,
+      ImmutableList<Path> curveFiles,
+      ImmutableList<String> headers,
+      ImmutableSortedMap<LocalDate, ImmutableList<Segment>> index) {
+
+    this.curveGroups = curveGroups;
+    this.settingsMap = settingsMap;
+    this.curveFiles = curveFiles;
+    this.headers = headers;
+    this.index = index;
+  }
+
+  /**
+   * Creates a loader and indexes the curve values files by valuation date.
+   *
+   * @param groupsResource  the curve groups CSV resource
+   * @param settingsResource  the curve settings CSV resource
+   * @param curveValueFiles  the CSV files for curves
+   * @return the loader
+   */
+  public static RatesCurvesCsvStreamingLoader of(
+      ResourceLocator groupsResource,
+      ResourceLocator settingsResource,
+      Collection<Path> curveValueFiles) {
+
+    ImmutableList<RatesCurveGroupDefinition> curveGroups = ImmutableList.copyOf(
+        RatesCurveGroupDefinitionCsvLoader.parseCurveGroupDefinitions(groupsResource.getCharSource()));
+    ImmutableMap<CurveName, LoadedCurveSettings2> settingsMap =
+        ImmutableMap.copyOf(RatesCurvesCsvLoader2.parseCurveSettings(settingsResource.getCharSource()));
+    ImmutableList<Path> curveFiles = ImmutableList.copyOf(curveValueFiles);
+    ImmutableList.Builder<String> headers = ImmutableList.builder();
+    Map<LocalDate, List<Segment>> index = new TreeMap<>();
+    for (int loopfile = 0; loopfile < curveFiles.size(); loopfile++) {
+      headers.add(indexFile(loopfile, curveFiles.get(loopfile), index));
+    }
+    ImmutableSortedMap.Builder<LocalDate, ImmutableList<Segment>> indexBuilder = ImmutableSortedMap.naturalOrder();
+    for (Map.Entry<LocalDate, List<Segment>> entry : index.entrySet()) {
+      indexBuilder.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+    }
+    return new RatesCurvesCsvStreamingLoader(curveGroups, settingsMap, curveFiles, headers.build(), indexBuilder.build());
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the valuation dates available in the files, in increasing order.
+   *
+   * @return the dates
+   */
+  public ImmutableList<LocalDate> getDates() {
+    return index.keySet().asList();
+  }
+
+  /**
+   * Loads the curve groups for a given date.
+   * <p>
+   * Only the lines of that date are read from the files.
+   *
+   * @param marketDataDate  the curve date to load
+   * @return the loaded curve groups, empty if the date is not in the files
+   * @throws IllegalArgumentException if the files contain a duplicate entry
+   */
+  public ImmutableList<RatesCurveGroup> load(LocalDate marketDataDate) {
+    ImmutableList<Segment> segments = index.get(marketDataDate);
+    if (segments == null) {
+      return ImmutableList.of();
+    }
+    Map<CurveName, List<LoadedCurveNode2>> nodes = new HashMap<>();
+    Map<CurveName, Integer> curveFile = new HashMap<>();
+    for (Segment segment : segments) {
+      CsvFile csv = CsvFile.of(CharSource.wrap(headers.get(segment.file) + read(segment)), true);
+      for (CsvRow row : csv.rows()) {
+        CurveName curveName = CurveName.of(row.getField(CURVE_NAME));
+        Integer filePrevious = curveFile.putIfAbsent(curveName, segment.file);
+        if (filePrevious != null && filePrevious != segment.file) {
+          throw new IllegalArgumentException(
+              "Rates curve loader found multiple curves with the same name: " + curveName);
+        }
+        LocalDate pointDate = LoaderUtils.parseDate(row.getField(CURVE_POINT_DATE));
+        double pointValue = Double.parseDouble(row.getField(CURVE_POINT_VALUE));
+        nodes.computeIfAbsent(curveName, k -> new ArrayList<>())
+            .add(LoadedCurveNode2.of(pointDate, pointValue, row.getField(CURVE_POINT_LABEL)));
+      }
+    }
+    List<Curve> curves = new ArrayList<>();
+    for (Map.Entry<CurveName, List<LoadedCurveNode2>> entry : nodes.entrySet()) {
+      LoadedCurveSettings2 settings = settingsMap.get(entry.getKey());
+      if (settings == null) {
+        throw new IllegalArgumentException(
+            Messages.format("Missing settings for curve: {}, {}", marketDataDate, entry.getKey()));
+      }
+      curves.add(settings.createCurve(marketDataDate, entry.getValue()));
+    }
+    ImmutableList.Builder<RatesCurveGroup> groups = ImmutableList.builder();
+    for (RatesCurveGroupDefinition groupDefinition : curveGroups) {
+      groups.add(RatesCurveGroup.ofCurves(groupDefinition, curves));
+    }
+    return groups.build();
+  }
+
+  /**
+   * Returns an iterator on the dates and the curve groups.
+   * <p>
+   * The curve groups are materialized when the iterator reaches the date.
+   *
+   * @return the iterator
+   */
+  public Iterator<Pair<LocalDate, ImmutableList<RatesCurveGroup>>> iterator() {
+    Iterator<LocalDate> dates = index.keySet().iterator();
+    return new Iterator<Pair<LocalDate, ImmutableList<RatesCurveGroup>>>() {
+      @Override
+      public boolean hasNext() {
+        return dates.hasNext();
+      }
+
+      @Override
+      public Pair<LocalDate, ImmutableList<RatesCurveGroup>> next() {
+        LocalDate date = dates.next();
+        return Pair.of(date, load(date));
+      }
+    };
+  }
+
+  /**
+   * Returns a stream on the dates and the curve groups.
+   * <p>
+   * The curve groups are materialized lazily, when the stream elements are consumed. The stream is sequential
+   * and can be made parallel; the dates are split efficiently.
+   *
+   * @return the stream
+   */
+  public Stream<Pair<LocalDate, ImmutableList<RatesCurveGroup>>> stream() {
+    return getDates().stream().map(date -> Pair.of(date, load(date)));
+  }
+
+  //-------------------------------------------------------------------------
+  // reads a segment of a file
+  private String read(Segment segment) {
+    ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(segment.end - segment.start));
+    try (FileChannel channel = FileChannel.open(curveFiles.get(segment.file), StandardOpenOption.READ)) {
+      long position = segment.start;
+      while (buffer.hasRemaining()) {
+        int nbRead = channel.read(buffer, position);
+        if (nbRead < 0) {
+          throw new IllegalStateException("File modified after indexing: " + curveFiles.get(segment.file));
+        }
+        position += nbRead;
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return new String(buffer.array(), StandardCharsets.UTF_8);
+  }
+
+  // indexes a file, returns the header line
+  private static String indexFile(int fileIndex, Path file, Map<LocalDate, List<Segment>> index) {
+    try (InputStream stream = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+      LineReader reader = new LineReader(stream);
+      byte[] headerBytes = reader.nextLine();
+      ArgChecker.isTrue(headerBytes != null, "empty file: {}", file);
+      int headerStart = hasBom(headerBytes) ? 3 : 0;
+      String header = new String(headerBytes, headerStart, reader.length - headerStart, StandardCharsets.UTF_8);
+      int dateColumn = columns(header.trim()).indexOf(CURVE_DATE);
+      ArgChecker.isTrue(dateColumn >= 0, "Header not found: '{}' in {}", CURVE_DATE, file);
+      LocalDate dateCurrent = null;
+      long segmentStart = reader.position;
+      long lineStart = reader.position;
+      byte[] line;
+      while ((line = reader.nextLine()) != null) {
+        String dateStr = field(line, reader.length, dateColumn);
+        if (dateStr != null) { // blank lines are ignored
+          LocalDate date = LoaderUtils.parseDate(dateStr);
+          if (!date.equals(dateCurrent)) {
+            if (dateCurrent != null) {
+              index.computeIfAbsent(dateCurrent, d -> new ArrayList<>())
+                  .add(new Segment(fileIndex, segmentStart, lineStart));
+            }
+            dateCurrent = date;
+            segmentStart = lineStart;
+          }
+        }
+        lineStart = reader.position;
+      }
+      if (dateCurrent != null) {
+        index.computeIfAbsent(dateCurrent, d -> new ArrayList<>())
+            .add(new Segment(fileIndex, segmentStart, lineStart));
+      }
+      return header.endsWith("\n") ? header : header + "\n";
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static boolean hasBom(byte[] bytes) {
+    return bytes.length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF;
+  }
+
+  private static List<String> columns(String header) {
+    List<String> columns = new ArrayList<>();
+    for (String column : header.split(",", -1)) {
+      columns.add(column.trim());
+    }
+    return columns;
+  }
+
+  // the trimmed content of a field of a line, null if the line is blank
+  private static String field(byte[] line, int length, int column) {
+    int start = 0;
+    int current = 0;
+    for (int i = 0; i < length; i++) {
+      if (line[i] == ',') {
+        if (current == column) {
+          return new String(line, start, i - start, StandardCharsets.UTF_8).trim();
+        }
+        current++;
+        start = i + 1;
+      }
+    }
+    String last = new String(line, start, length - start, StandardCharsets.UTF_8).trim();
+    if (current == column && !last.isEmpty()) {
+      return last;
+    }
+    ArgChecker.isTrue(last.isEmpty() && current == 0, "Missing column {} in line: {}",
+        column, new String(line, 0, length, StandardCharsets.UTF_8));
+    return null;
+  }
+
+  /**
+   * Inner class reading the lines of a stream as bytes and tracking the position in the stream.
+   */
+  private static final class LineReader {
+
+    private final InputStream stream;
+    /** The current line, including the line terminator. */
+    private byte[] line = new byte[256];
+    /** The length of the current line. */
+    private int length;
+    /** The position in the stream after the current line. */
+    private long position;
+
+    private LineReader(InputStream stream) {
+      this.stream = stream;
+    }
+
+    // returns the buffer with the next line, null if the end of the stream is reached
+    private byte[] nextLine() throws IOException {
+      length = 0;
+      int b;
+      while ((b = stream.read()) >= 0) {
+        if (length == line.length) {
+          byte[] larger = new byte[2 * line.length];
+          System.arraycopy(line, 0, larger, 0, length);
+          line = larger;
+        }
+        line[length++] = (byte) b;
+        position++;
+        if (b == '\n') {
+          break;
+        }
+      }
+      return (length == 0) ? null : line;
+    }
+  }
+
+  /**
+   * Inner class describing a contiguous range of lines in a file.
+   */
+  private static final class Segment {
+
+    /** The index of the file. */
+    private final int file;
+    /** The start position, in bytes. */
+    private final long start;
+    /** The end position (exclusive), in bytes. */
+    private final long end;
+
+    private Segment(int file, long start, long end) {
+      this.file = file;
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.calibration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.array.DoubleArray;
+
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+
+/**
+ * Store of calibrated parameters used as starting points for the next calibrations.
+ * <p>
+ * The calibrations of a daily production run are close to the ones of the previous day. Starting the solvers
+ * from the previous solution instead of the default initial guess reduces the number of iterations.
+ * The store keeps, for each calibration key, the last solution of the solver, i.e. the parameters actually
+ * calibrated (not the fixed ones). The keys are chosen by the user; they typically describe the currency,
+ * the model and the calibration basket, e.g. "EUR-LMM-SWPT-10Y".
+ * <p>
+ * The store is held in memory and can be saved to and loaded from a file. It can be used concurrently from
+ * several threads.
+ *
+ * @author Marc Henrard
+ */
+public final class CalibrationWarmStartStore {
+
+  /** The magic number at the start of the file: "MRCW". */
+  private static final int MAGIC = 0x4D524357;
+  /** The version of the format. */
+  private static final int VERSION = 1;
+  /** The name of the metric counting the calibrations started from a stored solution. */
+  private static final String METRIC_HIT = "CalibrationWarmStartStore.hit";
+  /** The name of the metric counting the failed calibrations from a stored solution. */
+  private static final String METRIC_FALLBACK = "CalibrationWarmStartStore.fallback";
+
+  /** The calibrated parameters by key. */
+  private final ConcurrentHashMap<String, DoubleArray> parameters = new ConcurrentHashMap<>();
+
+  // Private constructor
+  private CalibrationWarmStartStore() {
+  }
+
+  /**
+   * Creates an empty store.
+   *
+   * @return the store
+   */
+  public static CalibrationWarmStartStore empty() {
+    return new CalibrationWarmStartStore();
+  }
+
+  /**
+   * Loads a store from a file written by {@link #snapshot(Path)}.
+   * <p>
+   * If the file does not exist, e.g. on the first run, an empty store is returned.
+   *
+   * @param file  the file
+   * @return the store
+   */
+  public static CalibrationWarmStartStore load(Path file) {
+    CalibrationWarmStartStore store = new CalibrationWarmStartStore();
+    if (!Files.exists(file)) {
+      return store;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      ArgChecker.isTrue(in.readInt() == MAGIC, "not a calibration warm-start file: {}", file);
+      int version = in.readInt();
+      ArgChecker.isTrue(version == VERSION, "unsupported warm-start file version: {}", version);
+      int nbKeys = in.readInt();
+      for (int loopk = 0; loopk < nbKeys; loopk++) {
+        String key = in.readUTF();
+        double[] values = new double[in.readInt()];
+        for (int loopp = 0; loopp < values.length; loopp++) {
+          values[loopp] = in.readDouble();
+        }
+        store.parameters.put(key, DoubleArray.ofUnsafe(values));
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return store;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Saves the store in a file.
+   * <p>
+   * The file is first written under a temporary name and then moved to its final name, so that a reader never
+   * sees a partially written file.
+   *
+   * @param file  the file
+   */
+  public void snapshot(Path file) {
+    ImmutableSortedMap<String, DoubleArray> copy = ImmutableSortedMap.copyOf(parameters);
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(copy.size());
+        for (Entry<String, DoubleArray> entry : copy.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeInt(entry.getValue().size());
+          for (int loopp = 0; loopp < entry.getValue().size(); loopp++) {
+            out.writeDouble(entry.getValue().get(loopp));
+          }
+        }
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Returns the parameters stored for a key.
+   *
+   * @param key  the calibration key
+   * @return the parameters, empty if none are stored
+   */
+  public Optional<DoubleArray> find(String key) {
+    return Optional.ofNullable(parameters.get(key));
+  }
+
+  /**
+   * Stores the parameters for a key, replacing the existing ones.
+   *
+   * @param key  the calibration key
+   * @param calibratedParameters  the calibrated parameters
+   */
+  public void put(String key, DoubleArray calibratedParameters) {
+    ArgChecker.notNull(key, "key");
+    ArgChecker.notNull(calibratedParameters, "calibratedParameters");
+    parameters.put(key, calibratedParameters);
+  }
+
+  /**
+   * Removes the parameters stored for a key.
+   *
+   * @param key  the calibration key
+   */
+  public void remove(String key) {
+    parameters.remove(key);
+  }
+
+  /**
+   * Returns all the stored parameters, sorted by key.
+   *
+   * @return the parameters
+   */
+  public ImmutableSortedMap<String, DoubleArray> toMap() {
+    return ImmutableSortedMap.copyOf(parameters);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Runs a solver from the stored parameters and stores its solution.
+   * <p>
+   * The solver is started from the parameters stored for the key if they exist and have the same size as
+   * the default starting point. If there are no such parameters or the solver fails from them, the solver is
+   * run from the default starting point. The solution is stored for the key.
+   *
+   * @param key  the calibration key
+   * @param defaultStart  the default starting point of the solver
+   * @param solver  the solver, returning the solution from a starting point
+   * @return the solution
+   */
+  public DoubleArray solve(String key, DoubleArray defaultStart, Function<DoubleArray, DoubleArray> solver) {
+    ArgChecker.notNull(key, "key");
+    DoubleArray stored = parameters.get(key);
+    DoubleArray solution = null;
+    if (stored != null && stored.size() == defaultStart.size()) {
+      PricingMetrics.count(METRIC_HIT);
+      try {
+        solution = solver.apply(stored);
+      } catch (RuntimeException ex) {
+        PricingMetrics.count(METRIC_FALLBACK);
+      }
+    }
+    if (solution == null) {
+      solution = solver.apply(defaultStart);
+    }
+    parameters.put(key, solution);
+    return solution;
+  }
+
+}
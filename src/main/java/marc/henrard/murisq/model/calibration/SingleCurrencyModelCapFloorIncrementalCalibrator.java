@@ -0,0 +1,280 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.calibration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.array.DoubleMatrix;
+import com.opengamma.strata.math.impl.linearalgebra.DecompositionFactory;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.capfloor.ResolvedIborCapFloorTrade;
+
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
+import marc.henrard.murisq.model.generic.SingleCurrencyModelTemplate;
+import marc.henrard.murisq.pricer.capfloor.SingleCurrencyModelCapFloorTradePricer;
+
+/**
+ * Incremental recalibration by least square of cap/floor prices for the single currency models.
+ * <p>
+ * The calibrator keeps the last solution, the model values of the trades and the Jacobian of the values
+ * with respect to the calibrated parameters. When the trades are updated, typically when a few premiums change
+ * with new quotes, the values and the Jacobian rows of the changed trades only are recomputed and one
+ * Gauss-Newton step is taken from the last solution. The step is accepted if the parameters satisfy the template
+ * constraints and the residual decreases; otherwise a full least-square calibration is done by
+ * {@link SingleCurrencyModelCapFloorLeastSquarePriceCalibrator}, starting from the last solution.
+ * <p>
+ * A full calibration is also done for the first call and when the number of trades or the multi-curve change.
+ * The Jacobian rows of the unchanged trades are the ones of the previous solutions; they are refreshed at each
+ * full calibration.
+ * <p>
+ * The calibrator is stateful. The recalibrations are synchronized.
+ *
+ * @author Marc Henrard
+ */
+public final class SingleCurrencyModelCapFloorIncrementalCalibrator {
+
+  /** The shift used in the finite difference computation of the Jacobian. */
+  private static final double FD_SHIFT = 1.0E-5;
+  /** The key used in the warm-start store when none is provided. */
+  private static final String DEFAULT_KEY = "INCREMENTAL";
+  /** The name of the metric counting the incremental recalibrations. */
+  private static final String METRIC_INCREMENTAL = "SingleCurrencyModelCapFloorIncrementalCalibrator.incremental";
+  /** The name of the metric counting the full recalibrations. */
+  private static final String METRIC_FULL = "SingleCurrencyModelCapFloorIncrementalCalibrator.full";
+
+  /** The template generating the model parameters. */
+  private final SingleCurrencyModelTemplate template;
+  /** The cap/floor trade pricer. */
+  private final SingleCurrencyModelCapFloorTradePricer pricer;
+  /** The calibrator used for the full calibrations. */
+  private final SingleCurrencyModelCapFloorLeastSquarePriceCalibrator calibrator;
+  /** The store of the solutions, used as starting point of the full calibrations. */
+  private final CalibrationWarmStartStore warmStart;
+  /** The key of the calibration in the store. */
+  private final String key;
+  /** The state of the last calibration, null before the first calibration. */
+  private State state;
+
+  /**
+   * Creates an instance of the calibrator.
+   *
+   * @param template  the model template
+   * @param pricer  the cap/floor trade pricer
+   * @return the instance
+   */
+  public static SingleCurrencyModelCapFloorIncrementalCalibrator of(
+      SingleCurrencyModelTemplate template,
+      SingleCurrencyModelCapFloorTradePricer pricer) {
+
+    return new SingleCurrencyModelCapFloorIncrementalCalibrator(
+        template, pricer, CalibrationWarmStartStore.empty(), DEFAULT_KEY);
+  }
+
+  /**
+   * Creates an instance of the calibrator sharing the solutions with a warm-start store.
+   * <p>
+   * The first full calibration starts from the solution stored for the key, if any. All the solutions are stored
+   * for the key.
+   *
+   * @param template  the model template
+   * @param pricer  the cap/floor trade pricer
+   * @param warmStart  the warm-start store
+   * @param key  the calibration key in the store
+   * @return the instance
+   */
+  public static SingleCurrencyModelCapFloorIncrementalCalibrator of(
+      SingleCurrencyModelTemplate template,
+      SingleCurrencyModelCapFloorTradePricer pricer,
+      CalibrationWarmStartStore warmStart,
+      String key) {
+
+    return new SingleCurrencyModelCapFloorIncrementalCalibrator(template, pricer, warmStart, key);
+  }
+
+  // Private constructor
+  private SingleCurrencyModelCapFloorIncrementalCalibrator(
+      SingleCurrencyModelTemplate template,
+      SingleCurrencyModelCapFloorTradePricer pricer,
+      CalibrationWarmStartStore warmStart,
+      String key) {
+
+    this.template = ArgChecker.notNull(template, "template");
+    this.pricer = ArgChecker.notNull(pricer, "pricer");
+    this.calibrator = SingleCurrencyModelCapFloorLeastSquarePriceCalibrator.of(template);
+    this.warmStart = ArgChecker.notNull(warmStart, "warmStart");
+    this.key = ArgChecker.notNull(key, "key");
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Recalibrates the model parameters to a set of cap/floor trades.
+   * <p>
+   * The trades are compared, in order, to the trades of the last calibration to detect the changed ones.
+   *
+   * @param trades  the cap/floor trades
+   * @param multicurve  the multi-curve provider
+   * @return  the model parameters
+   */
+  public synchronized SingleCurrencyModelParameters recalibrate(
+      List<ResolvedIborCapFloorTrade> trades,
+      RatesProvider multicurve) {
+
+    State last = state;
+    if (last == null || last.trades.size() != trades.size() || !last.multicurve.equals(multicurve)) {
+      return full(trades, multicurve);
+    }
+    List<Integer> changed = new ArrayList<>();
+    for (int looptrade = 0; looptrade < trades.size(); looptrade++) {
+      if (!trades.get(looptrade).equals(last.trades.get(looptrade))) {
+        changed.add(looptrade);
+      }
+    }
+    if (changed.isEmpty()) {
+      return last.model;
+    }
+    // Update the rows of the changed trades
+    int nbParam = last.parameters.size();
+    double[] values = last.values.toArray();
+    double[][] jacobian = last.jacobian.toArray();
+    SingleCurrencyModelParameters[] shifted = new SingleCurrencyModelParameters[nbParam];
+    for (int loopp = 0; loopp < nbParam; loopp++) {
+      shifted[loopp] = model(last.parameters.with(loopp, last.parameters.get(loopp) + FD_SHIFT));
+    }
+    for (int looptrade : changed) {
+      values[looptrade] = value(trades.get(looptrade), multicurve, last.model);
+      for (int loopp = 0; loopp < nbParam; loopp++) {
+        jacobian[looptrade][loopp] =
+            (value(trades.get(looptrade), multicurve, shifted[loopp]) - values[looptrade]) / FD_SHIFT;
+      }
+    }
+    DoubleArray residual0 = DoubleArray.ofUnsafe(values); // the observed values are 0, premium included in trades
+    DoubleMatrix jacobianMatrix = DoubleMatrix.ofUnsafe(jacobian);
+    // Gauss-Newton step
+    DoubleArray step = DecompositionFactory.SV_COMMONS.apply(jacobianMatrix).solve(residual0);
+    DoubleArray parameters1 = last.parameters.minus(step);
+    if (!template.getConstraints().apply(parameters1)) {
+      return full(trades, multicurve);
+    }
+    SingleCurrencyModelParameters model1 = model(parameters1);
+    DoubleArray residual1 = values(trades, multicurve, model1);
+    if (norm2(residual1) > norm2(residual0)) {
+      return full(trades, multicurve);
+    }
+    PricingMetrics.count(METRIC_INCREMENTAL);
+    warmStart.put(key, parameters1);
+    state = new State(trades, multicurve, parameters1, model1, residual1, jacobianMatrix);
+    return model1;
+  }
+
+  /**
+   * Returns the parameters of the last calibration.
+   *
+   * @return the calibrated parameters, excluding the fixed ones, empty if no calibration has been done
+   */
+  public synchronized DoubleArray getLastParameters() {
+    return (state == null) ? DoubleArray.EMPTY : state.parameters;
+  }
+
+  /**
+   * Forgets the last calibration; the next recalibration is a full one.
+   */
+  public synchronized void reset() {
+    state = null;
+  }
+
+  //-------------------------------------------------------------------------
+  // full calibration, starting from the stored solution, and computation of the Jacobian
+  private SingleCurrencyModelParameters full(List<ResolvedIborCapFloorTrade> trades, RatesProvider multicurve) {
+    PricingMetrics.count(METRIC_FULL);
+    SingleCurrencyModelParameters model = calibrator.calibrateConstraints(trades, multicurve, pricer, warmStart, key);
+    DoubleArray parameters = warmStart.find(key).get();
+    DoubleArray values = values(trades, multicurve, model);
+    int nbParam = parameters.size();
+    double[][] jacobian = new double[trades.size()][nbParam];
+    for (int loopp = 0; loopp < nbParam; loopp++) {
+      DoubleArray valuesShifted =
+          values(trades, multicurve, model(parameters.with(loopp, parameters.get(loopp) + FD_SHIFT)));
+      for (int looptrade = 0; looptrade < trades.size(); looptrade++) {
+        jacobian[looptrade][loopp] = (valuesShifted.get(looptrade) - values.get(looptrade)) / FD_SHIFT;
+      }
+    }
+    state = new State(trades, multicurve, parameters, model, values, DoubleMatrix.ofUnsafe(jacobian));
+    return model;
+  }
+
+  // model from the calibrated parameters
+  private SingleCurrencyModelParameters model(DoubleArray calibratedParameters) {
+    return template.generate(SingleCurrencyModelCapFloorLeastSquarePriceCalibrator.allParametersFromCalibrated(
+        calibratedParameters, template.initialGuess(), template.getFixed()));
+  }
+
+  // value of all the trades
+  private DoubleArray values(
+      List<ResolvedIborCapFloorTrade> trades,
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    return DoubleArray.of(trades.size(), i -> value(trades.get(i), multicurve, model));
+  }
+
+  // value of one trade in the model currency
+  private double value(
+      ResolvedIborCapFloorTrade trade,
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    return pricer.presentValue(trade, multicurve, model).convertedTo(model.getCurrency(), multicurve).getAmount();
+  }
+
+  // Euclidean norm
+  private static double norm2(DoubleArray x) {
+    double sum = 0.0d;
+    for (int i = 0; i < x.size(); i++) {
+      sum += x.get(i) * x.get(i);
+    }
+    return Math.sqrt(sum);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * The state of the last calibration.
+   */
+  private static final class State {
+
+    /** The trades. */
+    private final ImmutableList<ResolvedIborCapFloorTrade> trades;
+    /** The multi-curve provider. */
+    private final RatesProvider multicurve;
+    /** The calibrated parameters, excluding the fixed ones. */
+    private final DoubleArray parameters;
+    /** The model parameters. */
+    private final SingleCurrencyModelParameters model;
+    /** The values of the trades in the model. */
+    private final DoubleArray values;
+    /** The Jacobian of the values with respect to the calibrated parameters. */
+    private final DoubleMatrix jacobian;
+
+    State(
+        List<ResolvedIborCapFloorTrade> trades,
+        RatesProvider multicurve,
+        DoubleArray parameters,
+        SingleCurrencyModelParameters model,
+        DoubleArray values,
+        DoubleMatrix jacobian) {
+
+      this.trades = ImmutableList.copyOf(trades);
+      this.multicurve = multicurve;
+      this.parameters = parameters;
+      this.model = model;
+      this.values = values;
+      this.jacobian = jacobian;
+    }
+  }
+
+}
@@ -16,12 +16,12 @@ import com.opengamma.strata.collect.array.DoubleMatrix;
 import com.opengamma.strata.math.impl.differentiation.VectorFieldFirstOrderDifferentiator;
 import com.opengamma.strata.math.impl.linearalgebra.DecompositionFactory;
 import com.opengamma.strata.math.impl.matrix.MatrixAlgebraFactory;
-import com.opengamma.strata.math.impl.statistics.leastsquare.LeastSquareResults;
 import com.opengamma.strata.math.impl.statistics.leastsquare.NonLinearLeastSquare;
 import com.opengamma.strata.pricer.DiscountingPaymentPricer;
 import com.opengamma.strata.pricer.rate.RatesProvider;
 import com.opengamma.strata.product.capfloor.ResolvedIborCapFloorTrade;
 
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
 import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
 import marc.henrard.murisq.model.generic.SingleCurrencyModelTemplate;
 import marc.henrard.murisq.pricer.capfloor.SingleCurrencyModelCapFloorTradePricer;
@@ -38,6 +38,12 @@ public class SingleCurrencyModelCapFloorLeastSquareBachelierVolatilityCalibrator
   /** The least-square implementation. */
   private final static NonLinearLeastSquare LS =
       new NonLinearLeastSquare(DecompositionFactory.SV_COMMONS, MatrixAlgebraFactory.OG_ALGEBRA, DEFAULT_PRECISION);
+  /** The name of the metric measuring the solver. */
+  private static final String METRIC_SOLVE =
+      "SingleCurrencyModelCapFloorLeastSquareBachelierVolatilityCalibrator.solve";
+  /** The name of the metric counting the model evaluations, including the finite difference ones. */
+  private static final String METRIC_EVALUATION =
+      "SingleCurrencyModelCapFloorLeastSquareBachelierVolatilityCalibrator.evaluation";
   /** Payment pricer */
   private final static DiscountingPaymentPricer PRICER_PAYMENT = 
       DiscountingPaymentPricer.DEFAULT;
@@ -78,6 +84,43 @@ public class SingleCurrencyModelCapFloorLeastSquareBachelierVolatilityCalibrator
       List<ResolvedIborCapFloorTrade> trades, 
       RatesProvider multicurve,
       SingleCurrencyModelCapFloorTradePricer pricer) {
+    
+    return calibrate(trades, multicurve, pricer, null, null);
+  }
+
+  /**
+   * Calibrates the model parameters to a set of cap/floor trades by least-square approach, starting from
+   * the parameters of a previous calibration.
+   * <p>
+   * The solver starts from the non-fixed parameters stored for the key in the warm-start store, with a fallback
+   * to the template initial guess. The calibrated parameters are stored for the key.
+   * 
+   * @param trades  the cap/floor trades
+   * @param multicurve  the multi-curve provider
+   * @param pricer  the cap/floor trade pricer
+   * @param warmStart  the store of the previous calibrations
+   * @param key  the calibration key in the store
+   * @return  the model parameters
+   */
+  public SingleCurrencyModelParameters calibrateConstraints(
+      List<ResolvedIborCapFloorTrade> trades, 
+      RatesProvider multicurve,
+      SingleCurrencyModelCapFloorTradePricer pricer,
+      CalibrationWarmStartStore warmStart,
+      String key) {
+    
+    ArgChecker.notNull(warmStart, "warmStart");
+    ArgChecker.notNull(key, "key");
+    return calibrate(trades, multicurve, pricer, warmStart, key);
+  }
+
+  // calibration with an optional warm-start store
+  private SingleCurrencyModelParameters calibrate(
+      List<ResolvedIborCapFloorTrade> trades, 
+      RatesProvider multicurve,
+      SingleCurrencyModelCapFloorTradePricer pricer,
+      CalibrationWarmStartStore warmStart,
+      String key) {
 
     checkTrades(trades);
     DoubleArray observedValues = DoubleArray.filled(trades.size()); // premium included in trade
@@ -88,14 +131,18 @@ public class SingleCurrencyModelCapFloorLeastSquareBachelierVolatilityCalibrator
     Function<DoubleArray, DoubleMatrix>  jacobien = differentiator.differentiate(function);
     
     DoubleArray startCalibratedParameters = initialGuessVariable(template.initialGuess(), template.getFixed());
-    LeastSquareResults results = LS.solve(observedValues, 
+    Function<DoubleArray, DoubleArray> solver = x -> LS.solve(observedValues, 
         sigma,
         function,
         jacobien,
-        startCalibratedParameters,
+        x,
         template.getConstraints(),
-        startCalibratedParameters.multipliedBy(0.05));
-    DoubleArray parametersCalibrated = results.getFitParameters();
+        x.multipliedBy(0.05)).getFitParameters();
+    long start = PricingMetrics.start();
+    DoubleArray parametersCalibrated = (warmStart == null) ?
+        solver.apply(startCalibratedParameters) :
+        warmStart.solve(key, startCalibratedParameters, solver);
+    PricingMetrics.stop(METRIC_SOLVE, start);
     return template.generate(allParametersFromCalibrated(
         parametersCalibrated, template.initialGuess(), template.getFixed()));
   }
@@ -163,6 +210,7 @@ public class SingleCurrencyModelCapFloorLeastSquareBachelierVolatilityCalibrator
      */
     @Override
     public DoubleArray apply(DoubleArray x) {
+      PricingMetrics.count(METRIC_EVALUATION);
       int nbParam = template.parametersCount();
       int loopx = 0;
       double[] p = new double[nbParam];
@@ -17,6 +17,7 @@ import com.opengamma.strata.math.impl.rootfinding.newton.BroydenVectorRootFinder
 import com.opengamma.strata.pricer.rate.RatesProvider;
 import com.opengamma.strata.product.capfloor.ResolvedIborCapFloorTrade;
 
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
 import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
 import marc.henrard.murisq.model.generic.SingleCurrencyModelTemplate;
 import marc.henrard.murisq.pricer.capfloor.SingleCurrencyModelCapFloorTradePricer;
@@ -38,6 +39,10 @@ public class SingleCurrencyModelCapFloorRootPriceCalibrator {
       TOLERANCE_REL,
       STEP_MAX,
       DecompositionFactory.SV_COMMONS);
+  /** The name of the metric measuring the solver. */
+  private static final String METRIC_SOLVE = "SingleCurrencyModelCapFloorRootPriceCalibrator.solve";
+  /** The name of the metric counting the model evaluations, including the finite difference ones. */
+  private static final String METRIC_EVALUATION = "SingleCurrencyModelCapFloorRootPriceCalibrator.evaluation";
 
   /** The template generating {@link SingleCurrencyModelParameters}. */
   private final SingleCurrencyModelTemplate template;
@@ -76,12 +81,54 @@ public class SingleCurrencyModelCapFloorRootPriceCalibrator {
       RatesProvider multicurve,
       SingleCurrencyModelCapFloorTradePricer pricer) {
     
+    return calibrate(trades, multicurve, pricer, null, null);
+  }
+
+  /**
+   * Calibrates the model parameters to a set of cap/floor trades by exact root finding approach, starting from
+   * the parameters of a previous calibration.
+   * <p>
+   * The root finder starts from the non-fixed parameters stored for the key in the warm-start store, with a fallback
+   * to the template initial guess. The calibrated parameters are stored for the key.
+   * 
+   * @param trades  the cap/floor trades
+   * @param multicurve  the multi-curve provider
+   * @param pricer  the cap/floor trade pricer
+   * @param warmStart  the store of the previous calibrations
+   * @param key  the calibration key in the store
+   * @return  the model parameters
+   */
+  public SingleCurrencyModelParameters calibrateConstraints(
+      List<ResolvedIborCapFloorTrade> trades, 
+      RatesProvider multicurve,
+      SingleCurrencyModelCapFloorTradePricer pricer,
+      CalibrationWarmStartStore warmStart,
+      String key) {
+    
+    ArgChecker.notNull(warmStart, "warmStart");
+    ArgChecker.notNull(key, "key");
+    return calibrate(trades, multicurve, pricer, warmStart, key);
+  }
+
+  // calibration with an optional warm-start store
+  private SingleCurrencyModelParameters calibrate(
+      List<ResolvedIborCapFloorTrade> trades, 
+      RatesProvider multicurve,
+      SingleCurrencyModelCapFloorTradePricer pricer,
+      CalibrationWarmStartStore warmStart,
+      String key) {
+    
     ModelValues function = new ModelValues(trades, multicurve, template, pricer);
     // Jacobian by finite difference: TODO: improve
     VectorFieldFirstOrderDifferentiator differentiator = new VectorFieldFirstOrderDifferentiator();
     Function<DoubleArray, DoubleMatrix>  jacobian = differentiator.differentiate(function);
     DoubleArray startCalibratedParameters = initialGuessVariable(template.initialGuess(), template.getFixed());
-    DoubleArray parametersCalibrated = ROOT_FINDER.findRoot(function, jacobian, startCalibratedParameters);
+    Function<DoubleArray, DoubleArray> solver = x -> ROOT_FINDER.findRoot(function, jacobian, x);
+    long start = PricingMetrics.start();
+    DoubleArray parametersCalibrated = (warmStart == null) ?
+        solver.apply(startCalibratedParameters) :
+        warmStart.solve(key, startCalibratedParameters, solver);
+    PricingMetrics.stop(METRIC_SOLVE, start);
     return template.generate(allParametersFromCalibrated(
         parametersCalibrated, template.initialGuess(), template.getFixed()));
   }
@@ -124,6 +171,7 @@ public class SingleCurrencyModelCapFloorRootPriceCalibrator {
      */
     @Override
     public DoubleArray apply(DoubleArray x) {
+      PricingMetrics.count(METRIC_EVALUATION);
       ArgChecker.isTrue(x.size() == nbTrades, "number of parameters should be equal to number of trades");
       int nbParam = template.parametersCount();
       int loopx = 0;
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.g2pp;
+
+import java.util.SplittableRandom;
+
+import com.opengamma.strata.collect.ArgChecker;
+
+/**
+ * Exact simulation of the Gaussian factors underlying the G2++ model.
+ * <p>
+ * The factors are X_i(t) = \int_0^t \sigma_i(s) exp(a_i s) dW_i(s), i=1,2, with W_1 and W_2 correlated Brownian
+ * motions under the forward measure associated to a terminal date. The increments between two consecutive times
+ * are Gaussian with covariance given by the quantities \gamma_{i,j} of the implementation reference multiplied
+ * by the correlation for the cross terms. The factors are simulated without discretization error.
+ * <p>
+ * The state is stored in a flat array, path-major: the value of the factor j (0 or 1) for path p at time i
+ * is at index (p * nbTimes + i) * 2 + j.
+ * <p>
+ * Implementation reference: Henrard, M. G2++ two-factor model. Model implementation documentation.
+ * muRisQ documentation.
+ *
+ * @author Marc Henrard
+ */
+public class G2ppMonteCarloEvolution {
+
+  /** The number of factors in the state. */
+  public static final int NB_FACTORS = 2;
+  /** Formulas for the G2++ model with piecewise constant volatility. */
+  private static final G2ppPiecewiseConstantFormulas FORMULAS_G2PP = G2ppPiecewiseConstantFormulas.DEFAULT;
+
+  /** The default instance of the evolution. */
+  public final static G2ppMonteCarloEvolution DEFAULT = new G2ppMonteCarloEvolution();
+
+  // Private constructor
+  private G2ppMonteCarloEvolution() {
+  }
+
+  /**
+   * Returns the Cholesky decomposition of the covariance matrices of the factor increments between consecutive times.
+   * <p>
+   * The results are, for each step, the lower triangular coefficients l_00, l_10 and l_11 in a flat array.
+   *
+   * @param times  the times, must be positive and in increasing order
+   * @param model  the G2++ model parameters
+   * @return the Cholesky coefficients, dimensions: times x 3 in a flat array
+   */
+  public double[] choleskyIncrements(double[] times, G2ppPiecewiseConstantParameters model) {
+    int nbTimes = times.length;
+    double rho = model.getCorrelation();
+    double[] cholesky = new double[nbTimes * 3];
+    double timePrevious = 0.0d;
+    for (int looptime = 0; looptime < nbTimes; looptime++) {
+      ArgChecker.isTrue(times[looptime] >= timePrevious, "times must be positive and increasing");
+      double[][] gamma = FORMULAS_G2PP.gammaRatioDiscountFactors(model, timePrevious, times[looptime]);
+      double l00 = Math.sqrt(gamma[0][0]);
+      double l10 = (l00 > 0.0d) ? rho * gamma[0][1] / l00 : 0.0d;
+      cholesky[looptime * 3] = l00;
+      cholesky[looptime * 3 + 1] = l10;
+      cholesky[looptime * 3 + 2] = Math.sqrt(Math.max(gamma[1][1] - l10 * l10, 0.0d));
+      timePrevious = times[looptime];
+    }
+    return cholesky;
+  }
+
+  /**
+   * Generates the paths of the two factors at the different times.
+   *
+   * @param times  the times, must be positive and in increasing order
+   * @param model  the G2++ model parameters
+   * @param generator  the uniform random number generator
+   * @param nbPaths  the number of paths
+   * @return the factors values, dimensions: paths x times x factors in a flat array
+   */
+  public double[] factorPaths(
+      double[] times,
+      G2ppPiecewiseConstantParameters model,
+      SplittableRandom generator,
+      int nbPaths) {
+
+    double[] factors = new double[nbPaths * times.length * NB_FACTORS];
+    factorPaths(choleskyIncrements(times, model), generator, nbPaths, factors);
+    return factors;
+  }
+
+  /**
+   * Generates the paths of the two factors in a caller-supplied buffer.
+   * <p>
+   * The standard normals of a path are drawn first in a buffer and the correlated increments are then
+   * computed in a single loop without branches.
+   *
+   * @param cholesky  the Cholesky coefficients of the increments, as computed by {@link #choleskyIncrements}
+   * @param generator  the uniform random number generator
+   * @param nbPaths  the number of paths
+   * @param factors  the buffer in which the factors are written, length at least nbPaths * nbTimes * 2
+   */
+  public void factorPaths(
+      double[] cholesky,
+      SplittableRandom generator,
+      int nbPaths,
+      double[] factors) {
+
+    int nbTimes = cholesky.length / 3;
+    int nbValuesPath = nbTimes * NB_FACTORS;
+    ArgChecker.isTrue(factors.length >= nbPaths * nbValuesPath, "buffer too short");
+    double[] normals = new double[nbValuesPath];
+    for (int looppath = 0; looppath < nbPaths; looppath++) {
+      for (int loopn = 0; loopn < nbValuesPath; loopn += 2) {
+        normalPair(generator, normals, loopn);
+      }
+      int offset = looppath * nbValuesPath;
+      double x0 = 0.0d;
+      double x1 = 0.0d;
+      for (int looptime = 0; looptime < nbTimes; looptime++) {
+        double z0 = normals[looptime * NB_FACTORS];
+        double z1 = normals[looptime * NB_FACTORS + 1];
+        x0 += cholesky[looptime * 3] * z0;
+        x1 += cholesky[looptime * 3 + 1] * z0 + cholesky[looptime * 3 + 2] * z1;
+        factors[offset + looptime * NB_FACTORS] = x0;
+        factors[offset + looptime * NB_FACTORS + 1] = x1;
+      }
+    }
+  }
+
+  /* Draws two independent standard normals with the Marsaglia polar method, stored at index and index + 1. */
+  private static void normalPair(SplittableRandom generator, double[] normals, int index) {
+    double u;
+    double v;
+    double s;
+    do {
+      u = 2.0d * generator.nextDouble() - 1.0d;
+      v = 2.0d * generator.nextDouble() - 1.0d;
+      s = u * u + v * v;
+    } while (s >= 1.0d || s == 0.0d);
+    double factor = Math.sqrt(-2.0d * Math.log(s) / s);
+    normals[index] = u * factor;
+    normals[index + 1] = v * factor;
+  }
+
+}
@@ -190,6 +190,41 @@ public class HullWhiteOneFactorPiecewiseConstantFormulas {
     return Math.exp(factor1 / numerator * factor2);
   }
 
+  /**
+   * Calculates the future convexity factors of the successive overnight periods of an overnight futures.
+   * <p>
+   * The times of the overnight dates are t_0 < t_1 < ... < t_n. The factor i, 0 <= i < n, is
+   *   gamma(t_{i-1}, t_i, t_i, t_n)
+   * with t_{-1} = 0, see {@link #futuresConvexityFactor}. The product of the factors is the convexity factor
+   * of the futures.
+   * <p>
+   * The cumulative integrals on the volatility periods are computed once, see
+   * {@link HullWhiteOneFactorPiecewiseConstantIntegrals}, and each factor is then obtained in O(log n)
+   * where n is the number of volatility periods.
+   * 
+   * @param parameters  the Hull-White model parameters
+   * @param times  the times of the overnight dates, in increasing order
+   * @return the factors, dimension: number of times - 1
+   */
+  public double[] futuresConvexityFactors(
+      HullWhiteOneFactorPiecewiseConstantParameters parameters,
+      double[] times) {
+
+    ArgChecker.isTrue(times.length > 0, "at least one time required");
+    HullWhiteOneFactorPiecewiseConstantIntegrals integrals =
+        HullWhiteOneFactorPiecewiseConstantIntegrals.of(parameters);
+    int nbFactors = times.length - 1;
+    double v = times[nbFactors];
+    double[] factors = new double[nbFactors];
+    double s = 0.0d;
+    for (int loopfactor = 0; loopfactor < nbFactors; loopfactor++) {
+      double t = times[loopfactor];
+      factors[loopfactor] = integrals.futuresConvexityFactor(s, t, t, v);
+      s = t;
+    }
+    return factors;
+  }
+
   /**
    * Returns the short rate variance between two times.
    * <p>
@@ -0,0 +1,288 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.hullwhite;
+
+import java.util.Arrays;
+
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+
+/**
+ * Precomputed cumulative integrals of a Hull-White one-factor model with piecewise constant volatility.
+ * <p>
+ * The integrals used in the {@link HullWhiteOneFactorPiecewiseConstantFormulas} are all combinations of
+ *   C_0(x) = \int_0^x eta^2(y) dy
+ *   C_k(x) = \int_0^x eta^2(y) k a exp(k a y) dy, k = 1, 2
+ *   D_0(x) = \int_0^x eta(y) dy
+ *   D_1(x) = \int_0^x eta(y) a exp(a y) dy
+ * The values at the start of each volatility period are computed once at construction. The value at any time
+ * is then obtained from the value at the start of its period, found by binary search, and the formulas are
+ * evaluated in O(log n) where n is the number of volatility periods, instead of O(n) for the
+ * {@link HullWhiteOneFactorPiecewiseConstantFormulas} versions.
+ * <p>
+ * The results are the same as the ones of the formulas, up to the rounding of the differences of cumulative
+ * integrals. The times are expected to be positive and below the last volatility time.
+ * The object is immutable and can be used concurrently from several threads.
+ *
+ * @author Marc Henrard
+ */
+public final class HullWhiteOneFactorPiecewiseConstantIntegrals {
+
+  /** The mean reversion. */
+  private final double kappa;
+  /** The start times of the volatility periods. Dimension: number of periods. */
+  private final double[] periodStarts;
+  /** The volatility on each period. */
+  private final double[] eta;
+  /** The squared volatility on each period. */
+  private final double[] eta2;
+  /** exp(a t) at the start of each period. */
+  private final double[] expStarts;
+  /** C_0 at the start of each period. */
+  private final double[] c0Starts;
+  /** C_1 at the start of each period. */
+  private final double[] c1Starts;
+  /** C_2 at the start of each period. */
+  private final double[] c2Starts;
+  /** D_0 at the start of each period. */
+  private final double[] d0Starts;
+  /** D_1 at the start of each period. */
+  private final double[] d1Starts;
+
+  // Private constructor
+  private HullWhiteOneFactorPiecewiseConstantIntegrals(HullWhiteOneFactorPiecewiseConstantParameters parameters) {
+    this.kappa = parameters.getMeanReversion();
+    this.eta = parameters.getVolatility().toArray();
+    int nbPeriods = eta.length;
+    this.periodStarts = parameters.getVolatilityTime().subArray(0, nbPeriods).toArray();
+    this.eta2 = new double[nbPeriods];
+    this.expStarts = new double[nbPeriods];
+    this.c0Starts = new double[nbPeriods];
+    this.c1Starts = new double[nbPeriods];
+    this.c2Starts = new double[nbPeriods];
+    this.d0Starts = new double[nbPeriods];
+    this.d1Starts = new double[nbPeriods];
+    for (int loopperiod = 0; loopperiod < nbPeriods; loopperiod++) {
+      eta2[loopperiod] = eta[loopperiod] * eta[loopperiod];
+      expStarts[loopperiod] = Math.exp(kappa * periodStarts[loopperiod]);
+      if (loopperiod > 0) {
+        int p = loopperiod - 1;
+        double dt = periodStarts[loopperiod] - periodStarts[p];
+        double dExp = expStarts[loopperiod] - expStarts[p];
+        double dExp2 = expStarts[loopperiod] * expStarts[loopperiod] - expStarts[p] * expStarts[p];
+        c0Starts[loopperiod] = c0Starts[p] + eta2[p] * dt;
+        c1Starts[loopperiod] = c1Starts[p] + eta2[p] * dExp;
+        c2Starts[loopperiod] = c2Starts[p] + eta2[p] * dExp2;
+        d0Starts[loopperiod] = d0Starts[p] + eta[p] * dt;
+        d1Starts[loopperiod] = d1Starts[p] + eta[p] * dExp;
+      }
+    }
+  }
+
+  /**
+   * Obtains the precomputed integrals for a set of Hull-White parameters.
+   *
+   * @param parameters  the Hull-White model parameters
+   * @return the integrals
+   */
+  public static HullWhiteOneFactorPiecewiseConstantIntegrals of(
+      HullWhiteOneFactorPiecewiseConstantParameters parameters) {
+
+    return new HullWhiteOneFactorPiecewiseConstantIntegrals(parameters);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Calculates the volatility of the (zero-coupon) bond scaled by the collateral account
+   * numeraire, i.e. alpha, for a given period.
+   * <p>
+   * See {@link HullWhiteOneFactorPiecewiseConstantFormulas#alphaCashAccount}.
+   *
+   * @param startExpiry the start time of the expiry period
+   * @param endExpiry  the end time of the expiry period
+   * @param bondMaturity the time to maturity for the bond
+   * @return the re-based bond volatility
+   */
+  public double alphaCashAccount(double startExpiry, double endExpiry, double bondMaturity) {
+    int periodStart = period(startExpiry);
+    int periodEnd = period(endExpiry);
+    double expStart = Math.exp(kappa * startExpiry);
+    double expEnd = Math.exp(kappa * endExpiry);
+    double factor1_1 = Math.exp(-2 * kappa * bondMaturity) / (2 * kappa);
+    double factor2_1 = -2 * Math.exp(-kappa * bondMaturity) / kappa;
+    double factor1_2 = c2(periodEnd, expEnd) - c2(periodStart, expStart);
+    double factor2_2 = c1(periodEnd, expEnd) - c1(periodStart, expStart);
+    double factor3_2 = c0(periodEnd, endExpiry) - c0(periodStart, startExpiry);
+    return Math.sqrt(factor1_1 * factor1_2 + factor2_1 * factor2_2 + factor3_2) / kappa;
+  }
+
+  /**
+   * Correspond to \int_s^e g^2(s) ds = \int_s^e \eta^2(s) exp(2\kappa s) ds.
+   * <p>
+   * See {@link HullWhiteOneFactorPiecewiseConstantFormulas#alpha2ForwardGPart}.
+   *
+   * @param startExpiry the start time of the expiry period
+   * @param endExpiry  the end time of the expiry period
+   * @return  the integral value
+   */
+  public double alpha2ForwardGPart(double startExpiry, double endExpiry) {
+    return (c2(endExpiry) - c2(startExpiry)) / (2 * kappa);
+  }
+
+  /**
+   * Calculates the adjustment factor to be used for timing adjustment.
+   * <p>
+   * See {@link HullWhiteOneFactorPiecewiseConstantFormulas#timingAdjustmentFactor}.
+   *
+   * @param s  the start time of the period on which the rate is measured
+   * @param t  the end time of the period on which the rate is measured
+   * @param v  the time when the rate is paid
+   * @return the factor
+   */
+  public double timingAdjustmentFactor(double s, double t, double v) {
+    double gamma = (Math.exp(-kappa * s) - Math.exp(-kappa * t))
+        * (Math.exp(-kappa * v) - Math.exp(-kappa * t))
+        / (kappa * kappa)
+        * alpha2ForwardGPart(0, s);
+    return Math.exp(gamma);
+  }
+
+  /**
+   * Calculates the future convexity factor used in future pricing.
+   * <p>
+   * See {@link HullWhiteOneFactorPiecewiseConstantFormulas#futuresConvexityFactor}.
+   *
+   * @param s  the start integration time
+   * @param t  the end integration time
+   * @param u  the start period time
+   * @param v  the end period time
+   * @return the factor
+   */
+  public double futuresConvexityFactor(double s, double t, double u, double v) {
+    ArgChecker.isTrue(s <= t, "start integration time must be before end integration time");
+    int periodS = period(s);
+    int periodT = period(t);
+    double expS = Math.exp(kappa * s);
+    double expT = Math.exp(kappa * t);
+    double expMinusAv = Math.exp(-kappa * v);
+    double factor1 = Math.exp(-kappa * u) - expMinusAv;
+    double factor2 = 2 * (c1(periodT, expT) - c1(periodS, expS)) - expMinusAv * (c2(periodT, expT) - c2(periodS, expS));
+    return Math.exp(factor1 / (2 * kappa * kappa * kappa) * factor2);
+  }
+
+  /**
+   * Returns the short rate variance between two times.
+   * <p>
+   * See {@link HullWhiteOneFactorPiecewiseConstantFormulas#shortRateVariance}.
+   *
+   * @param startTime the start time
+   * @param endTime  the end time
+   * @return the short rate variance
+   */
+  public double shortRateVariance(double startTime, double endTime) {
+    return Math.exp(-2 * kappa * endTime) * (c2(endTime) - c2(startTime)) / (2 * kappa);
+  }
+
+  /**
+   * Returns the model part of the short rate mean up to a given time.
+   * <p>
+   * See {@link HullWhiteOneFactorPiecewiseConstantFormulas#shortRateMeanModelPart}.
+   *
+   * @param endTime  the end time
+   * @return the short rate mean (model part)
+   */
+  public double shortRateMeanModelPart(double endTime) {
+    int periodEnd = period(endTime);
+    double expEnd = Math.exp(kappa * endTime);
+    double expMinusEnd = 1.0d / expEnd;
+    return (2 * expMinusEnd * c1(periodEnd, expEnd) - expMinusEnd * expMinusEnd * c2(periodEnd, expEnd)) /
+        (2 * kappa * kappa);
+  }
+
+  /**
+   * Computes the crosses component of the variance used for rates on different periods.
+   * <p>
+   * See {@link HullWhiteOneFactorPiecewiseConstantFormulas#varianceCrossTerm}.
+   *
+   * @param endIntegralTime the end time for the integration period
+   * @param t1 the start time for the first cross
+   * @param t2 the end time for the first cross
+   * @param t3 the start time for the second cross
+   * @param t4 the end time for the second cross
+   * @return the variance contribution
+   */
+  public double varianceCrossTerm(double endIntegralTime, double t1, double t2, double t3, double t4) {
+    double factor2 = (Math.exp(-kappa * t1) - Math.exp(-kappa * t2))
+        * (Math.exp(-kappa * t3) - Math.exp(-kappa * t4)) / (2 * kappa * kappa * kappa);
+    return c2(endIntegralTime) * factor2;
+  }
+
+  /**
+   * Computes the covariances for rates on with a HW model parameters and a constant volatility factor.
+   * <p>
+   * See {@link HullWhiteOneFactorPiecewiseConstantFormulas#varianceCrossTermConstantVolCashAccount}.
+   *
+   * @param startIntegralTime the start time
+   * @param endIntegralTime the end time
+   * @param u1 the maturity
+   * @return the covariance
+   */
+  public double varianceCrossTermConstantVolCashAccount(double startIntegralTime, double endIntegralTime, double u1) {
+    int periodStart = period(startIntegralTime);
+    int periodEnd = period(endIntegralTime);
+    double term1 = d0(periodEnd, endIntegralTime) - d0(periodStart, startIntegralTime);
+    double term2 = d1(periodEnd, Math.exp(kappa * endIntegralTime)) -
+        d1(periodStart, Math.exp(kappa * startIntegralTime));
+    term2 *= -Math.exp(-kappa * u1) / kappa;
+    return (term1 + term2) / kappa;
+  }
+
+  /**
+   * Returns the cumulative integral C_1(x) = \int_0^x eta^2(y) a exp(a y) dy.
+   *
+   * @param time  the end time of the integral
+   * @return the integral value
+   */
+  public double c1(double time) {
+    return c1(period(time), Math.exp(kappa * time));
+  }
+
+  /**
+   * Returns the cumulative integral C_2(x) = \int_0^x eta^2(y) 2 a exp(2 a y) dy.
+   *
+   * @param time  the end time of the integral
+   * @return the integral value
+   */
+  public double c2(double time) {
+    return c2(period(time), Math.exp(kappa * time));
+  }
+
+  //-------------------------------------------------------------------------
+  // the period of a time: periodStarts[period] <= time < periodStarts[period + 1]
+  private int period(double time) {
+    int index = Arrays.binarySearch(periodStarts, time);
+    return (index >= 0) ? index : Math.max(-index - 2, 0);
+  }
+
+  private double c0(int period, double time) {
+    return c0Starts[period] + eta2[period] * (time - periodStarts[period]);
+  }
+
+  private double c1(int period, double expTime) {
+    return c1Starts[period] + eta2[period] * (expTime - expStarts[period]);
+  }
+
+  private double c2(int period, double expTime) {
+    return c2Starts[period] + eta2[period] * (expTime * expTime - expStarts[period] * expStarts[period]);
+  }
+
+  private double d0(int period, double time) {
+    return d0Starts[period] + eta[period] * (time - periodStarts[period]);
+  }
+
+  private double d1(int period, double expTime) {
+    return d1Starts[period] + eta[period] * (expTime - expStarts[period]);
+  }
+
+}
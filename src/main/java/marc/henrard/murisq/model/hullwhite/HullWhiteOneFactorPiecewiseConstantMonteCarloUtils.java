@@ -3,6 +3,9 @@
  */
 package marc.henrard.murisq.model.hullwhite;
 
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
 import com.opengamma.strata.collect.ArgChecker;
 import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
 
@@ -11,6 +14,8 @@ public class HullWhiteOneFactorPiecewiseConstantMonteCarloUtils {
   /** Formulas related to the Hull-White one factor model. */
   private static final HullWhiteOneFactorPiecewiseConstantFormulas HW_FORMULAS = 
       HullWhiteOneFactorPiecewiseConstantFormulas.DEFAULT;
+  /** The default number of scenarios in each block generated by a single task. */
+  public static final int SCENARIOS_BLOCK_DEFAULT = 4_096;
   
   /**
    * Returns a set of paths for the zero-mean part of the short rate from a sample of normal distributions.
@@ -28,29 +33,140 @@ public class HullWhiteOneFactorPiecewiseConstantMonteCarloUtils {
     int nbTimes = sample[0].length;
     ArgChecker.isTrue(nbTimes == times.length, 
         "times length and inner dimension of sample must be equal");
-    double[] times0 = new double[nbTimes + 1]; // Times extended with 0 at the start
-    System.arraycopy(times, 0, times0, 1, nbTimes);
-    double kappa = parameters.getMeanReversion();
     double[] expKappaTi = new double[nbTimes]; // exponential of time differences
     double[] stdSR = new double[nbTimes]; // standard deviation of short rate over time steps
-    for (int looptime = 0; looptime < nbTimes; looptime++) {
-      expKappaTi[looptime] = Math.exp(-kappa * (times0[looptime + 1] - times0[looptime]));
-      stdSR[looptime] = Math.sqrt(
-          HW_FORMULAS.shortRateVariance(parameters, times0[looptime], times0[looptime+1]));
-    }
-    double[][] xTmp = new double[nbScenarios][nbTimes + 1]; // The values of x with 0 value at time 0
+    stepCoefficients(times, parameters, expKappaTi, stdSR);
+    double[][] x = new double[nbScenarios][nbTimes]; // The values of x
     for (int loopsc = 0; loopsc < nbScenarios; loopsc++) {
+      double xPrevious = 0.0d; // The value of x at time 0
       for (int looptime = 0; looptime < nbTimes; looptime++) {
-        xTmp[loopsc][looptime + 1] =
-            expKappaTi[looptime] * xTmp[loopsc][looptime] 
-                + stdSR[looptime] * sample[loopsc][looptime];
+        xPrevious = expKappaTi[looptime] * xPrevious + stdSR[looptime] * sample[loopsc][looptime];
+        x[loopsc][looptime] = xPrevious;
       }
     }
-    double[][] x = new double[nbScenarios][nbTimes]; // The values of x
-    for (int loopsc = 0; loopsc < nbScenarios; loopsc++) {
-      System.arraycopy(xTmp[loopsc], 1, x[loopsc], 0, nbTimes);
-    }
     return x;
   }
+
+  /**
+   * Generates a set of paths for the zero-mean part of the short rate and writes them in a flat buffer.
+   * <p>
+   * The standard normal increments are drawn on the fly, the full normal sample is never stored.
+   * The scenarios are split in blocks of {@link #SCENARIOS_BLOCK_DEFAULT} scenarios, each block
+   * has its own generator split from a root generator built on the seed. The blocks are generated in parallel.
+   * The result depends only on the seed and the number of scenarios, not on the number of cores used.
+   * <p>
+   * The buffer is scenario-major: the value for scenario i at time j is stored at index i * nbTimes + j.
+   *
+   * @param times  the sampling times
+   * @param parameters  the Hull-White model parameters
+   * @param nbScenarios  the number of scenarios
+   * @param seed  the seed of the root generator
+   * @param x  the buffer in which the x paths are written, length at least nbScenarios * times.length
+   */
+  public static void xPaths(
+      double[] times,
+      HullWhiteOneFactorPiecewiseConstantParameters parameters,
+      int nbScenarios,
+      long seed,
+      double[] x) {
+
+    xPaths(times, parameters, nbScenarios, seed, SCENARIOS_BLOCK_DEFAULT, x);
+  }
+
+  /**
+   * Generates a set of paths for the zero-mean part of the short rate and writes them in a flat buffer.
+   * <p>
+   * See {@link #xPaths(double[], HullWhiteOneFactorPiecewiseConstantParameters, int, long, double[])}.
+   * The result depends on the block size used.
+   *
+   * @param times  the sampling times
+   * @param parameters  the Hull-White model parameters
+   * @param nbScenarios  the number of scenarios
+   * @param seed  the seed of the root generator
+   * @param scenariosBlock  the number of scenarios generated by each task
+   * @param x  the buffer in which the x paths are written, length at least nbScenarios * times.length
+   */
+  public static void xPaths(
+      double[] times,
+      HullWhiteOneFactorPiecewiseConstantParameters parameters,
+      int nbScenarios,
+      long seed,
+      int scenariosBlock,
+      double[] x) {
+
+    int nbTimes = times.length;
+    ArgChecker.isTrue(scenariosBlock > 0, "block size must be strictly positive");
+    ArgChecker.isTrue((long) nbScenarios * nbTimes <= x.length,
+        "buffer length must be at least the number of scenarios times the number of times");
+    double[] expKappaTi = new double[nbTimes];
+    double[] stdSR = new double[nbTimes];
+    stepCoefficients(times, parameters, expKappaTi, stdSR);
+    int nbBlocks = (nbScenarios + scenariosBlock - 1) / scenariosBlock;
+    SplittableRandom root = new SplittableRandom(seed);
+    SplittableRandom[] generators = new SplittableRandom[nbBlocks]; // split sequentially to be reproducible
+    for (int loopblock = 0; loopblock < nbBlocks; loopblock++) {
+      generators[loopblock] = root.split();
+    }
+    IntStream.range(0, nbBlocks).parallel().forEach(loopblock -> {
+      int start = loopblock * scenariosBlock;
+      int end = Math.min(start + scenariosBlock, nbScenarios);
+      xPathsBlock(expKappaTi, stdSR, generators[loopblock], start, end, x);
+    });
+  }
+
+  /* Generates the scenarios [start, end) in the buffer. */
+  private static void xPathsBlock(
+      double[] expKappaTi,
+      double[] stdSR,
+      SplittableRandom generator,
+      int start,
+      int end,
+      double[] x) {
+
+    int nbTimes = expKappaTi.length;
+    double[] normals = new double[nbTimes + 1]; // +1 to store the normals by pairs
+    for (int loopsc = start; loopsc < end; loopsc++) {
+      for (int loopn = 0; loopn < nbTimes; loopn += 2) {
+        normalPair(generator, normals, loopn);
+      }
+      int offset = loopsc * nbTimes;
+      double xPrevious = 0.0d;
+      for (int looptime = 0; looptime < nbTimes; looptime++) {
+        xPrevious = expKappaTi[looptime] * xPrevious + stdSR[looptime] * normals[looptime];
+        x[offset + looptime] = xPrevious;
+      }
+    }
+  }
+
+  /* Draws two independent standard normals with the Marsaglia polar method, stored at index and index + 1. */
+  private static void normalPair(SplittableRandom generator, double[] normals, int index) {
+    double u;
+    double v;
+    double s;
+    do {
+      u = 2.0d * generator.nextDouble() - 1.0d;
+      v = 2.0d * generator.nextDouble() - 1.0d;
+      s = u * u + v * v;
+    } while (s >= 1.0d || s == 0.0d);
+    double factor = Math.sqrt(-2.0d * Math.log(s) / s);
+    normals[index] = u * factor;
+    normals[index + 1] = v * factor;
+  }
+
+  /* The mean reversion and the standard deviations for each step between 0 and the times. */
+  private static void stepCoefficients(
+      double[] times,
+      HullWhiteOneFactorPiecewiseConstantParameters parameters,
+      double[] expKappaTi,
+      double[] stdSR) {
+
+    double kappa = parameters.getMeanReversion();
+    double timePrevious = 0.0d;
+    for (int looptime = 0; looptime < times.length; looptime++) {
+      expKappaTi[looptime] = Math.exp(-kappa * (times[looptime] - timePrevious));
+      stdSR[looptime] = Math.sqrt(HW_FORMULAS.shortRateVariance(parameters, timePrevious, times[looptime]));
+      timePrevious = times[looptime];
+    }
+  }
   
 }
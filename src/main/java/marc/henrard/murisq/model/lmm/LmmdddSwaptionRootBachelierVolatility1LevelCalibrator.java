@@ -5,6 +5,7 @@ package marc.henrard.murisq.model.lmm;
 
 import java.util.function.Function;
 
+import com.opengamma.strata.collect.ArgChecker;
 import com.opengamma.strata.collect.array.DoubleArray;
 import com.opengamma.strata.collect.array.DoubleMatrix;
 import com.opengamma.strata.math.impl.differentiation.VectorFieldFirstOrderDifferentiator;
@@ -13,6 +14,9 @@ import com.opengamma.strata.math.impl.rootfinding.newton.BroydenVectorRootFinder
 import com.opengamma.strata.pricer.rate.RatesProvider;
 import com.opengamma.strata.product.swaption.ResolvedSwaption;
 
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.model.calibration.CalibrationWarmStartStore;
+import marc.henrard.murisq.pricer.swap.CashFlowEquivalentCache;
 import marc.henrard.murisq.pricer.swaption.LmmdddSwaptionPhysicalProductExplicitApproxPricer;
 
 /**
@@ -34,6 +38,10 @@ public class LmmdddSwaptionRootBachelierVolatility1LevelCalibrator {
       TOLERANCE_REL,
       STEP_MAX,
       DecompositionFactory.SV_COMMONS);
+  /** The name of the metric measuring the solver. */
+  private static final String METRIC_SOLVE = "LmmdddSwaptionRootBachelierVolatility1LevelCalibrator.solve";
+  /** The name of the metric counting the model evaluations, including the finite difference ones. */
+  private static final String METRIC_EVALUATION = "LmmdddSwaptionRootBachelierVolatility1LevelCalibrator.evaluation";
 
   /** Starting parameters. */
   private final LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters startingParameters;
@@ -74,10 +82,53 @@ public class LmmdddSwaptionRootBachelierVolatility1LevelCalibrator {
       double impliedVolatility,
       RatesProvider multicurve) {
     
+    return calibrateFrom(swaption, impliedVolatility, multicurve, null, null);
+  }
+
+  /**
+   * Calibrates the model parameters to a swaption by exact root finding approach, starting from
+   * the adjustment factors of a previous calibration.
+   * <p>
+   * The root finder starts from the adjustment factors stored for the key in the warm-start store, with a
+   * fallback to the default starting point. The calibrated adjustment factors are stored for the key.
+   * 
+   * @param swaption  the swaption product
+   * @param impliedVolatility  the Bachelier/normal model implied volatility
+   * @param multicurve  the multi-curve provider
+   * @param warmStart  the store of the previous calibrations
+   * @param key  the calibration key in the store
+   * @return  the calibrated model parameters
+   */
+  public LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters calibrate(
+      ResolvedSwaption swaption, 
+      double impliedVolatility,
+      RatesProvider multicurve,
+      CalibrationWarmStartStore warmStart,
+      String key) {
+    
+    ArgChecker.notNull(warmStart, "warmStart");
+    ArgChecker.notNull(key, "key");
+    return calibrateFrom(swaption, impliedVolatility, multicurve, warmStart, key);
+  }
+
+  // calibration with an optional warm-start store
+  private LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters calibrateFrom(
+      ResolvedSwaption swaption, 
+      double impliedVolatility,
+      RatesProvider multicurve,
+      CalibrationWarmStartStore warmStart,
+      String key) {
+    
     ModelValues function = new ModelValues(swaption, impliedVolatility, multicurve, startingParameters);
     VectorFieldFirstOrderDifferentiator differentiator = new VectorFieldFirstOrderDifferentiator();
     Function<DoubleArray, DoubleMatrix>  jacobian = differentiator.differentiate(function);
-    DoubleArray parametersCalibrated = ROOT_FINDER.findRoot(function, jacobian, DoubleArray.of(1.0d));
+    DoubleArray factorsStart = DoubleArray.of(1.0d);
+    Function<DoubleArray, DoubleArray> solver = x -> ROOT_FINDER.findRoot(function, jacobian, x);
+    long start = PricingMetrics.start();
+    DoubleArray parametersCalibrated = (warmStart == null) ?
+        solver.apply(factorsStart) :
+        warmStart.solve(key, factorsStart, solver);
+    PricingMetrics.stop(METRIC_SOLVE, start);
     DoubleMatrix volatilityUpdated = 
         startingParameters.getVolatilities().multipliedBy(parametersCalibrated.get(0));
     LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters parametersUpdated = 
@@ -90,9 +141,8 @@ public class LmmdddSwaptionRootBachelierVolatility1LevelCalibrator {
    */
   static class ModelValues implements Function<DoubleArray, DoubleArray> {
 
-    private static final LmmdddSwaptionPhysicalProductExplicitApproxPricer PRICER_SWAPTION_LMM_APPROX = 
-        LmmdddSwaptionPhysicalProductExplicitApproxPricer.DEFAULT;
-    
+    /** The pricer, with cash flow equivalents cached as the swaptions and multi-curve do not change. */
+    private final LmmdddSwaptionPhysicalProductExplicitApproxPricer pricerSwaptionLmmApprox;
     private final ResolvedSwaption swaption;
     private final double ivMarket;
     private final RatesProvider multicurve;
@@ -109,14 +159,17 @@ public class LmmdddSwaptionRootBachelierVolatility1LevelCalibrator {
       this.ivMarket = impliedVolatility;
       this.multicurve = multicurve;
       this.startingParameters = startingParameters;
+      this.pricerSwaptionLmmApprox =
+          new LmmdddSwaptionPhysicalProductExplicitApproxPricer(CashFlowEquivalentCache.of(1));
     }
 
     @Override
     public DoubleArray apply(DoubleArray x) {
+      PricingMetrics.count(METRIC_EVALUATION);
       DoubleMatrix volatilityUpdated = startingParameters.getVolatilities().multipliedBy(x.get(0));
       LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters parametersUpdated = 
           startingParameters.toBuilder().volatilities(volatilityUpdated).build();
-      double ivModel = PRICER_SWAPTION_LMM_APPROX.impliedVolatilityBachelier(swaption, multicurve, parametersUpdated);
+      double ivModel = pricerSwaptionLmmApprox.impliedVolatilityBachelier(swaption, multicurve, parametersUpdated);
       return DoubleArray.of(ivMarket - ivModel);
     }
     
@@ -15,6 +15,9 @@ import com.opengamma.strata.math.impl.rootfinding.newton.BroydenVectorRootFinder
 import com.opengamma.strata.pricer.rate.RatesProvider;
 import com.opengamma.strata.product.swaption.ResolvedSwaption;
 
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.model.calibration.CalibrationWarmStartStore;
+import marc.henrard.murisq.pricer.swap.CashFlowEquivalentCache;
 import marc.henrard.murisq.pricer.swaption.LmmdddSwaptionPhysicalProductExplicitApproxPricer;
 
 /**
@@ -36,6 +39,10 @@ public class LmmdddSwaptionRootBachelierVolatility2SkewCalibrator {
       TOLERANCE_REL,
       STEP_MAX,
       DecompositionFactory.SV_COMMONS);
+  /** The name of the metric measuring the solver. */
+  private static final String METRIC_SOLVE = "LmmdddSwaptionRootBachelierVolatility2SkewCalibrator.solve";
+  /** The name of the metric counting the model evaluations, including the finite difference ones. */
+  private static final String METRIC_EVALUATION = "LmmdddSwaptionRootBachelierVolatility2SkewCalibrator.evaluation";
 
   /** Starting parameters. */
   private final LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters startingParameters;
@@ -76,13 +83,55 @@ public class LmmdddSwaptionRootBachelierVolatility2SkewCalibrator {
       DoubleArray impliedVolatilities,
       RatesProvider multicurve) {
     
+    return calibrateFrom(swaptions, impliedVolatilities, multicurve, null, null);
+  }
+
+  /**
+   * Calibrates the model parameters to two swaptions by exact root finding approach, starting from
+   * the adjustment factors of a previous calibration.
+   * <p>
+   * The root finder starts from the adjustment factors stored for the key in the warm-start store, with a
+   * fallback to the default starting point. The calibrated adjustment factors are stored for the key.
+   * 
+   * @param swaptions  the swaptions
+   * @param impliedVolatilities  the Bachelier/normal model implied volatilities
+   * @param multicurve  the multi-curve provider
+   * @param warmStart  the store of the previous calibrations
+   * @param key  the calibration key in the store
+   * @return  the calibrated model parameters
+   */
+  public LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters calibrate(
+      List<ResolvedSwaption> swaptions, 
+      DoubleArray impliedVolatilities,
+      RatesProvider multicurve,
+      CalibrationWarmStartStore warmStart,
+      String key) {
+    
+    ArgChecker.notNull(warmStart, "warmStart");
+    ArgChecker.notNull(key, "key");
+    return calibrateFrom(swaptions, impliedVolatilities, multicurve, warmStart, key);
+  }
+
+  // calibration with an optional warm-start store
+  private LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters calibrateFrom(
+      List<ResolvedSwaption> swaptions, 
+      DoubleArray impliedVolatilities,
+      RatesProvider multicurve,
+      CalibrationWarmStartStore warmStart,
+      String key) {
+    
     ArgChecker.isTrue(swaptions.size() == 2, 
         "there must be exactly two swaptions in the calibration set");
     ModelValues function = new ModelValues(swaptions, impliedVolatilities, multicurve, startingParameters);
     VectorFieldFirstOrderDifferentiator differentiator = new VectorFieldFirstOrderDifferentiator();
     Function<DoubleArray, DoubleMatrix>  jacobian = differentiator.differentiate(function);
-    DoubleArray parametersCalibrated = 
-        ROOT_FINDER.findRoot(function, jacobian, DoubleArray.of(1.0d, 1.0d));
+    DoubleArray factorsStart = DoubleArray.of(1.0d, 1.0d);
+    Function<DoubleArray, DoubleArray> solver = x -> ROOT_FINDER.findRoot(function, jacobian, x);
+    long start = PricingMetrics.start();
+    DoubleArray parametersCalibrated = (warmStart == null) ?
+        solver.apply(factorsStart) :
+        warmStart.solve(key, factorsStart, solver);
+    PricingMetrics.stop(METRIC_SOLVE, start);
     DoubleMatrix volatilityUpdated = 
         startingParameters.getVolatilities().multipliedBy(parametersCalibrated.get(0));
     DoubleArray displacementUpdated = 
@@ -99,9 +148,8 @@ public class LmmdddSwaptionRootBachelierVolatility2SkewCalibrator {
    */
   static class ModelValues implements Function<DoubleArray, DoubleArray> {
 
-    private static final LmmdddSwaptionPhysicalProductExplicitApproxPricer PRICER_SWAPTION_LMM_APPROX = 
-        LmmdddSwaptionPhysicalProductExplicitApproxPricer.DEFAULT;
-    
+    /** The pricer, with cash flow equivalents cached as the swaptions and multi-curve do not change. */
+    private final LmmdddSwaptionPhysicalProductExplicitApproxPricer pricerSwaptionLmmApprox;
     private final List<ResolvedSwaption> swaptions;
     private final DoubleArray ivMarket;
     private final RatesProvider multicurve;
@@ -118,10 +166,13 @@ public class LmmdddSwaptionRootBachelierVolatility2SkewCalibrator {
       this.ivMarket = impliedVolatilities;
       this.multicurve = multicurve;
       this.startingParameters = startingParameters;
+      this.pricerSwaptionLmmApprox =
+          new LmmdddSwaptionPhysicalProductExplicitApproxPricer(CashFlowEquivalentCache.of(swaptions.size()));
     }
 
     @Override
     public DoubleArray apply(DoubleArray x) {
+      PricingMetrics.count(METRIC_EVALUATION);
       DoubleMatrix volatilityUpdated = startingParameters.getVolatilities().multipliedBy(x.get(0));
       DoubleArray displacementUpdated = startingParameters.getDisplacements().multipliedBy(x.get(1));
       LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters parametersUpdated =
@@ -130,7 +181,7 @@ public class LmmdddSwaptionRootBachelierVolatility2SkewCalibrator {
           .displacements(displacementUpdated).build();
       double[] ivModel = new double[2];
       for (int i = 0; i < 2; i++) {
-        ivModel[i] = PRICER_SWAPTION_LMM_APPROX
+        ivModel[i] = pricerSwaptionLmmApprox
             .impliedVolatilityBachelier(swaptions.get(i), multicurve, parametersUpdated);
       }
       return ivMarket.minus(DoubleArray.ofUnsafe(ivModel));
@@ -24,6 +24,9 @@ import com.opengamma.strata.product.swap.ResolvedSwapLeg;
 import com.opengamma.strata.product.swap.SwapLegType;
 import com.opengamma.strata.product.swaption.ResolvedSwaption;
 
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.model.calibration.CalibrationWarmStartStore;
+import marc.henrard.murisq.pricer.swap.CashFlowEquivalentCache;
 import marc.henrard.murisq.pricer.swaption.LmmdddSwaptionPhysicalProductExplicitApproxPricer;
 
 /**
@@ -51,6 +54,10 @@ public class LmmdddSwaptionRootBachelierVolatilityNLevelCalibrator {
       TOLERANCE_REL,
       STEP_MAX,
       DecompositionFactory.SV_COMMONS);
+  /** The name of the metric measuring the solver. */
+  private static final String METRIC_SOLVE = "LmmdddSwaptionRootBachelierVolatilityNLevelCalibrator.solve";
+  /** The name of the metric counting the model evaluations, including the finite difference ones. */
+  private static final String METRIC_EVALUATION = "LmmdddSwaptionRootBachelierVolatilityNLevelCalibrator.evaluation";
   private final static CurveMetadata ADJ_METADATA = DefaultCurveMetadata.of("Adjustment");
 
   /** Starting parameters. */
@@ -115,6 +122,43 @@ public class LmmdddSwaptionRootBachelierVolatilityNLevelCalibrator {
       List<ResolvedSwaption> swaptions,
       DoubleArray impliedVolatilities,
       RatesProvider multicurve) {
+    
+    return calibrateFrom(swaptions, impliedVolatilities, multicurve, null, null);
+  }
+
+  /**
+   * Calibrates the model parameters to set of swaptions by exact root finding approach, starting from
+   * the adjustment factors of a previous calibration.
+   * <p>
+   * The root finder starts from the adjustment factors stored for the key in the warm-start store, with a
+   * fallback to the default starting point. The calibrated adjustment factors are stored for the key.
+   * 
+   * @param swaptions  the swaptions
+   * @param impliedVolatilities  the Bachelier/normal model implied volatilities
+   * @param multicurve  the multi-curve provider
+   * @param warmStart  the store of the previous calibrations
+   * @param key  the calibration key in the store
+   * @return  the calibrated model parameters
+   */
+  public LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters calibrate(
+      List<ResolvedSwaption> swaptions,
+      DoubleArray impliedVolatilities,
+      RatesProvider multicurve,
+      CalibrationWarmStartStore warmStart,
+      String key) {
+    
+    ArgChecker.notNull(warmStart, "warmStart");
+    ArgChecker.notNull(key, "key");
+    return calibrateFrom(swaptions, impliedVolatilities, multicurve, warmStart, key);
+  }
+
+  // calibration with an optional warm-start store
+  private LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters calibrateFrom(
+      List<ResolvedSwaption> swaptions,
+      DoubleArray impliedVolatilities,
+      RatesProvider multicurve,
+      CalibrationWarmStartStore warmStart,
+      String key) {
 
     ArgChecker.isTrue(swaptions.size() == impliedVolatilities.size(),
         "the number of swaptions must be equal to the number of implied volatilities");
@@ -151,7 +195,12 @@ public class LmmdddSwaptionRootBachelierVolatilityNLevelCalibrator {
         startingParameters, xValues, interpolator, extrapolatorLeft, extrapolatorRight);
     VectorFieldFirstOrderDifferentiator differentiator = new VectorFieldFirstOrderDifferentiator();
     Function<DoubleArray, DoubleMatrix>  jacobian = differentiator.differentiate(function);
-    DoubleArray parametersCalibrated = ROOT_FINDER.findRoot(function, jacobian, yValuesStart);
+    Function<DoubleArray, DoubleArray> solver = x -> ROOT_FINDER.findRoot(function, jacobian, x);
+    long start = PricingMetrics.start();
+    DoubleArray parametersCalibrated = (warmStart == null) ?
+        solver.apply(yValuesStart) :
+        warmStart.solve(key, yValuesStart, solver);
+    PricingMetrics.stop(METRIC_SOLVE, start);
     // Resulting parameters
     InterpolatedNodalCurve curve = InterpolatedNodalCurve.of(ADJ_METADATA, xValues, parametersCalibrated, interpolator);
     double[][] volatilityUpdatedArray = startingParameters.getVolatilities().toArray();
@@ -171,9 +220,8 @@ public class LmmdddSwaptionRootBachelierVolatilityNLevelCalibrator {
    */
   static class ModelValues implements Function<DoubleArray, DoubleArray> {
 
-    private static final LmmdddSwaptionPhysicalProductExplicitApproxPricer PRICER_SWAPTION_LMM_APPROX = 
-        LmmdddSwaptionPhysicalProductExplicitApproxPricer.DEFAULT;
-    
+    /** The pricer, with cash flow equivalents cached as the swaptions and multi-curve do not change. */
+    private final LmmdddSwaptionPhysicalProductExplicitApproxPricer pricerSwaptionLmmApprox;
     private final List<ResolvedSwaption> swaptions;
     private final DoubleArray ivMarket;
     private final RatesProvider multicurve;
@@ -208,10 +256,13 @@ public class LmmdddSwaptionRootBachelierVolatilityNLevelCalibrator {
       this.interpolator = interpolator;
       this.extrapolatorLeft = extrapolatorLeft;
       this.extrapolatorRight = extrapolatorRight;
+      this.pricerSwaptionLmmApprox =
+          new LmmdddSwaptionPhysicalProductExplicitApproxPricer(CashFlowEquivalentCache.of(swaptions.size()));
     }
 
     @Override
     public DoubleArray apply(DoubleArray yValues) {
+      PricingMetrics.count(METRIC_EVALUATION);
       InterpolatedNodalCurve curve = InterpolatedNodalCurve.builder()
           .metadata(ADJ_METADATA)
           .xValues(xValues)
@@ -231,7 +282,7 @@ public class LmmdddSwaptionRootBachelierVolatilityNLevelCalibrator {
       double[] ivModel = new double[nbSwaptions];
       for (int i = 0; i < nbSwaptions; i++) {
         ivModel[i] =
-            PRICER_SWAPTION_LMM_APPROX.impliedVolatilityBachelier(swaptions.get(i), multicurve, parametersUpdated);
+            pricerSwaptionLmmApprox.impliedVolatilityBachelier(swaptions.get(i), multicurve, parametersUpdated);
       }
       return ivMarket.minus(DoubleArray.ofUnsafe(ivModel));
     }
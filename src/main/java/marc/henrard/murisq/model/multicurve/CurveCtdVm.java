@@ -53,6 +53,7 @@ import com.opengamma.strata.pricer.DiscountFactors;
 import com.opengamma.strata.pricer.ZeroRateSensitivity;
 import com.opengamma.strata.pricer.rate.DiscountOvernightIndexRates;
 import com.opengamma.strata.pricer.rate.OvernightIndexRates;
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
 
 /**
  * Curve constructed as the intrinsic cheapest-to-deliver collateral (variation margin) pseudo-discount curve 
@@ -68,6 +69,8 @@ public class CurveCtdVm
 
   /** Year fraction used as an effective zero. */
   private static final double EFFECTIVE_ZERO = 1e-10;
+  /** The name of the metric measuring the curve construction. */
+  private static final String METRIC_CONSTRUCTION = "CurveCtdVm.of";
   /** Internal. Only the 'Actual' part of the day count is important. */
   private static final DayCount DC_ON = DayCounts.ACT_360;
 
@@ -148,6 +151,7 @@ public class CurveCtdVm
       Currency currency,
       List<Curve> underlyingCurves) {
 
+    long start = PricingMetrics.start();
     ArgChecker.isTrue(underlyingCurves.size() > 0, "must have at least one discount factor");
     int nbCurves = underlyingCurves.size();
     ArgChecker.notNull(underlyingCurves, "curves");
@@ -277,7 +281,7 @@ public class CurveCtdVm
       currentDate = currentDateP1;
       currentDateP1 = baseCalendar.next(currentDate);
     } // End while - Loop on all business dates up to the final date
-    return new CurveCtdVm(
+    CurveCtdVm curve = new CurveCtdVm(
         underlyingCurves,
         valuationDate,
         finalDate,
@@ -291,6 +295,8 @@ public class CurveCtdVm
         dfSensitivitiesNextPeriodAtBounds,
         baseCalendar,
         metadata);
+    PricingMetrics.stop(METRIC_CONSTRUCTION, start);
+    return curve;
   }
 
   @ImmutableConstructor
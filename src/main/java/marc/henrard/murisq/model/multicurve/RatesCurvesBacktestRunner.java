@@ -0,0 +1,289 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.multicurve;
+
+import java.io.Flushable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.Messages;
+import com.opengamma.strata.collect.Unchecked;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.io.CsvOutput;
+import com.opengamma.strata.market.curve.RatesCurveGroup;
+
+import marc.henrard.murisq.loader.csv.RatesCurvesCsvStreamingLoader;
+
+/**
+ * Runs the same computation on historical curve groups for a set of dates.
+ * <p>
+ * The curve groups of each date are loaded lazily, in the task computing that date, through a loader function.
+ * The loader can be for example {@link RatesCurvesCsvStreamingLoader#load(LocalDate)} or the get method of
+ * the multimap returned by {@code RatesCurvesCsvLoader2.loadAllDates}. Only the curve groups of the dates being
+ * computed are in memory at any time.
+ * <p>
+ * The dates are computed in parallel on a work-stealing {@link ForkJoinPool}. The results are written to a CSV
+ * output as soon as they are available, in the order of the dates. Each line contains the valuation date,
+ * the values computed by the pricing function, the time used to load the curves and the time used by the
+ * pricing function, in milliseconds.
+ *
+ * @author Marc Henrard
+ */
+public final class RatesCurvesBacktestRunner {
+
+  /** The header of the valuation date column. */
+  private static final String DATE_HEADER = "Valuation Date";
+  /** The header of the loading time column. */
+  private static final String LOAD_TIME_HEADER = "Load Time (ms)";
+  /** The header of the pricing time column. */
+  private static final String PRICING_TIME_HEADER = "Pricing Time (ms)";
+  /** Nanoseconds in a millisecond. */
+  private static final double NANOS_PER_MILLI = 1_000_000.0d;
+
+  /** The valuation dates. */
+  private final ImmutableList<LocalDate> dates;
+  /** The loader of the curve groups for a date. */
+  private final Function<LocalDate, ImmutableList<RatesCurveGroup>> loader;
+  /** The parallelism. 0 means the common pool is used. */
+  private final int parallelism;
+
+  // Private constructor
+  private RatesCurvesBacktestRunner(
+      ImmutableList<LocalDate> dates,
+      Function<LocalDate, ImmutableList<RatesCurveGroup>> loader,
+      int parallelism) {
+
+    this.dates = dates;
+    this.loader = loader;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Obtains a runner from the dates and the loader of the curve groups.
+   * <p>
+   * The computations are run on the common fork-join pool.
+   *
+   * @param dates  the valuation dates
+   * @param loader  the loader of the curve groups for a date
+   * @return the runner
+   */
+  public static RatesCurvesBacktestRunner of(
+      List<LocalDate> dates,
+      Function<LocalDate, ImmutableList<RatesCurveGroup>> loader) {
+
+    return new RatesCurvesBacktestRunner(ImmutableList.copyOf(dates), loader, 0);
+  }
+
+  /**
+   * Obtains a runner for all the dates of a streaming loader.
+   * <p>
+   * The computations are run on the common fork-join pool.
+   *
+   * @param loader  the streaming loader
+   * @return the runner
+   */
+  public static RatesCurvesBacktestRunner of(RatesCurvesCsvStreamingLoader loader) {
+    return new RatesCurvesBacktestRunner(loader.getDates(), loader::load, 0);
+  }
+
+  /**
+   * Returns a runner using a dedicated pool with the given parallelism.
+   *
+   * @param parallelism  the number of threads
+   * @return the runner
+   */
+  public RatesCurvesBacktestRunner withParallelism(int parallelism) {
+    ArgChecker.isTrue(parallelism > 0, "parallelism must be strictly positive");
+    return new RatesCurvesBacktestRunner(dates, loader, parallelism);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the valuation dates.
+   *
+   * @return the dates
+   */
+  public ImmutableList<LocalDate> getDates() {
+    return dates;
+  }
+
+  /**
+   * Runs the pricing function on all dates.
+   *
+   * @param pricing  the pricing function, from the valuation date and the curve groups to the values
+   * @return the results, in the order of the dates
+   */
+  public ImmutableList<DateResult> run(
+      BiFunction<LocalDate, ImmutableList<RatesCurveGroup>, DoubleArray> pricing) {
+
+    return run(pricing, null, null);
+  }
+
+  /**
+   * Runs the pricing function on all dates and writes the results to a CSV output.
+   * <p>
+   * The lines are written in the order of the dates, as soon as the results are available. If the output
+   * is {@link Flushable}, it is flushed after each line.
+   *
+   * @param pricing  the pricing function, from the valuation date and the curve groups to the values
+   * @param headers  the headers of the values computed by the pricing function, not null if the output is not null
+   * @param output  the CSV output, null for no output
+   * @return the results, in the order of the dates
+   */
+  public ImmutableList<DateResult> run(
+      BiFunction<LocalDate, ImmutableList<RatesCurveGroup>, DoubleArray> pricing,
+      List<String> headers,
+      Appendable output) {
+
+    CsvOutput csv = null;
+    if (output != null) {
+      ArgChecker.notNull(headers, "headers");
+      csv = CsvOutput.standard(output);
+      List<String> headerLine = new ArrayList<>();
+      headerLine.add(DATE_HEADER);
+      headerLine.addAll(headers);
+      headerLine.add(LOAD_TIME_HEADER);
+      headerLine.add(PRICING_TIME_HEADER);
+      csv.writeLine(headerLine);
+      flush(output);
+    }
+    ForkJoinPool pool = (parallelism == 0) ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+    List<ForkJoinTask<DateResult>> tasks = new ArrayList<>(dates.size());
+    try {
+      for (LocalDate date : dates) {
+        tasks.add(pool.submit(() -> runDate(date, pricing)));
+      }
+      ImmutableList.Builder<DateResult> results = ImmutableList.builder();
+      for (ForkJoinTask<DateResult> task : tasks) {
+        DateResult result = task.join();
+        results.add(result);
+        if (csv != null) {
+          ArgChecker.isTrue(result.getValues().size() == headers.size(),
+              "number of values ({}) different from number of headers ({}) on {}",
+              result.getValues().size(), headers.size(), result.getValuationDate());
+          csv.writeLine(result.csvLine());
+          flush(output);
+        }
+      }
+      return results.build();
+    } finally {
+      for (ForkJoinTask<DateResult> task : tasks) {
+        task.cancel(false); // no effect on completed tasks
+      }
+      if (parallelism != 0) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  // load and price one date
+  private DateResult runDate(
+      LocalDate date,
+      BiFunction<LocalDate, ImmutableList<RatesCurveGroup>, DoubleArray> pricing) {
+
+    long start = System.nanoTime();
+    ImmutableList<RatesCurveGroup> groups;
+    try {
+      groups = loader.apply(date);
+    } catch (RuntimeException ex) {
+      throw new IllegalStateException(Messages.format("Loading failed on {}: {}", date, ex.getMessage()), ex);
+    }
+    long loaded = System.nanoTime();
+    DoubleArray values;
+    try {
+      values = pricing.apply(date, groups);
+    } catch (RuntimeException ex) {
+      throw new IllegalStateException(Messages.format("Pricing failed on {}: {}", date, ex.getMessage()), ex);
+    }
+    long priced = System.nanoTime();
+    return new DateResult(date, values, loaded - start, priced - loaded);
+  }
+
+  private static void flush(Appendable output) {
+    if (output instanceof Flushable) {
+      Unchecked.wrap(() -> ((Flushable) output).flush());
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * The result of the computation for one date.
+   */
+  public static final class DateResult {
+
+    /** The valuation date. */
+    private final LocalDate valuationDate;
+    /** The values computed by the pricing function. */
+    private final DoubleArray values;
+    /** The time used to load the curve groups, in nanoseconds. */
+    private final long loadTimeNanos;
+    /** The time used by the pricing function, in nanoseconds. */
+    private final long pricingTimeNanos;
+
+    // Private constructor
+    private DateResult(LocalDate valuationDate, DoubleArray values, long loadTimeNanos, long pricingTimeNanos) {
+      this.valuationDate = valuationDate;
+      this.values = values;
+      this.loadTimeNanos = loadTimeNanos;
+      this.pricingTimeNanos = pricingTimeNanos;
+    }
+
+    /**
+     * Returns the valuation date.
+     *
+     * @return the date
+     */
+    public LocalDate getValuationDate() {
+      return valuationDate;
+    }
+
+    /**
+     * Returns the values computed by the pricing function.
+     *
+     * @return the values
+     */
+    public DoubleArray getValues() {
+      return values;
+    }
+
+    /**
+     * Returns the time used to load the curve groups, in nanoseconds.
+     *
+     * @return the time
+     */
+    public long getLoadTimeNanos() {
+      return loadTimeNanos;
+    }
+
+    /**
+     * Returns the time used by the pricing function, in nanoseconds.
+     *
+     * @return the time
+     */
+    public long getPricingTimeNanos() {
+      return pricingTimeNanos;
+    }
+
+    // the line in the CSV output
+    private List<String> csvLine() {
+      List<String> line = new ArrayList<>();
+      line.add(valuationDate.toString());
+      for (int i = 0; i < values.size(); i++) {
+        line.add(Double.toString(values.get(i)));
+      }
+      line.add(Double.toString(loadTimeNanos / NANOS_PER_MILLI));
+      line.add(Double.toString(pricingTimeNanos / NANOS_PER_MILLI));
+      return line;
+    }
+
+  }
+
+}
@@ -318,16 +318,78 @@ public class RatesProviderImpliedGroupDefinition {
     return impliedProviderValues;
   }
 
+  /**
+   * Generate the multi-curves from a list of existing multi-curves and the group definition.
+   * <p>
+   * The multi-curves are typically scenarios on the same valuation date. The group definition is bound once and 
+   * the implied multi-curves are generated in parallel. The calibration trades used for the Jacobian matrices are
+   * resolved for each multi-curve, see {@link RatesProviderImpliedGroupGenerator}.
+   * <p>
+   * No time series are used and the IborIndexRates of the starting curves should be of the type
+   * DiscountIborIndexRates. See
+   * {@link #generate(RatesCurveGroupDefinition, List, Map, boolean, boolean, ReferenceData)} for the other cases.
+   * 
+   * @param group  the new group
+   * @param multicurves  the initial multi-curve frameworks, with the same valuation date
+   * @param withJacobian  the flag indicating if the Jacobian matrices are computed
+   * @param refData  the reference data
+   * @return the implied multi-curves, in the order of the initial ones
+   */
+  public static ImmutableList<ImmutableRatesProvider> generate(
+      RatesCurveGroupDefinition group,
+      List<? extends RatesProvider> multicurves,
+      boolean withJacobian,
+      ReferenceData refData) {
+
+    return generate(group, multicurves, ImmutableMap.of(), false, withJacobian, refData);
+  }
+
+  /**
+   * Generate the multi-curves from a list of existing multi-curves, the group definition and time series.
+   * <p>
+   * The multi-curves are typically scenarios on the same valuation date. The group definition is bound once and 
+   * the implied multi-curves are generated in parallel. The calibration trades used for the Jacobian matrices are
+   * resolved for each multi-curve, see {@link RatesProviderImpliedGroupGenerator}.
+   * <p>
+   * In the generic mode, the Ibor forward curves are generated as in {@link #generateGeneric}.
+   * <p>
+   * Restrictions:
+   * - Only discounting and Ibor forward curves (no inflation)
+   * - Generated curves should be zero rate or discount factor based
+   * - If not generic, IborIndexRates of the starting curves should be of the type DiscountIborIndexRates
+   * 
+   * @param group  the new group
+   * @param multicurves  the initial multi-curve frameworks, with the same valuation date
+   * @param ts  the time series, used to bind the group definition
+   * @param generic  the flag indicating if the Ibor forward curves are generated from the Ibor rates
+   * @param withJacobian  the flag indicating if the Jacobian matrices are computed
+   * @param refData  the reference data
+   * @return the implied multi-curves, in the order of the initial ones
+   */
+  public static ImmutableList<ImmutableRatesProvider> generate(
+      RatesCurveGroupDefinition group,
+      List<? extends RatesProvider> multicurves,
+      Map<Index, LocalDateDoubleTimeSeries> ts,
+      boolean generic,
+      boolean withJacobian,
+      ReferenceData refData) {
+
+    ArgChecker.notEmpty(multicurves, "multicurves");
+    RatesProviderImpliedGroupGenerator generator = 
+        RatesProviderImpliedGroupGenerator.of(group, multicurves.get(0), ts, generic, refData);
+    return generator.generate(multicurves, withJacobian);
+  }
+
   // --------------------------------------------------------------------------------------------------------------------
   // Methods below copied from RatesCurveCalibrator in Strata 2.1.0 as those methods are private in the original version.
   
   // converts a definition to the curve order list
-  private static ImmutableList<CurveParameterSize> toOrder(RatesCurveGroupDefinition groupDefn) {
+  static ImmutableList<CurveParameterSize> toOrder(RatesCurveGroupDefinition groupDefn) {
     return groupDefn.getCurveDefinitions().stream().map(def -> def.toCurveParameterSize()).collect(toImmutableList());
   }
 
   // calculates the Jacobians
-  private static ImmutableMap<CurveName, JacobianCalibrationMatrix> updateJacobiansForGroup(
+  static ImmutableMap<CurveName, JacobianCalibrationMatrix> updateJacobiansForGroup(
       ImmutableRatesProvider provider,
       ImmutableList<ResolvedTrade> trades,
       ImmutableList<CurveParameterSize> orderGroup,
@@ -0,0 +1,400 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.multicurve;
+
+import static com.opengamma.strata.collect.Guavate.toImmutableList;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.date.DayCount;
+import com.opengamma.strata.basics.index.IborIndex;
+import com.opengamma.strata.basics.index.IborIndexObservation;
+import com.opengamma.strata.basics.index.Index;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
+import com.opengamma.strata.data.MarketData;
+import com.opengamma.strata.market.ValueType;
+import com.opengamma.strata.market.curve.Curve;
+import com.opengamma.strata.market.curve.CurveDefinition;
+import com.opengamma.strata.market.curve.CurveInfoType;
+import com.opengamma.strata.market.curve.CurveName;
+import com.opengamma.strata.market.curve.CurveParameterSize;
+import com.opengamma.strata.market.curve.DefaultCurveMetadata;
+import com.opengamma.strata.market.curve.InterpolatedNodalCurve;
+import com.opengamma.strata.market.curve.JacobianCalibrationMatrix;
+import com.opengamma.strata.market.curve.RatesCurveGroupDefinition;
+import com.opengamma.strata.market.curve.RatesCurveGroupEntry;
+import com.opengamma.strata.market.curve.interpolator.CurveExtrapolators;
+import com.opengamma.strata.market.curve.interpolator.CurveInterpolators;
+import com.opengamma.strata.pricer.DiscountFactors;
+import com.opengamma.strata.pricer.curve.ImmutableRatesProviderGenerator;
+import com.opengamma.strata.pricer.curve.RatesProviderGenerator;
+import com.opengamma.strata.pricer.curve.SyntheticRatesCurveCalibrator;
+import com.opengamma.strata.pricer.rate.DiscountIborIndexRates;
+import com.opengamma.strata.pricer.rate.IborIndexRates;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.ResolvedTrade;
+
+/**
+ * Reusable generator of multi-curve providers implied by existing providers and a curve group definition.
+ * <p>
+ * The generator is created for a given group definition and valuation date. The group definition is bound, the
+ * provider generator is created and the curve node times are computed only once, at construction. The generator
+ * can then be used to map many source providers on the same valuation date to the implied providers of the group.
+ * <p>
+ * When the Jacobian matrices are required, the calibration trades are resolved for each source provider from the
+ * synthetic market quotes implied by that provider, as in {@link RatesProviderImpliedGroupDefinition#generate}.
+ * The trades are at par for each implied provider and the Jacobian matrices do not depend on a reference provider.
+ * <p>
+ * In the generic mode, the Ibor forward curves are generated from pseudo-discount factors obtained by accumulation
+ * of the Ibor rates, as in {@link RatesProviderImpliedGroupDefinition#generateGeneric}; the Ibor observations are
+ * computed once at construction. Otherwise the IborIndexRates of the source providers must be of the type
+ * DiscountIborIndexRates.
+ * <p>
+ * Restrictions:
+ * - Only discounting and Ibor forward curves (no inflation)
+ * - Generated curves should be zero rate or discount factor based
+ * <p>
+ * The generator is immutable and can be used concurrently from several threads.
+ *
+ * @author Marc Henrard
+ */
+public final class RatesProviderImpliedGroupGenerator {
+
+  private static final SyntheticRatesCurveCalibrator SYNTHETIC_CALIBRATOR =
+      SyntheticRatesCurveCalibrator.standard();
+
+  /** The valuation date. */
+  private final LocalDate valuationDate;
+  /** The generator of providers from the curve parameters. */
+  private final RatesProviderGenerator providerGenerator;
+  /** The description of each curve to generate, in the order of the group definition. */
+  private final ImmutableList<ImpliedCurve> curves;
+  /** The total number of parameters of the group. */
+  private final int nbParameters;
+  /** The group definition, used to compute the synthetic market quotes. */
+  private final RatesCurveGroupDefinition group;
+  /** The group definition bound to the time series, used to resolve the calibration trades. */
+  private final RatesCurveGroupDefinition groupDefnBound;
+  /** The reference data. */
+  private final ReferenceData refData;
+  /** The order of the curves in the group. */
+  private final ImmutableList<CurveParameterSize> orderGroup;
+
+  // Private constructor
+  private RatesProviderImpliedGroupGenerator(
+      LocalDate valuationDate,
+      RatesProviderGenerator providerGenerator,
+      ImmutableList<ImpliedCurve> curves,
+      int nbParameters,
+      RatesCurveGroupDefinition group,
+      RatesCurveGroupDefinition groupDefnBound,
+      ReferenceData refData,
+      ImmutableList<CurveParameterSize> orderGroup) {
+
+    this.valuationDate = valuationDate;
+    this.providerGenerator = providerGenerator;
+    this.curves = curves;
+    this.nbParameters = nbParameters;
+    this.group = group;
+    this.groupDefnBound = groupDefnBound;
+    this.refData = refData;
+    this.orderGroup = orderGroup;
+  }
+
+  /**
+   * Obtains a generator for a group definition.
+   * <p>
+   * The valuation date is the one of the reference provider.
+   *
+   * @param group  the group definition of the implied providers
+   * @param referenceMulticurve  the reference multi-curve, used for the valuation date
+   * @param ts  the time series, used to bind the group definition
+   * @param generic  the flag indicating if the Ibor forward curves are generated from the Ibor rates (generic mode)
+   * @param refData  the reference data
+   * @return the generator
+   */
+  public static RatesProviderImpliedGroupGenerator of(
+      RatesCurveGroupDefinition group,
+      RatesProvider referenceMulticurve,
+      Map<Index, LocalDateDoubleTimeSeries> ts,
+      boolean generic,
+      ReferenceData refData) {
+
+    LocalDate valuationDate = referenceMulticurve.getValuationDate();
+    RatesCurveGroupDefinition groupDefnBound = group.bindTimeSeries(valuationDate, ts);
+    ImmutableRatesProvider providerCombined = ImmutableRatesProvider.builder(valuationDate)
+        .timeSeries(ts).build();
+    RatesProviderGenerator providerGenerator =
+        ImmutableRatesProviderGenerator.of(providerCombined, groupDefnBound, refData);
+    int nbParameters = group.getTotalParameterCount();
+    ImmutableRatesProvider impliedProvider0 = // Provider with parameters of value 0
+        providerGenerator.generate(DoubleArray.filled(nbParameters));
+    ImmutableList.Builder<ImpliedCurve> curvesBuilder = ImmutableList.builder();
+    for (CurveDefinition def : groupDefnBound.getCurveDefinitions()) {
+      RatesCurveGroupEntry entry = group.findEntry(def.getName()).get();
+      ValueType yType = def.getYValueType();
+      ArgChecker.isTrue(yType.equals(ValueType.DISCOUNT_FACTOR) || yType.equals(ValueType.ZERO_RATE),
+          "Only discount factors and zero rates supported");
+      Set<Currency> currencies = entry.getDiscountCurrencies();
+      ArgChecker.isTrue(currencies.size() <= 1, "one currency");
+      Curve curve0 = impliedProvider0.getCurves().get(entry.getCurveName());
+      ArgChecker.isTrue(curve0 instanceof InterpolatedNodalCurve, "interpolated curve");
+      double[] times = ((InterpolatedNodalCurve) curve0).getXValues().toArray();
+      boolean isDiscountFactor = yType.equals(ValueType.DISCOUNT_FACTOR);
+      if (!currencies.isEmpty()) {
+        curvesBuilder.add(ImpliedCurve.discounting(currencies.iterator().next(), isDiscountFactor, times));
+      } else {
+        Index index = entry.getIndices().iterator().next();
+        ArgChecker.isTrue(index instanceof IborIndex, "Only IBOR if not currency");
+        IborIndex ibor = (IborIndex) index;
+        if (generic) {
+          DayCount dayCount = curve0.getMetadata().getInfo(CurveInfoType.DAY_COUNT);
+          curvesBuilder.add(ImpliedCurve.iborGeneric(ibor, isDiscountFactor, times, dayCount, valuationDate, refData));
+        } else {
+          curvesBuilder.add(ImpliedCurve.ibor(ibor, isDiscountFactor, times));
+        }
+      }
+    }
+    ImmutableList<ImpliedCurve> curves = curvesBuilder.build();
+    ImmutableList<CurveParameterSize> orderGroup = RatesProviderImpliedGroupDefinition.toOrder(groupDefnBound);
+    return new RatesProviderImpliedGroupGenerator(
+        valuationDate, providerGenerator, curves, nbParameters, group, groupDefnBound, refData, orderGroup);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the valuation date of the generator.
+   *
+   * @return the valuation date
+   */
+  public LocalDate getValuationDate() {
+    return valuationDate;
+  }
+
+  /**
+   * Generates the multi-curve implied by a source multi-curve.
+   * <p>
+   * The multi-curve has Jacobian matrices.
+   *
+   * @param multicurve  the source multi-curve, with the same valuation date as the generator
+   * @return the implied multi-curve
+   */
+  public ImmutableRatesProvider generate(RatesProvider multicurve) {
+    return generate(multicurve, true);
+  }
+
+  /**
+   * Generates the multi-curve implied by a source multi-curve.
+   * <p>
+   * The multi-curve does not have Jacobian matrices.
+   *
+   * @param multicurve  the source multi-curve, with the same valuation date as the generator
+   * @return the implied multi-curve
+   */
+  public ImmutableRatesProvider generateNoJacobian(RatesProvider multicurve) {
+    return generate(multicurve, false);
+  }
+
+  /**
+   * Generates the multi-curve implied by a source multi-curve, with or without Jacobian matrices.
+   *
+   * @param multicurve  the source multi-curve, with the same valuation date as the generator
+   * @param withJacobian  the flag indicating if the Jacobian matrices are computed
+   * @return the implied multi-curve
+   */
+  public ImmutableRatesProvider generate(RatesProvider multicurve, boolean withJacobian) {
+    ArgChecker.isTrue(multicurve.getValuationDate().equals(valuationDate),
+        "valuation date of the multi-curve must be the one of the generator");
+    DoubleArray parameters = parameters(curves, nbParameters, multicurve);
+    ImmutableRatesProvider multicurveNoJacobian = providerGenerator.generate(parameters);
+    if (!withJacobian) {
+      return multicurveNoJacobian;
+    }
+    // Trades resolved at par for the implied provider
+    MarketData marketData = SYNTHETIC_CALIBRATOR.marketData(group, multicurveNoJacobian, refData);
+    ImmutableList<ResolvedTrade> trades = groupDefnBound.resolvedTrades(marketData, refData);
+    ImmutableMap<CurveName, JacobianCalibrationMatrix> jacobians = RatesProviderImpliedGroupDefinition
+        .updateJacobiansForGroup(multicurveNoJacobian, trades, orderGroup, orderGroup);
+    return providerGenerator.generate(parameters, jacobians);
+  }
+
+  /**
+   * Generates the multi-curves implied by a list of source multi-curves, typically scenarios.
+   * <p>
+   * The source multi-curves are processed in parallel; the bound group definition and the node times
+   * are shared. The implied multi-curves are returned in the order of the sources.
+   *
+   * @param multicurves  the source multi-curves, with the same valuation date as the generator
+   * @param withJacobian  the flag indicating if the Jacobian matrices are computed; 
+   *   use false when only present values are required
+   * @return the implied multi-curves
+   */
+  public ImmutableList<ImmutableRatesProvider> generate(
+      List<? extends RatesProvider> multicurves,
+      boolean withJacobian) {
+
+    return IntStream.range(0, multicurves.size()).parallel()
+        .mapToObj(i -> generate(multicurves.get(i), withJacobian))
+        .collect(toImmutableList());
+  }
+
+  //-------------------------------------------------------------------------
+  // The parameters of the group implied by a multi-curve
+  private static DoubleArray parameters(
+      ImmutableList<ImpliedCurve> curves,
+      int nbParameters,
+      RatesProvider multicurve) {
+
+    double[] parameters = new double[nbParameters];
+    int start = 0;
+    for (ImpliedCurve curve : curves) {
+      start = curve.yValues(multicurve, parameters, start);
+    }
+    ArgChecker.isTrue(start == nbParameters, "number of parameters inconsistent with the group");
+    return DoubleArray.ofUnsafe(parameters);
+  }
+
+  /**
+   * Inner class with the description of one curve to generate.
+   */
+  private static final class ImpliedCurve {
+
+    /** The discounting currency, null for Ibor curves. */
+    private final Currency currency;
+    /** The Ibor index, null for discounting curves. */
+    private final IborIndex ibor;
+    /** The flag indicating if the y values are discount factors (otherwise zero rates). */
+    private final boolean isDiscountFactor;
+    /** The node times of the curve. */
+    private final double[] times;
+    /** Generic mode only. The successive Ibor observations for the pseudo-discount factors. */
+    private final IborIndexObservation[] observations;
+    /** Generic mode only. The times of the pseudo-discount factors, including the spot time. */
+    private final double[] pseudoTimes;
+    /** Generic mode only. The power adjustment for the first pseudo-discount factor. */
+    private final double firstPower;
+    /** Generic mode only. The day count and the valuation date of the pseudo-discount curve. */
+    private final DayCount dayCount;
+    private final LocalDate valuationDate;
+
+    private ImpliedCurve(
+        Currency currency,
+        IborIndex ibor,
+        boolean isDiscountFactor,
+        double[] times,
+        IborIndexObservation[] observations,
+        double[] pseudoTimes,
+        double firstPower,
+        DayCount dayCount,
+        LocalDate valuationDate) {
+
+      this.currency = currency;
+      this.ibor = ibor;
+      this.isDiscountFactor = isDiscountFactor;
+      this.times = times;
+      this.observations = observations;
+      this.pseudoTimes = pseudoTimes;
+      this.firstPower = firstPower;
+      this.dayCount = dayCount;
+      this.valuationDate = valuationDate;
+    }
+
+    private static ImpliedCurve discounting(Currency currency, boolean isDiscountFactor, double[] times) {
+      return new ImpliedCurve(currency, null, isDiscountFactor, times, null, null, 0.0d, null, null);
+    }
+
+    private static ImpliedCurve ibor(IborIndex ibor, boolean isDiscountFactor, double[] times) {
+      return new ImpliedCurve(null, ibor, isDiscountFactor, times, null, null, 0.0d, null, null);
+    }
+
+    // The Ibor observations are the same as in RatesProviderImpliedGroupDefinition.generateGeneric
+    private static ImpliedCurve iborGeneric(
+        IborIndex ibor,
+        boolean isDiscountFactor,
+        double[] times,
+        DayCount dayCount,
+        LocalDate valuationDate,
+        ReferenceData refData) {
+
+      List<IborIndexObservation> observations = new ArrayList<>();
+      List<Double> tList = new ArrayList<>();
+      LocalDate fixingDate = valuationDate;
+      tList.add(dayCount.relativeYearFraction(valuationDate, ibor.calculateEffectiveFromFixing(fixingDate, refData)));
+      double endTime = 0.0;
+      double firstPower = 1.0d;
+      while (endTime < times[times.length - 1]) {
+        IborIndexObservation obs = IborIndexObservation.of(ibor, fixingDate, refData);
+        endTime = dayCount.relativeYearFraction(valuationDate, obs.getMaturityDate());
+        if (observations.isEmpty()) { // Need to adjust the first df to take the spot df into account
+          double depositTime = dayCount.relativeYearFraction(obs.getEffectiveDate(), obs.getMaturityDate());
+          firstPower = endTime / depositTime;
+        }
+        observations.add(obs);
+        tList.add(endTime);
+        fixingDate = ibor.calculateFixingFromEffective(obs.getMaturityDate(), refData);
+      }
+      return new ImpliedCurve(null, ibor, isDiscountFactor, times,
+          observations.toArray(new IborIndexObservation[0]),
+          tList.stream().mapToDouble(Double::doubleValue).toArray(),
+          firstPower, dayCount, valuationDate);
+    }
+
+    // Writes the y values of the curve implied by the multi-curve in the parameters, returns the next start index
+    private int yValues(RatesProvider multicurve, double[] parameters, int start) {
+      DiscountFactors df = discountFactors(multicurve);
+      for (int i = 0; i < times.length; i++) {
+        parameters[start + i] = isDiscountFactor ? df.discountFactor(times[i]) : df.zeroRate(times[i]);
+      }
+      return start + times.length;
+    }
+
+    private DiscountFactors discountFactors(RatesProvider multicurve) {
+      if (currency != null) {
+        return multicurve.discountFactors(currency);
+      }
+      IborIndexRates rates = multicurve.iborIndexRates(ibor);
+      if (observations == null) {
+        ArgChecker.isTrue(rates instanceof DiscountIborIndexRates, "Only discount Ibor rates");
+        return ((DiscountIborIndexRates) rates).getDiscountFactors();
+      }
+      // Generate pseudo discount factors at successive IBOR dates
+      double[] dfs = new double[observations.length + 1];
+      dfs[0] = 1.0d;
+      double dfMaturity = 1.0d;
+      for (int i = 0; i < observations.length; i++) {
+        double rate = rates.rate(observations[i]);
+        if (i == 0) {
+          dfMaturity /= Math.pow(1.0d + observations[i].getYearFraction() * rate, firstPower);
+        } else {
+          dfMaturity /= 1.0d + observations[i].getYearFraction() * rate; // pseudo discount factor not maturity
+        }
+        dfs[i + 1] = dfMaturity;
+      }
+      Curve curvedf = InterpolatedNodalCurve.of(DefaultCurveMetadata.builder()
+          .curveName("IBOR")
+          .xValueType(ValueType.YEAR_FRACTION)
+          .yValueType(ValueType.DISCOUNT_FACTOR)
+          .dayCount(dayCount).build(),
+          DoubleArray.copyOf(pseudoTimes),
+          DoubleArray.ofUnsafe(dfs),
+          CurveInterpolators.LINEAR,
+          CurveExtrapolators.FLAT, // 1 before
+          CurveExtrapolators.EXPONENTIAL);
+      return DiscountFactors.of(ibor.getCurrency(), valuationDate, curvedf);
+    }
+  }
+
+}
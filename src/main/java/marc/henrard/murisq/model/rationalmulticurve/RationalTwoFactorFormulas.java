@@ -4,8 +4,11 @@
 package marc.henrard.murisq.model.rationalmulticurve;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.function.BiFunction;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import com.google.common.collect.ImmutableList;
 import com.opengamma.strata.basics.currency.Currency;
@@ -56,12 +59,40 @@ public class RationalTwoFactorFormulas {
   private static final double SMALL_T = 1.0E-6;
   /** Normal distribution implementation. */
   private static final ProbabilityDistribution<Double> NORMAL = new NormalDistribution(0, 1);
+  /** Minimal number of caplets/floorlets for which the vector formulas are computed in parallel. */
+  private static final int PARALLEL_MIN_SIZE = 40;
+  /** Maximal depth of the sub-interval refinement in the primitive integrator. */
+  private static final int MAX_DEPTH = 50;
+  
+  /** The thread-confined integrants used by the primitive integrations. */
+  private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
   
   /** The default instance of the formulas. */
-  public final static RationalTwoFactorFormulas DEFAULT = new RationalTwoFactorFormulas();
+  public final static RationalTwoFactorFormulas DEFAULT = new RationalTwoFactorFormulas(false);
+  /** 
+   * The high-performance instance of the formulas.
+   * <p>
+   * The integrals are computed on primitive functions with integrants reused by each thread, without allocation
+   * for each value. The 2-D integrals are restricted to the exercise region.
+   * The results are equal to the ones of {@link #DEFAULT} up to the integration tolerance.
+   */
+  public final static RationalTwoFactorFormulas HIGH_PERFORMANCE = new RationalTwoFactorFormulas(true);
+  
+  /** Whether the high-performance integrations are used. */
+  private final boolean highPerformance;
   
   // Private constructor
-  private RationalTwoFactorFormulas(){
+  private RationalTwoFactorFormulas(boolean highPerformance){
+    this.highPerformance = highPerformance;
+  }
+  
+  /**
+   * Returns whether the high-performance integrations are used.
+   * 
+   * @return the flag
+   */
+  public boolean isHighPerformance() {
+    return highPerformance;
   }
   
   /**
@@ -251,11 +282,36 @@ public class RationalTwoFactorFormulas {
     return c;
   }
 
+  /**
+   * In the rational two-factor model, for the description of the caplets dynamic, the constant, the coefficients of
+   * exp(a_1 X(1) - ...) and the coefficients of exp(a_2 X(2) - ...) for each caplet/floorlet.
+   * <p>
+   * See {@link #capletCoefficients(IborCapletFloorletPeriod, RatesProvider, RationalTwoFactorParameters)}.
+   * 
+   * @param caplets  the caplet/floorlet periods
+   * @param rates  the rates/multi-curve provider
+   * @param model  the rational 2-factor model
+   * @return the coefficients, one row by caplet/floorlet
+   */
+  public double[][] capletCoefficients(
+      List<IborCapletFloorletPeriod> caplets,
+      RatesProvider rates,
+      RationalTwoFactorParameters model) {
+
+    double[][] c = new double[caplets.size()][];
+    for (int loopcap = 0; loopcap < caplets.size(); loopcap++) {
+      c[loopcap] = capletCoefficients(caplets.get(loopcap), rates, model);
+    }
+    return c;
+  }
+
   /**
    * Computes the value of the 2-D integral (x_0 + x_1 (exp(a_1 X(1) - ...) + 1) + x_2 (exp(a_2 X(2) - ...) + 1))^+
    * <p>
    * The computation is based on the coefficients of the different base random variables. The coefficeints 
    * are the constant, the coefficients of exp(a_1 X(1) - ...) and the coefficients of exp(a_2 X(2) - ...)
+   * <p>
+   * In high-performance mode, the 1-D integral is computed on a primitive function reused by the thread.
    * 
    * @param x  the coefficients
    * @param t  the time to expiry
@@ -266,6 +322,9 @@ public class RationalTwoFactorFormulas {
    * @return  the value
    */
   public double pvSemiExplicit(double[] x, double t, double a1, double a2, double rho, int nbSteps) {
+    if (highPerformance) {
+      return pvSemiExplicit(x[0], x[1], x[2], t, a1, a2, rho, nbSteps);
+    }
     RungeKuttaIntegrator1D integrator1D  = 
         new RungeKuttaIntegrator1D(TOL_ABS, TOL_REL, nbSteps);
     ArgChecker.notNegative(t, "time to expiry");
@@ -322,6 +381,134 @@ public class RationalTwoFactorFormulas {
     return pv1 + pv2;
   }
 
+  /**
+   * Computes the values of the 2-D integrals (x_0 + x_1 (exp(a_1 X(1) - ...) + 1) + x_2 (exp(a_2 X(2) - ...) + 1))^+
+   * for a set of coefficients and times, typically the caplets/floorlets of a cap/floor leg.
+   * <p>
+   * The formula is the one of {@link #pvSemiExplicit(double[], double, double, double, double, int)}. The 1-D 
+   * integrals are computed by a Runge-Kutta integrator on primitive functions without creating an integrator 
+   * or boxing the integrant values, in both modes. The values are computed in parallel when the number of 
+   * coefficients is large.
+   * 
+   * @param x  the coefficients, one row for each value
+   * @param t  the times to expiry, one for each value
+   * @param a1  the parameter of the first log-normal martingale
+   * @param a2  the parameter of the second log-normal martingale
+   * @param rho  the correlation between the X_1 and the X_2 random variables
+   * @param nbSteps  the minimal number of steps in the numerical integration
+   * @return  the values
+   */
+  public double[] pvSemiExplicit(double[][] x, double[] t, double a1, double a2, double rho, int nbSteps) {
+    ArgChecker.isTrue(x.length == t.length, "coefficients and times should have the same length");
+    double[] pv = new double[x.length];
+    range(x.length).forEach(i -> pv[i] = pvSemiExplicit(x[i][0], x[i][1], x[i][2], t[i], a1, a2, rho, nbSteps));
+    return pv;
+  }
+
+  // semi-explicit formula on primitive coefficients
+  private double pvSemiExplicit(
+      double x0,
+      double x1,
+      double x2,
+      double t,
+      double a1,
+      double a2,
+      double rho,
+      int nbSteps) {
+
+    ArgChecker.notNegative(t, "time to expiry");
+    if (t < SMALL_T) {  // No time value
+      return Math.max(x0 + x1 + x2, 0.0);
+    }
+    if (x1 < 0) { // Payer-receiver parity
+      return x0 + x1 + x2 + pvSemiExplicit(-x0, -x1, -x2, t, a1, a2, rho, nbSteps);
+    }
+    if (x0 >= 0 && x1 >= 0 && x2 >= 0) {
+      return x0 + x1 + x2;
+    }
+    if (Math.abs(x1) <= SMALL && Math.abs(x2 * x0) <= SMALL) {
+      return 0.0d;
+    }
+    if ((x0 * x1 < 0) && (Math.abs(x2) <= SMALL)) { // Equivalent to 1-factor
+      double omega = Math.signum(x1);
+      return BlackFormulaRepository.price(omega * x1, -omega * x0, t, a1, x1 > 0);
+    }
+    double d2 = Math.exp(-0.5 * a2 * a2 * t);
+    double sqrtt = Math.sqrt(t);
+    double kappa2 = kappa2(x0, x2, d2, a2, sqrtt);
+    double omega = Math.signum(x0);
+    double pv1 = x0 * NORMAL.getCDF(omega * kappa2)
+        + x1 * NORMAL.getCDF(omega * (kappa2 - rho * a1 * sqrtt))
+        + x2 * NORMAL.getCDF(omega * (kappa2 - a2 * sqrtt));
+    if (Math.abs(x1) <= SMALL) {
+      return pv1;
+    }
+    double d1 = Math.exp(-0.5 * a1 * a1 * t);
+    SemiExplicitIntegrant integrant = WORKSPACE.get().semiExplicit;
+    integrant.set(rho, x0, x1, x2, sqrtt, a1, a2, d1, d2);
+    if (x0 < 0 && x2 < 0) { // x1 > 0 implicit from previous ifs
+      return 1.0 / Math.sqrt(2.0 * Math.PI) * integrate(integrant, -LIMIT_INT, LIMIT_INT, nbSteps);
+    }
+    double u = (omega == 1) ? Math.max(-LIMIT_INT, kappa2) : -LIMIT_INT;
+    double v = (omega == 1) ? LIMIT_INT : Math.min(LIMIT_INT, kappa2);
+    return pv1 + 1.0 / Math.sqrt(2.0 * Math.PI) * integrate(integrant, u, v, nbSteps);
+  }
+
+  /* 
+   * Adaptive Runge-Kutta integration on primitive functions. Same scheme and tolerances as 
+   * RungeKuttaIntegrator1D: nbSteps intervals, each refined until the Simpson estimates on the interval and 
+   * on its two halves are close enough.
+   */
+  private static double integrate(DoubleUnaryOperator f, double lower, double upper, int nbSteps) {
+    if (lower == upper) {
+      return 0.0d;
+    }
+    if (lower > upper) {
+      return -integrate(f, upper, lower, nbSteps);
+    }
+    double h = (upper - lower) / nbSteps;
+    double xl = lower;
+    double fl = f.applyAsDouble(xl);
+    double result = 0.0d;
+    for (int loopstep = 0; loopstep < nbSteps; loopstep++) {
+      double fm = f.applyAsDouble(xl + 0.5 * h);
+      double fu = f.applyAsDouble(xl + h);
+      result += rungeKutta(f, xl, h, fl, fm, fu, 0);
+      xl += h;
+      fl = fu;
+    }
+    return result;
+  }
+
+  // integral on [x, x+h], function values at the lower, middle and upper points given
+  private static double rungeKutta(
+      DoubleUnaryOperator f,
+      double x,
+      double h,
+      double fl,
+      double fm,
+      double fu,
+      int depth) {
+
+    double f1 = f.applyAsDouble(x + 0.25 * h);
+    double f2 = f.applyAsDouble(x + 0.75 * h);
+    double ya = h * (fl + 4.0 * fm + fu) / 6.0;
+    double yb = h * (fl + 2.0 * fm + 4.0 * (f1 + f2) + fu) / 12.0;
+    double diff = Math.abs(ya - yb);
+    double abs = Math.max(Math.abs(ya), Math.abs(yb));
+    if (diff < TOL_ABS || diff < abs * TOL_REL || depth >= MAX_DEPTH) {
+      return yb + (yb - ya) / 15.0;
+    }
+    return rungeKutta(f, x, 0.5 * h, fl, f1, fm, depth + 1)
+        + rungeKutta(f, x + 0.5 * h, 0.5 * h, fm, f2, fu, depth + 1);
+  }
+
+  // indices, in parallel for large sizes
+  private static IntStream range(int size) {
+    IntStream range = IntStream.range(0, size);
+    return (size >= PARALLEL_MIN_SIZE) ? range.parallel() : range;
+  }
+
   /* The exercise boundary */
   private static double kappa2(double x0, double x2, double d2, double a2, double sqrtt) {
     return Math.log(-x0 / (x2 * d2)) / (a2 * sqrtt);
@@ -372,6 +559,9 @@ public class RationalTwoFactorFormulas {
    * <p>
    * The computation is based on the coefficients of the different base random variables. The coefficeints 
    * are the constant, the coefficients of exp(a_1 X(1) - ...) and the coefficients of exp(a_2 X(2) - ...)
+   * <p>
+   * In high-performance mode, the inner integral for each value of the second factor is restricted to the 
+   * exercise region and the integrants are primitive functions reused by the thread.
    * 
    * @param x  the coefficients
    * @param t  the time to expiry
@@ -382,7 +572,11 @@ public class RationalTwoFactorFormulas {
    * @return  the value
    */
   public double pvNumericalIntegration(double[] x, double t, double a1, double a2, double rho, int nbSteps) {
-    
+    if (highPerformance) {
+      ExerciseIntegrant integrant = WORKSPACE.get().exercise;
+      integrant.set(x[0], x[1], x[2], a1 * Math.sqrt(t), a2 * Math.sqrt(t), rho, nbSteps);
+      return 1.0 / (2.0 * Math.PI * Math.sqrt(1 - rho * rho)) * integrate(integrant, -LIMIT_INT, LIMIT_INT, nbSteps);
+    }
     final PriceIntegrant2 integrant = 
         new PriceIntegrant2(new double[] {a1, a2 }, rho, x, t);
     final RungeKuttaIntegrator1D integrator1D = 
@@ -398,6 +592,28 @@ public class RationalTwoFactorFormulas {
     return pv;
   }
 
+  /**
+   * Computes the values of derivatives by two dimensional numerical integration for a set of coefficients and times,
+   * typically the caplets/floorlets of a cap/floor leg.
+   * <p>
+   * Each value is computed by {@link #pvNumericalIntegration(double[], double, double, double, double, int)}.
+   * The values are computed in parallel when the number of coefficients is large.
+   * 
+   * @param x  the coefficients, one row for each value
+   * @param t  the times to expiry, one for each value
+   * @param a1  the parameter of the first log-normal martingale
+   * @param a2  the parameter of the second log-normal martingale
+   * @param rho  the correlation between the X_1 and the X_2 random variables
+   * @param nbSteps  the minimal number of steps in the numerical integration
+   * @return  the values
+   */
+  public double[] pvNumericalIntegration(double[][] x, double[] t, double a1, double a2, double rho, int nbSteps) {
+    ArgChecker.isTrue(x.length == t.length, "coefficients and times should have the same length");
+    double[] pv = new double[x.length];
+    range(x.length).forEach(i -> pv[i] = pvNumericalIntegration(x[i], t[i], a1, a2, rho, nbSteps));
+    return pv;
+  }
+
   /** Inner class to implement the 2-dimensional integration used in price replication. */
   private static final class PriceIntegrant2 implements BiFunction<Double, Double, Double> {
 
@@ -437,5 +653,137 @@ public class RationalTwoFactorFormulas {
       return 0.0;
     }
   }
-  
+
+  //-------------------------------------------------------------------------
+  /** The integrants reused by one thread. */
+  private static final class Workspace {
+
+    /** The integrant of the semi-explicit formula. */
+    private final SemiExplicitIntegrant semiExplicit = new SemiExplicitIntegrant();
+    /** The integrant of the 2-D integration restricted to the exercise region. */
+    private final ExerciseIntegrant exercise = new ExerciseIntegrant();
+  }
+
+  /** The integrant of the semi-explicit formula on primitive values; same function as PriceIntegrant1. */
+  private static final class SemiExplicitIntegrant implements DoubleUnaryOperator {
+
+    private double rho;
+    private double x0;
+    private double x1;
+    private double x2;
+    private double sqrtt;
+    private double a1;
+    private double a2;
+    private double d1;
+    private double d2;
+    private double sqrt1rho;
+
+    void set(double rho, double x0, double x1, double x2, double sqrtt, double a1, double a2, double d1, double d2) {
+      this.rho = rho;
+      this.x0 = x0;
+      this.x1 = x1;
+      this.x2 = x2;
+      this.sqrtt = sqrtt;
+      this.a1 = a1;
+      this.a2 = a2;
+      this.d1 = d1;
+      this.d2 = d2;
+      this.sqrt1rho = Math.sqrt(1.0 - rho * rho);
+    }
+
+    @Override
+    public double applyAsDouble(double y2) {
+      double kappa = Math.log(-(x0 + x2 * d2 * Math.exp(a2 * sqrtt * y2)) / (x1 * d1)) / (a1 * sqrtt);
+      double c1 = x0 * Math.exp(-0.5 * y2 * y2) + x2 * Math.exp(-0.5 * (y2 - a2 * sqrtt) * (y2 - a2 * sqrtt));
+      double c2 = x1 * Math.exp(-0.5 * (y2 - rho * a1 * sqrtt) * (y2 - rho * a1 * sqrtt));
+      return NORMAL.getCDF(-(kappa - rho * y2) / (sqrt1rho)) * c1
+          + NORMAL.getCDF(-(kappa - rho * y2 - (1 - rho * rho) * a1 * sqrtt) / (sqrt1rho)) * c2;
+    }
+  }
+
+  /**
+   * The outer integrant of the 2-D integration, as a function of the second factor. 
+   * <p>
+   * For a given second factor, the payoff is monotonous in the first factor and the inner integral is restricted 
+   * to the exercise region, i.e. the half-line where the payoff is positive. The inner integral is 0, without 
+   * integration, when the region is empty.
+   */
+  private static final class ExerciseIntegrant implements DoubleUnaryOperator {
+
+    private final ExerciseInnerIntegrant inner = new ExerciseInnerIntegrant();
+    private double c0;
+    private double c1;
+    private double c2;
+    private double s1;
+    private double s2;
+    private int nbSteps;
+
+    void set(double c0, double c1, double c2, double s1, double s2, double rho, int nbSteps) {
+      this.c0 = c0;
+      this.c1 = c1;
+      this.c2 = c2;
+      this.s1 = s1;
+      this.s2 = s2;
+      this.nbSteps = nbSteps;
+      inner.set(c1, s1, rho);
+    }
+
+    @Override
+    public double applyAsDouble(double y) {
+      double r = c0 + c2 * Math.exp(s2 * y - 0.5 * s2 * s2); // payoff excluding the first factor part
+      double lower = -LIMIT_INT;
+      double upper = LIMIT_INT;
+      if (c1 == 0.0d || s1 == 0.0d) { // payoff independent of the first factor
+        if (r + ((s1 == 0.0d) ? c1 : 0.0d) <= 0.0d) {
+          return 0.0d;
+        }
+      } else {
+        double e = -r / c1; // exercise boundary for exp(s1 x - 0.5 s1^2)
+        if (e <= 0.0d) { // payoff of the sign of c1 for all values of the first factor
+          if (c1 < 0.0d) {
+            return 0.0d;
+          }
+        } else {
+          double boundary = (Math.log(e) + 0.5 * s1 * s1) / s1;
+          if (c1 * s1 > 0.0d) {
+            lower = Math.max(lower, boundary);
+          } else {
+            upper = Math.min(upper, boundary);
+          }
+          if (lower >= upper) {
+            return 0.0d;
+          }
+        }
+      }
+      inner.r = r;
+      inner.y = y;
+      return integrate(inner, lower, upper, nbSteps);
+    }
+  }
+
+  /** The inner integrant of the 2-D integration: payoff times density, as a function of the first factor. */
+  private static final class ExerciseInnerIntegrant implements DoubleUnaryOperator {
+
+    private double c1;
+    private double s1;
+    private double rho;
+    private double r;
+    private double y;
+
+    void set(double c1, double s1, double rho) {
+      this.c1 = c1;
+      this.s1 = s1;
+      this.rho = rho;
+    }
+
+    @Override
+    public double applyAsDouble(double x) {
+      double payoff = r + c1 * Math.exp(s1 * x - 0.5 * s1 * s1);
+      if (payoff > 0) {
+        return payoff * Math.exp(-(x * x + y * y - 2 * rho * x * y) / (2.0 * (1 - rho * rho)));
+      }
+      return 0.0;
+    }
+  }
+
 }
@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.rationalmulticurve;
+
+import java.util.SplittableRandom;
+
+import com.opengamma.strata.collect.ArgChecker;
+
+/**
+ * Exact simulation of the log-normal martingales underlying the two-factor rational model.
+ * <p>
+ * The martingales are A(1) = exp(a_1 X_t^(1) - 0.5 a_1^2 t) - 1, A(2) = exp(a_2 X_t^(2)  - 0.5 a_2^2 t) - 1
+ * with X^(1) and X^(2) correlated Brownian motions. The increments of the Brownian motions are normally distributed
+ * and the martingales are simulated without discretization error.
+ * <p>
+ * The state is stored in a flat array, path-major: the value of the martingale j (0 or 1) for path p at time i
+ * is at index (p * nbTimes + i) * 2 + j.
+ * <p>
+ * Implementation reference: Henrard, Marc. (2016) Rational multi-curve interest rate model: pricing of liquid instruments.
+ *
+ * @author Marc Henrard
+ */
+public class RationalTwoFactorMonteCarloEvolution {
+
+  /** The number of martingales in the state. */
+  public static final int NB_MARTINGALES = 2;
+
+  /** The default instance of the evolution. */
+  public final static RationalTwoFactorMonteCarloEvolution DEFAULT = new RationalTwoFactorMonteCarloEvolution();
+
+  // Private constructor
+  private RationalTwoFactorMonteCarloEvolution() {
+  }
+
+  /**
+   * Generates the paths of the two martingales at the different times.
+   *
+   * @param times  the times, must be positive and in increasing order
+   * @param model  the rational two-factor model
+   * @param generator  the uniform random number generator
+   * @param nbPaths  the number of paths
+   * @return the martingales values, dimensions: paths x times x martingales in a flat array
+   */
+  public double[] martingalePaths(
+      double[] times,
+      RationalTwoFactorParameters model,
+      SplittableRandom generator,
+      int nbPaths) {
+
+    double[] martingales = new double[nbPaths * times.length * NB_MARTINGALES];
+    martingalePaths(times, model.a1(), model.a2(), model.getCorrelation(), generator, nbPaths, martingales);
+    return martingales;
+  }
+
+  /**
+   * Generates the paths of the two martingales at the different times in a caller-supplied buffer.
+   *
+   * @param times  the times, must be positive and in increasing order
+   * @param a1  the parameter of the first log-normal martingale
+   * @param a2  the parameter of the second log-normal martingale
+   * @param rho  the correlation between the X_1 and the X_2 random variables
+   * @param generator  the uniform random number generator
+   * @param nbPaths  the number of paths
+   * @param martingales  the buffer in which the martingales are written,
+   *   length at least nbPaths * times.length * 2
+   */
+  public void martingalePaths(
+      double[] times,
+      double a1,
+      double a2,
+      double rho,
+      SplittableRandom generator,
+      int nbPaths,
+      double[] martingales) {
+
+    int nbTimes = times.length;
+    ArgChecker.isTrue(martingales.length >= nbPaths * nbTimes * NB_MARTINGALES, "buffer too short");
+    double sqrt1rho2 = Math.sqrt(1.0d - rho * rho);
+    double[] sqrtDt = new double[nbTimes];
+    double[] drift1 = new double[nbTimes];
+    double[] drift2 = new double[nbTimes];
+    double timePrevious = 0.0d;
+    for (int looptime = 0; looptime < nbTimes; looptime++) {
+      ArgChecker.isTrue(times[looptime] >= timePrevious, "times must be positive and increasing");
+      sqrtDt[looptime] = Math.sqrt(times[looptime] - timePrevious);
+      drift1[looptime] = -0.5d * a1 * a1 * times[looptime];
+      drift2[looptime] = -0.5d * a2 * a2 * times[looptime];
+      timePrevious = times[looptime];
+    }
+    double[] normals = new double[2];
+    for (int looppath = 0; looppath < nbPaths; looppath++) {
+      double x1 = 0.0d;
+      double x2 = 0.0d;
+      int offset = looppath * nbTimes * NB_MARTINGALES;
+      for (int looptime = 0; looptime < nbTimes; looptime++) {
+        normalPair(generator, normals);
+        x1 += sqrtDt[looptime] * normals[0];
+        x2 += sqrtDt[looptime] * (rho * normals[0] + sqrt1rho2 * normals[1]);
+        martingales[offset + looptime * NB_MARTINGALES] = Math.exp(a1 * x1 + drift1[looptime]) - 1.0d;
+        martingales[offset + looptime * NB_MARTINGALES + 1] = Math.exp(a2 * x2 + drift2[looptime]) - 1.0d;
+      }
+    }
+  }
+
+  /* Draws two independent standard normals with the Marsaglia polar method. */
+  private static void normalPair(SplittableRandom generator, double[] normals) {
+    double u;
+    double v;
+    double s;
+    do {
+      u = 2.0d * generator.nextDouble() - 1.0d;
+      v = 2.0d * generator.nextDouble() - 1.0d;
+      s = u * u + v * v;
+    } while (s >= 1.0d || s == 0.0d);
+    double factor = Math.sqrt(-2.0d * Math.log(s) / s);
+    normals[0] = u * factor;
+    normals[1] = v * factor;
+  }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.capfloor;
+
+import java.util.List;
+
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.capfloor.IborCapletFloorletPeriod;
+
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
+
+/**
+ * Caplet/floorlet pricer measuring the latency of an underlying pricer.
+ * <p>
+ * The duration of each present value computation is recorded through {@link PricingMetrics} under the name
+ * "UnderlyingPricerClass.presentValue" and the duration of the present values of several periods under the name
+ * "UnderlyingPricerClass.presentValuePeriods". The pricer can be used in {@link SingleCurrencyModelCapFloorLegPricer}
+ * to measure the caplets of cap/floor legs, including in calibrations.
+ *
+ * @author Marc Henrard
+ */
+public class InstrumentedCapletFloorletPeriodPricer
+    extends SingleCurrencyModelCapletFloorletPeriodPricer {
+
+  /** The underlying pricer. */
+  private final SingleCurrencyModelCapletFloorletPeriodPricer underlying;
+  /** The name of the present value metric. */
+  private final String metricPresentValue;
+  /** The name of the present value of several periods metric. */
+  private final String metricPresentValuePeriods;
+
+  /**
+   * Creates an instance.
+   *
+   * @param underlying  the underlying pricer
+   */
+  public InstrumentedCapletFloorletPeriodPricer(SingleCurrencyModelCapletFloorletPeriodPricer underlying) {
+    this.underlying = ArgChecker.notNull(underlying, "underlying");
+    this.metricPresentValue = underlying.getClass().getSimpleName() + ".presentValue";
+    this.metricPresentValuePeriods = underlying.getClass().getSimpleName() + ".presentValuePeriods";
+  }
+
+  @Override
+  public CurrencyAmount presentValue(
+      IborCapletFloorletPeriod caplet,
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    long start = PricingMetrics.start();
+    CurrencyAmount pv = underlying.presentValue(caplet, multicurve, model);
+    PricingMetrics.stop(metricPresentValue, start);
+    return pv;
+  }
+
+  @Override
+  public double[] presentValuePeriods(
+      List<IborCapletFloorletPeriod> caplets,
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    long start = PricingMetrics.start();
+    double[] pv = underlying.presentValuePeriods(caplets, multicurve, model);
+    PricingMetrics.stop(metricPresentValuePeriods, start);
+    return pv;
+  }
+
+  /**
+   * Returns the underlying pricer.
+   *
+   * @return the underlying pricer
+   */
+  public SingleCurrencyModelCapletFloorletPeriodPricer getUnderlying() {
+    return underlying;
+  }
+
+}
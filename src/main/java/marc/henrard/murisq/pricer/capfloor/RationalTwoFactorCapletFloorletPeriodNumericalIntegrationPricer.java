@@ -4,6 +4,7 @@
 package marc.henrard.murisq.pricer.capfloor;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import com.opengamma.strata.basics.currency.Currency;
 import com.opengamma.strata.basics.currency.CurrencyAmount;
@@ -38,17 +39,31 @@ public class RationalTwoFactorCapletFloorletPeriodNumericalIntegrationPricer
   
   /** Minimal number of integration steps in the integration. Default value. */
   private static final int NB_INTEGRATION_STEPS_DEFAULT = 10;
-  /** Repository for formulas associated to the two-factor rational model. */
-  private static final RationalTwoFactorFormulas FORMULAS = RationalTwoFactorFormulas.DEFAULT;
   
   /** Number of integration steps in the integration. */
   private final int nbSteps;
+  /** Repository for formulas associated to the two-factor rational model. */
+  private final RationalTwoFactorFormulas formulas;
 
   /**
    * Creates an instance.
    */
   public RationalTwoFactorCapletFloorletPeriodNumericalIntegrationPricer(int nbIntegrationSteps) {
+    this(nbIntegrationSteps, RationalTwoFactorFormulas.DEFAULT);
+  }
+
+  /**
+   * Creates an instance with given formulas, typically {@link RationalTwoFactorFormulas#HIGH_PERFORMANCE}.
+   * 
+   * @param nbIntegrationSteps  the minimal number of integration steps
+   * @param formulas  the rational two-factor formulas
+   */
+  public RationalTwoFactorCapletFloorletPeriodNumericalIntegrationPricer(
+      int nbIntegrationSteps,
+      RationalTwoFactorFormulas formulas) {
+
     this.nbSteps = nbIntegrationSteps;
+    this.formulas = ArgChecker.notNull(formulas, "formulas");
   }
   
   /** Default implementation. */
@@ -67,11 +82,27 @@ public class RationalTwoFactorCapletFloorletPeriodNumericalIntegrationPricer
     Currency ccy = caplet.getCurrency();
     ZonedDateTime expiryDateTime = caplet.getFixingDateTime();
     double expiryTime = model.relativeTime(expiryDateTime);
-    double[] c = FORMULAS.capletCoefficients(caplet, multicurve, model2);
+    double[] c = formulas.capletCoefficients(caplet, multicurve, model2);
     double pvNum = multicurve.discountFactor(ccy, caplet.getPaymentDate()) /
         multicurve.discountFactor(ccy, caplet.getIborRate().getMaturityDate()) *
-        FORMULAS.pvNumericalIntegration(c, expiryTime, model2.a1(), model2.a2(), model2.getCorrelation(), nbSteps);
+        formulas.pvNumericalIntegration(c, expiryTime, model2.a1(), model2.a2(), model2.getCorrelation(), nbSteps);
     return CurrencyAmount.of(ccy, (caplet.getNotional() > 0) ? pvNum : -pvNum);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The coefficients of all the periods are computed first and the values are computed together,
+   * in parallel for long legs.
+   */
+  @Override
+  public double[] presentValuePeriods(
+      List<IborCapletFloorletPeriod> caplets,
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    return RationalTwoFactorCapletFloorletPeriods
+        .presentValuePeriods(this, caplets, multicurve, model, formulas, formulas::pvNumericalIntegration, nbSteps);
+  }
+
 }
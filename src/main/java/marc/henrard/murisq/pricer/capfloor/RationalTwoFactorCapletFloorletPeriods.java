@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.capfloor;
+
+import java.util.List;
+
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.capfloor.IborCapletFloorletPeriod;
+
+import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorFormulas;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorParameters;
+
+/**
+ * Present values of several caplets/floorlets in the two-factor rational model.
+ * <p>
+ * Shared by the rational caplet/floorlet period pricers, which differ only by the formula valuing the
+ * caplets from their coefficients.
+ *
+ * @author Marc Henrard
+ */
+final class RationalTwoFactorCapletFloorletPeriods {
+
+  /**
+   * Formula valuing caplets in the two-factor rational model from their coefficients,
+   * like {@link RationalTwoFactorFormulas#pvSemiExplicit(double[][], double[], double, double, double, int)}.
+   */
+  @FunctionalInterface
+  interface CoefficientsFormula {
+
+    /**
+     * Computes the values of the caplets.
+     *
+     * @param coefficients  the coefficients of each caplet
+     * @param expiryTimes  the expiry time of each caplet
+     * @param a1  the first model parameter
+     * @param a2  the second model parameter
+     * @param rho  the correlation
+     * @param nbSteps  the number of integration steps
+     * @return the values
+     */
+    double[] pv(double[][] coefficients, double[] expiryTimes, double a1, double a2, double rho, int nbSteps);
+  }
+
+  // Private constructor
+  private RationalTwoFactorCapletFloorletPeriods() {
+  }
+
+  /**
+   * Computes the present values of several caplets/floorlets.
+   * <p>
+   * The coefficients of all the periods are computed first and the values are computed together by the formula.
+   *
+   * @param pricer  the pricer validating the caplets
+   * @param caplets  the caplet/floorlet periods to price
+   * @param multicurve  the rates provider
+   * @param model  the rational model parameters
+   * @param formulas  the rational two-factor formulas
+   * @param formula  the formula valuing the caplets from their coefficients
+   * @param nbSteps  the number of integration steps
+   * @return the present values of the caplets/floorlets, in the order of the list
+   */
+  static double[] presentValuePeriods(
+      SingleCurrencyModelCapletFloorletPeriodPricer pricer,
+      List<IborCapletFloorletPeriod> caplets,
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model,
+      RationalTwoFactorFormulas formulas,
+      CoefficientsFormula formula,
+      int nbSteps) {
+
+    ArgChecker.isTrue(model instanceof RationalTwoFactorParameters);
+    RationalTwoFactorParameters model2 = (RationalTwoFactorParameters) model;
+    int nbCaplets = caplets.size();
+    double[] expiryTime = new double[nbCaplets];
+    double[] factor = new double[nbCaplets];
+    for (int loopcap = 0; loopcap < nbCaplets; loopcap++) {
+      IborCapletFloorletPeriod caplet = caplets.get(loopcap);
+      pricer.validate(multicurve, caplet, model);
+      Currency ccy = caplet.getCurrency();
+      expiryTime[loopcap] = model.relativeTime(caplet.getFixingDateTime());
+      factor[loopcap] = multicurve.discountFactor(ccy, caplet.getPaymentDate()) /
+          multicurve.discountFactor(ccy, caplet.getIborRate().getMaturityDate()) *
+          ((caplet.getNotional() > 0) ? 1.0d : -1.0d);
+    }
+    double[][] c = formulas.capletCoefficients(caplets, multicurve, model2);
+    double[] pv = formula.pv(c, expiryTime, model2.a1(), model2.a2(), model2.getCorrelation(), nbSteps);
+    for (int loopcap = 0; loopcap < nbCaplets; loopcap++) {
+      pv[loopcap] *= factor[loopcap];
+    }
+    return pv;
+  }
+
+}
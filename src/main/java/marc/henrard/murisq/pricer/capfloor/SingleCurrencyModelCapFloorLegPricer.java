@@ -54,6 +54,9 @@ public class SingleCurrencyModelCapFloorLegPricer {
    * Calculates the present value of the Ibor cap/floor leg.
    * <p>
    * The result is expressed using the currency of the leg.
+   * The caplets/floorlets are priced together by 
+   * {@link SingleCurrencyModelCapletFloorletPeriodPricer#presentValuePeriods(java.util.List, RatesProvider, 
+   * SingleCurrencyModelParameters)}.
    * 
    * @param capFloorLeg  the Ibor cap/floor leg
    * @param multicurve  the rates provider 
@@ -65,11 +68,12 @@ public class SingleCurrencyModelCapFloorLegPricer {
       RatesProvider multicurve,
       SingleCurrencyModelParameters model) {
 
-    return capFloorLeg.getCapletFloorletPeriods()
-        .stream()
-        .map(period -> periodPricer.presentValue(period, multicurve, model))
-        .reduce((c1, c2) -> c1.plus(c2))
-        .get();
+    double[] pvPeriods = periodPricer.presentValuePeriods(capFloorLeg.getCapletFloorletPeriods(), multicurve, model);
+    double pv = 0.0d;
+    for (double pvPeriod : pvPeriods) {
+      pv += pvPeriod;
+    }
+    return CurrencyAmount.of(capFloorLeg.getCurrency(), pv);
   }
 
   /**
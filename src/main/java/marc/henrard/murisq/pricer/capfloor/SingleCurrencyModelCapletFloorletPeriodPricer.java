@@ -5,6 +5,8 @@ package marc.henrard.murisq.pricer.capfloor;
 
 import static java.time.temporal.ChronoUnit.DAYS;
 
+import java.util.List;
+
 import com.opengamma.strata.basics.currency.CurrencyAmount;
 import com.opengamma.strata.collect.ArgChecker;
 import com.opengamma.strata.pricer.impl.option.BlackFormulaRepository;
@@ -40,6 +42,31 @@ public abstract class SingleCurrencyModelCapletFloorletPeriodPricer {
       RatesProvider multicurve,
       SingleCurrencyModelParameters model);
   
+  /**
+   * Computes the present values of a set of caplets/floorlets in the rational model.
+   * <p>
+   * The caplets/floorlets are typically the periods of a cap/floor leg. The results are expressed using 
+   * the currency of each caplet/floorlet. The default implementation calls
+   * {@link #presentValue(IborCapletFloorletPeriod, RatesProvider, SingleCurrencyModelParameters)} for each period;
+   * implementations can share the computations between the periods.
+   * 
+   * @param caplets  the caplet/floorlet periods to price
+   * @param multicurve  the rates provider
+   * @param model  the rational model parameters
+   * @return the present values of the caplets/floorlets, in the order of the list
+   */
+  public double[] presentValuePeriods(
+      List<IborCapletFloorletPeriod> caplets,
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    double[] pv = new double[caplets.size()];
+    for (int loopcap = 0; loopcap < caplets.size(); loopcap++) {
+      pv[loopcap] = presentValue(caplets.get(loopcap), multicurve, model).getAmount();
+    }
+    return pv;
+  }
+  
   /**
    * Computes the implied volatility in the Black model.
    * <p>
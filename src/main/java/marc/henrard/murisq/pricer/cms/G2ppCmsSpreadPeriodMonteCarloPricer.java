@@ -0,0 +1,530 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.cms;
+
+import java.io.Serializable;
+
+import org.joda.beans.ImmutableBean;
+import org.joda.beans.gen.BeanDefinition;
+import org.joda.beans.gen.ImmutableValidator;
+import org.joda.beans.gen.PropertyDefinition;
+
+import com.opengamma.strata.collect.ArgChecker;
+
+import marc.henrard.murisq.model.g2pp.G2ppMonteCarloEvolution;
+import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantParameters;
+import marc.henrard.murisq.pricer.decomposition.MulticurveDecisionScheduleCalculator;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalent;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentSchedule;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentValues;
+import marc.henrard.murisq.pricer.montecarlo.G2ppMonteCarloMultiDatesPricer;
+import marc.henrard.murisq.product.cms.CmsSpreadPeriodResolved;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.joda.beans.Bean;
+import org.joda.beans.JodaBeanUtils;
+import org.joda.beans.MetaBean;
+import org.joda.beans.MetaProperty;
+import org.joda.beans.impl.direct.DirectFieldsBeanBuilder;
+import org.joda.beans.impl.direct.DirectMetaBean;
+import org.joda.beans.impl.direct.DirectMetaProperty;
+import org.joda.beans.impl.direct.DirectMetaPropertyMap;
+
+/**
+ * Monte Carlo pricer for CMS spread periods (coupons, caplets, floorlets) in the G2++ model with
+ * piecewise constant volatilities.
+ * <p>
+ * The Ibor rates are obtained from the discounting forward rates with a deterministic multiplicative spread.
+ * 
+ * @author Marc Henrard
+ */
+@BeanDefinition
+public final class G2ppCmsSpreadPeriodMonteCarloPricer
+    implements G2ppMonteCarloMultiDatesPricer<CmsSpreadPeriodResolved>, ImmutableBean, Serializable {
+
+  /** The number of paths */
+  @PropertyDefinition
+  private final int nbPaths;
+  /** The number of paths in a computation block */
+  @PropertyDefinition
+  private final int pathNumberBlock;
+  /** The model */
+  @PropertyDefinition(validate = "notNull")
+  private final G2ppPiecewiseConstantParameters model;
+  /** The seed of the random number generator. */
+  @PropertyDefinition
+  private final long seed;
+
+  //-------------------------------------------------------------------------
+  @ImmutableValidator
+  private void validate() {
+    ArgChecker.isTrue(nbPaths > 0, "number of paths must be > 0");
+    ArgChecker.isTrue(pathNumberBlock > 0, "number of paths in a block must be > 0");
+  }
+
+  @Override
+  public MulticurveEquivalentSchedule multicurveEquivalent(CmsSpreadPeriodResolved product) {
+    return MulticurveDecisionScheduleCalculator.decisionSchedule(product);
+  }
+
+  @Override
+  public double[] aggregation(
+      MulticurveEquivalentSchedule me,
+      CmsSpreadPeriodResolved cmsSpread,
+      MulticurveEquivalentValues initialValues,
+      double[] factors,
+      int nbPaths,
+      G2ppPiecewiseConstantParameters model) {
+
+    MulticurveEquivalent mce = me.getSchedules().get(0);
+    MulticurveEquivalent mce1 = MulticurveDecisionScheduleCalculator.multicurveEquivalent(cmsSpread.getUnderlyingSwap1());
+    int nbDF1 = mce1.getDiscountFactorPayments().size();
+    int nbIbor1 = mce1.getIborComputations().size();
+    int nbDF = mce.getDiscountFactorPayments().size(); // Last DF payment corresponds to the coupon payment date
+    int nbIbor = mce.getIborComputations().size();
+    int[] fixLimits = {0, nbDF1, nbDF - 1};
+    int[] iborLimits = {0, nbIbor1, nbIbor};
+    double[][] coefficients = deflatedCoefficients(me, initialValues, model)[0];
+    // dimension: DF payments, Ibor payments, Ibor effective dates, Ibor maturity dates
+    double[] iborRates = initialValues.getIborRates().toArrayUnsafe();
+    double[] fixAmounts = new double[nbDF];
+    for (int loopfix = 0; loopfix < nbDF; loopfix++) {
+      fixAmounts[loopfix] = mce.getDiscountFactorPayments().get(loopfix).getPaymentAmount().getAmount();
+    }
+    double[] iborAmounts = new double[nbIbor];
+    double[] accrualFactors = new double[nbIbor];
+    for (int loopibor = 0; loopibor < nbIbor; loopibor++) {
+      iborAmounts[loopibor] = mce.getIborPayments().get(loopibor).getPaymentAmount().getAmount();
+      accrualFactors[loopibor] = mce.getIborComputations().get(loopibor).getYearFraction();
+    }
+    double[][] swapRate = new double[2][nbPaths];
+    double[] discounting = new double[nbPaths];
+    for (int looppath = 0; looppath < nbPaths; looppath++) {
+      double x0 = factors[looppath * G2ppMonteCarloEvolution.NB_FACTORS];
+      double x1 = factors[looppath * G2ppMonteCarloEvolution.NB_FACTORS + 1];
+      for (int loopswap = 0; loopswap < 2; loopswap++) {
+        double pvbp = 0.0; // path deflated value
+        for (int loopfix = fixLimits[loopswap]; loopfix < fixLimits[loopswap + 1]; loopfix++) {
+          pvbp += fixAmounts[loopfix] * deflatedDiscountFactor(coefficients[loopfix], x0, x1);
+        }
+        double pvIborLeg = 0.0; // path deflated value
+        for (int loopibor = iborLimits[loopswap]; loopibor < iborLimits[loopswap + 1]; loopibor++) {
+          double iborRate = iborRate(coefficients[nbDF + nbIbor + loopibor], coefficients[nbDF + 2 * nbIbor + loopibor],
+              iborRates[loopibor], accrualFactors[loopibor], x0, x1);
+          pvIborLeg += iborAmounts[loopibor] * iborRate * deflatedDiscountFactor(coefficients[nbDF + loopibor], x0, x1);
+        }
+        swapRate[loopswap][looppath] = -pvIborLeg / pvbp;
+      }
+      discounting[looppath] = deflatedDiscountFactor(coefficients[nbDF - 1], x0, x1);
+    }
+    double[] pv = cmsSpread.payoff(swapRate[0], swapRate[1]);
+    for (int looppath = 0; looppath < nbPaths; looppath++) {
+      pv[looppath] *= discounting[looppath];
+    }
+    return pv;
+  }
+
+  //------------------------- AUTOGENERATED START -------------------------
+  /**
+   * The meta-bean for {@code G2ppCmsSpreadPeriodMonteCarloPricer}.
+   * @return the meta-bean, not null
+   */
+  public static G2ppCmsSpreadPeriodMonteCarloPricer.Meta meta() {
+    return G2ppCmsSpreadPeriodMonteCarloPricer.Meta.INSTANCE;
+  }
+
+  static {
+    MetaBean.register(G2ppCmsSpreadPeriodMonteCarloPricer.Meta.INSTANCE);
+  }
+
+  /**
+   * The serialization version id.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Returns a builder used to create an instance of the bean.
+   * @return the builder, not null
+   */
+  public static G2ppCmsSpreadPeriodMonteCarloPricer.Builder builder() {
+    return new G2ppCmsSpreadPeriodMonteCarloPricer.Builder();
+  }
+
+  private G2ppCmsSpreadPeriodMonteCarloPricer(
+      int nbPaths,
+      int pathNumberBlock,
+      G2ppPiecewiseConstantParameters model,
+      long seed) {
+    JodaBeanUtils.notNull(model, "model");
+    this.nbPaths = nbPaths;
+    this.pathNumberBlock = pathNumberBlock;
+    this.model = model;
+    this.seed = seed;
+    validate();
+  }
+
+  @Override
+  public G2ppCmsSpreadPeriodMonteCarloPricer.Meta metaBean() {
+    return G2ppCmsSpreadPeriodMonteCarloPricer.Meta.INSTANCE;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the number of paths
+   * @return the value of the property
+   */
+  public int getNbPaths() {
+    return nbPaths;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the number of paths in a computation block
+   * @return the value of the property
+   */
+  public int getPathNumberBlock() {
+    return pathNumberBlock;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the model
+   * @return the value of the property, not null
+   */
+  public G2ppPiecewiseConstantParameters getModel() {
+    return model;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the seed of the random number generator.
+   * @return the value of the property
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Returns a builder that allows this bean to be mutated.
+   * @return the mutable builder, not null
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj != null && obj.getClass() == this.getClass()) {
+      G2ppCmsSpreadPeriodMonteCarloPricer other = (G2ppCmsSpreadPeriodMonteCarloPricer) obj;
+      return (nbPaths == other.nbPaths) &&
+          (pathNumberBlock == other.pathNumberBlock) &&
+          JodaBeanUtils.equal(model, other.model) &&
+          (seed == other.seed);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = getClass().hashCode();
+    hash = hash * 31 + JodaBeanUtils.hashCode(nbPaths);
+    hash = hash * 31 + JodaBeanUtils.hashCode(pathNumberBlock);
+    hash = hash * 31 + JodaBeanUtils.hashCode(model);
+    hash = hash * 31 + JodaBeanUtils.hashCode(seed);
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder(160);
+    buf.append("G2ppCmsSpreadPeriodMonteCarloPricer{");
+    buf.append("nbPaths").append('=').append(JodaBeanUtils.toString(nbPaths)).append(',').append(' ');
+    buf.append("pathNumberBlock").append('=').append(JodaBeanUtils.toString(pathNumberBlock)).append(',').append(' ');
+    buf.append("model").append('=').append(JodaBeanUtils.toString(model)).append(',').append(' ');
+    buf.append("seed").append('=').append(JodaBeanUtils.toString(seed));
+    buf.append('}');
+    return buf.toString();
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The meta-bean for {@code G2ppCmsSpreadPeriodMonteCarloPricer}.
+   */
+  public static final class Meta extends DirectMetaBean {
+    /**
+     * The singleton instance of the meta-bean.
+     */
+    static final Meta INSTANCE = new Meta();
+
+    /**
+     * The meta-property for the {@code nbPaths} property.
+     */
+    private final MetaProperty<Integer> nbPaths = DirectMetaProperty.ofImmutable(
+        this, "nbPaths", G2ppCmsSpreadPeriodMonteCarloPricer.class, Integer.TYPE);
+    /**
+     * The meta-property for the {@code pathNumberBlock} property.
+     */
+    private final MetaProperty<Integer> pathNumberBlock = DirectMetaProperty.ofImmutable(
+        this, "pathNumberBlock", G2ppCmsSpreadPeriodMonteCarloPricer.class, Integer.TYPE);
+    /**
+     * The meta-property for the {@code model} property.
+     */
+    private final MetaProperty<G2ppPiecewiseConstantParameters> model = DirectMetaProperty.ofImmutable(
+        this, "model", G2ppCmsSpreadPeriodMonteCarloPricer.class, G2ppPiecewiseConstantParameters.class);
+    /**
+     * The meta-property for the {@code seed} property.
+     */
+    private final MetaProperty<Long> seed = DirectMetaProperty.ofImmutable(
+        this, "seed", G2ppCmsSpreadPeriodMonteCarloPricer.class, Long.TYPE);
+    /**
+     * The meta-properties.
+     */
+    private final Map<String, MetaProperty<?>> metaPropertyMap$ = new DirectMetaPropertyMap(
+        this, null,
+        "nbPaths",
+        "pathNumberBlock",
+        "model",
+        "seed");
+
+    /**
+     * Restricted constructor.
+     */
+    private Meta() {
+    }
+
+    @Override
+    protected MetaProperty<?> metaPropertyGet(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          return nbPaths;
+        case -1504032417:  // pathNumberBlock
+          return pathNumberBlock;
+        case 104069929:  // model
+          return model;
+        case 3526257:  // seed
+          return seed;
+      }
+      return super.metaPropertyGet(propertyName);
+    }
+
+    @Override
+    public G2ppCmsSpreadPeriodMonteCarloPricer.Builder builder() {
+      return new G2ppCmsSpreadPeriodMonteCarloPricer.Builder();
+    }
+
+    @Override
+    public Class<? extends G2ppCmsSpreadPeriodMonteCarloPricer> beanType() {
+      return G2ppCmsSpreadPeriodMonteCarloPricer.class;
+    }
+
+    @Override
+    public Map<String, MetaProperty<?>> metaPropertyMap() {
+      return metaPropertyMap$;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * The meta-property for the {@code nbPaths} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<Integer> nbPaths() {
+      return nbPaths;
+    }
+
+    /**
+     * The meta-property for the {@code pathNumberBlock} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<Integer> pathNumberBlock() {
+      return pathNumberBlock;
+    }
+
+    /**
+     * The meta-property for the {@code model} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<G2ppPiecewiseConstantParameters> model() {
+      return model;
+    }
+
+    /**
+     * The meta-property for the {@code seed} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<Long> seed() {
+      return seed;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    protected Object propertyGet(Bean bean, String propertyName, boolean quiet) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          return ((G2ppCmsSpreadPeriodMonteCarloPricer) bean).getNbPaths();
+        case -1504032417:  // pathNumberBlock
+          return ((G2ppCmsSpreadPeriodMonteCarloPricer) bean).getPathNumberBlock();
+        case 104069929:  // model
+          return ((G2ppCmsSpreadPeriodMonteCarloPricer) bean).getModel();
+        case 3526257:  // seed
+          return ((G2ppCmsSpreadPeriodMonteCarloPricer) bean).getSeed();
+      }
+      return super.propertyGet(bean, propertyName, quiet);
+    }
+
+    @Override
+    protected void propertySet(Bean bean, String propertyName, Object newValue, boolean quiet) {
+      metaProperty(propertyName);
+      if (quiet) {
+        return;
+      }
+      throw new UnsupportedOperationException("Property cannot be written: " + propertyName);
+    }
+
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The bean-builder for {@code G2ppCmsSpreadPeriodMonteCarloPricer}.
+   */
+  public static final class Builder extends DirectFieldsBeanBuilder<G2ppCmsSpreadPeriodMonteCarloPricer> {
+
+    private int nbPaths;
+    private int pathNumberBlock;
+    private G2ppPiecewiseConstantParameters model;
+    private long seed;
+
+    /**
+     * Restricted constructor.
+     */
+    private Builder() {
+    }
+
+    /**
+     * Restricted copy constructor.
+     * @param beanToCopy  the bean to copy from, not null
+     */
+    private Builder(G2ppCmsSpreadPeriodMonteCarloPricer beanToCopy) {
+      this.nbPaths = beanToCopy.getNbPaths();
+      this.pathNumberBlock = beanToCopy.getPathNumberBlock();
+      this.model = beanToCopy.getModel();
+      this.seed = beanToCopy.getSeed();
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Object get(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          return nbPaths;
+        case -1504032417:  // pathNumberBlock
+          return pathNumberBlock;
+        case 104069929:  // model
+          return model;
+        case 3526257:  // seed
+          return seed;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+    }
+
+    @Override
+    public Builder set(String propertyName, Object newValue) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          this.nbPaths = (Integer) newValue;
+          break;
+        case -1504032417:  // pathNumberBlock
+          this.pathNumberBlock = (Integer) newValue;
+          break;
+        case 104069929:  // model
+          this.model = (G2ppPiecewiseConstantParameters) newValue;
+          break;
+        case 3526257:  // seed
+          this.seed = (Long) newValue;
+          break;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+      return this;
+    }
+
+    @Override
+    public Builder set(MetaProperty<?> property, Object value) {
+      super.set(property, value);
+      return this;
+    }
+
+    @Override
+    public G2ppCmsSpreadPeriodMonteCarloPricer build() {
+      return new G2ppCmsSpreadPeriodMonteCarloPricer(
+          nbPaths,
+          pathNumberBlock,
+          model,
+          seed);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Sets the number of paths
+     * @param nbPaths  the new value
+     * @return this, for chaining, not null
+     */
+    public Builder nbPaths(int nbPaths) {
+      this.nbPaths = nbPaths;
+      return this;
+    }
+
+    /**
+     * Sets the number of paths in a computation block
+     * @param pathNumberBlock  the new value
+     * @return this, for chaining, not null
+     */
+    public Builder pathNumberBlock(int pathNumberBlock) {
+      this.pathNumberBlock = pathNumberBlock;
+      return this;
+    }
+
+    /**
+     * Sets the model
+     * @param model  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder model(G2ppPiecewiseConstantParameters model) {
+      JodaBeanUtils.notNull(model, "model");
+      this.model = model;
+      return this;
+    }
+
+    /**
+     * Sets the seed of the random number generator.
+     * @param seed  the new value
+     * @return this, for chaining, not null
+     */
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public String toString() {
+      StringBuilder buf = new StringBuilder(160);
+      buf.append("G2ppCmsSpreadPeriodMonteCarloPricer.Builder{");
+      buf.append("nbPaths").append('=').append(JodaBeanUtils.toString(nbPaths)).append(',').append(' ');
+      buf.append("pathNumberBlock").append('=').append(JodaBeanUtils.toString(pathNumberBlock)).append(',').append(' ');
+      buf.append("model").append('=').append(JodaBeanUtils.toString(model)).append(',').append(' ');
+      buf.append("seed").append('=').append(JodaBeanUtils.toString(seed));
+      buf.append('}');
+      return buf.toString();
+    }
+
+  }
+
+  //-------------------------- AUTOGENERATED END --------------------------
+}
@@ -0,0 +1,366 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.cms;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.math.impl.integration.GaussHermiteWeightAndAbscissaFunction;
+import com.opengamma.strata.math.impl.integration.GaussLaguerreWeightAndAbscissaFunction;
+import com.opengamma.strata.math.impl.integration.GaussianQuadratureData;
+import com.opengamma.strata.pricer.impl.rate.swap.CashFlowEquivalentCalculator;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParametersProvider;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.cms.CmsPeriod;
+import com.opengamma.strata.product.cms.CmsPeriodType;
+import com.opengamma.strata.product.cms.ResolvedCmsLeg;
+import com.opengamma.strata.product.swap.NotionalExchange;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+import com.opengamma.strata.product.swap.ResolvedSwapLeg;
+import com.opengamma.strata.product.swap.SwapLegType;
+import com.opengamma.strata.product.swap.SwapPaymentEvent;
+
+import marc.henrard.murisq.model.hullwhite.HullWhiteOneFactorPiecewiseConstantFormulas;
+
+/**
+ * Computes the price of a CMS period (coupon, cap or floor) in the Hull-White/extended Vasicek
+ * one-factor model with piecewise constant volatility by fixed order Gaussian quadratures.
+ * <p>
+ * The model is the same as in {@link HullWhiteCmsPeriodNumericalIntegrationPricer}; the swap rate is a function
+ * of a standard normal random variable X in the measure associated to the fixing date numeraire.
+ * <p>
+ * The coupons are integrated with a Gauss-Hermite quadrature on the real line. The caps and floors are integrated
+ * with a Gauss-Laguerre quadrature on the tail starting at the exact exercise boundary (the value of X for which
+ * the swap rate is equal to the strike). The tail integrated is always the one not containing 0, i.e. the
+ * out-of-the-money side; the in-the-money options are obtained by cap/floor parity with the Hermite integral
+ * of the forward. The quadrature nodes and weights are computed once at construction.
+ * <p>
+ * In the leg API, the discount factors and the mean reversion factors exp(-kappa u) of the underlying swaps
+ * cash flow dates are computed once and shared by all the periods of the leg; consecutive periods with the same
+ * underlying tenor have most of their cash flow dates in common.
+ *
+ * @author Marc Henrard
+ */
+public class HullWhiteCmsPeriodGaussianQuadraturePricer {
+
+  /** Default number of points in the Gauss-Hermite quadrature. */
+  private static final int NB_POINTS_HERMITE_DEFAULT = 32;
+  /** Default number of points in the Gauss-Laguerre quadrature. */
+  private static final int NB_POINTS_LAGUERRE_DEFAULT = 32;
+  /** Value related to the exercise boundary search. */
+  private static final double LIMIT_BOUNDARY = 12.0; // Equivalent to + infinity in normal integrals
+  private static final int NB_ITERATIONS_MAX = 25;
+  private static final double TOL_BOUNDARY = 1.0E-12;
+  private static final double INV_SQRT_2PI = 1.0d / Math.sqrt(2.0d * Math.PI);
+  /** Formulas for the Hull-White one-factor model with piecewise constant volatility. */
+  private static final HullWhiteOneFactorPiecewiseConstantFormulas FORMULAS_HW =
+      HullWhiteOneFactorPiecewiseConstantFormulas.DEFAULT;
+
+  /** Default implementation. */
+  public static final HullWhiteCmsPeriodGaussianQuadraturePricer DEFAULT =
+      new HullWhiteCmsPeriodGaussianQuadraturePricer(NB_POINTS_HERMITE_DEFAULT, NB_POINTS_LAGUERRE_DEFAULT);
+
+  /** The Hermite nodes, rescaled for the standard normal density. */
+  private final double[] nodesHermite;
+  /** The Hermite weights, rescaled for the standard normal density. */
+  private final double[] weightsHermite;
+  /** The Laguerre nodes. */
+  private final double[] nodesLaguerre;
+  /** The Laguerre weights. */
+  private final double[] weightsLaguerre;
+
+  /**
+   * Creates an instance.
+   *
+   * @param nbPointsHermite  the number of points in the Gauss-Hermite quadrature, used for the coupons
+   * @param nbPointsLaguerre  the number of points in the Gauss-Laguerre quadrature, used for the caps and floors
+   */
+  public HullWhiteCmsPeriodGaussianQuadraturePricer(int nbPointsHermite, int nbPointsLaguerre) {
+    ArgChecker.isTrue(nbPointsHermite > 0, "number of Hermite points must be positive");
+    ArgChecker.isTrue(nbPointsLaguerre > 0, "number of Laguerre points must be positive");
+    GaussianQuadratureData hermite = new GaussHermiteWeightAndAbscissaFunction().generate(nbPointsHermite);
+    double sqrt2 = Math.sqrt(2.0d);
+    double invSqrtPi = 1.0d / Math.sqrt(Math.PI);
+    this.nodesHermite = new double[nbPointsHermite];
+    this.weightsHermite = new double[nbPointsHermite];
+    for (int looppt = 0; looppt < nbPointsHermite; looppt++) { // \int f(x) phi(x) dx = 1/sqrt(pi) \sum w_i f(sqrt(2) x_i)
+      nodesHermite[looppt] = sqrt2 * hermite.getNodes()[looppt];
+      weightsHermite[looppt] = invSqrtPi * hermite.getWeights()[looppt];
+    }
+    GaussianQuadratureData laguerre = new GaussLaguerreWeightAndAbscissaFunction().generate(nbPointsLaguerre);
+    this.nodesLaguerre = laguerre.getNodes().clone();
+    this.weightsLaguerre = laguerre.getWeights().clone();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Computes the present value of a CMS period.
+   *
+   * @param cms  the CMS period
+   * @param multicurve  the rates provider
+   * @param hwProvider  the Hull-White model parameters
+   * @return the present value
+   */
+  public CurrencyAmount presentValue(
+      CmsPeriod cms,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider) {
+
+    double pv = presentValue(cms, multicurve, hwProvider, new HashMap<>());
+    return CurrencyAmount.of(cms.getCurrency(), pv);
+  }
+
+  /**
+   * Computes the present value of a CMS leg.
+   * <p>
+   * The discount factors and model factors on the cash flow dates are shared between the periods.
+   *
+   * @param cmsLeg  the CMS leg
+   * @param multicurve  the rates provider
+   * @param hwProvider  the Hull-White model parameters
+   * @return the present value
+   */
+  public CurrencyAmount presentValue(
+      ResolvedCmsLeg cmsLeg,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider) {
+
+    double[] pvPeriods = presentValuePeriods(cmsLeg.getCmsPeriods(), multicurve, hwProvider);
+    double pv = 0.0d;
+    for (double pvPeriod : pvPeriods) {
+      pv += pvPeriod;
+    }
+    return CurrencyAmount.of(cmsLeg.getCurrency(), pv);
+  }
+
+  /**
+   * Computes the present value of each period in a list of CMS periods.
+   * <p>
+   * The discount factors and model factors on the cash flow dates are shared between the periods.
+   * The periods with a payment date before the valuation date have a value of 0.
+   *
+   * @param cmsPeriods  the CMS periods
+   * @param multicurve  the rates provider
+   * @param hwProvider  the Hull-White model parameters
+   * @return the present values, in the currency of each period
+   */
+  public double[] presentValuePeriods(
+      List<CmsPeriod> cmsPeriods,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider) {
+
+    Map<LocalDate, double[]> dateFactors = new HashMap<>();
+    double[] pv = new double[cmsPeriods.size()];
+    for (int loopp = 0; loopp < pv.length; loopp++) {
+      CmsPeriod cms = cmsPeriods.get(loopp);
+      if (!cms.getPaymentDate().isBefore(multicurve.getValuationDate())) {
+        pv[loopp] = presentValue(cms, multicurve, hwProvider, dateFactors);
+      }
+    }
+    return pv;
+  }
+
+  //-------------------------------------------------------------------------
+  // The present value of one period with a shared cache of the date dependent factors
+  private double presentValue(
+      CmsPeriod cms,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider,
+      Map<LocalDate, double[]> dateFactors) {
+
+    ArgChecker.isFalse(cms.getFixingDate().isBefore(multicurve.getValuationDate()),
+        "fixing date must not be before the valuation date");
+    ResolvedSwap swap = cms.getUnderlyingSwap();
+    Currency ccy = cms.getCurrency();
+    List<ResolvedSwapLeg> legsFixed = swap.getLegs(SwapLegType.FIXED);
+    ArgChecker.isTrue(legsFixed.size() == 1, "swap must have one fixed leg");
+    List<ResolvedSwapLeg> legsIbor = swap.getLegs(SwapLegType.IBOR);
+    ArgChecker.isTrue(legsIbor.size() == 1, "swap must have one Ibor leg");
+    double kappa = hwProvider.getParameters().getMeanReversion();
+    double fixingTime = hwProvider.relativeTime(cms.getFixingDate());
+    double stdFixing = Math.sqrt(FORMULAS_HW.alpha2ForwardGPart(hwProvider.getParameters(), 0.0d, fixingTime)) / kappa;
+    double expFixing = Math.exp(-kappa * fixingTime);
+    // Coefficients: alpha and discounted cash flows including the convexity term exp(-0.5 alpha^2)
+    ResolvedSwapLeg cfeIbor = CashFlowEquivalentCalculator.cashFlowEquivalentIborLeg(legsIbor.get(0), multicurve);
+    ResolvedSwapLeg cfeFixed = CashFlowEquivalentCalculator.cashFlowEquivalentFixedLeg(legsFixed.get(0), multicurve);
+    double[][] ibor = coefficients(cfeIbor, ccy, multicurve, hwProvider, stdFixing, expFixing, dateFactors, 1.0d);
+    double[][] fixed = coefficients(cfeFixed, ccy, multicurve, hwProvider, stdFixing, expFixing, dateFactors, -1.0d);
+    double[] factorsPayment = dateFactors(cms.getPaymentDate(), ccy, multicurve, hwProvider, dateFactors);
+    double alphap = stdFixing * (expFixing - factorsPayment[1]);
+    SwapRateFunction swapRate = new SwapRateFunction(ibor[0], ibor[1], fixed[0], fixed[1], alphap);
+    double factor = cms.getNotional() * cms.getYearFraction() * factorsPayment[0];
+    if (cms.getCmsPeriodType().equals(CmsPeriodType.COUPON)) {
+      return factor * integralHermite(swapRate, x -> x);
+    }
+    boolean isCap = cms.getCmsPeriodType().equals(CmsPeriodType.CAPLET);
+    double strike = isCap ? cms.getCaplet().getAsDouble() : cms.getFloorlet().getAsDouble();
+    DoubleUnaryOperator payoffCap = x -> Math.max(x - strike, 0.0d);
+    DoubleUnaryOperator payoffFloor = x -> Math.max(strike - x, 0.0d);
+    double[] boundary = swapRate.boundary(strike);
+    if (boundary == null) { // Degenerate: no volatility, intrinsic value
+      double rate = swapRate.rate(0.0d);
+      return factor * (isCap ? payoffCap.applyAsDouble(rate) : payoffFloor.applyAsDouble(rate));
+    }
+    double xStar = boundary[0];
+    double capDirection = Math.signum(boundary[1]); // Cap exercised for X on the side of the rate increasing
+    double otmDirection = (xStar >= 0.0d) ? 1.0d : -1.0d; // Tail not containing 0
+    boolean isOtmTail = (isCap ? capDirection : -capDirection) == otmDirection;
+    if (isOtmTail) {
+      return factor * integralLaguerre(swapRate, isCap ? payoffCap : payoffFloor, xStar, otmDirection);
+    }
+    // Parity: cap - floor = forward
+    double forward = integralHermite(swapRate, x -> x - strike);
+    double otm = integralLaguerre(swapRate, isCap ? payoffFloor : payoffCap, xStar, otmDirection);
+    return factor * ((isCap ? forward : -forward) + otm);
+  }
+
+  // The discount factor and the mean reversion factor exp(-kappa u) at a date, cached
+  private static double[] dateFactors(
+      LocalDate date,
+      Currency ccy,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider,
+      Map<LocalDate, double[]> dateFactors) {
+
+    return dateFactors.computeIfAbsent(date, d -> new double[] {
+        multicurve.discountFactor(ccy, d),
+        Math.exp(-hwProvider.getParameters().getMeanReversion() * hwProvider.relativeTime(d))});
+  }
+
+  // The alphas and the discounted cash flows including exp(-0.5 alpha^2) of a cash flow equivalent leg
+  private static double[][] coefficients(
+      ResolvedSwapLeg cfe,
+      Currency ccy,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider,
+      double stdFixing,
+      double expFixing,
+      Map<LocalDate, double[]> dateFactors,
+      double sign) {
+
+    List<SwapPaymentEvent> events = cfe.getPaymentEvents();
+    int nbPayments = events.size();
+    double[] alpha = new double[nbPayments];
+    double[] discountedCashFlow = new double[nbPayments];
+    for (int loopcf = 0; loopcf < nbPayments; loopcf++) {
+      NotionalExchange payment = (NotionalExchange) events.get(loopcf);
+      double[] factors = dateFactors(payment.getPaymentDate(), ccy, multicurve, hwProvider, dateFactors);
+      alpha[loopcf] = stdFixing * (expFixing - factors[1]);
+      discountedCashFlow[loopcf] = sign * payment.getPaymentAmount().getAmount() * factors[0] *
+          Math.exp(-0.5d * alpha[loopcf] * alpha[loopcf]);
+    }
+    return new double[][] {alpha, discountedCashFlow};
+  }
+
+  // \int payoff(S(x)) w(x) phi(x) dx on the real line
+  private double integralHermite(SwapRateFunction swapRate, DoubleUnaryOperator payoff) {
+    double integral = 0.0d;
+    for (int looppt = 0; looppt < nodesHermite.length; looppt++) {
+      double x = nodesHermite[looppt];
+      integral += weightsHermite[looppt] * payoff.applyAsDouble(swapRate.rate(x)) * swapRate.weight(x);
+    }
+    return integral;
+  }
+
+  // \int payoff(S(x)) w(x) phi(x) dx on the tail starting at xStar in the given direction
+  // The variable is x = xStar + direction * t / scale with the scale adapted to the decay of the density
+  private double integralLaguerre(
+      SwapRateFunction swapRate,
+      DoubleUnaryOperator payoff,
+      double xStar,
+      double direction) {
+
+    double scale = 1.0d + Math.abs(xStar);
+    double integral = 0.0d;
+    for (int looppt = 0; looppt < nodesLaguerre.length; looppt++) {
+      double t = nodesLaguerre[looppt];
+      double x = xStar + direction * t / scale;
+      integral += weightsLaguerre[looppt] * payoff.applyAsDouble(swapRate.rate(x)) * swapRate.weight(x) *
+          Math.exp(t - 0.5d * x * x);
+    }
+    return integral * INV_SQRT_2PI / scale;
+  }
+
+  /**
+   * Inner class with the swap rate and the payment weight as a function of the standard normal variable.
+   * <p>
+   * The swap rate is S(x) = \sum_i dI_i exp(-aI_i x) / \sum_j dF_j exp(-aF_j x) and the payment weight
+   * is w(x) = exp(-a_p x - 0.5 a_p^2).
+   */
+  private static final class SwapRateFunction {
+
+    private final double[] alphaIbor;
+    private final double[] dfIbor;
+    private final double[] alphaFixed;
+    private final double[] dfFixed;
+    private final double alphap;
+
+    private SwapRateFunction(double[] alphaIbor, double[] dfIbor, double[] alphaFixed, double[] dfFixed,
+        double alphap) {
+      this.alphaIbor = alphaIbor;
+      this.dfIbor = dfIbor;
+      this.alphaFixed = alphaFixed;
+      this.dfFixed = dfFixed;
+      this.alphap = alphap;
+    }
+
+    private double rate(double x) {
+      double b = 0.0d;
+      for (int loopcf = 0; loopcf < alphaIbor.length; loopcf++) {
+        b += dfIbor[loopcf] * Math.exp(-alphaIbor[loopcf] * x);
+      }
+      double c = 0.0d;
+      for (int loopcf = 0; loopcf < alphaFixed.length; loopcf++) {
+        c += dfFixed[loopcf] * Math.exp(-alphaFixed[loopcf] * x);
+      }
+      return b / c;
+    }
+
+    private double weight(double x) {
+      return Math.exp(-alphap * x - 0.5d * alphap * alphap);
+    }
+
+    /**
+     * Returns the value of x for which the swap rate is equal to the strike and the derivative of the rate
+     * at that point. Returns null if the rate does not depend on x.
+     */
+    private double[] boundary(double strike) {
+      double x = 0.0d;
+      double derivative = 0.0d;
+      for (int loopit = 0; loopit < NB_ITERATIONS_MAX; loopit++) {
+        double b = 0.0d;
+        double bp = 0.0d;
+        for (int loopcf = 0; loopcf < alphaIbor.length; loopcf++) {
+          double term = dfIbor[loopcf] * Math.exp(-alphaIbor[loopcf] * x);
+          b += term;
+          bp -= alphaIbor[loopcf] * term;
+        }
+        double c = 0.0d;
+        double cp = 0.0d;
+        for (int loopcf = 0; loopcf < alphaFixed.length; loopcf++) {
+          double term = dfFixed[loopcf] * Math.exp(-alphaFixed[loopcf] * x);
+          c += term;
+          cp -= alphaFixed[loopcf] * term;
+        }
+        derivative = bp / c - b * cp / (c * c);
+        if (derivative == 0.0d) {
+          return (loopit == 0) ? null : new double[] {x, derivative};
+        }
+        double step = (b / c - strike) / derivative;
+        x = Math.min(Math.max(x - step, -LIMIT_BOUNDARY), LIMIT_BOUNDARY);
+        if (Math.abs(step) < TOL_BOUNDARY || Math.abs(x) == LIMIT_BOUNDARY) {
+          break;
+        }
+      }
+      return new double[] {x, derivative};
+    }
+  }
+
+}
@@ -0,0 +1,504 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.cms;
+
+import java.io.Serializable;
+
+import org.joda.beans.ImmutableBean;
+import org.joda.beans.gen.BeanDefinition;
+import org.joda.beans.gen.ImmutableValidator;
+import org.joda.beans.gen.PropertyDefinition;
+
+import com.opengamma.strata.collect.ArgChecker;
+
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorMonteCarloEvolution;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorParameters;
+import marc.henrard.murisq.pricer.decomposition.MulticurveDecisionScheduleCalculator;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalent;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentSchedule;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentValues;
+import marc.henrard.murisq.pricer.montecarlo.RationalTwoFactorMonteCarloMultiDatesPricer;
+import marc.henrard.murisq.product.cms.CmsPeriodResolved;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.joda.beans.Bean;
+import org.joda.beans.JodaBeanUtils;
+import org.joda.beans.MetaBean;
+import org.joda.beans.MetaProperty;
+import org.joda.beans.impl.direct.DirectFieldsBeanBuilder;
+import org.joda.beans.impl.direct.DirectMetaBean;
+import org.joda.beans.impl.direct.DirectMetaProperty;
+import org.joda.beans.impl.direct.DirectMetaPropertyMap;
+
+/**
+ * Monte Carlo pricer for CMS periods (coupons, caplets, floorlets) in the two-factor rational model.
+ * <p>
+ * The swap rate at the fixing date is a ratio of functions linear in the martingales.
+ * 
+ * @author Marc Henrard
+ */
+@BeanDefinition
+public final class RationalTwoFactorCmsPeriodMonteCarloPricer
+    implements RationalTwoFactorMonteCarloMultiDatesPricer<CmsPeriodResolved>, ImmutableBean, Serializable {
+
+  /** The number of paths */
+  @PropertyDefinition
+  private final int nbPaths;
+  /** The number of paths in a computation block */
+  @PropertyDefinition
+  private final int pathNumberBlock;
+  /** The model */
+  @PropertyDefinition(validate = "notNull")
+  private final RationalTwoFactorParameters model;
+  /** The seed of the random number generator. */
+  @PropertyDefinition
+  private final long seed;
+
+  //-------------------------------------------------------------------------
+  @ImmutableValidator
+  private void validate() {
+    ArgChecker.isTrue(nbPaths > 0, "number of paths must be > 0");
+    ArgChecker.isTrue(pathNumberBlock > 0, "number of paths in a block must be > 0");
+  }
+
+  @Override
+  public MulticurveEquivalentSchedule multicurveEquivalent(CmsPeriodResolved product) {
+    return MulticurveDecisionScheduleCalculator.decisionSchedule(product);
+  }
+
+  @Override
+  public double[] aggregation(
+      MulticurveEquivalentSchedule me,
+      CmsPeriodResolved cms,
+      MulticurveEquivalentValues initialValues,
+      double[] martingales,
+      int nbPaths,
+      RationalTwoFactorParameters model) {
+
+    MulticurveEquivalent mce = me.getSchedules().get(0);
+    int nbDF = mce.getDiscountFactorPayments().size(); // Last DF payment corresponds to the coupon payment date
+    int nbIbor = mce.getIborComputations().size();
+    double[][] coefficients = rebasedCoefficients(me, initialValues, model)[0];
+    double[] pvbp = sumCoefficients(coefficients, 0, nbDF - 1);
+    double[] pvIborLeg = sumCoefficients(coefficients, nbDF, nbDF + nbIbor);
+    double dfPayment = initialValues.getDiscountFactors().get(nbDF - 1);
+    double b0Payment = model.b0(mce.getDiscountFactorPayments().get(nbDF - 1).getPaymentDate());
+    double[] swapRate = new double[nbPaths];
+    for (int looppath = 0; looppath < nbPaths; looppath++) {
+      double a1 = martingales[looppath * RationalTwoFactorMonteCarloEvolution.NB_MARTINGALES];
+      double a2 = martingales[looppath * RationalTwoFactorMonteCarloEvolution.NB_MARTINGALES + 1];
+      swapRate[looppath] = -(pvIborLeg[0] + pvIborLeg[1] * a1 + pvIborLeg[2] * a2) /
+          (pvbp[0] + pvbp[1] * a1 + pvbp[2] * a2);
+    }
+    double[] pv = cms.payoff(swapRate);
+    for (int looppath = 0; looppath < nbPaths; looppath++) {
+      double a1 = martingales[looppath * RationalTwoFactorMonteCarloEvolution.NB_MARTINGALES];
+      pv[looppath] *= dfPayment + b0Payment * a1;
+    }
+    return pv;
+  }
+
+  //------------------------- AUTOGENERATED START -------------------------
+  /**
+   * The meta-bean for {@code RationalTwoFactorCmsPeriodMonteCarloPricer}.
+   * @return the meta-bean, not null
+   */
+  public static RationalTwoFactorCmsPeriodMonteCarloPricer.Meta meta() {
+    return RationalTwoFactorCmsPeriodMonteCarloPricer.Meta.INSTANCE;
+  }
+
+  static {
+    MetaBean.register(RationalTwoFactorCmsPeriodMonteCarloPricer.Meta.INSTANCE);
+  }
+
+  /**
+   * The serialization version id.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Returns a builder used to create an instance of the bean.
+   * @return the builder, not null
+   */
+  public static RationalTwoFactorCmsPeriodMonteCarloPricer.Builder builder() {
+    return new RationalTwoFactorCmsPeriodMonteCarloPricer.Builder();
+  }
+
+  private RationalTwoFactorCmsPeriodMonteCarloPricer(
+      int nbPaths,
+      int pathNumberBlock,
+      RationalTwoFactorParameters model,
+      long seed) {
+    JodaBeanUtils.notNull(model, "model");
+    this.nbPaths = nbPaths;
+    this.pathNumberBlock = pathNumberBlock;
+    this.model = model;
+    this.seed = seed;
+    validate();
+  }
+
+  @Override
+  public RationalTwoFactorCmsPeriodMonteCarloPricer.Meta metaBean() {
+    return RationalTwoFactorCmsPeriodMonteCarloPricer.Meta.INSTANCE;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the number of paths
+   * @return the value of the property
+   */
+  public int getNbPaths() {
+    return nbPaths;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the number of paths in a computation block
+   * @return the value of the property
+   */
+  public int getPathNumberBlock() {
+    return pathNumberBlock;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the model
+   * @return the value of the property, not null
+   */
+  public RationalTwoFactorParameters getModel() {
+    return model;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the seed of the random number generator.
+   * @return the value of the property
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Returns a builder that allows this bean to be mutated.
+   * @return the mutable builder, not null
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj != null && obj.getClass() == this.getClass()) {
+      RationalTwoFactorCmsPeriodMonteCarloPricer other = (RationalTwoFactorCmsPeriodMonteCarloPricer) obj;
+      return (nbPaths == other.nbPaths) &&
+          (pathNumberBlock == other.pathNumberBlock) &&
+          JodaBeanUtils.equal(model, other.model) &&
+          (seed == other.seed);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = getClass().hashCode();
+    hash = hash * 31 + JodaBeanUtils.hashCode(nbPaths);
+    hash = hash * 31 + JodaBeanUtils.hashCode(pathNumberBlock);
+    hash = hash * 31 + JodaBeanUtils.hashCode(model);
+    hash = hash * 31 + JodaBeanUtils.hashCode(seed);
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder(160);
+    buf.append("RationalTwoFactorCmsPeriodMonteCarloPricer{");
+    buf.append("nbPaths").append('=').append(JodaBeanUtils.toString(nbPaths)).append(',').append(' ');
+    buf.append("pathNumberBlock").append('=').append(JodaBeanUtils.toString(pathNumberBlock)).append(',').append(' ');
+    buf.append("model").append('=').append(JodaBeanUtils.toString(model)).append(',').append(' ');
+    buf.append("seed").append('=').append(JodaBeanUtils.toString(seed));
+    buf.append('}');
+    return buf.toString();
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The meta-bean for {@code RationalTwoFactorCmsPeriodMonteCarloPricer}.
+   */
+  public static final class Meta extends DirectMetaBean {
+    /**
+     * The singleton instance of the meta-bean.
+     */
+    static final Meta INSTANCE = new Meta();
+
+    /**
+     * The meta-property for the {@code nbPaths} property.
+     */
+    private final MetaProperty<Integer> nbPaths = DirectMetaProperty.ofImmutable(
+        this, "nbPaths", RationalTwoFactorCmsPeriodMonteCarloPricer.class, Integer.TYPE);
+    /**
+     * The meta-property for the {@code pathNumberBlock} property.
+     */
+    private final MetaProperty<Integer> pathNumberBlock = DirectMetaProperty.ofImmutable(
+        this, "pathNumberBlock", RationalTwoFactorCmsPeriodMonteCarloPricer.class, Integer.TYPE);
+    /**
+     * The meta-property for the {@code model} property.
+     */
+    private final MetaProperty<RationalTwoFactorParameters> model = DirectMetaProperty.ofImmutable(
+        this, "model", RationalTwoFactorCmsPeriodMonteCarloPricer.class, RationalTwoFactorParameters.class);
+    /**
+     * The meta-property for the {@code seed} property.
+     */
+    private final MetaProperty<Long> seed = DirectMetaProperty.ofImmutable(
+        this, "seed", RationalTwoFactorCmsPeriodMonteCarloPricer.class, Long.TYPE);
+    /**
+     * The meta-properties.
+     */
+    private final Map<String, MetaProperty<?>> metaPropertyMap$ = new DirectMetaPropertyMap(
+        this, null,
+        "nbPaths",
+        "pathNumberBlock",
+        "model",
+        "seed");
+
+    /**
+     * Restricted constructor.
+     */
+    private Meta() {
+    }
+
+    @Override
+    protected MetaProperty<?> metaPropertyGet(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          return nbPaths;
+        case -1504032417:  // pathNumberBlock
+          return pathNumberBlock;
+        case 104069929:  // model
+          return model;
+        case 3526257:  // seed
+          return seed;
+      }
+      return super.metaPropertyGet(propertyName);
+    }
+
+    @Override
+    public RationalTwoFactorCmsPeriodMonteCarloPricer.Builder builder() {
+      return new RationalTwoFactorCmsPeriodMonteCarloPricer.Builder();
+    }
+
+    @Override
+    public Class<? extends RationalTwoFactorCmsPeriodMonteCarloPricer> beanType() {
+      return RationalTwoFactorCmsPeriodMonteCarloPricer.class;
+    }
+
+    @Override
+    public Map<String, MetaProperty<?>> metaPropertyMap() {
+      return metaPropertyMap$;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * The meta-property for the {@code nbPaths} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<Integer> nbPaths() {
+      return nbPaths;
+    }
+
+    /**
+     * The meta-property for the {@code pathNumberBlock} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<Integer> pathNumberBlock() {
+      return pathNumberBlock;
+    }
+
+    /**
+     * The meta-property for the {@code model} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<RationalTwoFactorParameters> model() {
+      return model;
+    }
+
+    /**
+     * The meta-property for the {@code seed} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<Long> seed() {
+      return seed;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    protected Object propertyGet(Bean bean, String propertyName, boolean quiet) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          return ((RationalTwoFactorCmsPeriodMonteCarloPricer) bean).getNbPaths();
+        case -1504032417:  // pathNumberBlock
+          return ((RationalTwoFactorCmsPeriodMonteCarloPricer) bean).getPathNumberBlock();
+        case 104069929:  // model
+          return ((RationalTwoFactorCmsPeriodMonteCarloPricer) bean).getModel();
+        case 3526257:  // seed
+          return ((RationalTwoFactorCmsPeriodMonteCarloPricer) bean).getSeed();
+      }
+      return super.propertyGet(bean, propertyName, quiet);
+    }
+
+    @Override
+    protected void propertySet(Bean bean, String propertyName, Object newValue, boolean quiet) {
+      metaProperty(propertyName);
+      if (quiet) {
+        return;
+      }
+      throw new UnsupportedOperationException("Property cannot be written: " + propertyName);
+    }
+
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The bean-builder for {@code RationalTwoFactorCmsPeriodMonteCarloPricer}.
+   */
+  public static final class Builder extends DirectFieldsBeanBuilder<RationalTwoFactorCmsPeriodMonteCarloPricer> {
+
+    private int nbPaths;
+    private int pathNumberBlock;
+    private RationalTwoFactorParameters model;
+    private long seed;
+
+    /**
+     * Restricted constructor.
+     */
+    private Builder() {
+    }
+
+    /**
+     * Restricted copy constructor.
+     * @param beanToCopy  the bean to copy from, not null
+     */
+    private Builder(RationalTwoFactorCmsPeriodMonteCarloPricer beanToCopy) {
+      this.nbPaths = beanToCopy.getNbPaths();
+      this.pathNumberBlock = beanToCopy.getPathNumberBlock();
+      this.model = beanToCopy.getModel();
+      this.seed = beanToCopy.getSeed();
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Object get(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          return nbPaths;
+        case -1504032417:  // pathNumberBlock
+          return pathNumberBlock;
+        case 104069929:  // model
+          return model;
+        case 3526257:  // seed
+          return seed;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+    }
+
+    @Override
+    public Builder set(String propertyName, Object newValue) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          this.nbPaths = (Integer) newValue;
+          break;
+        case -1504032417:  // pathNumberBlock
+          this.pathNumberBlock = (Integer) newValue;
+          break;
+        case 104069929:  // model
+          this.model = (RationalTwoFactorParameters) newValue;
+          break;
+        case 3526257:  // seed
+          this.seed = (Long) newValue;
+          break;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+      return this;
+    }
+
+    @Override
+    public Builder set(MetaProperty<?> property, Object value) {
+      super.set(property, value);
+      return this;
+    }
+
+    @Override
+    public RationalTwoFactorCmsPeriodMonteCarloPricer build() {
+      return new RationalTwoFactorCmsPeriodMonteCarloPricer(
+          nbPaths,
+          pathNumberBlock,
+          model,
+          seed);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Sets the number of paths
+     * @param nbPaths  the new value
+     * @return this, for chaining, not null
+     */
+    public Builder nbPaths(int nbPaths) {
+      this.nbPaths = nbPaths;
+      return this;
+    }
+
+    /**
+     * Sets the number of paths in a computation block
+     * @param pathNumberBlock  the new value
+     * @return this, for chaining, not null
+     */
+    public Builder pathNumberBlock(int pathNumberBlock) {
+      this.pathNumberBlock = pathNumberBlock;
+      return this;
+    }
+
+    /**
+     * Sets the model
+     * @param model  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder model(RationalTwoFactorParameters model) {
+      JodaBeanUtils.notNull(model, "model");
+      this.model = model;
+      return this;
+    }
+
+    /**
+     * Sets the seed of the random number generator.
+     * @param seed  the new value
+     * @return this, for chaining, not null
+     */
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public String toString() {
+      StringBuilder buf = new StringBuilder(160);
+      buf.append("RationalTwoFactorCmsPeriodMonteCarloPricer.Builder{");
+      buf.append("nbPaths").append('=').append(JodaBeanUtils.toString(nbPaths)).append(',').append(' ');
+      buf.append("pathNumberBlock").append('=').append(JodaBeanUtils.toString(pathNumberBlock)).append(',').append(' ');
+      buf.append("model").append('=').append(JodaBeanUtils.toString(model)).append(',').append(' ');
+      buf.append("seed").append('=').append(JodaBeanUtils.toString(seed));
+      buf.append('}');
+      return buf.toString();
+    }
+
+  }
+
+  //-------------------------- AUTOGENERATED END --------------------------
+}
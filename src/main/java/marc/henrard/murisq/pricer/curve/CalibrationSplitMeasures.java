@@ -5,7 +5,11 @@ package marc.henrard.murisq.pricer.curve;
 
 import static com.opengamma.strata.collect.Guavate.toImmutableMap;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -13,10 +17,12 @@ import com.google.common.collect.ImmutableSet;
 import com.opengamma.strata.collect.ArgChecker;
 import com.opengamma.strata.collect.Messages;
 import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.array.DoubleMatrix;
+import com.opengamma.strata.market.curve.CurveName;
 import com.opengamma.strata.market.curve.CurveParameterSize;
 import com.opengamma.strata.market.param.CurrencyParameterSensitivities;
 import com.opengamma.strata.market.param.CurrencyParameterSensitivity;
-import com.opengamma.strata.market.param.UnitParameterSensitivities;
+import com.opengamma.strata.market.param.UnitParameterSensitivity;
 import com.opengamma.strata.pricer.curve.CalibrationMeasure;
 import com.opengamma.strata.pricer.curve.MarketQuoteMeasure;
 import com.opengamma.strata.pricer.curve.PresentValueCalibrationMeasure;
@@ -170,28 +176,116 @@ public final class CalibrationSplitMeasures {
    * @return the sensitivity derivative
    */
   public DoubleArray derivative(ResolvedTrade trade, RatesProvider provider, List<CurveParameterSize> curveOrder) {
-    UnitParameterSensitivities unitSens = extractSensitivities(trade, provider);
+    double[] row = new double[parameterCount(curveOrder)];
+    derivative(trade, provider, offsets(curveOrder), row);
+    return DoubleArray.ofUnsafe(row);
+  }
 
-    // expand to a concatenated array
-    DoubleArray result = DoubleArray.EMPTY;
-    for (CurveParameterSize curveParams : curveOrder) {
-      DoubleArray sens = unitSens.findSensitivity(curveParams.getName())
-          .map(s -> s.getSensitivity())
-          .orElseGet(() -> DoubleArray.filled(curveParams.getParameterCount()));
-      result = result.concat(sens);
-    }
-    return result;
+  /**
+   * Calculates the sensitivity with respect to the rates provider in a preallocated row.
+   * <p>
+   * The row is filled with the concatenated curve sensitivities from all curves currently being processed.
+   * The sensitivities are written directly at their position in the row, without intermediary arrays.
+   * 
+   * @param trade  the trade
+   * @param provider  the rates provider
+   * @param curveOrder  the order of the curves
+   * @param row  the row in which the sensitivity derivative is written, 
+   *   length at least the total number of parameters of the curves
+   */
+  public void derivative(
+      ResolvedTrade trade,
+      RatesProvider provider,
+      List<CurveParameterSize> curveOrder,
+      double[] row) {
+
+    ArgChecker.isTrue(row.length >= parameterCount(curveOrder), "row too short");
+    derivative(trade, provider, offsets(curveOrder), row);
+  }
+
+  /**
+   * Calculates the sensitivities of a list of trades with respect to the rates provider.
+   * <p>
+   * Each row of the result is the derivative of one trade, in the order of the trades. The trades are 
+   * evaluated concurrently and each one writes its sensitivities directly in its row.
+   * 
+   * @param trades  the trades
+   * @param provider  the rates provider
+   * @param curveOrder  the order of the curves
+   * @return the sensitivity derivatives, dimensions: trades x parameters
+   */
+  public DoubleMatrix derivatives(
+      List<? extends ResolvedTrade> trades,
+      RatesProvider provider,
+      List<CurveParameterSize> curveOrder) {
+
+    double[][] jacobian = new double[trades.size()][parameterCount(curveOrder)];
+    derivatives(trades, provider, curveOrder, jacobian);
+    return DoubleMatrix.ofUnsafe(jacobian);
+  }
+
+  /**
+   * Calculates the sensitivities of a list of trades with respect to the rates provider in a preallocated matrix.
+   * <p>
+   * The trades are evaluated concurrently and each one writes its sensitivities directly in its row.
+   * 
+   * @param trades  the trades
+   * @param provider  the rates provider
+   * @param curveOrder  the order of the curves
+   * @param jacobian  the matrix in which the sensitivity derivatives are written, one row for each trade
+   */
+  public void derivatives(
+      List<? extends ResolvedTrade> trades,
+      RatesProvider provider,
+      List<CurveParameterSize> curveOrder,
+      double[][] jacobian) {
+
+    ArgChecker.isTrue(jacobian.length >= trades.size(), "not enough rows");
+    int nbParameters = parameterCount(curveOrder);
+    Map<CurveName, Integer> offsets = offsets(curveOrder);
+    IntStream.range(0, trades.size()).parallel().forEach(i -> {
+      ArgChecker.isTrue(jacobian[i].length >= nbParameters, "row too short");
+      derivative(trades.get(i), provider, offsets, jacobian[i]);
+    });
   }
 
-  // determine the curve parameter sensitivities, removing the curency
-  private UnitParameterSensitivities extractSensitivities(ResolvedTrade trade, RatesProvider provider) {
+  // the derivative written in the row, the curves positions given by the offsets
+  private void derivative(
+      ResolvedTrade trade,
+      RatesProvider provider,
+      Map<CurveName, Integer> offsets,
+      double[] row) {
+
+    Arrays.fill(row, 0.0d);
     CalibrationMeasure<ResolvedTrade> measure = getMeasure(trade);
     CurrencyParameterSensitivities paramSens = measure.sensitivities(trade, provider);
-    UnitParameterSensitivities unitSens = UnitParameterSensitivities.empty();
     for (CurrencyParameterSensitivity ccySens : paramSens.getSensitivities()) {
-      unitSens = unitSens.combinedWith(UnitParameterSensitivities.of(ccySens.toUnitParameterSensitivity().split()));
+      for (UnitParameterSensitivity unitSens : ccySens.toUnitParameterSensitivity().split()) {
+        Integer offset = offsets.get(unitSens.getMarketDataName());
+        if (offset != null) { // Curves not in the order are ignored
+          double[] sensitivity = unitSens.getSensitivity().toArrayUnsafe();
+          for (int j = 0; j < sensitivity.length; j++) {
+            row[offset + j] += sensitivity[j];
+          }
+        }
+      }
     }
-    return unitSens;
+  }
+
+  // the start index of each curve in the concatenated parameters
+  private static Map<CurveName, Integer> offsets(List<CurveParameterSize> curveOrder) {
+    Map<CurveName, Integer> offsets = new HashMap<>();
+    int offset = 0;
+    for (CurveParameterSize curveParams : curveOrder) {
+      offsets.put(curveParams.getName(), offset);
+      offset += curveParams.getParameterCount();
+    }
+    return offsets;
+  }
+
+  // the total number of parameters
+  private static int parameterCount(List<CurveParameterSize> curveOrder) {
+    return curveOrder.stream().mapToInt(CurveParameterSize::getParameterCount).sum();
   }
 
   //-------------------------------------------------------------------------
@@ -25,6 +25,7 @@ import com.opengamma.strata.product.swaption.ResolvedSwaption;
 
 import marc.henrard.murisq.product.cms.CmsPeriodResolved;
 import marc.henrard.murisq.product.cms.CmsSpreadPeriodResolved;
+import marc.henrard.murisq.product.rate.IborRatchetRateComputation;
 
 /**
  * Calculator of decision schedule in the multi-curve framework for different instruments.
@@ -98,6 +99,60 @@ public class MulticurveDecisionScheduleCalculator {
     return MulticurveEquivalentSchedule.builder().schedules(schedules).build();
   }
   
+  /**
+   * Constructs the multi-curve decision schedule for a ratchet.
+   * <p>
+   * There is one decision date by payment period, the fixing time of the ratchet rate. The multi-curve equivalent
+   * of each period is the Ibor rate with a payment of amount accrual factor times notional.
+   * 
+   * @param ratchet  the ratchet, see {@link #ratchetPeriods(ResolvedSwap)}
+   * @return the decision schedule
+   */
+  public static MulticurveEquivalentSchedule ratchetDecisionSchedule(ResolvedSwap ratchet) {
+    List<MulticurveEquivalent> schedules = new ArrayList<>();
+    for (RatePaymentPeriod ratePeriod : ratchetPeriods(ratchet)) {
+      RateAccrualPeriod accrualPeriod = ratePeriod.getAccrualPeriods().get(0);
+      IborRatchetRateComputation ratchetPeriod = (IborRatchetRateComputation) accrualPeriod.getRateComputation();
+      schedules.add(
+          MulticurveEquivalent.of(
+              ratchetPeriod.getIndex().calculateFixingDateTime(ratchetPeriod.getFixingDate()), // fixing time
+              ImmutableList.of(), // No fix payment
+              ImmutableList.of(IborRateComputation.of(ratchetPeriod.getObservation())),
+              ImmutableList.of(NotionalExchange.of(Payment.of(ratchetPeriod.getCurrency(),
+                  accrualPeriod.getYearFraction() * ratePeriod.getNotional(), ratePeriod.getPaymentDate()))),
+              // Amount: accrual factor * notional
+              ImmutableList.of(), // No ON coupon
+              ImmutableList.of()));
+    }
+    return MulticurveEquivalentSchedule.of(schedules);
+  }
+
+  /**
+   * Returns the ratchet payment periods of a swap.
+   * <p>
+   * The swap must have one leg of type OTHER with one accrual period of type {@link IborRatchetRateComputation}
+   * by payment period.
+   * 
+   * @param ratchet  the ratchet
+   * @return the payment periods
+   */
+  public static List<RatePaymentPeriod> ratchetPeriods(ResolvedSwap ratchet) {
+    ArgChecker.isTrue(ratchet.getLegs().size() == 1, "product must have one leg");
+    ResolvedSwapLeg leg = ratchet.getLegs().get(0);
+    ArgChecker.isTrue(leg.getType().equals(SwapLegType.OTHER), "leg must be of type OTHER");
+    List<RatePaymentPeriod> ratePeriods = new ArrayList<>();
+    for (SwapPaymentPeriod p : leg.getPaymentPeriods()) {
+      ArgChecker.isTrue(p instanceof RatePaymentPeriod, "payment periods must be of type RatePaymentPeriod");
+      RatePaymentPeriod ratePeriod = (RatePaymentPeriod) p;
+      ArgChecker.isTrue(ratePeriod.getAccrualPeriods().size() == 1, "one accrual per payment period");
+      ArgChecker.isTrue(
+          ratePeriod.getAccrualPeriods().get(0).getRateComputation() instanceof IborRatchetRateComputation,
+          "rate computation must be of type IborRatchetRateComputation");
+      ratePeriods.add(ratePeriod);
+    }
+    return ratePeriods;
+  }
+  
   /**
    * Constructs the multi-curve equivalent to a swap. 
    * <p>
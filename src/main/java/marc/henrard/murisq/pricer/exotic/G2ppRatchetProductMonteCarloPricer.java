@@ -0,0 +1,514 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.exotic;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.joda.beans.ImmutableBean;
+import org.joda.beans.gen.BeanDefinition;
+import org.joda.beans.gen.ImmutableValidator;
+import org.joda.beans.gen.PropertyDefinition;
+
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.product.swap.RatePaymentPeriod;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+
+import marc.henrard.murisq.model.g2pp.G2ppMonteCarloEvolution;
+import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantParameters;
+import marc.henrard.murisq.pricer.decomposition.MulticurveDecisionScheduleCalculator;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalent;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentSchedule;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentValues;
+import marc.henrard.murisq.pricer.montecarlo.G2ppMonteCarloMultiDatesPricer;
+import marc.henrard.murisq.product.rate.IborRatchetRateComputation;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.joda.beans.Bean;
+import org.joda.beans.JodaBeanUtils;
+import org.joda.beans.MetaBean;
+import org.joda.beans.MetaProperty;
+import org.joda.beans.impl.direct.DirectFieldsBeanBuilder;
+import org.joda.beans.impl.direct.DirectMetaBean;
+import org.joda.beans.impl.direct.DirectMetaProperty;
+import org.joda.beans.impl.direct.DirectMetaPropertyMap;
+
+/**
+ * Monte Carlo pricer for ratchets in the G2++ model with piecewise constant volatilities.
+ * <p>
+ * The Ibor rates are obtained from the discounting forward rates with a deterministic multiplicative spread.
+ * 
+ * @author Marc Henrard
+ */
+@BeanDefinition
+public final class G2ppRatchetProductMonteCarloPricer 
+    implements G2ppMonteCarloMultiDatesPricer<ResolvedSwap>, ImmutableBean, Serializable {
+
+  /** The number of paths */
+  @PropertyDefinition
+  private final int nbPaths;
+  /** The number of paths in a computation block */
+  @PropertyDefinition
+  private final int pathNumberBlock;
+  /** The model */
+  @PropertyDefinition(validate = "notNull")
+  private final G2ppPiecewiseConstantParameters model;
+  /** The seed of the random number generator. */
+  @PropertyDefinition
+  private final long seed;
+
+  //-------------------------------------------------------------------------
+  @ImmutableValidator
+  private void validate() {
+    ArgChecker.isTrue(nbPaths > 0, "number of paths must be > 0");
+    ArgChecker.isTrue(pathNumberBlock > 0, "number of paths in a block must be > 0");
+  }
+
+  @Override
+  public MulticurveEquivalentSchedule multicurveEquivalent(ResolvedSwap product) {
+    return MulticurveDecisionScheduleCalculator.ratchetDecisionSchedule(product);
+  }
+
+  @Override
+  public double[] aggregation(
+      MulticurveEquivalentSchedule me,
+      ResolvedSwap product,
+      MulticurveEquivalentValues initialValues,
+      double[] factors, // dimensions: paths x expiry x factors
+      int nbPaths,
+      G2ppPiecewiseConstantParameters model) {
+
+    int nbFixings = me.getExpiriesCount();
+    List<RatePaymentPeriod> periods = MulticurveDecisionScheduleCalculator.ratchetPeriods(product);
+    double[][][] coefficients = deflatedCoefficients(me, initialValues, model); // payment, effective, maturity
+    double[] iborRates = initialValues.getIborRates().toArrayUnsafe();
+    double[] amounts = new double[nbFixings];
+    double[] accrualFactors = new double[nbFixings];
+    IborRatchetRateComputation[] ratchetPeriods = new IborRatchetRateComputation[nbFixings];
+    for (int loopfixing = 0; loopfixing < nbFixings; loopfixing++) {
+      MulticurveEquivalent mce = me.getSchedules().get(loopfixing);
+      ratchetPeriods[loopfixing] =
+          (IborRatchetRateComputation) periods.get(loopfixing).getAccrualPeriods().get(0).getRateComputation();
+      amounts[loopfixing] = mce.getIborPayments().get(0).getPaymentAmount().getAmount();
+      accrualFactors[loopfixing] = mce.getIborComputations().get(0).getYearFraction();
+    }
+    double[] pv = new double[nbPaths];
+    double[] ratchetRates = new double[nbFixings + 1]; // one extra dim to facilitate recursion
+    for (int looppath = 0; looppath < nbPaths; looppath++) { // loop paths
+      for (int loopfixing = 0; loopfixing < nbFixings; loopfixing++) { // loop expiries
+        int index = (looppath * nbFixings + loopfixing) * G2ppMonteCarloEvolution.NB_FACTORS;
+        double x0 = factors[index];
+        double x1 = factors[index + 1];
+        double[][] c = coefficients[loopfixing];
+        double iborRate = iborRate(c[1], c[2], iborRates[loopfixing], accrualFactors[loopfixing], x0, x1);
+        ratchetRates[loopfixing + 1] = ratchetPeriods[loopfixing].rate(ratchetRates[loopfixing], iborRate);
+        pv[looppath] += amounts[loopfixing] * ratchetRates[loopfixing + 1] * deflatedDiscountFactor(c[0], x0, x1);
+      } // end loop expiries
+    } // end loop paths
+    return pv;
+  }
+
+  //------------------------- AUTOGENERATED START -------------------------
+  /**
+   * The meta-bean for {@code G2ppRatchetProductMonteCarloPricer}.
+   * @return the meta-bean, not null
+   */
+  public static G2ppRatchetProductMonteCarloPricer.Meta meta() {
+    return G2ppRatchetProductMonteCarloPricer.Meta.INSTANCE;
+  }
+
+  static {
+    MetaBean.register(G2ppRatchetProductMonteCarloPricer.Meta.INSTANCE);
+  }
+
+  /**
+   * The serialization version id.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Returns a builder used to create an instance of the bean.
+   * @return the builder, not null
+   */
+  public static G2ppRatchetProductMonteCarloPricer.Builder builder() {
+    return new G2ppRatchetProductMonteCarloPricer.Builder();
+  }
+
+  private G2ppRatchetProductMonteCarloPricer(
+      int nbPaths,
+      int pathNumberBlock,
+      G2ppPiecewiseConstantParameters model,
+      long seed) {
+    JodaBeanUtils.notNull(model, "model");
+    this.nbPaths = nbPaths;
+    this.pathNumberBlock = pathNumberBlock;
+    this.model = model;
+    this.seed = seed;
+    validate();
+  }
+
+  @Override
+  public G2ppRatchetProductMonteCarloPricer.Meta metaBean() {
+    return G2ppRatchetProductMonteCarloPricer.Meta.INSTANCE;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the number of paths
+   * @return the value of the property
+   */
+  public int getNbPaths() {
+    return nbPaths;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the number of paths in a computation block
+   * @return the value of the property
+   */
+  public int getPathNumberBlock() {
+    return pathNumberBlock;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the model
+   * @return the value of the property, not null
+   */
+  public G2ppPiecewiseConstantParameters getModel() {
+    return model;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the seed of the random number generator.
+   * @return the value of the property
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Returns a builder that allows this bean to be mutated.
+   * @return the mutable builder, not null
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj != null && obj.getClass() == this.getClass()) {
+      G2ppRatchetProductMonteCarloPricer other = (G2ppRatchetProductMonteCarloPricer) obj;
+      return (nbPaths == other.nbPaths) &&
+          (pathNumberBlock == other.pathNumberBlock) &&
+          JodaBeanUtils.equal(model, other.model) &&
+          (seed == other.seed);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = getClass().hashCode();
+    hash = hash * 31 + JodaBeanUtils.hashCode(nbPaths);
+    hash = hash * 31 + JodaBeanUtils.hashCode(pathNumberBlock);
+    hash = hash * 31 + JodaBeanUtils.hashCode(model);
+    hash = hash * 31 + JodaBeanUtils.hashCode(seed);
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder buf = new StringBuilder(160);
+    buf.append("G2ppRatchetProductMonteCarloPricer{");
+    buf.append("nbPaths").append('=').append(JodaBeanUtils.toString(nbPaths)).append(',').append(' ');
+    buf.append("pathNumberBlock").append('=').append(JodaBeanUtils.toString(pathNumberBlock)).append(',').append(' ');
+    buf.append("model").append('=').append(JodaBeanUtils.toString(model)).append(',').append(' ');
+    buf.append("seed").append('=').append(JodaBeanUtils.toString(seed));
+    buf.append('}');
+    return buf.toString();
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The meta-bean for {@code G2ppRatchetProductMonteCarloPricer}.
+   */
+  public static final class Meta extends DirectMetaBean {
+    /**
+     * The singleton instance of the meta-bean.
+     */
+    static final Meta INSTANCE = new Meta();
+
+    /**
+     * The meta-property for the {@code nbPaths} property.
+     */
+    private final MetaProperty<Integer> nbPaths = DirectMetaProperty.ofImmutable(
+        this, "nbPaths", G2ppRatchetProductMonteCarloPricer.class, Integer.TYPE);
+    /**
+     * The meta-property for the {@code pathNumberBlock} property.
+     */
+    private final MetaProperty<Integer> pathNumberBlock = DirectMetaProperty.ofImmutable(
+        this, "pathNumberBlock", G2ppRatchetProductMonteCarloPricer.class, Integer.TYPE);
+    /**
+     * The meta-property for the {@code model} property.
+     */
+    private final MetaProperty<G2ppPiecewiseConstantParameters> model = DirectMetaProperty.ofImmutable(
+        this, "model", G2ppRatchetProductMonteCarloPricer.class, G2ppPiecewiseConstantParameters.class);
+    /**
+     * The meta-property for the {@code seed} property.
+     */
+    private final MetaProperty<Long> seed = DirectMetaProperty.ofImmutable(
+        this, "seed", G2ppRatchetProductMonteCarloPricer.class, Long.TYPE);
+    /**
+     * The meta-properties.
+     */
+    private final Map<String, MetaProperty<?>> metaPropertyMap$ = new DirectMetaPropertyMap(
+        this, null,
+        "nbPaths",
+        "pathNumberBlock",
+        "model",
+        "seed");
+
+    /**
+     * Restricted constructor.
+     */
+    private Meta() {
+    }
+
+    @Override
+    protected MetaProperty<?> metaPropertyGet(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          return nbPaths;
+        case -1504032417:  // pathNumberBlock
+          return pathNumberBlock;
+        case 104069929:  // model
+          return model;
+        case 3526257:  // seed
+          return seed;
+      }
+      return super.metaPropertyGet(propertyName);
+    }
+
+    @Override
+    public G2ppRatchetProductMonteCarloPricer.Builder builder() {
+      return new G2ppRatchetProductMonteCarloPricer.Builder();
+    }
+
+    @Override
+    public Class<? extends G2ppRatchetProductMonteCarloPricer> beanType() {
+      return G2ppRatchetProductMonteCarloPricer.class;
+    }
+
+    @Override
+    public Map<String, MetaProperty<?>> metaPropertyMap() {
+      return metaPropertyMap$;
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * The meta-property for the {@code nbPaths} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<Integer> nbPaths() {
+      return nbPaths;
+    }
+
+    /**
+     * The meta-property for the {@code pathNumberBlock} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<Integer> pathNumberBlock() {
+      return pathNumberBlock;
+    }
+
+    /**
+     * The meta-property for the {@code model} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<G2ppPiecewiseConstantParameters> model() {
+      return model;
+    }
+
+    /**
+     * The meta-property for the {@code seed} property.
+     * @return the meta-property, not null
+     */
+    public MetaProperty<Long> seed() {
+      return seed;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    protected Object propertyGet(Bean bean, String propertyName, boolean quiet) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          return ((G2ppRatchetProductMonteCarloPricer) bean).getNbPaths();
+        case -1504032417:  // pathNumberBlock
+          return ((G2ppRatchetProductMonteCarloPricer) bean).getPathNumberBlock();
+        case 104069929:  // model
+          return ((G2ppRatchetProductMonteCarloPricer) bean).getModel();
+        case 3526257:  // seed
+          return ((G2ppRatchetProductMonteCarloPricer) bean).getSeed();
+      }
+      return super.propertyGet(bean, propertyName, quiet);
+    }
+
+    @Override
+    protected void propertySet(Bean bean, String propertyName, Object newValue, boolean quiet) {
+      metaProperty(propertyName);
+      if (quiet) {
+        return;
+      }
+      throw new UnsupportedOperationException("Property cannot be written: " + propertyName);
+    }
+
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The bean-builder for {@code G2ppRatchetProductMonteCarloPricer}.
+   */
+  public static final class Builder extends DirectFieldsBeanBuilder<G2ppRatchetProductMonteCarloPricer> {
+
+    private int nbPaths;
+    private int pathNumberBlock;
+    private G2ppPiecewiseConstantParameters model;
+    private long seed;
+
+    /**
+     * Restricted constructor.
+     */
+    private Builder() {
+    }
+
+    /**
+     * Restricted copy constructor.
+     * @param beanToCopy  the bean to copy from, not null
+     */
+    private Builder(G2ppRatchetProductMonteCarloPricer beanToCopy) {
+      this.nbPaths = beanToCopy.getNbPaths();
+      this.pathNumberBlock = beanToCopy.getPathNumberBlock();
+      this.model = beanToCopy.getModel();
+      this.seed = beanToCopy.getSeed();
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public Object get(String propertyName) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          return nbPaths;
+        case -1504032417:  // pathNumberBlock
+          return pathNumberBlock;
+        case 104069929:  // model
+          return model;
+        case 3526257:  // seed
+          return seed;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+    }
+
+    @Override
+    public Builder set(String propertyName, Object newValue) {
+      switch (propertyName.hashCode()) {
+        case 1723700122:  // nbPaths
+          this.nbPaths = (Integer) newValue;
+          break;
+        case -1504032417:  // pathNumberBlock
+          this.pathNumberBlock = (Integer) newValue;
+          break;
+        case 104069929:  // model
+          this.model = (G2ppPiecewiseConstantParameters) newValue;
+          break;
+        case 3526257:  // seed
+          this.seed = (Long) newValue;
+          break;
+        default:
+          throw new NoSuchElementException("Unknown property: " + propertyName);
+      }
+      return this;
+    }
+
+    @Override
+    public Builder set(MetaProperty<?> property, Object value) {
+      super.set(property, value);
+      return this;
+    }
+
+    @Override
+    public G2ppRatchetProductMonteCarloPricer build() {
+      return new G2ppRatchetProductMonteCarloPricer(
+          nbPaths,
+          pathNumberBlock,
+          model,
+          seed);
+    }
+
+    //-----------------------------------------------------------------------
+    /**
+     * Sets the number of paths
+     * @param nbPaths  the new value
+     * @return this, for chaining, not null
+     */
+    public Builder nbPaths(int nbPaths) {
+      this.nbPaths = nbPaths;
+      return this;
+    }
+
+    /**
+     * Sets the number of paths in a computation block
+     * @param pathNumberBlock  the new value
+     * @return this, for chaining, not null
+     */
+    public Builder pathNumberBlock(int pathNumberBlock) {
+      this.pathNumberBlock = pathNumberBlock;
+      return this;
+    }
+
+    /**
+     * Sets the model
+     * @param model  the new value, not null
+     * @return this, for chaining, not null
+     */
+    public Builder model(G2ppPiecewiseConstantParameters model) {
+      JodaBeanUtils.notNull(model, "model");
+      this.model = model;
+      return this;
+    }
+
+    /**
+     * Sets the seed of the random number generator.
+     * @param seed  the new value
+     * @return this, for chaining, not null
+     */
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public String toString() {
+      StringBuilder buf = new StringBuilder(160);
+      buf.append("G2ppRatchetProductMonteCarloPricer.Builder{");
+      buf.append("nbPaths").append('=').append(JodaBeanUtils.toString(nbPaths)).append(',').append(' ');
+      buf.append("pathNumberBlock").append('=').append(JodaBeanUtils.toString(pathNumberBlock)).append(',').append(' ');
+      buf.append("model").append('=').append(JodaBeanUtils.toString(model)).append(',').append(' ');
+      buf.append("seed").append('=').append(JodaBeanUtils.toString(seed));
+      buf.append('}');
+      return buf.toString();
+    }
+
+  }
+
+  //-------------------------- AUTOGENERATED END --------------------------
+}
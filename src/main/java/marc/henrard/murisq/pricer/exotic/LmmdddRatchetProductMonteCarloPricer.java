@@ -4,29 +4,20 @@
 package marc.henrard.murisq.pricer.exotic;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.joda.beans.ImmutableBean;
 import org.joda.beans.gen.BeanDefinition;
 import org.joda.beans.gen.PropertyDefinition;
 
-import com.google.common.collect.ImmutableList;
-import com.opengamma.strata.basics.currency.Payment;
-import com.opengamma.strata.collect.ArgChecker;
 import com.opengamma.strata.math.impl.random.RandomNumberGenerator;
-import com.opengamma.strata.product.rate.IborRateComputation;
-import com.opengamma.strata.product.swap.NotionalExchange;
 import com.opengamma.strata.product.swap.RateAccrualPeriod;
 import com.opengamma.strata.product.swap.RatePaymentPeriod;
 import com.opengamma.strata.product.swap.ResolvedSwap;
-import com.opengamma.strata.product.swap.ResolvedSwapLeg;
-import com.opengamma.strata.product.swap.SwapLegType;
-import com.opengamma.strata.product.swap.SwapPaymentPeriod;
 
 import marc.henrard.murisq.model.lmm.LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters;
 import marc.henrard.murisq.model.lmm.LiborMarketModelMonteCarloEvolution;
-import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalent;
+import marc.henrard.murisq.pricer.decomposition.MulticurveDecisionScheduleCalculator;
 import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentSchedule;
 import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentValues;
 import marc.henrard.murisq.pricer.montecarlo.LmmdddMonteCarloMultiDatePricer;
@@ -76,31 +67,7 @@ public final class LmmdddRatchetProductMonteCarloPricer
 
   @Override
   public MulticurveEquivalentSchedule multicurveEquivalent(ResolvedSwap product) {
-    ArgChecker.isTrue(product.getLegs().size()==1, "product must have one leg");
-    ResolvedSwapLeg leg = product.getLegs().get(0);
-    ArgChecker.isTrue(leg.getType().equals(SwapLegType.OTHER), "leg must be of type OTHER");
-    ImmutableList<SwapPaymentPeriod> periods = leg.getPaymentPeriods();
-    List<MulticurveEquivalent> schedules = new ArrayList<>();
-    for(SwapPaymentPeriod p: periods) {
-      ArgChecker.isTrue(p instanceof RatePaymentPeriod, "payment periods must be of type RatePaymentPeriod");
-      RatePaymentPeriod ratePeriod = (RatePaymentPeriod) p;
-      ArgChecker.isTrue(ratePeriod.getAccrualPeriods().size()==1, "one accrual per payment period");
-      ArgChecker.isTrue(ratePeriod.getAccrualPeriods().get(0).getRateComputation() instanceof IborRatchetRateComputation,
-          "rate computation must be of type IborRatchetRateComputation");
-      RateAccrualPeriod accrualPeriod = ratePeriod.getAccrualPeriods().get(0);
-      IborRatchetRateComputation ratchetPeriod = (IborRatchetRateComputation) accrualPeriod.getRateComputation();
-      schedules.add(
-          MulticurveEquivalent.of(
-              ratchetPeriod.getIndex().calculateFixingDateTime(ratchetPeriod.getFixingDate()), // fixing time
-              ImmutableList.of(), // No fix payment
-              ImmutableList.of(IborRateComputation.of(ratchetPeriod.getObservation())),
-              ImmutableList.of(NotionalExchange.of(Payment.of(ratchetPeriod.getCurrency(),
-                  accrualPeriod.getYearFraction() * ratePeriod.getNotional(), ratePeriod.getPaymentDate()))),
-              // Amount: accrual factor * notional
-              ImmutableList.of(), // No ON coupon
-              ImmutableList.of()));
-    }
-    return MulticurveEquivalentSchedule.of(schedules);
+    return MulticurveDecisionScheduleCalculator.ratchetDecisionSchedule(product);
   }
 
   @Override
@@ -112,22 +79,13 @@ public final class LmmdddRatchetProductMonteCarloPricer
 
     int nbPaths = valuesExpiries.size();
     int nbFixings = me.getExpiriesCount();
-    ArgChecker.isTrue(product.getLegs().size()==1, "product must have one leg");
-    ResolvedSwapLeg leg = product.getLegs().get(0);
-    ArgChecker.isTrue(leg.getType().equals(SwapLegType.OTHER), "leg must be of type OTHER");
-    ImmutableList<SwapPaymentPeriod> periods = leg.getPaymentPeriods();
+    List<RatePaymentPeriod> periods = MulticurveDecisionScheduleCalculator.ratchetPeriods(product);
     double[] effectiveTimes = new double[nbFixings];
     double[] paymentTimes = new double[nbFixings];
     double[] amounts = new double[nbFixings];
     IborRatchetRateComputation[] ratchetPeriods = new IborRatchetRateComputation[nbFixings];
     for (int loopfixing = 0; loopfixing < nbFixings; loopfixing++) {
-      SwapPaymentPeriod p = periods.get(loopfixing);
-      ArgChecker.isTrue(p instanceof RatePaymentPeriod, "payment periods must be of type RatePaymentPeriod");
-      RatePaymentPeriod ratePeriod = (RatePaymentPeriod) p;
-      ArgChecker.isTrue(ratePeriod.getAccrualPeriods().size() == 1, "one accrual per payment period");
-      ArgChecker.isTrue(
-          ratePeriod.getAccrualPeriods().get(0).getRateComputation() instanceof IborRatchetRateComputation,
-          "rate computation must be of type IborRatchetRateComputation");
+      RatePaymentPeriod ratePeriod = periods.get(loopfixing);
       RateAccrualPeriod accrualPeriod = ratePeriod.getAccrualPeriods().get(0);
       ratchetPeriods[loopfixing] = (IborRatchetRateComputation) accrualPeriod.getRateComputation();
       effectiveTimes[loopfixing] =
@@ -4,9 +4,12 @@
 package marc.henrard.murisq.pricer.generic;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.OptionalDouble;
 
+import com.opengamma.strata.basics.ReferenceData;
 import com.opengamma.strata.basics.index.OvernightIndex;
+import com.opengamma.strata.collect.ArgChecker;
 import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
 import com.opengamma.strata.pricer.PricingException;
 import com.opengamma.strata.product.rate.OvernightCompoundedRateComputation;
@@ -50,6 +53,42 @@ public class FallbackUtils {
     return (compositionFactor - 1.0d) / accrualFactorPeriod;
   }
   
+  /**
+   * Computes the compounded in arrears rates for many overnight compounded rates from a time series of 
+   * overnight rates.
+   * <p>
+   * The compounding of the time series is precomputed once on the range covering all the computations with 
+   * {@link OvernightCompoundingPrefixSums}; each rate is then obtained in constant time. The rates are computed 
+   * in parallel. All the computations must be on the same index.
+   * <p>
+   * Rate cut-off days are not taken into account.
+   * Throws an exception if one of the fixing is not available in the time series.
+   * 
+   * @param timeSeries  the time series
+   * @param computations  the overnight compounded computations
+   * @param refData  the reference data
+   * @return the compounded rates, in the order of the computations
+   */
+  public static double[] compoundedInArrears(
+      LocalDateDoubleTimeSeries timeSeries,
+      List<OvernightCompoundedRateComputation> computations,
+      ReferenceData refData) {
+
+    ArgChecker.notEmpty(computations, "computations");
+    OvernightIndex index = computations.get(0).getIndex();
+    LocalDate firstFixingDate = computations.get(0).getStartDate();
+    LocalDate endDate = computations.get(0).getEndDate();
+    for (OvernightCompoundedRateComputation computation : computations) {
+      ArgChecker.isTrue(computation.getIndex().equals(index), "all computations must be on the same index");
+      firstFixingDate = computation.getStartDate().isBefore(firstFixingDate) ? 
+          computation.getStartDate() : firstFixingDate;
+      endDate = computation.getEndDate().isAfter(endDate) ? computation.getEndDate() : endDate;
+    }
+    OvernightCompoundingPrefixSums prefixSums =
+        OvernightCompoundingPrefixSums.of(index, timeSeries, firstFixingDate, endDate, refData);
+    return prefixSums.compoundedInArrears(computations);
+  }
+  
   /**
    * Check that the fixing is present. Throws an exception if not and return the rate as double if available.
    * 
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.generic;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.stream.IntStream;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.date.DayCount;
+import com.opengamma.strata.basics.index.OvernightIndex;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
+import com.opengamma.strata.pricer.PricingException;
+import com.opengamma.strata.product.rate.OvernightCompoundedRateComputation;
+
+/**
+ * Precomputed compounding of an overnight index time series, to compute compounded in arrears rates
+ * on many windows.
+ * <p>
+ * For each fixing date in a range, the accrual factor of the overnight period and the log-growth
+ * {@code log(1 + accrual * fixing)} are computed once. The compounded rate on any window within the range is
+ * then obtained in constant time from the difference of the prefix sums of the log-growths.
+ * <p>
+ * The compounded rates are the same as the ones of {@link FallbackUtils#compoundedInArrears}, up to the
+ * rounding of the exponential. Rate cut-off days are not taken into account.
+ * The object is immutable and can be used concurrently from several threads.
+ *
+ * @author Marc Henrard
+ */
+public final class OvernightCompoundingPrefixSums {
+
+  /** The overnight index. */
+  private final OvernightIndex index;
+  /** The end date of the precomputed range, as epoch day. */
+  private final long rangeEndDate;
+  /** The fixing dates, as epoch days, in increasing order. */
+  private final long[] fixingDates;
+  /** The prefix sums of the log-growths. Dimension: number of fixing dates + 1. */
+  private final double[] logGrowthSums;
+  /** The prefix counts of the missing fixings. Dimension: number of fixing dates + 1. */
+  private final int[] missingCounts;
+
+  // Private constructor
+  private OvernightCompoundingPrefixSums(
+      OvernightIndex index,
+      long rangeEndDate,
+      long[] fixingDates,
+      double[] logGrowthSums,
+      int[] missingCounts) {
+
+    this.index = index;
+    this.rangeEndDate = rangeEndDate;
+    this.fixingDates = fixingDates;
+    this.logGrowthSums = logGrowthSums;
+    this.missingCounts = missingCounts;
+  }
+
+  /**
+   * Precomputes the compounding for the fixing dates between a first date and an end date.
+   * <p>
+   * The windows that can be computed are the ones starting on or after the first fixing date and ending
+   * on or before the end date. Missing fixings are allowed; an exception is thrown only when a window
+   * using a missing fixing is computed.
+   *
+   * @param index  the overnight index
+   * @param timeSeries  the time series of fixings
+   * @param firstFixingDate  the first fixing date
+   * @param endDate  the end date of the range
+   * @param refData  the reference data
+   * @return the precomputed compounding
+   */
+  public static OvernightCompoundingPrefixSums of(
+      OvernightIndex index,
+      LocalDateDoubleTimeSeries timeSeries,
+      LocalDate firstFixingDate,
+      LocalDate endDate,
+      ReferenceData refData) {
+
+    ArgChecker.inOrderNotEqual(firstFixingDate, endDate, "firstFixingDate", "endDate");
+    // the computation on the full range is used for the conventions of the overnight periods
+    OvernightCompoundedRateComputation range =
+        OvernightCompoundedRateComputation.of(index, firstFixingDate, endDate, refData);
+    DayCount dayCount = index.getDayCount();
+    int nbFixings = 0;
+    for (LocalDate d = firstFixingDate; d.isBefore(endDate); d = range.getFixingCalendar().next(d)) {
+      nbFixings++;
+    }
+    long[] fixingDates = new long[nbFixings];
+    double[] logGrowthSums = new double[nbFixings + 1];
+    int[] missingCounts = new int[nbFixings + 1];
+    LocalDate currentFixingOn = firstFixingDate;
+    for (int loopfix = 0; loopfix < nbFixings; loopfix++) {
+      fixingDates[loopfix] = currentFixingOn.toEpochDay();
+      OptionalDouble fixing = timeSeries.get(currentFixingOn);
+      if (fixing.isPresent()) {
+        LocalDate effectiveDate = range.calculateEffectiveFromFixing(currentFixingOn);
+        LocalDate maturityDate = range.calculateMaturityFromEffective(effectiveDate);
+        double accrualFactorOn = dayCount.yearFraction(effectiveDate, maturityDate);
+        logGrowthSums[loopfix + 1] = logGrowthSums[loopfix] + Math.log1p(accrualFactorOn * fixing.getAsDouble());
+        missingCounts[loopfix + 1] = missingCounts[loopfix];
+      } else {
+        logGrowthSums[loopfix + 1] = logGrowthSums[loopfix];
+        missingCounts[loopfix + 1] = missingCounts[loopfix] + 1;
+      }
+      currentFixingOn = range.getFixingCalendar().next(currentFixingOn);
+    }
+    return new OvernightCompoundingPrefixSums(index, endDate.toEpochDay(), fixingDates, logGrowthSums, missingCounts);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the overnight index.
+   *
+   * @return the index
+   */
+  public OvernightIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * Computes the compounded in arrears rate for an overnight compounded rate computation.
+   * <p>
+   * The computation must be on the index of this object and within the precomputed range.
+   *
+   * @param computation  the overnight compounded computation
+   * @return the compounded rate
+   */
+  public double compoundedInArrears(OvernightCompoundedRateComputation computation) {
+    ArgChecker.isTrue(computation.getIndex().equals(index), "computation must be on index {}", index);
+    return compoundedInArrears(computation.getStartDate(), computation.getEndDate());
+  }
+
+  /**
+   * Computes the compounded in arrears rate between a start date and an end date.
+   * <p>
+   * The start date must be a fixing date in the precomputed range. The fixing dates used are the ones between
+   * the start date (inclusive) and the end date (exclusive).
+   *
+   * @param startDate  the start date, which is the first fixing date
+   * @param endDate  the end date
+   * @return the compounded rate
+   */
+  public double compoundedInArrears(LocalDate startDate, LocalDate endDate) {
+    int start = Arrays.binarySearch(fixingDates, startDate.toEpochDay());
+    ArgChecker.isTrue(start >= 0, "start date {} is not a fixing date in the precomputed range", startDate);
+    ArgChecker.inOrderNotEqual(startDate, endDate, "startDate", "endDate");
+    ArgChecker.isTrue(endDate.toEpochDay() <= rangeEndDate, "end date {} is after the precomputed range", endDate);
+    int end = Arrays.binarySearch(fixingDates, endDate.toEpochDay());
+    if (end < 0) {
+      end = -end - 1; // insertion point: index of the first fixing date after the end date
+    }
+    if (missingCounts[end] != missingCounts[start]) {
+      throw new PricingException("Could not get fixing value of index " + index.getName() +
+          " for date " + LocalDate.ofEpochDay(fixingDates[firstMissing(start, end)]));
+    }
+    double compositionFactorMinusOne = Math.expm1(logGrowthSums[end] - logGrowthSums[start]);
+    double accrualFactorPeriod = index.getDayCount().yearFraction(startDate, endDate);
+    return compositionFactorMinusOne / accrualFactorPeriod;
+  }
+
+  /**
+   * Computes the compounded in arrears rates for a list of computations.
+   * <p>
+   * The computations are done in parallel.
+   *
+   * @param computations  the overnight compounded computations
+   * @return the compounded rates, in the order of the computations
+   */
+  public double[] compoundedInArrears(List<OvernightCompoundedRateComputation> computations) {
+    double[] rates = new double[computations.size()];
+    IntStream.range(0, computations.size()).parallel()
+        .forEach(i -> rates[i] = compoundedInArrears(computations.get(i)));
+    return rates;
+  }
+
+  // index of the first missing fixing between start (inclusive) and end (exclusive)
+  private int firstMissing(int start, int end) {
+    for (int loopfix = start; loopfix < end; loopfix++) {
+      if (missingCounts[loopfix + 1] != missingCounts[loopfix]) {
+        return loopfix;
+      }
+    }
+    throw new IllegalStateException("no missing fixing");
+  }
+
+}
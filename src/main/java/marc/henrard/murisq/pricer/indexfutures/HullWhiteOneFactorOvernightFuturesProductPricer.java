@@ -55,19 +55,14 @@ public class HullWhiteOneFactorOvernightFuturesProductPricer {
         .yearFraction(startDate, endDate); // index AF
     double PcTs = ratesProvider.discountFactor(ccy, startDate);
     double PcTe = ratesProvider.discountFactor(ccy, endDate);
-    List<Double> ti = new ArrayList<>();
-    ti.add(0.0d);
+    double[] ti = new double[nbOnDates];
     for (int i = 0; i < nbOnDates; i++) {
-      ti.add(hwProvider.relativeTime(onDates.get(i)));
-    }
-    List<Double> gamma = new ArrayList<>();
-    for (int i = 0; i < nbOnDates - 1; i++) {
-      gamma.add(FORMULAS.futuresConvexityFactor(
-          hwProvider.getParameters(), ti.get(i), ti.get(i + 1), ti.get(i + 1), ti.get(nbOnDates)));
+      ti[i] = hwProvider.relativeTime(onDates.get(i));
     }
+    double[] gamma = FORMULAS.futuresConvexityFactors(hwProvider.getParameters(), ti);
     double productGamma = 1.0;
-    for (int i = 0; i < onDates.size() - 1; i++) {
-      productGamma *= gamma.get(i);
+    for (int i = 0; i < gamma.length; i++) {
+      productGamma *= gamma[i];
     }
     return 1.0d - (PcTs / PcTe * productGamma - 1.0d) / delta;
   }
@@ -88,7 +83,7 @@ public class HullWhiteOneFactorOvernightFuturesProductPricer {
     Currency ccy = futures.getCurrency();
     List<Double> gamma = convexityAdjustmentGammas(futures, multicurve, hwProvider);
     double productGamma = 1.0;
-    for (int i = 0; i < gamma.size() - 1; i++) {
+    for (int i = 0; i < gamma.size(); i++) {
       productGamma *= gamma.get(i);
     }
     LocalDate startDate = futures.getOvernightRate().getStartDate();
@@ -116,17 +111,16 @@ public class HullWhiteOneFactorOvernightFuturesProductPricer {
 
     List<LocalDate> onDates = overnightDates(futures);
     int nbOnDates = onDates.size();
-    List<Double> ti = new ArrayList<>();
-    ti.add(0.0d);
+    double[] ti = new double[nbOnDates];
     for (int i = 0; i < nbOnDates; i++) {
-      ti.add(hwProvider.relativeTime(onDates.get(i)));
+      ti[i] = hwProvider.relativeTime(onDates.get(i));
     }
-    List<Double> gamma = new ArrayList<>();
-    for (int i = 0; i < nbOnDates - 1; i++) {
-      gamma.add(FORMULAS.futuresConvexityFactor(
-          hwProvider.getParameters(), ti.get(i), ti.get(i + 1), ti.get(i + 1), ti.get(nbOnDates)));
+    double[] gamma = FORMULAS.futuresConvexityFactors(hwProvider.getParameters(), ti);
+    List<Double> gammaList = new ArrayList<>();
+    for (int i = 0; i < gamma.length; i++) {
+      gammaList.add(gamma[i]);
     }
-    return gamma;
+    return gammaList;
   }
   
   /**
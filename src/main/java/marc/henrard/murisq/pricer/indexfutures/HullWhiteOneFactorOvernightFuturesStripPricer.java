@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.indexfutures;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.market.sensitivity.PointSensitivities;
+import com.opengamma.strata.pricer.DiscountFactors;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParametersProvider;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.index.ResolvedOvernightFuture;
+
+import marc.henrard.murisq.model.hullwhite.HullWhiteOneFactorPiecewiseConstantIntegrals;
+import marc.henrard.murisq.product.futures.CompoundedOvernightFuturesResolved;
+
+/**
+ * Pricer of strips of overnight futures on compounded in arrears rates in the Hull-White one-factor model.
+ * <p>
+ * The prices are the same as the ones of {@link HullWhiteOneFactorOvernightFuturesProductPricer} and
+ * {@link HullWhiteOneFactorCompoundedOvernightFuturesProductPricer}. All the futures of the strip are priced
+ * in one pass: the overnight dates of all the futures are merged in one grid, and the model integrals are computed
+ * once on that grid. The log of the convexity factor
+ *   gamma(s,t,u,v) = exp( \int_s^t nu(x,v)(nu(x,v)-nu(x,u)) dx )
+ * is rewritten as
+ *   (exp(-a u) - exp(-a v)) / (2 a^3) * (2 (C_1(t) - C_1(s)) - exp(-a v) (C_2(t) - C_2(s)))
+ * with C_k(x) = \int_0^x eta^2(y) k a exp(k a y) dy, the cumulative integrals on the piecewise constant
+ * volatility provided by {@link HullWhiteOneFactorPiecewiseConstantIntegrals}. The price, the convexity adjustment
+ * and the price sensitivity to the curves are returned together.
+ * <p>
+ * <i>Reference: </i>
+ * <p>
+ * Henrard, Marc. (2018) Overnight based futures: convexity adjustment estimation
+ *
+ * @author Marc Henrard
+ */
+public class HullWhiteOneFactorOvernightFuturesStripPricer {
+
+  /**
+   * Default implementation.
+   */
+  public static final HullWhiteOneFactorOvernightFuturesStripPricer DEFAULT =
+      new HullWhiteOneFactorOvernightFuturesStripPricer();
+
+  /**
+   * Returns the prices, convexity adjustments and price sensitivities of a strip of overnight futures.
+   *
+   * @param futures  the overnight futures
+   * @param multicurve  the multi-curve
+   * @param hwProvider  the Hull-White one-factor parameters provider
+   * @return  the strip results, in the order of the futures
+   */
+  public StripResult priceStrip(
+      List<ResolvedOvernightFuture> futures,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider) {
+
+    List<Contract> contracts = new ArrayList<>(futures.size());
+    for (ResolvedOvernightFuture f : futures) {
+      List<LocalDate> onDates = HullWhiteOneFactorOvernightFuturesProductPricer.DEFAULT.overnightDates(f);
+      LocalDate startDate = f.getOvernightRate().getStartDate();
+      LocalDate endDate = f.getOvernightRate().getEndDate();
+      contracts.add(new Contract(f.getCurrency(), onDates, startDate, endDate,
+          f.getIndex().getDayCount().yearFraction(startDate, endDate)));
+    }
+    return priceContracts(contracts, multicurve, hwProvider);
+  }
+
+  /**
+   * Returns the prices, convexity adjustments and price sensitivities of a strip of compounded overnight futures.
+   *
+   * @param futures  the compounded overnight futures
+   * @param multicurve  the multi-curve
+   * @param hwProvider  the Hull-White one-factor parameters provider
+   * @return  the strip results, in the order of the futures
+   */
+  public StripResult priceStripCompounded(
+      List<CompoundedOvernightFuturesResolved> futures,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider) {
+
+    List<Contract> contracts = new ArrayList<>(futures.size());
+    for (CompoundedOvernightFuturesResolved f : futures) {
+      contracts.add(new Contract(f.getCurrency(), f.getOnDates(), f.getStartAccrualDate(), f.getEndAccrualDate(),
+          f.getIndex().getDayCount().yearFraction(f.getStartAccrualDate(), f.getEndAccrualDate())));
+    }
+    return priceContracts(contracts, multicurve, hwProvider);
+  }
+
+  //-------------------------------------------------------------------------
+  // price all the contracts on a common grid
+  private StripResult priceContracts(
+      List<Contract> contracts,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider) {
+
+    // Grid of overnight dates
+    TreeSet<LocalDate> gridSet = new TreeSet<>();
+    for (Contract contract : contracts) {
+      gridSet.addAll(contract.onDates);
+    }
+    int nbGrid = gridSet.size();
+    long[] gridDays = new long[nbGrid];
+    double[] times = new double[nbGrid];
+    int loopgrid = 0;
+    for (LocalDate date : gridSet) {
+      gridDays[loopgrid] = date.toEpochDay();
+      times[loopgrid] = hwProvider.relativeTime(date);
+      loopgrid++;
+    }
+    ArgChecker.isTrue(nbGrid == 0 || times[0] >= 0.0d, "overnight dates must be after the valuation date");
+    // Model integrals on the grid
+    HullWhiteOneFactorPiecewiseConstantParameters parameters = hwProvider.getParameters();
+    double a = parameters.getMeanReversion();
+    HullWhiteOneFactorPiecewiseConstantIntegrals integrals =
+        HullWhiteOneFactorPiecewiseConstantIntegrals.of(parameters);
+    double[] expMinusAt = new double[nbGrid];
+    double[] c1 = new double[nbGrid];
+    double[] c2 = new double[nbGrid];
+    for (int loopt = 0; loopt < nbGrid; loopt++) {
+      expMinusAt[loopt] = Math.exp(-a * times[loopt]);
+      c1[loopt] = integrals.c1(times[loopt]);
+      c2[loopt] = integrals.c2(times[loopt]);
+    }
+    double factorDenominator = 2.0d * a * a * a;
+    // Contracts
+    int nbContracts = contracts.size();
+    double[] prices = new double[nbContracts];
+    double[] adjustments = new double[nbContracts];
+    double[] factors = new double[nbContracts];
+    ImmutableList.Builder<PointSensitivities> sensitivities = ImmutableList.builder();
+    for (int loopc = 0; loopc < nbContracts; loopc++) {
+      Contract contract = contracts.get(loopc);
+      int nbOnDates = contract.onDates.size();
+      int[] indices = new int[nbOnDates];
+      for (int i = 0; i < nbOnDates; i++) {
+        indices[i] = Arrays.binarySearch(gridDays, contract.onDates.get(i).toEpochDay());
+      }
+      double expMinusAv = expMinusAt[indices[nbOnDates - 1]];
+      double logGamma = 0.0d;
+      double c1Previous = 0.0d;
+      double c2Previous = 0.0d;
+      for (int i = 0; i < nbOnDates - 1; i++) {
+        int index = indices[i];
+        logGamma += (expMinusAt[index] - expMinusAv) *
+            (2.0d * (c1[index] - c1Previous) - expMinusAv * (c2[index] - c2Previous));
+        c1Previous = c1[index];
+        c2Previous = c2[index];
+      }
+      double productGamma = Math.exp(logGamma / factorDenominator);
+      DiscountFactors discountFactors = multicurve.discountFactors(contract.currency);
+      double pcTs = discountFactors.discountFactor(contract.startDate);
+      double pcTe = discountFactors.discountFactor(contract.endDate);
+      prices[loopc] = 1.0d - (pcTs / pcTe * productGamma - 1.0d) / contract.delta;
+      adjustments[loopc] = pcTs / pcTe * (productGamma - 1.0d) / contract.delta;
+      factors[loopc] = productGamma;
+      // Backward sweep
+      double priceBar = 1.0d;
+      double pcTsBar = -productGamma / (pcTe * contract.delta) * priceBar;
+      double pcTeBar = pcTs * productGamma / (pcTe * pcTe * contract.delta) * priceBar;
+      sensitivities.add(discountFactors.zeroRatePointSensitivity(contract.startDate).multipliedBy(pcTsBar)
+          .combinedWith(discountFactors.zeroRatePointSensitivity(contract.endDate).multipliedBy(pcTeBar))
+          .build());
+    }
+    return new StripResult(DoubleArray.ofUnsafe(prices), DoubleArray.ofUnsafe(adjustments),
+        DoubleArray.ofUnsafe(factors), sensitivities.build());
+  }
+
+  //-------------------------------------------------------------------------
+  // the data of one contract used in the strip pricing
+  private static final class Contract {
+    private final Currency currency;
+    private final List<LocalDate> onDates;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final double delta;
+
+    private Contract(Currency currency, List<LocalDate> onDates, LocalDate startDate, LocalDate endDate, double delta) {
+      this.currency = currency;
+      this.onDates = onDates;
+      this.startDate = startDate;
+      this.endDate = endDate;
+      this.delta = delta;
+    }
+  }
+
+  /**
+   * The results of the pricing of a strip of futures.
+   */
+  public static final class StripResult {
+
+    /** The prices. */
+    private final DoubleArray prices;
+    /** The convexity adjustments. */
+    private final DoubleArray convexityAdjustments;
+    /** The convexity factors, product of the gamma factors. */
+    private final DoubleArray convexityFactors;
+    /** The price sensitivities to the curves. */
+    private final ImmutableList<PointSensitivities> priceSensitivities;
+
+    // Private constructor
+    private StripResult(
+        DoubleArray prices,
+        DoubleArray convexityAdjustments,
+        DoubleArray convexityFactors,
+        ImmutableList<PointSensitivities> priceSensitivities) {
+
+      this.prices = prices;
+      this.convexityAdjustments = convexityAdjustments;
+      this.convexityFactors = convexityFactors;
+      this.priceSensitivities = priceSensitivities;
+    }
+
+    /**
+     * Returns the prices of the futures.
+     *
+     * @return the prices
+     */
+    public DoubleArray getPrices() {
+      return prices;
+    }
+
+    /**
+     * Returns the convexity adjustments of the futures.
+     * <p>
+     * The adjustment is the difference between the price without convexity and the price.
+     *
+     * @return the adjustments
+     */
+    public DoubleArray getConvexityAdjustments() {
+      return convexityAdjustments;
+    }
+
+    /**
+     * Returns the convexity factors of the futures, i.e. the product of the gamma factors.
+     *
+     * @return the factors
+     */
+    public DoubleArray getConvexityFactors() {
+      return convexityFactors;
+    }
+
+    /**
+     * Returns the sensitivities of the prices to the curves.
+     * <p>
+     * The Hull-White parameters are not affected by the curves.
+     *
+     * @return the sensitivities
+     */
+    public ImmutableList<PointSensitivities> getPriceSensitivities() {
+      return priceSensitivities;
+    }
+
+  }
+
+}
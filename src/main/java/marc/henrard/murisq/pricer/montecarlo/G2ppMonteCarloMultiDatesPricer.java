@@ -0,0 +1,403 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.montecarlo;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.tuple.Triple;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.ResolvedProduct;
+import com.opengamma.strata.product.rate.IborRateComputation;
+import com.opengamma.strata.product.swap.NotionalExchange;
+
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.model.g2pp.G2ppMonteCarloEvolution;
+import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantFormulas;
+import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantParameters;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalent;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentSchedule;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentValues;
+
+/**
+ * Generic Monte Carlo pricer for path dependent products in the G2++ model with piecewise constant volatilities.
+ * <p>
+ * The model is simulated in the forward measure associated to the terminal date T of the product, i.e. the latest
+ * payment or Ibor maturity date. The model state consists of the two Gaussian factors X_1 and X_2, simulated exactly
+ * at the decision dates. At a decision date t, the deflated value of a payment at u is
+ * P(0,T) P(t,u) / P(t,T) = P(0,u) exp(- h_1 X_1(t) - h_2 X_2(t) - 0.5 q) with h_i = H_i(u) - H_i(T)
+ * and q the variance of h_1 X_1(t) + h_2 X_2(t). As the initial numeraire value is included in the deflated values,
+ * {@link #numeraireInitialValue(RatesProvider)} is 1.
+ * <p>
+ * The Ibor rates are obtained from the discounting forward rates with a deterministic multiplicative spread.
+ * <p>
+ * The paths are generated in blocks of {@link #getPathNumberBlock()} paths. Each block has its own random
+ * generator split from a root generator built on the seed and the blocks are priced in parallel.
+ * The state of each block is stored in a flat array, see {@link G2ppMonteCarloEvolution}.
+ *
+ * @param <P> the type of product to be priced
+ *
+ * @author Marc Henrard
+ */
+public interface G2ppMonteCarloMultiDatesPricer<P extends ResolvedProduct>
+    extends MonteCarloMultiDatesPricer<P, G2ppPiecewiseConstantParameters> {
+
+  /**
+   * Returns the seed of the root random number generator.
+   *
+   * @return the seed
+   */
+  abstract long getSeed();
+
+  /**
+   * Returns the random number generators of the blocks of paths.
+   * <p>
+   * The generators are split sequentially from a root generator built on the seed, so that the generator
+   * of a block depends only on the seed and on the index of the block. Each call returns new generators
+   * with the same streams.
+   *
+   * @param nbBlocks  the number of blocks
+   * @return the generators, one for each block
+   */
+  default SplittableRandom[] generators(int nbBlocks) {
+    SplittableRandom root = new SplittableRandom(getSeed());
+    SplittableRandom[] generators = new SplittableRandom[nbBlocks];
+    for (int loopblock = 0; loopblock < nbBlocks; loopblock++) {
+      generators[loopblock] = root.split();
+    }
+    return generators;
+  }
+
+  /**
+   * Aggregates the simulated factors into a value for each path.
+   * <p>
+   * The aggregation consists in applying the product specific quantities to the model quantities and
+   * multiplying by the deflated payment value.
+   *
+   * @param me  the multi-curve equivalent
+   * @param product  the financial product
+   * @param initialValues  the initial values, as computed by {@link #initialValues}
+   * @param factors  the factors values, dimensions: paths x expiries x factors in a flat array
+   * @param nbPaths  the number of paths
+   * @param model  the interest rate model
+   * @return the values for each path, all cash flows aggregated
+   */
+  abstract double[] aggregation(
+      MulticurveEquivalentSchedule me,
+      P product,
+      MulticurveEquivalentValues initialValues,
+      double[] factors,
+      int nbPaths,
+      G2ppPiecewiseConstantParameters model);
+
+  @Override
+  default public int getNbFactors() {
+    return G2ppMonteCarloEvolution.NB_FACTORS;
+  }
+
+  @Override
+  default public double numeraireInitialValue(RatesProvider multicurve) {
+    return 1.0d; // The numeraire initial value is included in the deflated values
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The discount factors are, schedule after schedule, the discount factors of the discount factor payments,
+   * of the Ibor payments, of the Ibor effective dates and of the Ibor maturity dates. The Ibor rates are the
+   * forward rates of all the Ibor computations, schedule after schedule.
+   */
+  @Override
+  default public MulticurveEquivalentValues initialValues(
+      MulticurveEquivalentSchedule mce,
+      RatesProvider multicurve) {
+
+    Currency ccy = getModel().getCurrency();
+    List<Double> discountFactors = new ArrayList<>();
+    List<Double> iborRates = new ArrayList<>();
+    for (MulticurveEquivalent me : mce.getSchedules()) {
+      for (NotionalExchange payment : me.getDiscountFactorPayments()) {
+        discountFactors.add(multicurve.discountFactor(ccy, payment.getPaymentDate()));
+      }
+      for (NotionalExchange payment : me.getIborPayments()) {
+        discountFactors.add(multicurve.discountFactor(ccy, payment.getPaymentDate()));
+      }
+      for (IborRateComputation ibor : me.getIborComputations()) {
+        discountFactors.add(multicurve.discountFactor(ccy, ibor.getEffectiveDate()));
+      }
+      for (IborRateComputation ibor : me.getIborComputations()) {
+        discountFactors.add(multicurve.discountFactor(ccy, ibor.getMaturityDate()));
+      }
+      for (IborRateComputation ibor : me.getIborComputations()) {
+        iborRates.add(multicurve.iborIndexRates(ibor.getIndex()).rate(ibor.getObservation()));
+      }
+    }
+    return MulticurveEquivalentValues.builder()
+        .discountFactors(DoubleArray.copyOf(discountFactors))
+        .iborRates(DoubleArray.copyOf(iborRates)).build();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The paths are generated in one block with the generator of the first block, see {@link #generators(int)}.
+   * Successive calls return the same paths.
+   */
+  @Override
+  default public List<List<MulticurveEquivalentValues>> evolve(
+      MulticurveEquivalentValues initialValues,
+      List<ZonedDateTime> expiries,
+      int numberSample) {
+
+    return evolve(initialValues, expiries, numberSample, generators(1)[0]);
+  }
+
+  /**
+   * Generates the paths with a given random number generator.
+   * <p>
+   * The initial discount factors and Ibor rates are kept and the factors values are stored in ON equivalent values.
+   *
+   * @param initialValues  the initial values
+   * @param expiries  the decision dates
+   * @param numberSample  the number of paths
+   * @param generator  the random number generator, its state is modified
+   * @return the paths, dimensions: paths x expiries
+   */
+  default public List<List<MulticurveEquivalentValues>> evolve(
+      MulticurveEquivalentValues initialValues,
+      List<ZonedDateTime> expiries,
+      int numberSample,
+      SplittableRandom generator) {
+
+    int nbExpiries = expiries.size();
+    double[] factors = G2ppMonteCarloEvolution.DEFAULT
+        .factorPaths(times(expiries), getModel(), generator, numberSample);
+    List<List<MulticurveEquivalentValues>> paths = new ArrayList<>();
+    for (int looppath = 0; looppath < numberSample; looppath++) {
+      List<MulticurveEquivalentValues> steps = new ArrayList<>();
+      for (int loopexp = 0; loopexp < nbExpiries; loopexp++) {
+        int index = (looppath * nbExpiries + loopexp) * G2ppMonteCarloEvolution.NB_FACTORS;
+        steps.add(initialValues.toBuilder()
+            .onRates(DoubleArray.of(factors[index], factors[index + 1])).build());
+      }
+      paths.add(steps);
+    }
+    return paths;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The values are aggregated over all the cash flows, the second dimension of the result is 1.
+   */
+  @Override
+  default public double[][] aggregation(
+      MulticurveEquivalentSchedule me,
+      P product,
+      List<List<MulticurveEquivalentValues>> valuesExpiries,
+      G2ppPiecewiseConstantParameters model) {
+
+    int nbPaths = valuesExpiries.size();
+    int nbExpiries = me.getExpiriesCount();
+    double[] factors = new double[nbPaths * nbExpiries * G2ppMonteCarloEvolution.NB_FACTORS];
+    for (int looppath = 0; looppath < nbPaths; looppath++) {
+      for (int loopexp = 0; loopexp < nbExpiries; loopexp++) {
+        int index = (looppath * nbExpiries + loopexp) * G2ppMonteCarloEvolution.NB_FACTORS;
+        double[] x = valuesExpiries.get(looppath).get(loopexp).getOnRates().toArrayUnsafe();
+        factors[index] = x[0];
+        factors[index + 1] = x[1];
+      }
+    }
+    double[] pvPaths = aggregation(me, product, valuesExpiries.get(0).get(0), factors, nbPaths, model);
+    double[][] pv = new double[nbPaths][1];
+    for (int looppath = 0; looppath < nbPaths; looppath++) {
+      pv[looppath][0] = pvPaths[looppath];
+    }
+    return pv;
+  }
+
+  /**
+   * Present value as a double.
+   * <p>
+   * The blocks of paths are generated and aggregated in parallel, the state of each block is stored in a flat array.
+   * The result depends only on the seed, the number of paths and the block size, not on the number of cores.
+   *
+   * @param product  the financial product to price
+   * @param multicurve  the underlying multi-curve framework
+   * @return the present value
+   */
+  @Override
+  default double presentValueDouble(
+      P product,
+      RatesProvider multicurve) {
+
+    long startPv = PricingMetrics.start();
+    MulticurveEquivalentSchedule mce = multicurveEquivalent(product);
+    MulticurveEquivalentValues initialValues = initialValues(mce, multicurve);
+    G2ppPiecewiseConstantParameters model = getModel();
+    double[] cholesky = G2ppMonteCarloEvolution.DEFAULT.choleskyIncrements(times(mce.getDecisionTimes()), model);
+    Triple<Integer, Integer, Integer> decomposition = decomposition(); // fullblocks, path block, residual
+    int nbBlocks = decomposition.getFirst() + ((decomposition.getThird() > 0) ? 1 : 0);
+    SplittableRandom[] generators = generators(nbBlocks);
+    double[] pvBlocks = new double[nbBlocks];
+    IntStream.range(0, nbBlocks).parallel().forEach(loopblock -> {
+      int nbPathsBlock = (loopblock < decomposition.getFirst()) ? decomposition.getSecond() : decomposition.getThird();
+      long start = PricingMetrics.start();
+      double[] factors = new double[nbPathsBlock * mce.getExpiriesCount() * G2ppMonteCarloEvolution.NB_FACTORS];
+      G2ppMonteCarloEvolution.DEFAULT.factorPaths(cholesky, generators[loopblock], nbPathsBlock, factors);
+      PricingMetrics.stop(getClass(), "evolve", start);
+      start = PricingMetrics.start();
+      double[] pvPaths = aggregation(mce, product, initialValues, factors, nbPathsBlock, model);
+      PricingMetrics.stop(getClass(), "aggregation", start);
+      double pvBlock = 0.0;
+      for (int looppath = 0; looppath < nbPathsBlock; looppath++) {
+        pvBlock += pvPaths[looppath];
+      }
+      pvBlocks[loopblock] = pvBlock;
+    });
+    double pv = 0.0;
+    for (int loopblock = 0; loopblock < nbBlocks; loopblock++) { // sum in fixed order to be reproducible
+      pv += pvBlocks[loopblock];
+    }
+    pv = pv / getNbPaths() * numeraireInitialValue(multicurve);
+    PricingMetrics.stop(getClass(), "presentValue", startPv);
+    return pv;
+  }
+
+  /**
+   * Returns the terminal time of the multi-curve equivalent schedule, i.e. the time of the latest payment
+   * or Ibor maturity date.
+   *
+   * @param mce  the multi-curve equivalent schedule
+   * @return the terminal time
+   */
+  default double terminalTime(MulticurveEquivalentSchedule mce) {
+    LocalDate terminalDate = getModel().getValuationDate();
+    for (MulticurveEquivalent me : mce.getSchedules()) {
+      for (NotionalExchange payment : me.getDiscountFactorPayments()) {
+        terminalDate = (payment.getPaymentDate().isAfter(terminalDate)) ? payment.getPaymentDate() : terminalDate;
+      }
+      for (NotionalExchange payment : me.getIborPayments()) {
+        terminalDate = (payment.getPaymentDate().isAfter(terminalDate)) ? payment.getPaymentDate() : terminalDate;
+      }
+      for (IborRateComputation ibor : me.getIborComputations()) {
+        terminalDate = (ibor.getMaturityDate().isAfter(terminalDate)) ? ibor.getMaturityDate() : terminalDate;
+      }
+    }
+    return getModel().relativeTime(terminalDate);
+  }
+
+  /**
+   * Returns the coefficients of the deflated discount factors of a multi-curve equivalent schedule.
+   * <p>
+   * For each discount factor in the initial values, the coefficients are P(0,u), h_1, h_2 and -0.5 q
+   * at the decision date of the schedule. The order of the discount factors is the one of the initial values,
+   * i.e. for each schedule the discount factor payments, the Ibor payments, the Ibor effective dates and the Ibor
+   * maturity dates. The coefficients do not include the payment amounts.
+   *
+   * @param mce  the multi-curve equivalent schedule
+   * @param initialValues  the initial values, as computed by {@link #initialValues}
+   * @param model  the interest rate model
+   * @return the coefficients, dimensions: schedules x discount factors x 4
+   */
+  default double[][][] deflatedCoefficients(
+      MulticurveEquivalentSchedule mce,
+      MulticurveEquivalentValues initialValues,
+      G2ppPiecewiseConstantParameters model) {
+
+    G2ppPiecewiseConstantFormulas formulas = G2ppPiecewiseConstantFormulas.DEFAULT;
+    double[] df = initialValues.getDiscountFactors().toArrayUnsafe();
+    double terminalTime = terminalTime(mce);
+    double rho = model.getCorrelation();
+    int nbSchedules = mce.getExpiriesCount();
+    double[][][] coefficients = new double[nbSchedules][][];
+    int indexDf = 0;
+    for (int loopsched = 0; loopsched < nbSchedules; loopsched++) {
+      MulticurveEquivalent me = mce.getSchedules().get(loopsched);
+      List<LocalDate> dates = new ArrayList<>();
+      me.getDiscountFactorPayments().forEach(p -> dates.add(p.getPaymentDate()));
+      me.getIborPayments().forEach(p -> dates.add(p.getPaymentDate()));
+      me.getIborComputations().forEach(c -> dates.add(c.getEffectiveDate()));
+      me.getIborComputations().forEach(c -> dates.add(c.getMaturityDate()));
+      int nbDates = dates.size();
+      double[] u = new double[nbDates];
+      for (int loopdate = 0; loopdate < nbDates; loopdate++) {
+        u[loopdate] = model.relativeTime(dates.get(loopdate));
+      }
+      double[][] h = formulas.volatilityMaturityPartRatioDiscountFactors(model, terminalTime, u);
+      double[][] gamma = formulas.gammaRatioDiscountFactors(model, 0.0d, model.relativeTime(me.getDecisionTime()));
+      coefficients[loopsched] = new double[nbDates][4];
+      for (int loopdate = 0; loopdate < nbDates; loopdate++) {
+        double h0 = h[0][loopdate];
+        double h1 = h[1][loopdate];
+        coefficients[loopsched][loopdate][0] = df[indexDf];
+        coefficients[loopsched][loopdate][1] = h0;
+        coefficients[loopsched][loopdate][2] = h1;
+        coefficients[loopsched][loopdate][3] =
+            -0.5d * (h0 * h0 * gamma[0][0] + h1 * h1 * gamma[1][1] + 2.0d * rho * h0 * h1 * gamma[0][1]);
+        indexDf++;
+      }
+    }
+    return coefficients;
+  }
+
+  /**
+   * Returns the deflated discount factor for given factor values.
+   *
+   * @param coefficients  the coefficients of the discount factor, as computed by {@link #deflatedCoefficients}
+   * @param x0  the first factor value
+   * @param x1  the second factor value
+   * @return the deflated discount factor
+   */
+  default double deflatedDiscountFactor(double[] coefficients, double x0, double x1) {
+    return coefficients[0] * Math.exp(-coefficients[1] * x0 - coefficients[2] * x1 + coefficients[3]);
+  }
+
+  /**
+   * Returns the Ibor rate for given factor values.
+   * <p>
+   * The multiplicative spread between the Ibor forward and the discounting forward is deterministic.
+   *
+   * @param effective  the coefficients of the Ibor effective date discount factor
+   * @param maturity  the coefficients of the Ibor maturity date discount factor
+   * @param iborRate0  the Ibor forward rate at time 0
+   * @param accrualFactor  the Ibor accrual factor
+   * @param x0  the first factor value
+   * @param x1  the second factor value
+   * @return the Ibor rate
+   */
+  default double iborRate(
+      double[] effective,
+      double[] maturity,
+      double iborRate0,
+      double accrualFactor,
+      double x0,
+      double x1) {
+
+    double beta = (1.0d + accrualFactor * iborRate0) * maturity[0] / effective[0];
+    return (beta * deflatedDiscountFactor(effective, x0, x1) / deflatedDiscountFactor(maturity, x0, x1) - 1.0d) /
+        accrualFactor;
+  }
+
+  /**
+   * Returns the times associated to decision dates.
+   *
+   * @param expiries  the decision dates
+   * @return the times
+   */
+  default double[] times(List<ZonedDateTime> expiries) {
+    double[] times = new double[expiries.size()];
+    for (int loopexp = 0; loopexp < expiries.size(); loopexp++) {
+      times[loopexp] = getModel().relativeTime(expiries.get(loopexp));
+    }
+    return times;
+  }
+
+}
@@ -11,6 +11,7 @@ import com.opengamma.strata.collect.tuple.Triple;
 import com.opengamma.strata.pricer.rate.RatesProvider;
 import com.opengamma.strata.product.ResolvedProduct;
 
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
 import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
 import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalent;
 import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentValues;
@@ -129,22 +130,32 @@ public interface MonteCarloEuropeanPricer<P extends ResolvedProduct, M extends S
       P product, 
       RatesProvider multicurve) {
 
+    long startPv = PricingMetrics.start();
     MulticurveEquivalent mce = multicurveEquivalent(product);
     MulticurveEquivalentValues initialValues = initialValues(mce, multicurve);
     Triple<Integer, Integer, Integer> decomposition = decomposition(); // fullblocks, path block, residual
     double pv = 0.0;
     for (int loopblock = 0; loopblock < decomposition.getFirst(); loopblock++) {
+      long start = PricingMetrics.start();
       List<MulticurveEquivalentValues> valuesExpiry =
           evolve(initialValues, mce.getDecisionTime(), decomposition.getSecond());
+      PricingMetrics.stop(getClass(), "evolve", start);
+      start = PricingMetrics.start();
       pv += aggregation(product, mce, valuesExpiry).sum();
+      PricingMetrics.stop(getClass(), "aggregation", start);
     }
     if (decomposition.getThird() > 0) { // Residual number of path if non zero.
+      long start = PricingMetrics.start();
       List<MulticurveEquivalentValues> valuesExpiryResidual =
           evolve(initialValues, mce.getDecisionTime(), decomposition.getThird());
+      PricingMetrics.stop(getClass(), "evolve", start);
+      start = PricingMetrics.start();
       pv += aggregation(product, mce, valuesExpiryResidual).sum();
+      PricingMetrics.stop(getClass(), "aggregation", start);
     }
     double initialNumeraireValue = numeraireInitialValue(multicurve);
     pv = pv /getNbPaths() * initialNumeraireValue;
+    PricingMetrics.stop(getClass(), "presentValue", startPv);
     return pv;
   }
   
@@ -11,6 +11,7 @@ import com.opengamma.strata.collect.tuple.Triple;
 import com.opengamma.strata.pricer.rate.RatesProvider;
 import com.opengamma.strata.product.ResolvedProduct;
 
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
 import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
 import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentSchedule;
 import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentValues;
@@ -128,28 +129,38 @@ public interface MonteCarloMultiDatesPricer<P extends ResolvedProduct, M extends
       P product, 
       RatesProvider multicurve) {
 
+    long startPv = PricingMetrics.start();
     MulticurveEquivalentSchedule mce = multicurveEquivalent(product);
     MulticurveEquivalentValues initialValues = initialValues(mce, multicurve);
     Triple<Integer, Integer, Integer> decomposition = decomposition(); // fullblocks, path block, residual
     double pv = 0.0;
     for (int loopblock = 0; loopblock < decomposition.getFirst(); loopblock++) {
+      long start = PricingMetrics.start();
       List<List<MulticurveEquivalentValues>> valuesExpiry =
           evolve(initialValues, mce.getDecisionTimes(), decomposition.getSecond());
+      PricingMetrics.stop(getClass(), "evolve", start);
+      start = PricingMetrics.start();
       double[][] aggregation = aggregation(mce, product, valuesExpiry, getModel());
+      PricingMetrics.stop(getClass(), "aggregation", start);
       for (int looppath = 0; looppath < decomposition.getSecond(); looppath++) {
         pv += DoubleArray.ofUnsafe(aggregation[looppath]).sum();
       }
     }
     if (decomposition.getThird() > 0) { // Residual number of path if non zero.
+      long start = PricingMetrics.start();
       List<List<MulticurveEquivalentValues>> valuesExpiryResidual =
           evolve(initialValues, mce.getDecisionTimes(), decomposition.getThird());
+      PricingMetrics.stop(getClass(), "evolve", start);
+      start = PricingMetrics.start();
       double[][] aggregation = aggregation(mce, product, valuesExpiryResidual, getModel());
+      PricingMetrics.stop(getClass(), "aggregation", start);
       for (int looppath = 0; looppath < decomposition.getThird(); looppath++) {
         pv += DoubleArray.ofUnsafe(aggregation[looppath]).sum();
       }
     }
     double initialNumeraireValue = numeraireInitialValue(multicurve);
     pv = pv /getNbPaths() * initialNumeraireValue;
+    PricingMetrics.stop(getClass(), "presentValue", startPv);
     return pv;
   }
   
@@ -0,0 +1,344 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.montecarlo;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.tuple.Triple;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.ResolvedProduct;
+import com.opengamma.strata.product.rate.IborRateComputation;
+import com.opengamma.strata.product.swap.NotionalExchange;
+
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorMonteCarloEvolution;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorParameters;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalent;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentSchedule;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentValues;
+
+/**
+ * Generic Monte Carlo pricer for path dependent products in the two-factor rational model.
+ * <p>
+ * The model state consists of the two log-normal martingales A(1) and A(2), simulated exactly at the decision dates.
+ * The pricing kernel is P(0,t) + b_0(t) A(1)(t) and its initial value is 1. At a decision date, the numeraire
+ * rebased value of a payment at u is P(0,u) + b_0(u) A(1) and the numeraire rebased value of an Ibor payment
+ * (rate times discount factor) is L(0) P(0,u) + b_1 A(1) + b_2 A(2). All the rebased values are linear
+ * in the martingales.
+ * <p>
+ * The paths are generated in blocks of {@link #getPathNumberBlock()} paths. Each block has its own random
+ * generator split from a root generator built on the seed and the blocks are priced in parallel.
+ * The state of each block is stored in a flat array, see {@link RationalTwoFactorMonteCarloEvolution}.
+ *
+ * @param <P> the type of product to be priced
+ *
+ * @author Marc Henrard
+ */
+public interface RationalTwoFactorMonteCarloMultiDatesPricer<P extends ResolvedProduct>
+    extends MonteCarloMultiDatesPricer<P, RationalTwoFactorParameters> {
+
+  /**
+   * Returns the seed of the root random number generator.
+   *
+   * @return the seed
+   */
+  abstract long getSeed();
+
+  /**
+   * Returns the random number generators of the blocks of paths.
+   * <p>
+   * The generators are split sequentially from a root generator built on the seed, so that the generator
+   * of a block depends only on the seed and on the index of the block. Each call returns new generators
+   * with the same streams.
+   *
+   * @param nbBlocks  the number of blocks
+   * @return the generators, one for each block
+   */
+  default SplittableRandom[] generators(int nbBlocks) {
+    SplittableRandom root = new SplittableRandom(getSeed());
+    SplittableRandom[] generators = new SplittableRandom[nbBlocks];
+    for (int loopblock = 0; loopblock < nbBlocks; loopblock++) {
+      generators[loopblock] = root.split();
+    }
+    return generators;
+  }
+
+  /**
+   * Aggregates the simulated martingales into a value for each path.
+   * <p>
+   * The aggregation consists in applying the product specific quantities to the model quantities
+   * and multiplying by the pricing kernel. The initial pricing kernel is not applied to the results.
+   *
+   * @param me  the multi-curve equivalent
+   * @param product  the financial product
+   * @param initialValues  the initial values, as computed by {@link #initialValues}
+   * @param martingales  the martingales values, dimensions: paths x expiries x martingales in a flat array
+   * @param nbPaths  the number of paths
+   * @param model  the interest rate model
+   * @return the values for each path, all cash flows aggregated
+   */
+  abstract double[] aggregation(
+      MulticurveEquivalentSchedule me,
+      P product,
+      MulticurveEquivalentValues initialValues,
+      double[] martingales,
+      int nbPaths,
+      RationalTwoFactorParameters model);
+
+  @Override
+  default public int getNbFactors() {
+    return RationalTwoFactorMonteCarloEvolution.NB_MARTINGALES;
+  }
+
+  @Override
+  default public double numeraireInitialValue(RatesProvider multicurve) {
+    return 1.0d; // The pricing kernel initial value is 1
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The discount factors are the discount factors of the payments of each schedule, first the discount factor
+   * payments then the Ibor payments, schedule after schedule. The Ibor rates are the forward rates of all the
+   * Ibor computations, schedule after schedule.
+   */
+  @Override
+  default public MulticurveEquivalentValues initialValues(
+      MulticurveEquivalentSchedule mce,
+      RatesProvider multicurve) {
+
+    Currency ccy = getModel().getCurrency();
+    List<Double> discountFactors = new ArrayList<>();
+    List<Double> iborRates = new ArrayList<>();
+    for (MulticurveEquivalent me : mce.getSchedules()) {
+      for (NotionalExchange payment : me.getDiscountFactorPayments()) {
+        discountFactors.add(multicurve.discountFactor(ccy, payment.getPaymentDate()));
+      }
+      for (NotionalExchange payment : me.getIborPayments()) {
+        discountFactors.add(multicurve.discountFactor(ccy, payment.getPaymentDate()));
+      }
+      for (IborRateComputation ibor : me.getIborComputations()) {
+        iborRates.add(multicurve.iborIndexRates(ibor.getIndex()).rate(ibor.getObservation()));
+      }
+    }
+    return MulticurveEquivalentValues.builder()
+        .discountFactors(DoubleArray.copyOf(discountFactors))
+        .iborRates(DoubleArray.copyOf(iborRates)).build();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The paths are generated in one block with the generator of the first block, see {@link #generators(int)}.
+   * Successive calls return the same paths.
+   */
+  @Override
+  default public List<List<MulticurveEquivalentValues>> evolve(
+      MulticurveEquivalentValues initialValues,
+      List<ZonedDateTime> expiries,
+      int numberSample) {
+
+    return evolve(initialValues, expiries, numberSample, generators(1)[0]);
+  }
+
+  /**
+   * Generates the paths with a given random number generator.
+   * <p>
+   * The initial discount factors and Ibor rates are kept and the martingales values are stored in ON equivalent values.
+   *
+   * @param initialValues  the initial values
+   * @param expiries  the decision dates
+   * @param numberSample  the number of paths
+   * @param generator  the random number generator, its state is modified
+   * @return the paths, dimensions: paths x expiries
+   */
+  default public List<List<MulticurveEquivalentValues>> evolve(
+      MulticurveEquivalentValues initialValues,
+      List<ZonedDateTime> expiries,
+      int numberSample,
+      SplittableRandom generator) {
+
+    int nbExpiries = expiries.size();
+    double[] martingales = RationalTwoFactorMonteCarloEvolution.DEFAULT
+        .martingalePaths(times(expiries), getModel(), generator, numberSample);
+    List<List<MulticurveEquivalentValues>> paths = new ArrayList<>();
+    for (int looppath = 0; looppath < numberSample; looppath++) {
+      List<MulticurveEquivalentValues> steps = new ArrayList<>();
+      for (int loopexp = 0; loopexp < nbExpiries; loopexp++) {
+        int index = (looppath * nbExpiries + loopexp) * RationalTwoFactorMonteCarloEvolution.NB_MARTINGALES;
+        steps.add(initialValues.toBuilder()
+            .onRates(DoubleArray.of(martingales[index], martingales[index + 1])).build());
+      }
+      paths.add(steps);
+    }
+    return paths;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The values are aggregated over all the cash flows, the second dimension of the result is 1.
+   */
+  @Override
+  default public double[][] aggregation(
+      MulticurveEquivalentSchedule me,
+      P product,
+      List<List<MulticurveEquivalentValues>> valuesExpiries,
+      RationalTwoFactorParameters model) {
+
+    int nbPaths = valuesExpiries.size();
+    int nbExpiries = me.getExpiriesCount();
+    double[] martingales = new double[nbPaths * nbExpiries * RationalTwoFactorMonteCarloEvolution.NB_MARTINGALES];
+    for (int looppath = 0; looppath < nbPaths; looppath++) {
+      for (int loopexp = 0; loopexp < nbExpiries; loopexp++) {
+        int index = (looppath * nbExpiries + loopexp) * RationalTwoFactorMonteCarloEvolution.NB_MARTINGALES;
+        double[] a = valuesExpiries.get(looppath).get(loopexp).getOnRates().toArrayUnsafe();
+        martingales[index] = a[0];
+        martingales[index + 1] = a[1];
+      }
+    }
+    double[] pvPaths = aggregation(me, product, valuesExpiries.get(0).get(0), martingales, nbPaths, model);
+    double[][] pv = new double[nbPaths][1];
+    for (int looppath = 0; looppath < nbPaths; looppath++) {
+      pv[looppath][0] = pvPaths[looppath];
+    }
+    return pv;
+  }
+
+  /**
+   * Present value as a double.
+   * <p>
+   * The blocks of paths are generated and aggregated in parallel, the state of each block is stored in a flat array.
+   * The result depends only on the seed, the number of paths and the block size, not on the number of cores.
+   *
+   * @param product  the financial product to price
+   * @param multicurve  the underlying multi-curve framework
+   * @return the present value
+   */
+  @Override
+  default double presentValueDouble(
+      P product,
+      RatesProvider multicurve) {
+
+    long startPv = PricingMetrics.start();
+    MulticurveEquivalentSchedule mce = multicurveEquivalent(product);
+    MulticurveEquivalentValues initialValues = initialValues(mce, multicurve);
+    double[] times = times(mce.getDecisionTimes());
+    RationalTwoFactorParameters model = getModel();
+    Triple<Integer, Integer, Integer> decomposition = decomposition(); // fullblocks, path block, residual
+    int nbBlocks = decomposition.getFirst() + ((decomposition.getThird() > 0) ? 1 : 0);
+    SplittableRandom[] generators = generators(nbBlocks);
+    double[] pvBlocks = new double[nbBlocks];
+    IntStream.range(0, nbBlocks).parallel().forEach(loopblock -> {
+      int nbPathsBlock = (loopblock < decomposition.getFirst()) ? decomposition.getSecond() : decomposition.getThird();
+      long start = PricingMetrics.start();
+      double[] martingales = new double[nbPathsBlock * times.length * RationalTwoFactorMonteCarloEvolution.NB_MARTINGALES];
+      RationalTwoFactorMonteCarloEvolution.DEFAULT.martingalePaths(times, model.a1(), model.a2(),
+          model.getCorrelation(), generators[loopblock], nbPathsBlock, martingales);
+      PricingMetrics.stop(getClass(), "evolve", start);
+      start = PricingMetrics.start();
+      double[] pvPaths = aggregation(mce, product, initialValues, martingales, nbPathsBlock, model);
+      PricingMetrics.stop(getClass(), "aggregation", start);
+      double pvBlock = 0.0;
+      for (int looppath = 0; looppath < nbPathsBlock; looppath++) {
+        pvBlock += pvPaths[looppath];
+      }
+      pvBlocks[loopblock] = pvBlock;
+    });
+    double pv = 0.0;
+    for (int loopblock = 0; loopblock < nbBlocks; loopblock++) { // sum in fixed order to be reproducible
+      pv += pvBlocks[loopblock];
+    }
+    pv = pv / getNbPaths() * numeraireInitialValue(multicurve);
+    PricingMetrics.stop(getClass(), "presentValue", startPv);
+    return pv;
+  }
+
+  /**
+   * Returns the coefficients of the numeraire rebased values of the cash flows of a multi-curve equivalent
+   * schedule as linear functions of the martingales.
+   * <p>
+   * For each cash flow, the rebased value is c[0] + c[1] A(1) + c[2] A(2). The cash flows are, for each schedule,
+   * first the discount factor payments then the Ibor payments. The Ibor payments include the Ibor rate.
+   *
+   * @param mce  the multi-curve equivalent schedule
+   * @param initialValues  the initial values, as computed by {@link #initialValues}
+   * @param model  the interest rate model
+   * @return the coefficients, dimensions: schedules x cash flows x 3
+   */
+  default double[][][] rebasedCoefficients(
+      MulticurveEquivalentSchedule mce,
+      MulticurveEquivalentValues initialValues,
+      RationalTwoFactorParameters model) {
+
+    double[] df = initialValues.getDiscountFactors().toArrayUnsafe();
+    double[] ibor = initialValues.getIborRates().toArrayUnsafe();
+    int nbSchedules = mce.getExpiriesCount();
+    double[][][] coefficients = new double[nbSchedules][][];
+    int indexDf = 0;
+    int indexIbor = 0;
+    for (int loopsched = 0; loopsched < nbSchedules; loopsched++) {
+      MulticurveEquivalent me = mce.getSchedules().get(loopsched);
+      int nbDf = me.getDiscountFactorPayments().size();
+      int nbIbor = me.getIborPayments().size();
+      coefficients[loopsched] = new double[nbDf + nbIbor][3];
+      for (int loopdf = 0; loopdf < nbDf; loopdf++) {
+        NotionalExchange payment = me.getDiscountFactorPayments().get(loopdf);
+        double amount = payment.getPaymentAmount().getAmount();
+        coefficients[loopsched][loopdf][0] = amount * df[indexDf];
+        coefficients[loopsched][loopdf][1] = amount * model.b0(payment.getPaymentDate());
+        indexDf++;
+      }
+      for (int loopibor = 0; loopibor < nbIbor; loopibor++) {
+        IborRateComputation computation = me.getIborComputations().get(loopibor);
+        double amount = me.getIborPayments().get(loopibor).getPaymentAmount().getAmount();
+        coefficients[loopsched][nbDf + loopibor][0] = amount * ibor[indexIbor] * df[indexDf];
+        coefficients[loopsched][nbDf + loopibor][1] = amount * model.b1(computation.getObservation());
+        coefficients[loopsched][nbDf + loopibor][2] = amount * model.b2(computation.getObservation());
+        indexDf++;
+        indexIbor++;
+      }
+    }
+    return coefficients;
+  }
+
+  /**
+   * Returns the sum of the rebased coefficients of a range of cash flows.
+   *
+   * @param coefficients  the coefficients, dimensions: cash flows x 3
+   * @param start  the first cash flow index, inclusive
+   * @param end  the last cash flow index, exclusive
+   * @return the coefficients of the sum
+   */
+  default double[] sumCoefficients(double[][] coefficients, int start, int end) {
+    double[] sum = new double[3];
+    for (int loopcf = start; loopcf < end; loopcf++) {
+      sum[0] += coefficients[loopcf][0];
+      sum[1] += coefficients[loopcf][1];
+      sum[2] += coefficients[loopcf][2];
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the times associated to decision dates.
+   *
+   * @param expiries  the decision dates
+   * @return the times
+   */
+  default double[] times(List<ZonedDateTime> expiries) {
+    double[] times = new double[expiries.size()];
+    for (int loopexp = 0; loopexp < expiries.size(); loopexp++) {
+      times[loopexp] = getModel().relativeTime(expiries.get(loopexp));
+    }
+    return times;
+  }
+
+}
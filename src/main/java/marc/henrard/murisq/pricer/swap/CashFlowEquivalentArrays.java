@@ -0,0 +1,364 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.swap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.index.IborIndex;
+import com.opengamma.strata.basics.index.IborIndexObservation;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.market.sensitivity.PointSensitivityBuilder;
+import com.opengamma.strata.pricer.DiscountFactors;
+import com.opengamma.strata.pricer.rate.IborIndexRates;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.rate.FixedRateComputation;
+import com.opengamma.strata.product.rate.IborRateComputation;
+import com.opengamma.strata.product.rate.OvernightCompoundedRateComputation;
+import com.opengamma.strata.product.rate.RateComputation;
+import com.opengamma.strata.product.swap.NotionalExchange;
+import com.opengamma.strata.product.swap.RateAccrualPeriod;
+import com.opengamma.strata.product.swap.RatePaymentPeriod;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+import com.opengamma.strata.product.swap.ResolvedSwapLeg;
+import com.opengamma.strata.product.swap.SwapLegType;
+import com.opengamma.strata.product.swap.SwapPaymentEvent;
+import com.opengamma.strata.product.swap.SwapPaymentPeriod;
+
+import marc.henrard.murisq.basics.time.TimeMeasurement;
+
+/**
+ * Cash flow equivalent of a swap stored in primitive arrays.
+ * <p>
+ * The cash flows are the ones of {@link CashFlowEquivalentCalculator#cashFlowEquivalentSwap}, sorted by
+ * increasing dates and compressed as in {@link CashFlowEquivalentUtils#sortCompress}. They are computed directly
+ * in arrays, without the intermediary {@link NotionalExchange} and {@link ResolvedSwapLeg} objects; the model
+ * pricers can use the arrays directly.
+ * <p>
+ * Optionally, the sensitivities of the cash flow amounts to the curves are computed. Only the cash flows at the start
+ * of the Ibor and overnight periods have sensitivities. They are stored with the index of the compressed cash flow
+ * they contribute to, and are combined with the sensitivities of a result to the amounts by
+ * {@link #amountsSensitivity(double[])}.
+ *
+ * @author Marc Henrard
+ */
+public final class CashFlowEquivalentArrays {
+
+  /** Number of bits used for the cash flow index in the sort keys. */
+  private static final int INDEX_BITS = 24;
+
+  /** The currency. */
+  private final Currency currency;
+  /** The payment dates, as epoch days, strictly increasing. */
+  private final long[] paymentDates;
+  /** The payment amounts. */
+  private final double[] amounts;
+  /** The indices of the compressed cash flows to which the sensitivities apply. Null if not computed. */
+  private final int[] sensitivityIndices;
+  /** The sensitivities of the cash flow amounts to the curves. Null if not computed. */
+  private final ImmutableList<PointSensitivityBuilder> sensitivities;
+
+  // Private constructor
+  private CashFlowEquivalentArrays(
+      Currency currency,
+      long[] paymentDates,
+      double[] amounts,
+      int[] sensitivityIndices,
+      ImmutableList<PointSensitivityBuilder> sensitivities) {
+
+    this.currency = currency;
+    this.paymentDates = paymentDates;
+    this.amounts = amounts;
+    this.sensitivityIndices = sensitivityIndices;
+    this.sensitivities = sensitivities;
+  }
+
+  /**
+   * Computes the cash flow equivalent of a swap.
+   * <p>
+   * The swap legs should be FIXED, IBOR or OVERNIGHT, without compounding and without payment events.
+   *
+   * @param swap  the swap
+   * @param multicurve  the multi-curve rates provider
+   * @param withSensitivities  the flag indicating if the sensitivities of the amounts are computed
+   * @return the cash flow equivalent
+   */
+  public static CashFlowEquivalentArrays of(
+      ResolvedSwap swap,
+      RatesProvider multicurve,
+      boolean withSensitivities) {
+
+    ArgChecker.isFalse(swap.isCrossCurrency(), "swap should be single currency");
+    int nbPeriods = 0;
+    for (ResolvedSwapLeg leg : swap.getLegs()) {
+      ArgChecker.isTrue(leg.getPaymentEvents().isEmpty(), "PaymentEvent should be empty");
+      nbPeriods += leg.getPaymentPeriods().size();
+    }
+    Currency currency = swap.getLegs().get(0).getCurrency();
+    DiscountFactors dsc = multicurve.discountFactors(currency);
+    // Raw cash flows, in the order of the legs and periods
+    long[] dates = new long[2 * nbPeriods];
+    double[] amounts = new double[2 * nbPeriods];
+    int[] sensitivityRaw = withSensitivities ? new int[nbPeriods] : null;
+    List<PointSensitivityBuilder> sensitivityList = withSensitivities ? new ArrayList<>() : null;
+    int nbCf = 0;
+    for (ResolvedSwapLeg leg : swap.getLegs()) {
+      SwapLegType type = leg.getType();
+      ArgChecker.isTrue(type.equals(SwapLegType.FIXED) || type.equals(SwapLegType.IBOR) ||
+          type.equals(SwapLegType.OVERNIGHT), "leg type must be FIXED, IBOR or OVERNIGHT");
+      for (SwapPaymentPeriod paymentPeriod : leg.getPaymentPeriods()) {
+        ArgChecker.isTrue(paymentPeriod instanceof RatePaymentPeriod, "rate payment should be RatePaymentPeriod");
+        RatePaymentPeriod ratePaymentPeriod = (RatePaymentPeriod) paymentPeriod;
+        ArgChecker.isTrue(ratePaymentPeriod.getAccrualPeriods().size() == 1,
+            "rate payment should not be compounding");
+        RateAccrualPeriod rateAccrualPeriod = ratePaymentPeriod.getAccrualPeriods().get(0);
+        double notional = ratePaymentPeriod.getNotional();
+        LocalDate paymentDate = ratePaymentPeriod.getPaymentDate();
+        RateComputation rateComputation = rateAccrualPeriod.getRateComputation();
+        if (type.equals(SwapLegType.FIXED)) {
+          dates[nbCf] = paymentDate.toEpochDay();
+          amounts[nbCf++] = notional *
+              (rateAccrualPeriod.getYearFraction() * ((FixedRateComputation) rateComputation).getRate());
+        } else if (type.equals(SwapLegType.IBOR)) {
+          ArgChecker.isTrue(rateComputation instanceof IborRateComputation,
+              "RateComputation should be of type IborRateComputation");
+          IborIndexObservation obs = ((IborRateComputation) rateComputation).getObservation();
+          IborIndex index = obs.getIndex();
+          LocalDate fixingStartDate = obs.getEffectiveDate();
+          double fixingYearFraction = obs.getYearFraction();
+          IborIndexRates iborRates = multicurve.iborIndexRates(index);
+          double factorIndex = 1d + fixingYearFraction * iborRates.rate(obs);
+          double dfPayment = dsc.discountFactor(paymentDate);
+          double dfStart = dsc.discountFactor(fixingStartDate);
+          double ycRatio = rateAccrualPeriod.getYearFraction() / fixingYearFraction;
+          if (withSensitivities) {
+            double factor = ycRatio * notional / dfStart;
+            sensitivityRaw[sensitivityList.size()] = nbCf;
+            sensitivityList.add(iborRates.ratePointSensitivity(obs)
+                .multipliedBy(fixingYearFraction * dfPayment * factor)
+                .combinedWith(dsc.zeroRatePointSensitivity(paymentDate).multipliedBy(factorIndex * factor))
+                .combinedWith(dsc.zeroRatePointSensitivity(fixingStartDate)
+                    .multipliedBy(-factorIndex * dfPayment * factor / dfStart)));
+          }
+          dates[nbCf] = fixingStartDate.toEpochDay();
+          amounts[nbCf++] = notional * (factorIndex * dfPayment / dfStart * ycRatio);
+          dates[nbCf] = paymentDate.toEpochDay();
+          amounts[nbCf++] = -notional * ycRatio;
+        } else {
+          ArgChecker.isTrue(rateComputation instanceof OvernightCompoundedRateComputation,
+              "RateComputation should be of type OvernightCompoundedRateComputation");
+          OvernightCompoundedRateComputation onComputation = (OvernightCompoundedRateComputation) rateComputation;
+          LocalDate startDate = rateAccrualPeriod.getStartDate();
+          LocalDate endDate = rateAccrualPeriod.getEndDate();
+          double computationAccrual = onComputation.getIndex().getDayCount().yearFraction(startDate, endDate);
+          double paymentAccrual = rateAccrualPeriod.getYearFraction();
+          double dfPayment = dsc.discountFactor(paymentDate);
+          double dfEnd = dsc.discountFactor(endDate);
+          if (withSensitivities) {
+            double factor = notional * paymentAccrual / computationAccrual;
+            sensitivityRaw[sensitivityList.size()] = nbCf;
+            sensitivityList.add(dsc.zeroRatePointSensitivity(paymentDate).multipliedBy(factor / dfEnd)
+                .combinedWith(dsc.zeroRatePointSensitivity(endDate)
+                    .multipliedBy(-factor * dfPayment / (dfEnd * dfEnd))));
+          }
+          dates[nbCf] = startDate.toEpochDay();
+          amounts[nbCf++] = notional * (dfPayment / dfEnd * paymentAccrual / computationAccrual);
+          dates[nbCf] = paymentDate.toEpochDay();
+          amounts[nbCf++] = notional *
+              (-paymentAccrual / computationAccrual + rateAccrualPeriod.getSpread() * paymentAccrual);
+        }
+      }
+    }
+    if (!withSensitivities) {
+      return sortCompress(currency, dates, amounts, nbCf, null, null);
+    }
+    return sortCompress(currency, dates, amounts, nbCf,
+        Arrays.copyOf(sensitivityRaw, sensitivityList.size()), ImmutableList.copyOf(sensitivityList));
+  }
+
+  /**
+   * Computes the cash flow equivalents of a list of swaps.
+   * <p>
+   * The swaps are computed in parallel.
+   *
+   * @param swaps  the swaps
+   * @param multicurve  the multi-curve rates provider
+   * @param withSensitivities  the flag indicating if the sensitivities of the amounts are computed
+   * @return the cash flow equivalents, in the order of the swaps
+   */
+  public static ImmutableList<CashFlowEquivalentArrays> of(
+      List<ResolvedSwap> swaps,
+      RatesProvider multicurve,
+      boolean withSensitivities) {
+
+    return swaps.parallelStream()
+        .map(swap -> of(swap, multicurve, withSensitivities))
+        .collect(Collectors.collectingAndThen(Collectors.toList(), ImmutableList::copyOf));
+  }
+
+  /**
+   * Obtains the arrays from a cash flow equivalent made of {@link NotionalExchange}.
+   * <p>
+   * The cash flows are sorted and compressed. The sensitivities are not available.
+   *
+   * @param cfe  the cash flow equivalent, for example from {@link CashFlowEquivalentCalculator}
+   * @return the cash flow equivalent arrays
+   */
+  public static CashFlowEquivalentArrays of(ResolvedSwapLeg cfe) {
+    ImmutableList<SwapPaymentEvent> events = cfe.getPaymentEvents();
+    int nbCf = events.size();
+    ArgChecker.isTrue(nbCf > 0, "cash flow equivalent should not be empty");
+    long[] dates = new long[nbCf];
+    double[] amounts = new double[nbCf];
+    for (int loopcf = 0; loopcf < nbCf; loopcf++) {
+      ArgChecker.isTrue(events.get(loopcf) instanceof NotionalExchange,
+          "each period must be of the type NotionalExchange");
+      NotionalExchange cf = (NotionalExchange) events.get(loopcf);
+      dates[loopcf] = cf.getPaymentDate().toEpochDay();
+      amounts[loopcf] = cf.getPaymentAmount().getAmount();
+    }
+    return sortCompress(cfe.getCurrency(), dates, amounts, nbCf, null, null);
+  }
+
+  // sort the raw cash flows by date, then by position, and add the amounts on the same date
+  private static CashFlowEquivalentArrays sortCompress(
+      Currency currency,
+      long[] dates,
+      double[] amounts,
+      int nbCf,
+      int[] sensitivityRaw,
+      ImmutableList<PointSensitivityBuilder> sensitivities) {
+
+    ArgChecker.isTrue(nbCf < (1 << INDEX_BITS), "too many cash flows");
+    long[] keys = new long[nbCf];
+    for (int loopcf = 0; loopcf < nbCf; loopcf++) {
+      keys[loopcf] = (dates[loopcf] << INDEX_BITS) | loopcf;
+    }
+    Arrays.sort(keys);
+    long[] datesCompressed = new long[nbCf];
+    double[] amountsCompressed = new double[nbCf];
+    int[] rawToCompressed = new int[nbCf];
+    int nbCompressed = 0;
+    for (int loopcf = 0; loopcf < nbCf; loopcf++) {
+      int raw = (int) (keys[loopcf] & ((1 << INDEX_BITS) - 1));
+      if (nbCompressed > 0 && datesCompressed[nbCompressed - 1] == dates[raw]) {
+        amountsCompressed[nbCompressed - 1] += amounts[raw];
+      } else {
+        datesCompressed[nbCompressed] = dates[raw];
+        amountsCompressed[nbCompressed++] = amounts[raw];
+      }
+      rawToCompressed[raw] = nbCompressed - 1;
+    }
+    int[] sensitivityIndices = null;
+    if (sensitivityRaw != null) {
+      sensitivityIndices = new int[sensitivityRaw.length];
+      for (int loops = 0; loops < sensitivityRaw.length; loops++) {
+        sensitivityIndices[loops] = rawToCompressed[sensitivityRaw[loops]];
+      }
+    }
+    return new CashFlowEquivalentArrays(
+        currency,
+        Arrays.copyOf(datesCompressed, nbCompressed),
+        Arrays.copyOf(amountsCompressed, nbCompressed),
+        sensitivityIndices,
+        sensitivities);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the currency of the cash flows.
+   *
+   * @return the currency
+   */
+  public Currency getCurrency() {
+    return currency;
+  }
+
+  /**
+   * Returns the number of cash flows.
+   *
+   * @return the number
+   */
+  public int size() {
+    return amounts.length;
+  }
+
+  /**
+   * Returns the payment date of a cash flow.
+   *
+   * @param index  the index of the cash flow
+   * @return the date
+   */
+  public LocalDate paymentDate(int index) {
+    return LocalDate.ofEpochDay(paymentDates[index]);
+  }
+
+  /**
+   * Returns a copy of the payment amounts.
+   *
+   * @return the amounts
+   */
+  public double[] amounts() {
+    return amounts.clone();
+  }
+
+  /**
+   * Returns the payment amount of a cash flow.
+   *
+   * @param index  the index of the cash flow
+   * @return the amount
+   */
+  public double amount(int index) {
+    return amounts[index];
+  }
+
+  /**
+   * Returns the payment times of the cash flows.
+   *
+   * @param timeMeasure  the time measurement
+   * @param valuationDate  the valuation date
+   * @return the times
+   */
+  public double[] paymentTimes(TimeMeasurement timeMeasure, LocalDate valuationDate) {
+    double[] times = new double[paymentDates.length];
+    for (int loopcf = 0; loopcf < paymentDates.length; loopcf++) {
+      times[loopcf] = timeMeasure.relativeTime(valuationDate, LocalDate.ofEpochDay(paymentDates[loopcf]));
+    }
+    return times;
+  }
+
+  /**
+   * Returns the flag indicating if the sensitivities of the amounts are available.
+   *
+   * @return the flag
+   */
+  public boolean hasSensitivities() {
+    return sensitivities != null;
+  }
+
+  /**
+   * Computes the sensitivity to the curves of a value depending on the amounts.
+   * <p>
+   * The sensitivities of the cash flow amounts are multiplied by the derivatives of the value with respect
+   * to the amounts and combined.
+   *
+   * @param amountsBar  the derivatives of the value with respect to the amounts
+   * @return the sensitivity
+   */
+  public PointSensitivityBuilder amountsSensitivity(double[] amountsBar) {
+    ArgChecker.isTrue(hasSensitivities(), "sensitivities have not been computed");
+    ArgChecker.isTrue(amountsBar.length == amounts.length, "amountsBar should have one value by cash flow");
+    PointSensitivityBuilder result = PointSensitivityBuilder.none();
+    for (int loops = 0; loops < sensitivityIndices.length; loops++) {
+      result = result.combinedWith(sensitivities.get(loops).multipliedBy(amountsBar[sensitivityIndices[loops]]));
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.swap;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+import com.opengamma.strata.product.swap.ResolvedSwapLeg;
+
+/**
+ * Cache of the cash flow equivalents of swaps.
+ * <p>
+ * The cash flow equivalents are computed by {@link CashFlowEquivalentCalculator#cashFlowEquivalentSwap} and,
+ * when requested, sorted and compressed by {@link CashFlowEquivalentUtils#sortCompress}. They depend only on the
+ * swap and on the multi-curve; they are computed again each time a model parameter changes in a calibration or
+ * a model bump-and-revalue loop. The cache avoids those repeated computations. The cash flow equivalents can also
+ * be cached in the array form of {@link CashFlowEquivalentArrays}, used directly by the model pricers.
+ * <p>
+ * The entries are keyed by the identity of the swap and of the multi-curve, not by their equality. A new
+ * multi-curve instance, e.g. with bumped curves, leads to a new computation. The number of entries is bounded; the
+ * least recently used entries are evicted first. The numbers of hits and misses are recorded.
+ * <p>
+ * The entries hold strong references to the swaps and multi-curves until they are evicted. A cache should be
+ * scoped to one calibration or one bump-and-revalue loop and dropped afterwards; it should not be kept in a
+ * long-lived pricer shared across valuations.
+ * <p>
+ * The cache can be used concurrently from several threads.
+ *
+ * @author Marc Henrard
+ */
+public final class CashFlowEquivalentCache {
+
+  /** The cached cash flow equivalents. */
+  private final Cache<Key, ResolvedSwapLeg> cache;
+  /** The cached cash flow equivalents in array form. */
+  private final Cache<Key, CashFlowEquivalentArrays> arraysCache;
+
+  // Private constructor
+  private CashFlowEquivalentCache(int maximumSize) {
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+    this.arraysCache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Creates an empty cache with a maximum number of entries.
+   *
+   * @param maximumSize  the maximum number of entries
+   * @return the cache
+   */
+  public static CashFlowEquivalentCache of(int maximumSize) {
+    ArgChecker.notNegativeOrZero(maximumSize, "maximumSize");
+    return new CashFlowEquivalentCache(maximumSize);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the cash flow equivalent of a swap.
+   * <p>
+   * See {@link CashFlowEquivalentCalculator#cashFlowEquivalentSwap(ResolvedSwap, RatesProvider)}.
+   *
+   * @param swap  the swap product
+   * @param multicurve  the multi-curve rates provider
+   * @return the cash flow equivalent
+   */
+  public ResolvedSwapLeg cashFlowEquivalentSwap(ResolvedSwap swap, RatesProvider multicurve) {
+    Key key = new Key(swap, multicurve, false);
+    return get(cache, key, key::compute);
+  }
+
+  /**
+   * Returns the cash flow equivalent of a swap, sorted by increasing dates and compressed.
+   * <p>
+   * See {@link CashFlowEquivalentCalculator#cashFlowEquivalentSwap(ResolvedSwap, RatesProvider)} and
+   * {@link CashFlowEquivalentUtils#sortCompress(ResolvedSwapLeg)}.
+   *
+   * @param swap  the swap product
+   * @param multicurve  the multi-curve rates provider
+   * @return the sorted and compressed cash flow equivalent
+   */
+  public ResolvedSwapLeg cashFlowEquivalentSwapSortCompress(ResolvedSwap swap, RatesProvider multicurve) {
+    Key key = new Key(swap, multicurve, true);
+    return get(cache, key, key::compute);
+  }
+
+  /**
+   * Returns the cash flow equivalent of a swap in array form, sorted by increasing dates and compressed.
+   * <p>
+   * See {@link CashFlowEquivalentArrays#of(ResolvedSwap, RatesProvider, boolean)}, without sensitivities.
+   *
+   * @param swap  the swap product
+   * @param multicurve  the multi-curve rates provider
+   * @return the cash flow equivalent arrays
+   */
+  public CashFlowEquivalentArrays cashFlowEquivalentArrays(ResolvedSwap swap, RatesProvider multicurve) {
+    Key key = new Key(swap, multicurve, true);
+    return get(arraysCache, key, () -> CashFlowEquivalentArrays.of(swap, multicurve, false));
+  }
+
+  /**
+   * Returns the number of requests for which the cash flow equivalent was in the cache.
+   *
+   * @return the number of hits
+   */
+  public long getHitCount() {
+    return cache.stats().hitCount() + arraysCache.stats().hitCount();
+  }
+
+  /**
+   * Returns the number of requests for which the cash flow equivalent was computed.
+   *
+   * @return the number of misses
+   */
+  public long getMissCount() {
+    return cache.stats().missCount() + arraysCache.stats().missCount();
+  }
+
+  /**
+   * Returns the approximate number of entries in the cache.
+   *
+   * @return the number of entries
+   */
+  public long size() {
+    return cache.size() + arraysCache.size();
+  }
+
+  /**
+   * Removes all the entries from the cache.
+   * <p>
+   * The hit and miss counts are not reset.
+   */
+  public void clear() {
+    cache.invalidateAll();
+    arraysCache.invalidateAll();
+  }
+
+  //-------------------------------------------------------------------------
+  // the cached value or the computed value
+  private static <V> V get(Cache<Key, V> cache, Key key, Callable<V> loader) {
+    try {
+      return cache.get(key, loader);
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  // the key by identity of the swap and of the multi-curve
+  private static final class Key {
+    private final ResolvedSwap swap;
+    private final RatesProvider multicurve;
+    private final boolean sortCompress;
+
+    private Key(ResolvedSwap swap, RatesProvider multicurve, boolean sortCompress) {
+      this.swap = ArgChecker.notNull(swap, "swap");
+      this.multicurve = ArgChecker.notNull(multicurve, "multicurve");
+      this.sortCompress = sortCompress;
+    }
+
+    private ResolvedSwapLeg compute() {
+      ResolvedSwapLeg cfe = CashFlowEquivalentCalculator.cashFlowEquivalentSwap(swap, multicurve);
+      return sortCompress ? CashFlowEquivalentUtils.sortCompress(cfe) : cfe;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return swap == other.swap && multicurve == other.multicurve && sortCompress == other.sortCompress;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = 31 * System.identityHashCode(swap) + System.identityHashCode(multicurve);
+      return 31 * hash + (sortCompress ? 1 : 0);
+    }
+  }
+
+}
@@ -3,22 +3,20 @@
  */
 package marc.henrard.murisq.pricer.swaption;
 
-import com.google.common.collect.ImmutableList;
+import java.util.List;
+
 import com.opengamma.strata.basics.currency.CurrencyAmount;
 import com.opengamma.strata.collect.ArgChecker;
 import com.opengamma.strata.pricer.DiscountFactors;
 import com.opengamma.strata.pricer.impl.option.BlackFormulaRepository;
 import com.opengamma.strata.pricer.rate.RatesProvider;
-import com.opengamma.strata.product.swap.NotionalExchange;
-import com.opengamma.strata.product.swap.ResolvedSwapLeg;
-import com.opengamma.strata.product.swap.SwapPaymentEvent;
 import com.opengamma.strata.product.swaption.ResolvedSwaption;
 
 import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantFormulas;
 import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantParameters;
 import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
-import marc.henrard.murisq.pricer.swap.CashFlowEquivalentCalculator;
-import marc.henrard.murisq.pricer.swap.CashFlowEquivalentUtils;
+import marc.henrard.murisq.pricer.swap.CashFlowEquivalentArrays;
+import marc.henrard.murisq.pricer.swap.CashFlowEquivalentCache;
 
 /**
  * Pricing of European physical settlement swaptions in the G2++ with deterministic multiplicative spread.
@@ -45,10 +43,26 @@ public class G2ppSwaptionPhysicalProductExplicitApproxPricer
   public static final G2ppSwaptionPhysicalProductExplicitApproxPricer DEFAULT =
       new G2ppSwaptionPhysicalProductExplicitApproxPricer();
 
+  /** The cache of the cash flow equivalents. Null if the cash flow equivalents are not cached. */
+  private final CashFlowEquivalentCache cfeCache;
+
   /**
   * Creates an instance.
   */
   public G2ppSwaptionPhysicalProductExplicitApproxPricer() {
+    this.cfeCache = null;
+  }
+
+  /**
+   * Creates an instance using a cache for the cash flow equivalents of the underlying swaps.
+   * <p>
+   * The cache is useful when the same swaptions are priced with the same multi-curve and different
+   * model parameters, like in calibrations.
+   * 
+   * @param cfeCache  the cache of the cash flow equivalents
+   */
+  public G2ppSwaptionPhysicalProductExplicitApproxPricer(CashFlowEquivalentCache cfeCache) {
+    this.cfeCache = ArgChecker.notNull(cfeCache, "cfeCache");
   }
 
   @Override
@@ -60,19 +74,39 @@ public class G2ppSwaptionPhysicalProductExplicitApproxPricer
     ArgChecker.isTrue(model instanceof G2ppPiecewiseConstantParameters,
         "Parameters must be of the type G2ppPiecewiseConstantParameters");
     G2ppPiecewiseConstantParameters g2pp = (G2ppPiecewiseConstantParameters) model;
+    CashFlowEquivalentArrays cfe = (cfeCache != null) ? // includes the spread adjusted notional
+        cfeCache.cashFlowEquivalentArrays(swaption.getUnderlying(), multicurve) :
+        CashFlowEquivalentArrays.of(swaption.getUnderlying(), multicurve, false);
+    return presentValue(swaption, cfe, multicurve, g2pp);
+  }
+
+  /**
+   * Computes the present value of a swaption in the G2++ model from the cash flow equivalent of its underlying.
+   * <p>
+   * The cash flow equivalent can be computed once for several swaptions or model parameters, for example with
+   * {@link CashFlowEquivalentArrays#of(List, RatesProvider, boolean)} for a portfolio.
+   * <p>
+   * The result is expressed using the currency of the swaption.
+   * 
+   * @param swaption  the product to price
+   * @param cfe  the cash flow equivalent of the swaption underlying
+   * @param multicurve  the rates provider
+   * @param g2pp  the G2++ model parameters
+   * @return the present value of the swaption product
+   */
+  public CurrencyAmount presentValue(
+      ResolvedSwaption swaption,
+      CashFlowEquivalentArrays cfe,
+      RatesProvider multicurve,
+      G2ppPiecewiseConstantParameters g2pp) {
+
     DiscountFactors dsc = multicurve.discountFactors(swaption.getCurrency());
-    ResolvedSwapLeg cfe = CashFlowEquivalentCalculator
-        .cashFlowEquivalentSwap(swaption.getUnderlying(), multicurve); // includes the spread adjusted notional
-    cfe = CashFlowEquivalentUtils.sortCompress(cfe);
-    ImmutableList<SwapPaymentEvent> cfePeriods = cfe.getPaymentEvents();
-    int nbCf = cfePeriods.size();
-    double[] cfa = new double[nbCf];
-    double[] t = new double[nbCf];
-    double sign = Math.signum(((NotionalExchange) cfePeriods.get(0)).getPaymentAmount().getAmount());
+    int nbCf = cfe.size();
+    double[] cfa = cfe.amounts();
+    double[] t = cfe.paymentTimes(g2pp.getTimeMeasure(), g2pp.getValuationDate());
+    double sign = Math.signum(cfa[0]);
     for (int loopcf = 0; loopcf < nbCf; loopcf++) {
-      NotionalExchange cf = (NotionalExchange) cfePeriods.get(loopcf);
-      cfa[loopcf] = -sign * cf.getPaymentAmount().getAmount();
-      t[loopcf] = g2pp.getTimeMeasure().relativeTime(g2pp.getValuationDate(), cf.getPaymentDate());
+      cfa[loopcf] *= -sign;
     }
     double rhog2pp = g2pp.getCorrelation();
     double[][] ht0 = FORMULAS_G2PP.volatilityMaturityPartRatioDiscountFactors(g2pp, t[0], t);
@@ -3,7 +3,11 @@
  */
 package marc.henrard.murisq.pricer.swaption;
 
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
+import java.util.function.ToDoubleFunction;
 
 import com.google.common.collect.ImmutableList;
 import com.opengamma.strata.basics.currency.Currency;
@@ -21,6 +25,7 @@ import com.opengamma.strata.product.swaption.ResolvedSwaption;
 import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantFormulas;
 import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantParameters;
 import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
+import marc.henrard.murisq.pricer.swap.CashFlowEquivalentCache;
 import marc.henrard.murisq.pricer.swap.CashFlowEquivalentCalculator;
 import marc.henrard.murisq.pricer.swap.CashFlowEquivalentUtils;
 
@@ -57,6 +62,8 @@ public class G2ppSwaptionPhysicalProductNumericalIntegration2DPricer
    * Minimal number of integration steps in the integration.
    */
   private final int nbSteps;
+  /** The cache of the cash flow equivalents. Null if the cash flow equivalents are not cached. */
+  private final CashFlowEquivalentCache cfeCache;
   
   /**
   * Default implementation.
@@ -69,6 +76,21 @@ public class G2ppSwaptionPhysicalProductNumericalIntegration2DPricer
   */
   public G2ppSwaptionPhysicalProductNumericalIntegration2DPricer(int nbSteps) {
     this.nbSteps = nbSteps;
+    this.cfeCache = null;
+  }
+
+  /**
+   * Creates an instance using a cache for the cash flow equivalents of the underlying swaps.
+   * <p>
+   * The cache is useful when the same swaptions are priced with the same multi-curve and different
+   * model parameters, like in calibrations.
+   * 
+   * @param nbSteps  the minimal number of integration steps
+   * @param cfeCache  the cache of the cash flow equivalents
+   */
+  public G2ppSwaptionPhysicalProductNumericalIntegration2DPricer(int nbSteps, CashFlowEquivalentCache cfeCache) {
+    this.nbSteps = nbSteps;
+    this.cfeCache = ArgChecker.notNull(cfeCache, "cfeCache");
   }
 
   /**
@@ -85,11 +107,42 @@ public class G2ppSwaptionPhysicalProductNumericalIntegration2DPricer
     ArgChecker.isTrue(model instanceof G2ppPiecewiseConstantParameters,
         "Parameters must be of the type G2ppPiecewiseConstantParameters");
     G2ppPiecewiseConstantParameters g2pp = (G2ppPiecewiseConstantParameters) model;
+    double theta = g2pp.relativeTime(swaption.getExpiry());
+    double[][] gamma = FORMULAS_G2PP.gammaRatioDiscountFactors(g2pp, 0, theta);
+    return presentValue(swaption, multicurve, g2pp, gamma);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The gamma matrices, which depend only on the expiry, are computed once for each expiry of the basket.
+   */
+  @Override
+  protected ToDoubleFunction<ResolvedSwaption> basketPricer(
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    ArgChecker.isTrue(model instanceof G2ppPiecewiseConstantParameters,
+        "Parameters must be of the type G2ppPiecewiseConstantParameters");
+    G2ppPiecewiseConstantParameters g2pp = (G2ppPiecewiseConstantParameters) model;
+    Map<ZonedDateTime, double[][]> gammaByExpiry = new ConcurrentHashMap<>();
+    return swaption -> {
+      double[][] gamma = gammaByExpiry.computeIfAbsent(swaption.getExpiry(),
+          expiry -> FORMULAS_G2PP.gammaRatioDiscountFactors(g2pp, 0, g2pp.relativeTime(expiry)));
+      return presentValue(swaption, multicurve, g2pp, gamma).getAmount();
+    };
+  }
+
+  // present value with the gamma matrix of the swaption expiry
+  private CurrencyAmount presentValue(
+      ResolvedSwaption swaption,
+      RatesProvider multicurve,
+      G2ppPiecewiseConstantParameters g2pp,
+      double[][] gamma) {
+
     Currency ccy = swaption.getCurrency();
     DiscountFactors dsc = multicurve.discountFactors(ccy);
-    ResolvedSwapLeg cfe = CashFlowEquivalentCalculator
-        .cashFlowEquivalentSwap(swaption.getUnderlying(), multicurve); // includes the spread adjusted notional
-    cfe = CashFlowEquivalentUtils.sortCompress(cfe);
+    ResolvedSwapLeg cfe = cashFlowEquivalentSortCompress(swaption, multicurve); // includes the spread adjusted notional
     ImmutableList<SwapPaymentEvent> cfePeriods = cfe.getPaymentEvents();
     int nbCf = cfePeriods.size();
     double theta = g2pp.relativeTime(swaption.getExpiry());
@@ -104,7 +157,6 @@ public class G2ppSwaptionPhysicalProductNumericalIntegration2DPricer
     }
     double rhog2pp = g2pp.getCorrelation();
     double[][] htheta = FORMULAS_G2PP.volatilityMaturityPartRatioDiscountFactors(g2pp, theta, t);
-    double[][] gamma = FORMULAS_G2PP.gammaRatioDiscountFactors(g2pp, 0, theta);
     double[][] alpha = new double[2][nbCf];
     double[] tau2 = new double[nbCf];
     for (int loopcf = 0; loopcf < nbCf; loopcf++) {
@@ -159,5 +211,14 @@ public class G2ppSwaptionPhysicalProductNumericalIntegration2DPricer
       return Math.max(result, 0.0);
     }
   }
-  
+
+  // the sorted and compressed cash flow equivalent of the underlying swap, from the cache if available
+  private ResolvedSwapLeg cashFlowEquivalentSortCompress(ResolvedSwaption swaption, RatesProvider multicurve) {
+    if (cfeCache != null) {
+      return cfeCache.cashFlowEquivalentSwapSortCompress(swaption.getUnderlying(), multicurve);
+    }
+    ResolvedSwapLeg cfe = CashFlowEquivalentCalculator.cashFlowEquivalentSwap(swaption.getUnderlying(), multicurve);
+    return CashFlowEquivalentUtils.sortCompress(cfe);
+  }
+
 }
@@ -0,0 +1,303 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.swaption;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.pricer.impl.rate.swap.CashFlowEquivalentCalculator;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParametersProvider;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.swap.NotionalExchange;
+import com.opengamma.strata.product.swap.ResolvedSwapLeg;
+import com.opengamma.strata.product.swap.SwapPaymentEvent;
+import com.opengamma.strata.product.swaption.ResolvedSwaption;
+
+import marc.henrard.murisq.model.hullwhite.HullWhiteOneFactorPiecewiseConstantFormulas;
+
+/**
+ * Pricing of Bermudan swaptions with physical settlement in the Hull-White one-factor model on a lattice.
+ * <p>
+ * A Bermudan swaption is represented by the list of its exercise opportunities, each opportunity being a
+ * European swaption with the exercise date as expiry and the remaining co-terminal swap as underlying.
+ * The opportunities must be sorted by increasing expiry and have the same long/short flag.
+ * <p>
+ * The lattice is built on the Gaussian state Y(t) = \int_0^t \eta(s) exp(\kappa s) dW(s) in the forward measure
+ * associated to the terminal date T. At each exercise date the nodes cover a fixed number of standard deviations
+ * of Y. The transition between consecutive exercise dates uses the exact Gaussian transition density, normalized
+ * on the nodes, and no intermediary time steps are required. At an exercise date t, the deflated value of a payment
+ * at u is P(0,T) P(t,u) / P(t,T) = P(0,u) exp(-h Y(t) - 0.5 h^2 V(t)) with h = H(u) - H(T) and V(t) the variance
+ * of Y(t). The backward induction is done on primitive arrays.
+ * <p>
+ * In the batch mode, several Bermudan swaptions with the same exercise dates are priced on the same lattice.
+ * The lattice is then built in the forward measure associated to the latest payment date of all the swaptions,
+ * the results are equal to the ones of the swaptions priced alone up to the accuracy of the lattice.
+ *
+ * @author Marc Henrard
+ */
+public class HullWhiteBermudanSwaptionPhysicalProductLatticePricer {
+
+  /** The default number of nodes at each exercise date. */
+  private static final int NB_NODES_DEFAULT = 301;
+  /** The default number of standard deviations covered by the nodes on each side. */
+  private static final double NB_STD_DEFAULT = 7.0d;
+  /** Formulas for the Hull-White one-factor model with piecewise constant volatility. */
+  private static final HullWhiteOneFactorPiecewiseConstantFormulas FORMULAS_HW =
+      HullWhiteOneFactorPiecewiseConstantFormulas.DEFAULT;
+
+  /**
+  * Default implementation.
+  */
+  public static final HullWhiteBermudanSwaptionPhysicalProductLatticePricer DEFAULT =
+      new HullWhiteBermudanSwaptionPhysicalProductLatticePricer(NB_NODES_DEFAULT, NB_STD_DEFAULT);
+
+  /** The number of nodes at each exercise date. */
+  private final int nbNodes;
+  /** The number of standard deviations covered by the nodes on each side. */
+  private final double nbStd;
+
+  /**
+  * Creates an instance.
+  *
+  * @param nbNodes  the number of nodes at each exercise date
+  * @param nbStd  the number of standard deviations covered by the nodes on each side
+  */
+  public HullWhiteBermudanSwaptionPhysicalProductLatticePricer(int nbNodes, double nbStd) {
+    ArgChecker.isTrue(nbNodes >= 3, "at least 3 nodes required");
+    ArgChecker.isTrue(nbStd > 0.0d, "number of standard deviations must be positive");
+    this.nbNodes = nbNodes;
+    this.nbStd = nbStd;
+  }
+
+  /**
+   * Computes the present value of a Bermudan swaption in the Hull-White one-factor model.
+   *
+   * @param bermudan  the exercise opportunities of the Bermudan swaption
+   * @param multicurve  the rates provider
+   * @param hwProvider  the Hull-White model parameters
+   * @return the present value
+   */
+  public CurrencyAmount presentValue(
+      List<ResolvedSwaption> bermudan,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider) {
+
+    double pv = presentValueBatch(ImmutableList.of(bermudan), multicurve, hwProvider)[0];
+    return CurrencyAmount.of(bermudan.get(0).getCurrency(), pv);
+  }
+
+  /**
+   * Computes the present values of several Bermudan swaptions with the same exercise dates in the Hull-White
+   * one-factor model.
+   * <p>
+   * The lattice and the transition probabilities are computed once and used for all the swaptions.
+   *
+   * @param bermudans  the Bermudan swaptions, each one described by its exercise opportunities
+   * @param multicurve  the rates provider
+   * @param hwProvider  the Hull-White model parameters
+   * @return the present values
+   */
+  public double[] presentValueBatch(
+      List<List<ResolvedSwaption>> bermudans,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider) {
+
+    ArgChecker.isTrue(bermudans.size() > 0, "at least one Bermudan swaption required");
+    List<ResolvedSwaption> reference = bermudans.get(0);
+    int nbExercises = reference.size();
+    ArgChecker.isTrue(nbExercises > 0, "at least one exercise date required");
+    double[] times = new double[nbExercises];
+    for (int loopex = 0; loopex < nbExercises; loopex++) {
+      times[loopex] = hwProvider.relativeTime(reference.get(loopex).getExpiry());
+      ArgChecker.isTrue(times[loopex] > ((loopex == 0) ? 0.0d : times[loopex - 1]),
+          "exercise times must be positive and increasing");
+    }
+    int nbBermudans = bermudans.size();
+    ResolvedSwapLeg[][] cfe = new ResolvedSwapLeg[nbBermudans][nbExercises];
+    LocalDate terminalDate = hwProvider.getValuationDate();
+    for (int loopb = 0; loopb < nbBermudans; loopb++) {
+      List<ResolvedSwaption> bermudan = bermudans.get(loopb);
+      ArgChecker.isTrue(bermudan.size() == nbExercises, "all Bermudan swaptions must have the same exercise dates");
+      for (int loopex = 0; loopex < nbExercises; loopex++) {
+        ResolvedSwaption swaption = bermudan.get(loopex);
+        ZonedDateTime expiry = reference.get(loopex).getExpiry();
+        ArgChecker.isTrue(swaption.getExpiry().equals(expiry),
+            "all Bermudan swaptions must have the same exercise dates");
+        ArgChecker.isTrue(swaption.getLongShort().equals(bermudan.get(0).getLongShort()),
+            "all exercise opportunities must have the same long/short flag");
+        cfe[loopb][loopex] = CashFlowEquivalentCalculator.cashFlowEquivalentSwap(swaption.getUnderlying(), multicurve);
+        for (SwapPaymentEvent event : cfe[loopb][loopex].getPaymentEvents()) {
+          terminalDate = (event.getPaymentDate().isAfter(terminalDate)) ? event.getPaymentDate() : terminalDate;
+        }
+      }
+    }
+    HullWhiteOneFactorPiecewiseConstantParameters parameters = hwProvider.getParameters();
+    double terminalTime = hwProvider.relativeTime(terminalDate);
+    Lattice lattice = lattice(times, parameters);
+    double[] pv = new double[nbBermudans];
+    for (int loopb = 0; loopb < nbBermudans; loopb++) {
+      Currency ccy = bermudans.get(loopb).get(0).getCurrency();
+      double[][] exerciseValues = new double[nbExercises][];
+      for (int loopex = 0; loopex < nbExercises; loopex++) {
+        exerciseValues[loopex] = exerciseValues(
+            cfe[loopb][loopex], ccy, multicurve, hwProvider, terminalTime, lattice.nodes[loopex], lattice.variances[loopex]);
+      }
+      pv[loopb] = backwardInduction(lattice, exerciseValues) * bermudans.get(loopb).get(0).getLongShort().sign();
+    }
+    return pv;
+  }
+
+  //-------------------------------------------------------------------------
+  // The lattice: nodes, variances and transition probabilities
+  private Lattice lattice(double[] times, HullWhiteOneFactorPiecewiseConstantParameters parameters) {
+    int nbExercises = times.length;
+    double[] z = new double[nbNodes];
+    for (int loopnode = 0; loopnode < nbNodes; loopnode++) {
+      z[loopnode] = -nbStd + 2.0d * nbStd * loopnode / (nbNodes - 1);
+    }
+    double[][] nodes = new double[nbExercises][nbNodes];
+    double[] variances = new double[nbExercises];
+    double[][] transitions = new double[nbExercises][];
+    double timePrevious = 0.0d;
+    double[] nodesPrevious = new double[] {0.0d};
+    for (int loopex = 0; loopex < nbExercises; loopex++) {
+      double variance = FORMULAS_HW.alpha2ForwardGPart(parameters, timePrevious, times[loopex]);
+      variances[loopex] = ((loopex == 0) ? 0.0d : variances[loopex - 1]) + variance;
+      double std = Math.sqrt(variances[loopex]);
+      for (int loopnode = 0; loopnode < nbNodes; loopnode++) {
+        nodes[loopex][loopnode] = std * z[loopnode];
+      }
+      transitions[loopex] = transition(nodesPrevious, nodes[loopex], variance);
+      nodesPrevious = nodes[loopex];
+      timePrevious = times[loopex];
+    }
+    return new Lattice(nodes, variances, transitions);
+  }
+
+  // Transition probabilities from the start nodes to the end nodes, flat array start-major
+  private static double[] transition(double[] startNodes, double[] endNodes, double variance) {
+    int nbStart = startNodes.length;
+    int nbEnd = endNodes.length;
+    double[] transition = new double[nbStart * nbEnd];
+    for (int loopstart = 0; loopstart < nbStart; loopstart++) {
+      int offset = loopstart * nbEnd;
+      double distance2Min = Double.POSITIVE_INFINITY;
+      int indexMin = 0;
+      for (int loopend = 0; loopend < nbEnd; loopend++) {
+        double distance = endNodes[loopend] - startNodes[loopstart];
+        transition[offset + loopend] = distance * distance;
+        if (transition[offset + loopend] < distance2Min) {
+          distance2Min = transition[offset + loopend];
+          indexMin = loopend;
+        }
+      }
+      if (variance <= 0.0d) { // Degenerate case: no move
+        for (int loopend = 0; loopend < nbEnd; loopend++) {
+          transition[offset + loopend] = (loopend == indexMin) ? 1.0d : 0.0d;
+        }
+        continue;
+      }
+      double sum = 0.0d;
+      for (int loopend = 0; loopend < nbEnd; loopend++) { // shifted by the minimal distance to avoid underflow
+        transition[offset + loopend] = Math.exp(-(transition[offset + loopend] - distance2Min) / (2.0d * variance));
+        sum += transition[offset + loopend];
+      }
+      for (int loopend = 0; loopend < nbEnd; loopend++) {
+        transition[offset + loopend] /= sum;
+      }
+    }
+    return transition;
+  }
+
+  // The deflated value of the underlying swap at each node of an exercise date
+  private static double[] exerciseValues(
+      ResolvedSwapLeg cfe,
+      Currency ccy,
+      RatesProvider multicurve,
+      HullWhiteOneFactorPiecewiseConstantParametersProvider hwProvider,
+      double terminalTime,
+      double[] nodes,
+      double variance) {
+
+    double kappa = hwProvider.getParameters().getMeanReversion();
+    double expTerminal = Math.exp(-kappa * terminalTime);
+    List<SwapPaymentEvent> events = cfe.getPaymentEvents();
+    int nbCf = events.size();
+    double[] h = new double[nbCf];
+    double[] amounts = new double[nbCf];
+    for (int loopcf = 0; loopcf < nbCf; loopcf++) {
+      NotionalExchange cf = (NotionalExchange) events.get(loopcf);
+      double u = hwProvider.relativeTime(cf.getPaymentDate());
+      h[loopcf] = (expTerminal - Math.exp(-kappa * u)) / kappa; // H(u) - H(T)
+      amounts[loopcf] = cf.getPaymentAmount().getAmount() * multicurve.discountFactor(ccy, cf.getPaymentDate()) *
+          Math.exp(-0.5d * h[loopcf] * h[loopcf] * variance);
+    }
+    double[] values = new double[nodes.length];
+    for (int loopnode = 0; loopnode < nodes.length; loopnode++) {
+      double value = 0.0d;
+      for (int loopcf = 0; loopcf < nbCf; loopcf++) {
+        value += amounts[loopcf] * Math.exp(-h[loopcf] * nodes[loopnode]);
+      }
+      values[loopnode] = value;
+    }
+    return values;
+  }
+
+  // Backward induction from the last exercise date to today
+  private static double backwardInduction(Lattice lattice, double[][] exerciseValues) {
+    int nbExercises = exerciseValues.length;
+    int nbNodes = exerciseValues[0].length;
+    double[] values = new double[nbNodes];
+    for (int loopnode = 0; loopnode < nbNodes; loopnode++) {
+      values[loopnode] = Math.max(exerciseValues[nbExercises - 1][loopnode], 0.0d);
+    }
+    double[] continuation = new double[nbNodes];
+    for (int loopex = nbExercises - 2; loopex >= 0; loopex--) {
+      double[] transition = lattice.transitions[loopex + 1];
+      for (int loopstart = 0; loopstart < nbNodes; loopstart++) {
+        int offset = loopstart * nbNodes;
+        double sum = 0.0d;
+        for (int loopend = 0; loopend < nbNodes; loopend++) {
+          sum += transition[offset + loopend] * values[loopend];
+        }
+        continuation[loopstart] = Math.max(exerciseValues[loopex][loopstart], sum);
+      }
+      double[] tmp = values;
+      values = continuation;
+      continuation = tmp;
+    }
+    double[] transition0 = lattice.transitions[0];
+    double pv = 0.0d;
+    for (int loopend = 0; loopend < nbNodes; loopend++) {
+      pv += transition0[loopend] * values[loopend];
+    }
+    return pv;
+  }
+
+  /**
+   * Inner class to store the lattice description.
+   */
+  private static final class Lattice {
+
+    /** The nodes at each exercise date, dimensions: exercise dates x nodes. */
+    private final double[][] nodes;
+    /** The variance of the state variable at each exercise date. */
+    private final double[] variances;
+    /** The transition probabilities to each exercise date from the previous one, flat start-major arrays. */
+    private final double[][] transitions;
+
+    private Lattice(double[][] nodes, double[] variances, double[][] transitions) {
+      this.nodes = nodes;
+      this.variances = variances;
+      this.transitions = transitions;
+    }
+  }
+
+}
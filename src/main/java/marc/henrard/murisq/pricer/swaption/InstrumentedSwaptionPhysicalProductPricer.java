@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.swaption;
+
+import java.util.function.ToDoubleFunction;
+
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.swaption.ResolvedSwaption;
+
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
+
+/**
+ * Swaption pricer measuring the latency of an underlying pricer.
+ * <p>
+ * The duration of each present value computation is recorded through {@link PricingMetrics} under the name
+ * "UnderlyingPricerClass.presentValue". The implied volatilities computed by this pricer use the instrumented
+ * present value. The basket pricing uses the basket pricer of the underlying pricer, each swaption being measured.
+ *
+ * @author Marc Henrard
+ */
+public class InstrumentedSwaptionPhysicalProductPricer
+    extends SingleCurrencyModelSwaptionPhysicalProductPricer {
+
+  /** The underlying pricer. */
+  private final SingleCurrencyModelSwaptionPhysicalProductPricer underlying;
+  /** The name of the present value metric. */
+  private final String metricPresentValue;
+
+  /**
+   * Creates an instance.
+   *
+   * @param underlying  the underlying pricer
+   */
+  public InstrumentedSwaptionPhysicalProductPricer(SingleCurrencyModelSwaptionPhysicalProductPricer underlying) {
+    this.underlying = ArgChecker.notNull(underlying, "underlying");
+    this.metricPresentValue = underlying.getClass().getSimpleName() + ".presentValue";
+  }
+
+  @Override
+  public CurrencyAmount presentValue(
+      ResolvedSwaption swaption,
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    long start = PricingMetrics.start();
+    CurrencyAmount pv = underlying.presentValue(swaption, multicurve, model);
+    PricingMetrics.stop(metricPresentValue, start);
+    return pv;
+  }
+
+  @Override
+  protected ToDoubleFunction<ResolvedSwaption> basketPricer(
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    ToDoubleFunction<ResolvedSwaption> pricer = underlying.basketPricer(multicurve, model);
+    return swaption -> {
+      long start = PricingMetrics.start();
+      double pv = pricer.applyAsDouble(swaption);
+      PricingMetrics.stop(metricPresentValue, start);
+      return pv;
+    };
+  }
+
+  /**
+   * Returns the underlying pricer.
+   *
+   * @return the underlying pricer
+   */
+  public SingleCurrencyModelSwaptionPhysicalProductPricer getUnderlying() {
+    return underlying;
+  }
+
+}
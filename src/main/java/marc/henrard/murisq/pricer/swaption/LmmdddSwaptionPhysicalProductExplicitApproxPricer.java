@@ -3,32 +3,45 @@
  */
 package marc.henrard.murisq.pricer.swaption;
 
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.stream.IntStream;
 
 import com.google.common.collect.ImmutableMap;
+import com.opengamma.strata.basics.ReferenceData;
 import com.opengamma.strata.basics.currency.Currency;
 import com.opengamma.strata.basics.currency.CurrencyAmount;
 import com.opengamma.strata.basics.currency.Payment;
+import com.opengamma.strata.basics.date.Tenor;
 import com.opengamma.strata.basics.value.ValueDerivatives;
 import com.opengamma.strata.collect.ArgChecker;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.array.DoubleMatrix;
 import com.opengamma.strata.collect.tuple.Pair;
 import com.opengamma.strata.market.sensitivity.PointSensitivityBuilder;
 import com.opengamma.strata.pricer.DiscountFactors;
 import com.opengamma.strata.pricer.impl.option.BlackFormulaRepository;
-import com.opengamma.strata.pricer.impl.rate.swap.CashFlowEquivalentCalculator;
 import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.pricer.swap.DiscountingSwapProductPricer;
+import com.opengamma.strata.product.common.BuySell;
 import com.opengamma.strata.product.common.LongShort;
+import com.opengamma.strata.product.common.PutCall;
 import com.opengamma.strata.product.swap.NotionalExchange;
 import com.opengamma.strata.product.swap.ResolvedSwap;
 import com.opengamma.strata.product.swap.ResolvedSwapLeg;
+import com.opengamma.strata.product.swap.SwapLegType;
+import com.opengamma.strata.product.swap.type.FixedIborSwapConvention;
 import com.opengamma.strata.product.swaption.ResolvedSwaption;
 
+import marc.henrard.murisq.model.bachelier.BachelierFormula;
 import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
 import marc.henrard.murisq.model.lmm.LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters;
+import marc.henrard.murisq.pricer.swap.CashFlowEquivalentCache;
+import marc.henrard.murisq.pricer.swap.CashFlowEquivalentCalculator;
 
 /**
  * Pricing of European physical settlement swaptions in the Libor Market Model with deterministic multiplicative spread.
@@ -49,10 +62,32 @@ public class LmmdddSwaptionPhysicalProductExplicitApproxPricer
    */
   public static final LmmdddSwaptionPhysicalProductExplicitApproxPricer DEFAULT = 
       new LmmdddSwaptionPhysicalProductExplicitApproxPricer();
+  /** The pricer used for swap measures. */
+  private static final DiscountingSwapProductPricer PRICER_SWAP = DiscountingSwapProductPricer.DEFAULT;
+
+  /** The cache of the cash flow equivalents. Null if the cash flow equivalents are not cached. */
+  private final CashFlowEquivalentCache cfeCache;
+
   /**
    * Creates an instance.
    */
   public LmmdddSwaptionPhysicalProductExplicitApproxPricer() {
+    this.cfeCache = null;
+  }
+
+  /**
+   * Creates an instance using a cache for the cash flow equivalents of the underlying swaps.
+   * <p>
+   * The cache is useful when the same swaptions are priced with the same multi-curve and different
+   * model parameters, like in calibrations. The cache is used only for the present value.
+   * <p>
+   * The cache keeps strong references to the swaps and multi-curves priced until they are evicted. It should be
+   * scoped to one calibration and not shared through a long-lived pricer.
+   * 
+   * @param cfeCache  the cache of the cash flow equivalents
+   */
+  public LmmdddSwaptionPhysicalProductExplicitApproxPricer(CashFlowEquivalentCache cfeCache) {
+    this.cfeCache = ArgChecker.notNull(cfeCache, "cfeCache");
   }
 
   @Override
@@ -67,8 +102,9 @@ public class LmmdddSwaptionPhysicalProductExplicitApproxPricer
     DiscountFactors dsc = multicurve.discountFactors(swaption.getCurrency());
     double amr = lmm.getMeanReversion();
     // 1. Swaption CFE preparation
-    ResolvedSwapLeg cfe = CashFlowEquivalentCalculator
-        .cashFlowEquivalentSwap(swaption.getUnderlying(), multicurve); // includes the spread adjusted notional
+    ResolvedSwapLeg cfe = (cfeCache != null) ? // includes the spread adjusted notional
+        cfeCache.cashFlowEquivalentSwap(swaption.getUnderlying(), multicurve) :
+        CashFlowEquivalentCalculator.cashFlowEquivalentSwap(swaption.getUnderlying(), multicurve);
     int nbCfInit = cfe.getPaymentEvents().size();
     double[] cfTimesInit = new double[nbCfInit]; // times, not sorted
     double[] cfAmountsInit = new double[nbCfInit]; 
@@ -523,4 +559,370 @@ public class LmmdddSwaptionPhysicalProductExplicitApproxPricer
     return Pair.of(pv, ps);
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * Computes the present values and the Bachelier implied volatilities of a cube of swaptions.
+   * <p>
+   * The swaptions are long physical settlement payer swaptions on the swaps created by the convention for each
+   * expiry, tenor and strike. The swap trade date is the expiry date; the expiry time and zone are the ones
+   * of the model valuation.
+   * <p>
+   * The prices are the same as the ones of
+   * {@link #presentValue(ResolvedSwaption, RatesProvider, SingleCurrencyModelParameters)}.
+   * The cash flow equivalents of the fixed legs are linear in the strike and the model quantities at the
+   * initial rates (discount factors, forwards, cumulative volatilities) do not depend on the strike. For each
+   * expiry, those quantities are computed once on the LMM dates of the longest swap and are shared by all the
+   * tenors, as the swaps for the same expiry have the same start date. The strike dependent part of the
+   * algorithm is done for all strikes in the inner loops. The expiries are computed in parallel.
+   * <p>
+   * The implied volatility is computed with {@link BachelierFormula#impliedVolatilityApproxLfk4} using the
+   * model time to expiry.
+   *
+   * @param expiryDates  the expiry dates
+   * @param tenors  the tenors of the underlying swaps
+   * @param strikes  the strikes, i.e. the fixed rates of the underlying swaps
+   * @param convention  the convention of the underlying swaps
+   * @param notional  the notional of the underlying swaps
+   * @param multicurve  the rates provider
+   * @param lmm  the LMM parameters
+   * @param refData  the reference data
+   * @return the present values and implied volatilities
+   */
+  public CubeResult presentValueCube(
+      List<LocalDate> expiryDates,
+      List<Tenor> tenors,
+      DoubleArray strikes,
+      FixedIborSwapConvention convention,
+      double notional,
+      RatesProvider multicurve,
+      LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters lmm,
+      ReferenceData refData) {
+
+    ArgChecker.isTrue(lmm.getValuationDate().equals(multicurve.getValuationDate()),
+        "model and rate data should be for the same date");
+    ArgChecker.isTrue(notional > 0, "notional must be strictly positive");
+    int nbExpiries = expiryDates.size();
+    int nbTenors = tenors.size();
+    double[][] presentValues = new double[nbExpiries * nbTenors][];
+    double[][] impliedVolatilities = new double[nbExpiries * nbTenors][];
+    IntStream.range(0, nbExpiries).parallel().forEach(loopexp -> presentValueExpiry(
+        expiryDates.get(loopexp), tenors, strikes.toArrayUnsafe(), convention, notional, multicurve, lmm, refData,
+        presentValues, impliedVolatilities, loopexp * nbTenors));
+    return new CubeResult(nbExpiries, nbTenors,
+        DoubleMatrix.ofUnsafe(presentValues), DoubleMatrix.ofUnsafe(impliedVolatilities));
+  }
+
+  // present values and implied volatilities of all tenors and strikes for one expiry
+  private void presentValueExpiry(
+      LocalDate expiryDate,
+      List<Tenor> tenors,
+      double[] strikes,
+      FixedIborSwapConvention convention,
+      double notional,
+      RatesProvider multicurve,
+      LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters lmm,
+      ReferenceData refData,
+      double[][] presentValues,
+      double[][] impliedVolatilities,
+      int firstRow) {
+
+    DiscountFactors dsc = multicurve.discountFactors(convention.getFixedLeg().getCurrency());
+    double amr = lmm.getMeanReversion();
+    ZonedDateTime expiry = ZonedDateTime.of(expiryDate, lmm.getValuationTime(), lmm.getValuationZone());
+    double timeToExpiry = lmm.relativeTime(expiry);
+    // 1. Swaps CFE: Ibor leg and fixed leg with unit rate
+    int nbTenors = tenors.size();
+    int[][] indexCfIbor = new int[nbTenors][];
+    double[][] cfAmountsIbor = new double[nbTenors][];
+    int[][] indexCfFixed = new int[nbTenors][];
+    double[][] cfAmountsFixed = new double[nbTenors][];
+    double[] parRates = new double[nbTenors];
+    double[] pvbps = new double[nbTenors];
+    int[] indEnd = new int[nbTenors];
+    int indStart = Integer.MAX_VALUE;
+    int indEndMax = 0;
+    for (int looptenor = 0; looptenor < nbTenors; looptenor++) {
+      ResolvedSwap swap = convention
+          .createTrade(expiryDate, tenors.get(looptenor), BuySell.BUY, notional, 1.0d, refData)
+          .resolve(refData).getProduct();
+      ResolvedSwapLeg legFixed = swap.getLegs(SwapLegType.FIXED).get(0);
+      ResolvedSwapLeg legIbor = swap.getLegs(SwapLegType.IBOR).get(0);
+      ResolvedSwapLeg cfeIbor = CashFlowEquivalentCalculator.cashFlowEquivalentIborLeg(legIbor, multicurve);
+      ResolvedSwapLeg cfeFixed = CashFlowEquivalentCalculator.cashFlowEquivalentFixedLeg(legFixed, multicurve);
+      indexCfIbor[looptenor] = lmm.getIborTimeIndex(cfeTimes(cfeIbor, lmm));
+      cfAmountsIbor[looptenor] = cfeAmounts(cfeIbor);
+      indexCfFixed[looptenor] = lmm.getIborTimeIndex(cfeTimes(cfeFixed, lmm));
+      cfAmountsFixed[looptenor] = cfeAmounts(cfeFixed);
+      int indStartTenor = Math.min(
+          Arrays.stream(indexCfIbor[looptenor]).min().getAsInt(),
+          Arrays.stream(indexCfFixed[looptenor]).min().getAsInt());
+      ArgChecker.isTrue(looptenor == 0 || indStartTenor == indStart,
+          "swaps with the same expiry must start on the same LMM date");
+      indStart = indStartTenor;
+      indEnd[looptenor] = Math.max(
+          Arrays.stream(indexCfIbor[looptenor]).max().getAsInt(),
+          Arrays.stream(indexCfFixed[looptenor]).max().getAsInt());
+      indEndMax = Math.max(indEndMax, indEnd[looptenor]);
+      parRates[looptenor] = PRICER_SWAP.parRate(swap, multicurve);
+      pvbps[looptenor] = Math.abs(PRICER_SWAP.getLegPricer().pvbp(legFixed, multicurve));
+    }
+    // 2. Model data on the LMM dates of the longest swap, shared by all tenors and strikes
+    int nbFactor = lmm.getFactorCount();
+    final double[][] volLMM = lmm.getVolatilities().toArrayUnsafe();
+    final double[] timeLmm = lmm.getIborTimes().toArrayUnsafe();
+    int nbCfDatesMax = indEndMax - indStart + 1;
+    final double[] dfLmm = new double[nbCfDatesMax];
+    for (int loopcf = 0; loopcf < nbCfDatesMax; loopcf++) {
+      dfLmm[loopcf] = dsc.discountFactor(timeLmm[indStart + loopcf]);
+    }
+    final double[][] gammaLMM = new double[nbCfDatesMax - 1][];
+    final double[] deltaSwap = new double[nbCfDatesMax - 1];
+    System.arraycopy(lmm.getAccrualFactors().toArrayUnsafe(), indStart, deltaSwap, 0, nbCfDatesMax - 1);
+    final double[] aSwap = new double[nbCfDatesMax - 1];
+    System.arraycopy(lmm.getDisplacements().toArrayUnsafe(), indStart, aSwap, 0, nbCfDatesMax - 1);
+    final double[] p0 = new double[nbCfDatesMax];
+    for (int loopcf = 0; loopcf < nbCfDatesMax; loopcf++) {
+      p0[loopcf] = dfLmm[loopcf] / dfLmm[0];
+    }
+    final double meanReversionImpact = Math.abs(amr) < 1.0E-6 ?
+        timeToExpiry : (Math.exp(2.0d * amr * timeToExpiry) - 1.0d) / (2.0d * amr); // To handle 0 mean reversion.
+    final double[] mu0 = new double[nbFactor];
+    final double[] tau = new double[nbCfDatesMax];
+    final double[] tau2 = new double[nbCfDatesMax];
+    for (int loopcf = 0; loopcf < nbCfDatesMax - 1; loopcf++) {
+      gammaLMM[loopcf] = volLMM[indStart + loopcf];
+      double forwardLmm = (dfLmm[loopcf] / dfLmm[loopcf + 1] - 1.0d) / deltaSwap[loopcf];
+      double rate0Ratio = (forwardLmm + aSwap[loopcf]) / (forwardLmm + 1 / deltaSwap[loopcf]);
+      for (int loopfact = 0; loopfact < nbFactor; loopfact++) {
+        mu0[loopfact] += rate0Ratio * gammaLMM[loopcf][loopfact];
+        tau2[loopcf + 1] += mu0[loopfact] * mu0[loopfact];
+      }
+      tau2[loopcf + 1] = tau2[loopcf + 1] * meanReversionImpact;
+      tau[loopcf + 1] = Math.sqrt(tau2[loopcf + 1]);
+    }
+    // 3. Strike dependent part, by tenor
+    for (int looptenor = 0; looptenor < nbTenors; looptenor++) {
+      int nbCfDatesLmm = indEnd[looptenor] - indStart + 1;
+      double[] cfAmountsIborLmm = new double[nbCfDatesLmm];
+      for (int loopcf = 0; loopcf < indexCfIbor[looptenor].length; loopcf++) {
+        cfAmountsIborLmm[indexCfIbor[looptenor][loopcf] - indStart] += cfAmountsIbor[looptenor][loopcf];
+      }
+      double[] cfAmountsFixedLmm = new double[nbCfDatesLmm];
+      for (int loopcf = 0; loopcf < indexCfFixed[looptenor].length; loopcf++) {
+        cfAmountsFixedLmm[indexCfFixed[looptenor][loopcf] - indStart] += cfAmountsFixed[looptenor][loopcf];
+      }
+      double[] pv = presentValueStrikes(strikes, cfAmountsIborLmm, cfAmountsFixedLmm, nbCfDatesLmm, nbFactor,
+          dfLmm[0], p0, tau, tau2, deltaSwap, aSwap, gammaLMM, meanReversionImpact);
+      double[] iv = new double[strikes.length];
+      for (int loopstrike = 0; loopstrike < strikes.length; loopstrike++) {
+        iv[loopstrike] = BachelierFormula.impliedVolatilityApproxLfk4(pv[loopstrike], parRates[looptenor],
+            strikes[loopstrike], timeToExpiry, pvbps[looptenor], PutCall.CALL);
+      }
+      presentValues[firstRow + looptenor] = pv;
+      impliedVolatilities[firstRow + looptenor] = iv;
+    }
+  }
+
+  // the pricing algorithm for all strikes, from the model data computed at the initial rates
+  private static double[] presentValueStrikes(
+      double[] strikes,
+      double[] cfAmountsIbor,
+      double[] cfAmountsFixedUnit,
+      int nbCfDatesLmm,
+      int nbFactor,
+      double df0,
+      double[] p0,
+      double[] tau,
+      double[] tau2,
+      double[] deltaSwap,
+      double[] aSwap,
+      double[][] gammaLMM,
+      double meanReversionImpact) {
+
+    int nbStrikes = strikes.length;
+    boolean[] isCall = new boolean[nbStrikes];
+    double[] signs = new double[nbStrikes];
+    for (int loopstrike = 0; loopstrike < nbStrikes; loopstrike++) {
+      double amount0 = cfAmountsIbor[0] + strikes[loopstrike] * cfAmountsFixedUnit[0];
+      isCall[loopstrike] = (amount0 < 0);
+      signs[loopstrike] = (amount0 > 0.0d) ? -1.0d : 1.0d; // Change sign to have standard call
+    }
+    final double[][] cfAmounts = new double[nbCfDatesLmm][nbStrikes];
+    for (int loopcf = 0; loopcf < nbCfDatesLmm; loopcf++) {
+      for (int loopstrike = 0; loopstrike < nbStrikes; loopstrike++) {
+        cfAmounts[loopcf][loopstrike] = signs[loopstrike] *
+            (cfAmountsIbor[loopcf] + strikes[loopstrike] * cfAmountsFixedUnit[loopcf]);
+      }
+    }
+    // Initial rates; first amount is the strike
+    final double[] b0 = new double[nbStrikes];
+    final double[] sumNum = new double[nbStrikes];
+    final double[] sumDen = new double[nbStrikes];
+    for (int loopcf = 1; loopcf < nbCfDatesLmm; loopcf++) {
+      for (int loopstrike = 0; loopstrike < nbStrikes; loopstrike++) {
+        double dP = cfAmounts[loopcf][loopstrike] * p0[loopcf];
+        b0[loopstrike] += dP;
+        sumNum[loopstrike] += dP - dP * tau2[loopcf] / 2.0;
+        sumDen[loopstrike] += dP * tau[loopcf];
+      }
+    }
+    final double[] bK = new double[nbStrikes];
+    final double[] bM = new double[nbStrikes];
+    final double[] xBar = new double[nbStrikes];
+    final double[] pMPrevious = new double[nbStrikes];
+    for (int loopstrike = 0; loopstrike < nbStrikes; loopstrike++) {
+      bK[loopstrike] = -cfAmounts[0][loopstrike];
+      bM[loopstrike] = (b0[loopstrike] + bK[loopstrike]) / 2.0d;
+      xBar[loopstrike] = (sumNum[loopstrike] - bM[loopstrike]) / sumDen[loopstrike];
+      pMPrevious[loopstrike] = p0[0] * (1 - xBar[loopstrike] * tau[0] - tau2[0] / 2.0);
+    }
+    // Middle point rates
+    final double[] rateMRatio = new double[nbStrikes];
+    final double[] alphaM = new double[nbStrikes];
+    final double[][] muM = new double[nbFactor][nbStrikes];
+    final double[][] sigmaM = new double[nbFactor][nbStrikes];
+    for (int loopcf = 0; loopcf < nbCfDatesLmm - 1; loopcf++) {
+      for (int loopstrike = 0; loopstrike < nbStrikes; loopstrike++) {
+        double pM = p0[loopcf + 1] * (1 - xBar[loopstrike] * tau[loopcf + 1] - tau2[loopcf + 1] / 2.0);
+        double liborM = (pMPrevious[loopstrike] / pM - 1.0d) / deltaSwap[loopcf];
+        rateMRatio[loopstrike] = (liborM + aSwap[loopcf]) / (liborM + 1 / deltaSwap[loopcf]);
+        alphaM[loopstrike] = cfAmounts[loopcf + 1][loopstrike] * pM / bM[loopstrike];
+        pMPrevious[loopstrike] = pM;
+      }
+      for (int loopfact = 0; loopfact < nbFactor; loopfact++) {
+        double gamma = gammaLMM[loopcf][loopfact];
+        double[] muMFact = muM[loopfact];
+        double[] sigmaMFact = sigmaM[loopfact];
+        for (int loopstrike = 0; loopstrike < nbStrikes; loopstrike++) {
+          muMFact[loopstrike] += rateMRatio[loopstrike] * gamma;
+          sigmaMFact[loopstrike] += alphaM[loopstrike] * muMFact[loopstrike];
+        }
+      }
+    }
+    double[] pv = new double[nbStrikes];
+    for (int loopstrike = 0; loopstrike < nbStrikes; loopstrike++) {
+      double normSigmaM = 0;
+      for (int loopfact = 0; loopfact < nbFactor; loopfact++) {
+        normSigmaM += sigmaM[loopfact][loopstrike] * sigmaM[loopfact][loopstrike];
+      }
+      double impliedBlackVol = Math.sqrt(normSigmaM * meanReversionImpact);
+      pv[loopstrike] = df0 *
+          BlackFormulaRepository.price(b0[loopstrike], bK[loopstrike], 1.0d, impliedBlackVol, isCall[loopstrike]);
+    }
+    return pv;
+  }
+
+  // the times of the payments of a cash flow equivalent
+  private static double[] cfeTimes(
+      ResolvedSwapLeg cfe,
+      LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters lmm) {
+
+    int nbCf = cfe.getPaymentEvents().size();
+    double[] times = new double[nbCf];
+    for (int loopcf = 0; loopcf < nbCf; loopcf++) {
+      times[loopcf] = lmm.getTimeMeasure().relativeTime(
+          lmm.getValuationDate(),
+          ((NotionalExchange) cfe.getPaymentEvents().get(loopcf)).getPaymentDate());
+    }
+    return times;
+  }
+
+  // the amounts of the payments of a cash flow equivalent
+  private static double[] cfeAmounts(ResolvedSwapLeg cfe) {
+    int nbCf = cfe.getPaymentEvents().size();
+    double[] amounts = new double[nbCf];
+    for (int loopcf = 0; loopcf < nbCf; loopcf++) {
+      amounts[loopcf] = ((NotionalExchange) cfe.getPaymentEvents().get(loopcf)).getPaymentAmount().getAmount();
+    }
+    return amounts;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * The present values and implied volatilities of a cube of swaptions.
+   * <p>
+   * The results are stored in matrices with one row by expiry and tenor, the row of expiry index {@code e}
+   * and tenor index {@code t} being {@code e * nbTenors + t}, and one column by strike.
+   */
+  public static final class CubeResult {
+
+    /** The number of expiries. */
+    private final int nbExpiries;
+    /** The number of tenors. */
+    private final int nbTenors;
+    /** The present values. */
+    private final DoubleMatrix presentValues;
+    /** The Bachelier implied volatilities. */
+    private final DoubleMatrix impliedVolatilities;
+
+    // Private constructor
+    private CubeResult(int nbExpiries, int nbTenors, DoubleMatrix presentValues, DoubleMatrix impliedVolatilities) {
+      this.nbExpiries = nbExpiries;
+      this.nbTenors = nbTenors;
+      this.presentValues = presentValues;
+      this.impliedVolatilities = impliedVolatilities;
+    }
+
+    /**
+     * Returns the number of expiries.
+     *
+     * @return the number
+     */
+    public int getNbExpiries() {
+      return nbExpiries;
+    }
+
+    /**
+     * Returns the number of tenors.
+     *
+     * @return the number
+     */
+    public int getNbTenors() {
+      return nbTenors;
+    }
+
+    /**
+     * Returns the present values, one row by expiry and tenor and one column by strike.
+     *
+     * @return the present values
+     */
+    public DoubleMatrix getPresentValues() {
+      return presentValues;
+    }
+
+    /**
+     * Returns the Bachelier implied volatilities, one row by expiry and tenor and one column by strike.
+     *
+     * @return the implied volatilities
+     */
+    public DoubleMatrix getImpliedVolatilities() {
+      return impliedVolatilities;
+    }
+
+    /**
+     * Returns the present value of one swaption of the cube.
+     *
+     * @param expiryIndex  the index of the expiry
+     * @param tenorIndex  the index of the tenor
+     * @param strikeIndex  the index of the strike
+     * @return the present value
+     */
+    public double presentValue(int expiryIndex, int tenorIndex, int strikeIndex) {
+      return presentValues.get(expiryIndex * nbTenors + tenorIndex, strikeIndex);
+    }
+
+    /**
+     * Returns the Bachelier implied volatility of one swaption of the cube.
+     *
+     * @param expiryIndex  the index of the expiry
+     * @param tenorIndex  the index of the tenor
+     * @param strikeIndex  the index of the strike
+     * @return the implied volatility
+     */
+    public double impliedVolatility(int expiryIndex, int tenorIndex, int strikeIndex) {
+      return impliedVolatilities.get(expiryIndex * nbTenors + tenorIndex, strikeIndex);
+    }
+
+  }
+
 }
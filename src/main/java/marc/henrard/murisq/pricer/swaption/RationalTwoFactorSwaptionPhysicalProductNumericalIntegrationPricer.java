@@ -38,7 +38,6 @@ public class RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer
 
   /** Minimal number of integration steps in the integration. Default value. */
   private static final int NB_INTEGRATION_STEPS_DEFAULT = 10;
-  public static final RationalTwoFactorFormulas FORMULAS = RationalTwoFactorFormulas.DEFAULT;
 
   /** Default implementation. */
   public static final RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer DEFAULT =
@@ -46,12 +45,28 @@ public class RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer
   
   /** Minimal number of integration steps in the integration. Default value. */
   private final int nbSteps;
+  /** Repository for formulas associated to the two-factor rational model. */
+  private final RationalTwoFactorFormulas formulas;
 
   /**
    * Creates an instance.
    */
   public RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer(int nbIntegrationSteps) {
+    this(nbIntegrationSteps, RationalTwoFactorFormulas.DEFAULT);
+  }
+
+  /**
+   * Creates an instance with given formulas, typically {@link RationalTwoFactorFormulas#HIGH_PERFORMANCE}.
+   * 
+   * @param nbIntegrationSteps  the minimal number of integration steps
+   * @param formulas  the rational two-factor formulas
+   */
+  public RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer(
+      int nbIntegrationSteps,
+      RationalTwoFactorFormulas formulas) {
+
     this.nbSteps = nbIntegrationSteps;
+    this.formulas = ArgChecker.notNull(formulas, "formulas");
   }
 
   @Override
@@ -67,8 +82,8 @@ public class RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer
     ZonedDateTime expiryDateTime = swaption.getExpiry();
     double expiryTime = model.relativeTime(expiryDateTime);
     ResolvedSwap underlying = swaption.getUnderlying();
-    double[] c = FORMULAS.swapCoefficients(underlying, rates, model2);
-    double pvNum = FORMULAS
+    double[] c = formulas.swapCoefficients(underlying, rates, model2);
+    double pvNum = formulas
         .pvNumericalIntegration(c, expiryTime, model2.a1(), model2.a2(), model2.getCorrelation(), nbSteps);
     return CurrencyAmount.of(ccy, pvNum * ((swaption.getLongShort() == LongShort.LONG) ? 1.0 : -1.0));
   }
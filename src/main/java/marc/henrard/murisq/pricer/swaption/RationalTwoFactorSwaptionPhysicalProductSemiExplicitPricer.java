@@ -34,11 +34,11 @@ public class RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer
 
   /** Minimal number of integration steps in the integration. Default value. */
   private static final int NB_INTEGRATION_STEPS_DEFAULT = 10;
-  /** Repository for formulas associated to the two-factor rational model. */
-  private static final RationalTwoFactorFormulas FORMULAS_2 = RationalTwoFactorFormulas.DEFAULT;
   
   /** Number of integration steps in the integration. */
   private final int nbSteps;
+  /** Repository for formulas associated to the two-factor rational model. */
+  private final RationalTwoFactorFormulas formulas;
   
   /** Default implementation. */
   public static final RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer DEFAULT =
@@ -48,7 +48,21 @@ public class RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer
   * Creates an instance.
   */
   public RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer(int nbIntegrationSteps) {
+    this(nbIntegrationSteps, RationalTwoFactorFormulas.DEFAULT);
+  }
+
+  /**
+   * Creates an instance with given formulas, typically {@link RationalTwoFactorFormulas#HIGH_PERFORMANCE}.
+   * 
+   * @param nbIntegrationSteps  the minimal number of integration steps
+   * @param formulas  the rational two-factor formulas
+   */
+  public RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer(
+      int nbIntegrationSteps,
+      RationalTwoFactorFormulas formulas) {
+
     this.nbSteps = nbIntegrationSteps;
+    this.formulas = ArgChecker.notNull(formulas, "formulas");
   }
 
   @Override
@@ -64,8 +78,8 @@ public class RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer
     ZonedDateTime expiryDateTime = swaption.getExpiry();
     double expiryTime = model.relativeTime(expiryDateTime);
     ResolvedSwap underlying = swaption.getUnderlying();
-    double[] c = FORMULAS_2.swapCoefficients(underlying, rates, model2);
-    double pvNum = FORMULAS_2
+    double[] c = formulas.swapCoefficients(underlying, rates, model2);
+    double pvNum = formulas
         .pvSemiExplicit(c, expiryTime, model2.a1(), model2.a2(), model2.getCorrelation(), nbSteps);
     return CurrencyAmount.of(ccy, (swaption.getLongShort() == LongShort.LONG) ? pvNum : -pvNum);
   }
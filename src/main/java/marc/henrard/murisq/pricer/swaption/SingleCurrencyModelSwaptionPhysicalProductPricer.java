@@ -3,6 +3,13 @@
  */
 package marc.henrard.murisq.pricer.swaption;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
+
 import com.opengamma.strata.basics.currency.CurrencyAmount;
 import com.opengamma.strata.collect.ArgChecker;
 import com.opengamma.strata.pricer.impl.option.BlackFormulaRepository;
@@ -28,6 +35,8 @@ public abstract class SingleCurrencyModelSwaptionPhysicalProductPricer {
   /** The pricer used for swap measures. */
   private static final DiscountingSwapProductPricer PRICER_SWAP =
       DiscountingSwapProductPricer.DEFAULT;
+  /** The number of swaptions priced in each task of the basket pricing. */
+  private static final int BASKET_CHUNK_SIZE = 16;
 
   /**
    * Computes the present value of a swaption in a given model.
@@ -44,6 +53,97 @@ public abstract class SingleCurrencyModelSwaptionPhysicalProductPricer {
       RatesProvider multicurve,
       SingleCurrencyModelParameters model);
 
+  /**
+   * Computes the present values of a basket of swaptions in a given model.
+   * <p>
+   * The swaptions are priced in parallel on the common fork-join pool.
+   * See {@link #presentValueBasket(List, RatesProvider, SingleCurrencyModelParameters, Executor)}.
+   * 
+   * @param swaptions  the products to price
+   * @param multicurve  the rates provider
+   * @param model  the model parameters
+   * @return the present values of the swaptions, in the order of the list and in the swaption currencies
+   */
+  public double[] presentValueBasket(
+      List<ResolvedSwaption> swaptions,
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    return presentValueBasket(swaptions, multicurve, model, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Computes the present values of a basket of swaptions in a given model.
+   * <p>
+   * The quantities depending only on the multi-curve and the model are computed once for the basket through
+   * {@link #basketPricer(RatesProvider, SingleCurrencyModelParameters)}. The swaptions are split in chunks
+   * which are priced as tasks on the executor. The method waits for all the tasks to be completed.
+   * If the pricing of a swaption fails, the exception is rethrown as is.
+   * 
+   * @param swaptions  the products to price
+   * @param multicurve  the rates provider
+   * @param model  the model parameters
+   * @param executor  the executor running the pricing tasks
+   * @return the present values of the swaptions, in the order of the list and in the swaption currencies
+   */
+  public double[] presentValueBasket(
+      List<ResolvedSwaption> swaptions,
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model,
+      Executor executor) {
+
+    ArgChecker.notNull(swaptions, "swaptions");
+    ArgChecker.notNull(executor, "executor");
+    int nbSwaptions = swaptions.size();
+    double[] pv = new double[nbSwaptions];
+    if (nbSwaptions == 0) {
+      return pv;
+    }
+    ToDoubleFunction<ResolvedSwaption> pricer = basketPricer(multicurve, model);
+    int nbChunks = (nbSwaptions + BASKET_CHUNK_SIZE - 1) / BASKET_CHUNK_SIZE;
+    CompletableFuture<?>[] tasks = new CompletableFuture<?>[nbChunks];
+    for (int loopchunk = 0; loopchunk < nbChunks; loopchunk++) {
+      int start = loopchunk * BASKET_CHUNK_SIZE;
+      int end = Math.min(start + BASKET_CHUNK_SIZE, nbSwaptions);
+      tasks[loopchunk] = CompletableFuture.runAsync(() -> {
+        for (int loopswpt = start; loopswpt < end; loopswpt++) {
+          pv[loopswpt] = pricer.applyAsDouble(swaptions.get(loopswpt));
+        }
+      }, executor);
+    }
+    try {
+      CompletableFuture.allOf(tasks).join();
+    } catch (CompletionException ex) { // the exception of the failed task
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+      throw ex;
+    }
+    return pv;
+  }
+
+  /**
+   * Returns the function pricing the swaptions of a basket.
+   * <p>
+   * The function is called once for each basket. Implementations can compute in this method the quantities
+   * shared by all the swaptions of the basket. The default implementation uses 
+   * {@link #presentValue(ResolvedSwaption, RatesProvider, SingleCurrencyModelParameters)}.
+   * The function returned is used concurrently from several threads.
+   * 
+   * @param multicurve  the rates provider
+   * @param model  the model parameters
+   * @return the function returning the present value of a swaption
+   */
+  protected ToDoubleFunction<ResolvedSwaption> basketPricer(
+      RatesProvider multicurve,
+      SingleCurrencyModelParameters model) {
+
+    return swaption -> presentValue(swaption, multicurve, model).getAmount();
+  }
+
   /**
    * Computes the implied volatility in the Black model.
    * <p>
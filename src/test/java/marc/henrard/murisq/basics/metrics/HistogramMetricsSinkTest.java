@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.basics.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.data.Offset.offset;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link HistogramMetricsSink} and {@link LatencyHistogram}.
+ *
+ * @author Marc Henrard
+ */
+public class HistogramMetricsSinkTest {
+
+  private static final double TOLERANCE = 1.0E-10;
+
+  @Test
+  public void histogram_empty() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.getCount()).isEqualTo(0L);
+    assertThat(histogram.getTotalNanos()).isEqualTo(0L);
+    assertThat(histogram.getMaxNanos()).isEqualTo(0L);
+    assertThat(histogram.getMeanNanos()).isEqualTo(0.0d);
+    assertThat(histogram.quantileNanos(0.5)).isEqualTo(0L);
+  }
+
+  @Test
+  public void histogram_statistics() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int loopd = 1; loopd <= 100; loopd++) {
+      histogram.record(loopd * 1_000L);
+    }
+    histogram.record(-5L); // recorded as 0
+    assertThat(histogram.getCount()).isEqualTo(101L);
+    assertThat(histogram.getTotalNanos()).isEqualTo(5_050_000L);
+    assertThat(histogram.getMaxNanos()).isEqualTo(100_000L);
+    assertThat(histogram.getMeanNanos()).isEqualTo(5_050_000.0d / 101, offset(TOLERANCE));
+    assertThat(histogram.quantileNanos(0.0d)).isEqualTo(0L);
+    assertThat(histogram.quantileNanos(1.0d)).isEqualTo(100_000L);
+    for (double q = 0.1; q < 0.95; q += 0.1) {
+      long exact = (long) Math.ceil(q * 101 - 1) * 1_000L; // rank minus the zero duration
+      long bound = histogram.quantileNanos(q);
+      assertThat(bound).isGreaterThanOrEqualTo(exact);
+      assertThat(bound).isLessThan(2 * exact);
+    }
+    assertThatIllegalArgumentException().isThrownBy(() -> histogram.quantileNanos(1.5d));
+  }
+
+  @Test
+  public void sink_timers_counters() {
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    sink.recordTime("B.phase", 10L);
+    sink.recordTime("A.phase", 20L);
+    sink.recordTime("A.phase", 30L);
+    sink.increment("A.count", 3L);
+    assertThat(sink.timer("A.phase").getCount()).isEqualTo(2L);
+    assertThat(sink.timer("A.phase").getTotalNanos()).isEqualTo(50L);
+    assertThat(sink.timer("C.phase").getCount()).isEqualTo(0L);
+    assertThat(sink.counter("A.count")).isEqualTo(3L);
+    assertThat(sink.counter("C.count")).isEqualTo(0L);
+    assertThat(sink.getTimers().keySet()).containsExactly("A.phase", "B.phase");
+    assertThat(sink.getCounters()).containsEntry("A.count", 3L);
+    sink.clear();
+    assertThat(sink.getTimers()).isEmpty();
+    assertThat(sink.getCounters()).isEmpty();
+  }
+
+  @Test
+  public void sink_concurrent() {
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    IntStream.range(0, 10_000).parallel().forEach(i -> {
+      sink.recordTime("A.phase", i);
+      sink.increment("A.count", 1L);
+    });
+    assertThat(sink.timer("A.phase").getCount()).isEqualTo(10_000L);
+    assertThat(sink.timer("A.phase").getMaxNanos()).isEqualTo(9_999L);
+    assertThat(sink.counter("A.count")).isEqualTo(10_000L);
+  }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.basics.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link PricingMetrics}.
+ *
+ * @author Marc Henrard
+ */
+public class PricingMetricsTest {
+
+  @AfterEach
+  public void reset() {
+    PricingMetrics.setSink(MetricsSink.NONE);
+  }
+
+  @Test
+  public void disabled_by_default() {
+    assertThat(PricingMetrics.getSink()).isEqualTo(MetricsSink.NONE);
+    assertThat(PricingMetrics.isEnabled()).isFalse();
+  }
+
+  @Test
+  public void null_sink() {
+    assertThatIllegalArgumentException().isThrownBy(() -> PricingMetrics.setSink(null));
+  }
+
+  @Test
+  public void record_when_enabled() {
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    PricingMetrics.setSink(sink);
+    assertThat(PricingMetrics.isEnabled()).isTrue();
+    long start = PricingMetrics.start();
+    PricingMetrics.stop("Test.phase", start);
+    start = PricingMetrics.start();
+    PricingMetrics.stop(PricingMetricsTest.class, "phase", start);
+    PricingMetrics.count("Test.count");
+    PricingMetrics.count("Test.count");
+    assertThat(sink.timer("Test.phase").getCount()).isEqualTo(1L);
+    assertThat(sink.timer("PricingMetricsTest.phase").getCount()).isEqualTo(1L);
+    assertThat(sink.counter("Test.count")).isEqualTo(2L);
+  }
+
+  @Test
+  public void nothing_recorded_when_disabled_at_start() {
+    long start = PricingMetrics.start();
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    PricingMetrics.setSink(sink);
+    PricingMetrics.stop("Test.phase", start);
+    PricingMetrics.stop(PricingMetricsTest.class, "phase", start);
+    assertThat(sink.getTimers()).isEmpty();
+  }
+
+  @Test
+  public void nothing_recorded_when_disabled() {
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    PricingMetrics.setSink(sink);
+    PricingMetrics.setSink(MetricsSink.NONE);
+    long start = PricingMetrics.start();
+    PricingMetrics.stop("Test.phase", start);
+    PricingMetrics.count("Test.count");
+    assertThat(sink.getTimers()).isEmpty();
+    assertThat(sink.getCounters()).isEmpty();
+  }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.loader.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CharSource;
+import com.opengamma.strata.collect.io.ResourceLocator;
+import com.opengamma.strata.loader.csv.RatesCalibrationCsvLoader;
+import com.opengamma.strata.market.curve.CurveGroupName;
+import com.opengamma.strata.market.curve.RatesCurveGroupDefinition;
+
+/**
+ * Tests {@link RatesCalibrationCsvLoader2}.
+ * 
+ * @author Marc Henrard
+ */
+public class RatesCalibrationCsvLoader2Test {
+
+  private static final String PATH_CONFIG = "src/test/resources/curve-config/USD-DSCONOIS-IBOR3MIRS-RWM/";
+  private static final ResourceLocator GROUP_FILE =
+      ResourceLocator.of(PATH_CONFIG + "USD-DSCONOIS-IBOR3MIRS-RWM-group.csv");
+  private static final ResourceLocator SETTINGS_FILE =
+      ResourceLocator.of(PATH_CONFIG + "USD-DSCONOIS-IBOR3MIRS-RWM-settings-zrlinear.csv");
+  private static final ResourceLocator NODES_FILE =
+      ResourceLocator.of(PATH_CONFIG + "USD-DSCONOIS-IBOR3MIRS-RWM-nodes.csv");
+
+  /* The definitions are the same as the ones of the Strata loader. */
+  @Test
+  public void load_v_strata() {
+    ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> expected =
+        RatesCalibrationCsvLoader.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE);
+    ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> computed =
+        RatesCalibrationCsvLoader2.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE);
+    assertThat(computed).isEqualTo(expected);
+  }
+
+  /* The loader parses the files at each call. */
+  @Test
+  public void load_no_cache() {
+    ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> first =
+        RatesCalibrationCsvLoader2.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE);
+    ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> second =
+        RatesCalibrationCsvLoader2.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE);
+    assertThat(second).isNotSameAs(first).isEqualTo(first);
+  }
+
+  /* Unchanged configurations are taken from the cache, changed ones are parsed again. */
+  @Test
+  public void load_cache() throws IOException {
+    RatesCalibrationCsvCache cache = RatesCalibrationCsvCache.of(10);
+    ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> first = cache.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE);
+    ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> second = cache.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE);
+    assertThat(second).isSameAs(first);
+    assertThat(first).isEqualTo(RatesCalibrationCsvLoader2.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE));
+    // same content from a different source
+    CharSource nodesCopy = CharSource.wrap(NODES_FILE.getCharSource().read());
+    ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> copy = cache.parse(
+        GROUP_FILE.getCharSource(), SETTINGS_FILE.getCharSource(), ImmutableList.of(nodesCopy));
+    assertThat(copy).isSameAs(first);
+    assertThat(cache.size()).isEqualTo(1);
+    // after clearing the cache
+    cache.clear();
+    ImmutableMap<CurveGroupName, RatesCurveGroupDefinition> cleared = cache.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE);
+    assertThat(cleared).isNotSameAs(first).isEqualTo(first);
+  }
+
+  /* The number of entries is bounded. */
+  @Test
+  public void load_cache_bounded() throws IOException {
+    RatesCalibrationCsvCache cache = RatesCalibrationCsvCache.of(1);
+    cache.load(GROUP_FILE, SETTINGS_FILE, NODES_FILE);
+    CharSource nodesOther = CharSource.wrap(NODES_FILE.getCharSource().read() + "\n");
+    cache.parse(GROUP_FILE.getCharSource(), SETTINGS_FILE.getCharSource(), ImmutableList.of(nodesOther));
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  /* Invalid files are not cached and fail again. */
+  @Test
+  public void invalid_time() {
+    CharSource nodes = CharSource.wrap(
+        "Curve Name,Label,Symbology,Ticker,Field Name,Type,Convention,Time\n"
+            + "USD-DSCON-RWM,OIS-1Y,OG-Ticker,USD-OIS-1Y,MarketValue,OIS,USD-FIXED-1Y-FED-FUND-OIS,1X\n");
+    assertThatIllegalArgumentException().isThrownBy(() -> RatesCalibrationCsvLoader2.parse(
+        GROUP_FILE.getCharSource(), SETTINGS_FILE.getCharSource(), ImmutableList.of(nodes)));
+    RatesCalibrationCsvCache cache = RatesCalibrationCsvCache.of(10);
+    for (int i = 0; i < 2; i++) {
+      assertThatIllegalArgumentException().isThrownBy(() -> cache.parse(
+          GROUP_FILE.getCharSource(), SETTINGS_FILE.getCharSource(), ImmutableList.of(nodes)));
+    }
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.loader.csv;
+
+import static com.opengamma.strata.basics.date.DayCounts.ACT_365F;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.index.IborIndices;
+import com.opengamma.strata.basics.index.OvernightIndices;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.io.ResourceLocator;
+import com.opengamma.strata.market.curve.CurveGroupName;
+import com.opengamma.strata.market.curve.CurveName;
+import com.opengamma.strata.market.curve.Curves;
+import com.opengamma.strata.market.curve.InterpolatedNodalCurve;
+import com.opengamma.strata.market.curve.RatesCurveGroup;
+import com.opengamma.strata.market.curve.interpolator.CurveExtrapolators;
+import com.opengamma.strata.market.curve.interpolator.CurveInterpolators;
+import com.opengamma.strata.market.param.LabelDateParameterMetadata;
+import com.opengamma.strata.market.param.ParameterMetadata;
+
+/**
+ * Tests {@link RatesCurvesBinarySnapshot}.
+ * 
+ * @author Marc Henrard
+ */
+public class RatesCurvesBinarySnapshotTest {
+
+  private static final CurveGroupName GROUP_NAME = CurveGroupName.of("USD-DSCONOIS-L3MIRS");
+  private static final CurveName DSC_NAME = CurveName.of("USD-DSCON-OIS");
+  private static final CurveName FWD_NAME = CurveName.of("USD-LIBOR3M-IRS");
+  private static final String GROUPS_CSV = "Group Name,Curve Type,Reference,Curve Name\n"
+      + "USD-DSCONOIS-L3MIRS,Discount,USD,USD-DSCON-OIS\n"
+      + "USD-DSCONOIS-L3MIRS,Forward,USD-FED-FUND,USD-DSCON-OIS\n"
+      + "USD-DSCONOIS-L3MIRS,Forward,USD-LIBOR-3M,USD-LIBOR3M-IRS\n";
+  private static final List<LocalDate> DATES = ImmutableList.of(
+      LocalDate.of(2018, 8, 28), LocalDate.of(2018, 8, 29), LocalDate.of(2018, 8, 30), LocalDate.of(2018, 8, 31));
+
+  @TempDir
+  Path tempDir;
+
+  /* The curves loaded from the snapshot are the same as the ones loaded from the CSV files. */
+  @Test
+  public void load_v_csv() throws IOException {
+    Path groups = tempDir.resolve("groups.csv");
+    Path settings = tempDir.resolve("settings.csv");
+    Path nodes = tempDir.resolve("nodes.csv");
+    Path snapshot = tempDir.resolve("curves.bin");
+    Files.write(groups, GROUPS_CSV.getBytes(StandardCharsets.UTF_8));
+    StringBuilder settingsCsv = new StringBuilder();
+    RatesCurvesCsvLoader2.writeCurveSettings(settingsCsv, group(DATES.get(0), 0.0));
+    Files.write(settings, settingsCsv.toString().getBytes(StandardCharsets.UTF_8));
+    StringBuilder nodesCsv = new StringBuilder();
+    SortedMap<LocalDate, RatesCurveGroup> history = new TreeMap<>();
+    for (int i = 0; i < DATES.size(); i++) {
+      RatesCurveGroup group = group(DATES.get(i), 0.0001 * i);
+      history.put(DATES.get(i), group);
+      StringBuilder nodesDate = new StringBuilder();
+      RatesCurvesCsvLoader2.writeCurveNodes(nodesDate, DATES.get(i), group);
+      String csv = nodesDate.toString();
+      nodesCsv.append((i == 0) ? csv : csv.substring(csv.indexOf('\n') + 1)); // header only once
+    }
+    Files.write(nodes, nodesCsv.toString().getBytes(StandardCharsets.UTF_8));
+    RatesCurvesBinarySnapshot.write(snapshot, history);
+
+    ImmutableListMultimap<LocalDate, RatesCurveGroup> expected = RatesCurvesCsvLoader2.loadAllDates(
+        ResourceLocator.ofPath(groups), ResourceLocator.ofPath(settings),
+        ImmutableList.of(ResourceLocator.ofPath(nodes)));
+    RatesCurvesBinarySnapshot reader = RatesCurvesBinarySnapshot.open(snapshot);
+    assertThat(reader.getDates()).isEqualTo(DATES);
+    for (LocalDate date : DATES) {
+      RatesCurveGroup loaded = reader.load(date);
+      assertThat(loaded).isEqualTo(expected.get(date).get(0));
+      assertThat(loaded.findDiscountCurve(Currency.USD).get())
+          .isSameAs(loaded.findForwardCurve(OvernightIndices.USD_FED_FUND).get());
+    }
+    assertThatIllegalArgumentException().isThrownBy(() -> reader.load(LocalDate.of(2018, 9, 1)));
+  }
+
+  /* Files which are not snapshots are rejected. */
+  @Test
+  public void wrong_file() throws IOException {
+    Path file = tempDir.resolve("groups.csv");
+    Files.write(file, GROUPS_CSV.getBytes(StandardCharsets.UTF_8));
+    assertThatIllegalArgumentException().isThrownBy(() -> RatesCurvesBinarySnapshot.open(file));
+  }
+
+  private static RatesCurveGroup group(LocalDate valuationDate, double shift) {
+    InterpolatedNodalCurve dsc = curve(DSC_NAME, valuationDate, 0.0200 + shift);
+    InterpolatedNodalCurve fwd = curve(FWD_NAME, valuationDate, 0.0230 + shift);
+    return RatesCurveGroup.of(GROUP_NAME,
+        ImmutableMap.of(Currency.USD, dsc),
+        ImmutableMap.of(OvernightIndices.USD_FED_FUND, dsc, IborIndices.USD_LIBOR_3M, fwd));
+  }
+
+  private static InterpolatedNodalCurve curve(CurveName name, LocalDate valuationDate, double rate) {
+    int nbNodes = 5;
+    List<ParameterMetadata> metadata = new ArrayList<>();
+    double[] times = new double[nbNodes];
+    double[] rates = new double[nbNodes];
+    for (int i = 0; i < nbNodes; i++) {
+      LocalDate nodeDate = valuationDate.plusYears(2 * i + 1);
+      metadata.add(LabelDateParameterMetadata.of(nodeDate, (2 * i + 1) + "Y"));
+      times[i] = ACT_365F.yearFraction(valuationDate, nodeDate);
+      rates[i] = rate + 0.0005 * i;
+    }
+    return InterpolatedNodalCurve.of(Curves.zeroRates(name, ACT_365F, metadata),
+        DoubleArray.ofUnsafe(times), DoubleArray.ofUnsafe(rates),
+        CurveInterpolators.LINEAR, CurveExtrapolators.FLAT, CurveExtrapolators.FLAT);
+  }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.loader.csv;
+
+import static com.opengamma.strata.basics.date.DayCounts.ACT_365F;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.index.IborIndices;
+import com.opengamma.strata.basics.index.OvernightIndices;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.io.ResourceLocator;
+import com.opengamma.strata.collect.tuple.Pair;
+import com.opengamma.strata.market.curve.CurveGroupName;
+import com.opengamma.strata.market.curve.CurveName;
+import com.opengamma.strata.market.curve.Curves;
+import com.opengamma.strata.market.curve.InterpolatedNodalCurve;
+import com.opengamma.strata.market.curve.RatesCurveGroup;
+import com.opengamma.strata.market.curve.interpolator.CurveExtrapolators;
+import com.opengamma.strata.market.curve.interpolator.CurveInterpolators;
+import com.opengamma.strata.market.param.LabelDateParameterMetadata;
+import com.opengamma.strata.market.param.ParameterMetadata;
+
+/**
+ * Tests {@link RatesCurvesCsvStreamingLoader}.
+ * 
+ * @author Marc Henrard
+ */
+public class RatesCurvesCsvStreamingLoaderTest {
+
+  private static final CurveGroupName GROUP_NAME = CurveGroupName.of("USD-DSCONOIS-L3MIRS");
+  private static final CurveName DSC_NAME = CurveName.of("USD-DSCON-OIS");
+  private static final CurveName FWD_NAME = CurveName.of("USD-LIBOR3M-IRS");
+  private static final String GROUPS_CSV = "Group Name,Curve Type,Reference,Curve Name\n"
+      + "USD-DSCONOIS-L3MIRS,Discount,USD,USD-DSCON-OIS\n"
+      + "USD-DSCONOIS-L3MIRS,Forward,USD-FED-FUND,USD-DSCON-OIS\n"
+      + "USD-DSCONOIS-L3MIRS,Forward,USD-LIBOR-3M,USD-LIBOR3M-IRS\n";
+  private static final List<LocalDate> DATES = ImmutableList.of(
+      LocalDate.of(2018, 8, 28), LocalDate.of(2018, 8, 29), LocalDate.of(2018, 8, 30), LocalDate.of(2018, 8, 31));
+
+  @TempDir
+  Path tempDir;
+
+  /* The curves loaded date by date are the same as the ones loaded in one go. */
+  @Test
+  public void load_v_all_dates() throws IOException {
+    Path groups = tempDir.resolve("groups.csv");
+    Path settings = tempDir.resolve("settings.csv");
+    Path nodes1 = tempDir.resolve("nodes-1.csv");
+    Path nodes2 = tempDir.resolve("nodes-2.csv");
+    Files.write(groups, GROUPS_CSV.getBytes(StandardCharsets.UTF_8));
+    StringBuilder settingsCsv = new StringBuilder();
+    RatesCurvesCsvLoader2.writeCurveSettings(settingsCsv, group(DATES.get(0), 0.0));
+    Files.write(settings, settingsCsv.toString().getBytes(StandardCharsets.UTF_8));
+    // First file with 3 dates, second file with 1 date
+    StringBuilder nodesCsv1 = new StringBuilder();
+    for (int i = 0; i < 3; i++) {
+      StringBuilder nodesDate = new StringBuilder();
+      RatesCurvesCsvLoader2.writeCurveNodes(nodesDate, DATES.get(i), group(DATES.get(i), 0.0001 * i));
+      String csv = nodesDate.toString();
+      nodesCsv1.append((i == 0) ? csv : csv.substring(csv.indexOf('\n') + 1)); // header only once
+    }
+    Files.write(nodes1, nodesCsv1.toString().getBytes(StandardCharsets.UTF_8));
+    StringBuilder nodesCsv2 = new StringBuilder();
+    RatesCurvesCsvLoader2.writeCurveNodes(nodesCsv2, DATES.get(3), group(DATES.get(3), 0.0003));
+    Files.write(nodes2, nodesCsv2.toString().getBytes(StandardCharsets.UTF_8));
+
+    ImmutableListMultimap<LocalDate, RatesCurveGroup> expected = RatesCurvesCsvLoader2.loadAllDates(
+        ResourceLocator.ofPath(groups), ResourceLocator.ofPath(settings),
+        ImmutableList.of(ResourceLocator.ofPath(nodes1), ResourceLocator.ofPath(nodes2)));
+    RatesCurvesCsvStreamingLoader loader = RatesCurvesCsvStreamingLoader
+        .of(ResourceLocator.ofPath(groups), ResourceLocator.ofPath(settings), ImmutableList.of(nodes1, nodes2));
+    assertThat(loader.getDates()).isEqualTo(DATES);
+    for (LocalDate date : DATES) {
+      assertThat(loader.load(date)).isEqualTo(expected.get(date));
+    }
+    assertThat(loader.load(LocalDate.of(2018, 9, 1))).isEmpty();
+    // Iterator
+    Iterator<Pair<LocalDate, ImmutableList<RatesCurveGroup>>> iterator = loader.iterator();
+    List<LocalDate> datesIterator = new ArrayList<>();
+    while (iterator.hasNext()) {
+      Pair<LocalDate, ImmutableList<RatesCurveGroup>> next = iterator.next();
+      assertThat(next.getSecond()).isEqualTo(expected.get(next.getFirst()));
+      datesIterator.add(next.getFirst());
+    }
+    assertThat(datesIterator).isEqualTo(DATES);
+    // Parallel stream
+    Map<LocalDate, ImmutableList<RatesCurveGroup>> parallel = loader.stream().parallel()
+        .collect(Collectors.toMap(Pair::getFirst, Pair::getSecond));
+    assertThat(parallel.keySet()).containsExactlyInAnyOrderElementsOf(DATES);
+    for (LocalDate date : DATES) {
+      assertThat(parallel.get(date)).isEqualTo(expected.get(date));
+    }
+  }
+
+  private static RatesCurveGroup group(LocalDate valuationDate, double shift) {
+    InterpolatedNodalCurve dsc = curve(DSC_NAME, valuationDate, 0.0200 + shift);
+    InterpolatedNodalCurve fwd = curve(FWD_NAME, valuationDate, 0.0230 + shift);
+    return RatesCurveGroup.of(GROUP_NAME,
+        ImmutableMap.of(Currency.USD, dsc),
+        ImmutableMap.of(OvernightIndices.USD_FED_FUND, dsc, IborIndices.USD_LIBOR_3M, fwd));
+  }
+
+  private static InterpolatedNodalCurve curve(CurveName name, LocalDate valuationDate, double rate) {
+    int nbNodes = 5;
+    List<ParameterMetadata> metadata = new ArrayList<>();
+    double[] times = new double[nbNodes];
+    double[] rates = new double[nbNodes];
+    for (int i = 0; i < nbNodes; i++) {
+      LocalDate nodeDate = valuationDate.plusYears(2 * i + 1);
+      metadata.add(LabelDateParameterMetadata.of(nodeDate, (2 * i + 1) + "Y"));
+      times[i] = ACT_365F.yearFraction(valuationDate, nodeDate);
+      rates[i] = rate + 0.0005 * i;
+    }
+    return InterpolatedNodalCurve.of(Curves.zeroRates(name, ACT_365F, metadata),
+        DoubleArray.ofUnsafe(times), DoubleArray.ofUnsafe(rates),
+        CurveInterpolators.LINEAR, CurveExtrapolators.FLAT, CurveExtrapolators.FLAT);
+  }
+
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.calibration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.opengamma.strata.collect.array.DoubleArray;
+
+/**
+ * Tests {@link CalibrationWarmStartStore}.
+ *
+ * @author Marc Henrard
+ */
+public class CalibrationWarmStartStoreTest {
+
+  private static final DoubleArray PARAMETERS_1 = DoubleArray.of(0.01, 0.25, -0.5);
+  private static final DoubleArray PARAMETERS_2 = DoubleArray.of(1.05);
+  private static final DoubleArray DEFAULT_START = DoubleArray.of(1.0, 1.0, 1.0);
+  private static final DoubleArray SOLUTION = DoubleArray.of(0.02, 0.20, -0.4);
+
+  @Test
+  public void put_find_remove() {
+    CalibrationWarmStartStore store = CalibrationWarmStartStore.empty();
+    assertThat(store.find("A")).isEmpty();
+    store.put("A", PARAMETERS_1);
+    store.put("B", PARAMETERS_2);
+    assertThat(store.find("A")).hasValue(PARAMETERS_1);
+    assertThat(store.toMap().keySet()).containsExactly("A", "B");
+    store.remove("A");
+    assertThat(store.find("A")).isEmpty();
+    assertThatIllegalArgumentException().isThrownBy(() -> store.put(null, PARAMETERS_1));
+  }
+
+  @Test
+  public void snapshot_load(@TempDir Path directory) {
+    Path file = directory.resolve("warmstart.bin");
+    assertThat(CalibrationWarmStartStore.load(file).toMap()).isEmpty(); // no file on first run
+    CalibrationWarmStartStore store = CalibrationWarmStartStore.empty();
+    store.put("EUR-LMM-10Y", PARAMETERS_1);
+    store.put("USD-G2PP-5Y", PARAMETERS_2);
+    store.snapshot(file);
+    CalibrationWarmStartStore loaded = CalibrationWarmStartStore.load(file);
+    assertThat(loaded.toMap()).isEqualTo(store.toMap());
+    store.put("EUR-LMM-10Y", PARAMETERS_2); // overwrite existing file
+    store.snapshot(file);
+    assertThat(CalibrationWarmStartStore.load(file).find("EUR-LMM-10Y")).hasValue(PARAMETERS_2);
+    assertThat(Files.exists(directory.resolve("warmstart.bin.tmp"))).isFalse();
+  }
+
+  @Test
+  public void load_wrong_format(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("other.bin");
+    Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    assertThatIllegalArgumentException().isThrownBy(() -> CalibrationWarmStartStore.load(file));
+  }
+
+  @Test
+  public void solve_default_then_stored() {
+    CalibrationWarmStartStore store = CalibrationWarmStartStore.empty();
+    List<DoubleArray> starts = new ArrayList<>();
+    DoubleArray solution1 = store.solve("A", DEFAULT_START, x -> {
+      starts.add(x);
+      return SOLUTION;
+    });
+    assertThat(solution1).isEqualTo(SOLUTION);
+    assertThat(store.find("A")).hasValue(SOLUTION);
+    store.solve("A", DEFAULT_START, x -> {
+      starts.add(x);
+      return SOLUTION;
+    });
+    assertThat(starts).containsExactly(DEFAULT_START, SOLUTION);
+  }
+
+  @Test
+  public void solve_fallback() {
+    CalibrationWarmStartStore store = CalibrationWarmStartStore.empty();
+    store.put("A", PARAMETERS_1);
+    List<DoubleArray> starts = new ArrayList<>();
+    DoubleArray solution = store.solve("A", DEFAULT_START, x -> {
+      starts.add(x);
+      if (!x.equals(DEFAULT_START)) {
+        throw new IllegalStateException("no convergence");
+      }
+      return SOLUTION;
+    });
+    assertThat(solution).isEqualTo(SOLUTION);
+    assertThat(starts).containsExactly(PARAMETERS_1, DEFAULT_START);
+    assertThat(store.find("A")).hasValue(SOLUTION);
+  }
+
+  @Test
+  public void solve_wrong_size() {
+    CalibrationWarmStartStore store = CalibrationWarmStartStore.empty();
+    store.put("A", PARAMETERS_2);
+    List<DoubleArray> starts = new ArrayList<>();
+    store.solve("A", DEFAULT_START, x -> {
+      starts.add(x);
+      return SOLUTION;
+    });
+    assertThat(starts).containsExactly(DEFAULT_START);
+  }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.calibration;
+
+import static com.opengamma.strata.basics.currency.Currency.EUR;
+import static com.opengamma.strata.basics.date.HolidayCalendarIds.EUTA;
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_6M;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.AdjustablePayment;
+import com.opengamma.strata.basics.date.BusinessDayAdjustment;
+import com.opengamma.strata.basics.date.BusinessDayConventions;
+import com.opengamma.strata.basics.schedule.Frequency;
+import com.opengamma.strata.basics.schedule.PeriodicSchedule;
+import com.opengamma.strata.basics.schedule.RollConventions;
+import com.opengamma.strata.basics.schedule.StubConvention;
+import com.opengamma.strata.basics.value.ValueSchedule;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.DiscountingPaymentPricer;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.swap.DiscountingSwapLegPricer;
+import com.opengamma.strata.product.TradeInfo;
+import com.opengamma.strata.product.capfloor.IborCapFloor;
+import com.opengamma.strata.product.capfloor.IborCapFloorLeg;
+import com.opengamma.strata.product.capfloor.IborCapFloorTrade;
+import com.opengamma.strata.product.capfloor.ResolvedIborCapFloorTrade;
+import com.opengamma.strata.product.common.PayReceive;
+import com.opengamma.strata.product.swap.IborRateCalculation;
+
+import marc.henrard.murisq.basics.metrics.HistogramMetricsSink;
+import marc.henrard.murisq.basics.metrics.MetricsSink;
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.dataset.MulticurveStandardEurDataSet;
+import marc.henrard.murisq.dataset.RationalParametersDataSet;
+import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorHWShapePlusCstParameters;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorHWShapePlusCstTemplate;
+import marc.henrard.murisq.pricer.capfloor.RationalTwoFactorCapletFloorletPeriodSemiExplicitPricer;
+import marc.henrard.murisq.pricer.capfloor.SingleCurrencyModelCapFloorLegPricer;
+import marc.henrard.murisq.pricer.capfloor.SingleCurrencyModelCapFloorProductPricer;
+import marc.henrard.murisq.pricer.capfloor.SingleCurrencyModelCapFloorTradePricer;
+
+/**
+ * Tests {@link SingleCurrencyModelCapFloorIncrementalCalibrator}.
+ *
+ * @author Marc Henrard
+ */
+@Test
+public class RationalCapFloorIncrementalCalibratorTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2017, 9, 6);
+  private static final LocalTime VALUATION_TIME = LocalTime.of(11, 0);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/Brussels");
+  private static final BusinessDayAdjustment BUSINESS_ADJ = BusinessDayAdjustment.of(
+      BusinessDayConventions.MODIFIED_FOLLOWING, EUTA);
+
+  /* Curve and model data */
+  public static final ImmutableRatesProvider MULTICURVE =
+      MulticurveStandardEurDataSet.multicurve(VALUATION_DATE, REF_DATA);
+  private static final RationalTwoFactorHWShapePlusCstParameters RATIONAL_2F = RationalParametersDataSet
+      .twoFactorHWShaped(VALUATION_TIME, VALUATION_ZONE, MULTICURVE.discountFactors(EUR));
+
+  /* Pricers */
+  private static final SingleCurrencyModelCapFloorProductPricer PRICER_PRODUCT =
+      new SingleCurrencyModelCapFloorProductPricer(
+          new SingleCurrencyModelCapFloorLegPricer(RationalTwoFactorCapletFloorletPeriodSemiExplicitPricer.DEFAULT),
+          DiscountingSwapLegPricer.DEFAULT);
+  private static final SingleCurrencyModelCapFloorTradePricer PRICER_TRADE =
+      new SingleCurrencyModelCapFloorTradePricer(PRICER_PRODUCT, DiscountingPaymentPricer.DEFAULT);
+
+  /* Descriptions of cap/floor */
+  private static final Period MATURITY = Period.ofYears(5);
+  private static final double[] STRIKES = new double[]
+      {-0.0025, 0.0000, 0.0050, 0.0100, 0.0150, 0.0200};
+  private static final int NB_STRIKES = STRIKES.length;
+  private static final double NOTIONAL = 100_000_000.0d;
+
+  /* Calibration of b_0(0) and eta */
+  private static final BitSet FIXED = new BitSet(8);
+  static {
+    FIXED.set(0); // a1
+    FIXED.set(1); // a2
+    FIXED.set(2); // correlation
+    FIXED.set(5); // kappa
+    FIXED.set(6); // c1
+    FIXED.set(7); // c2
+  }
+  private static final RationalTwoFactorHWShapePlusCstTemplate TEMPLATE =
+      RationalTwoFactorHWShapePlusCstTemplate
+          .of(RATIONAL_2F.getTimeMeasure(), RATIONAL_2F.getDiscountFactors(),
+              RATIONAL_2F.getValuationTime(), RATIONAL_2F.getValuationZone(),
+              DoubleArray.of(0.75, 0.50, 0.00, 0.45, 0.012, 0.03, 0.00, 0.0020), FIXED);
+  private static final SingleCurrencyModelCapFloorLeastSquarePriceCalibrator CALIBRATOR_FULL =
+      SingleCurrencyModelCapFloorLeastSquarePriceCalibrator.of(TEMPLATE);
+
+  private static final String METRIC_INCREMENTAL = "SingleCurrencyModelCapFloorIncrementalCalibrator.incremental";
+  private static final String METRIC_FULL = "SingleCurrencyModelCapFloorIncrementalCalibrator.full";
+  private static final double TOL_LS = 1.0E-6;
+  private static final double TOL_INCREMENTAL = 1.0E-5;
+
+  @AfterMethod
+  public void reset() {
+    PricingMetrics.setSink(MetricsSink.NONE);
+  }
+
+  /* The first calibration is a full one, the next one with one changed premium is incremental. */
+  public void incremental_one_quote() {
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    PricingMetrics.setSink(sink);
+    SingleCurrencyModelCapFloorIncrementalCalibrator calibrator =
+        SingleCurrencyModelCapFloorIncrementalCalibrator.of(TEMPLATE, PRICER_TRADE);
+    List<ResolvedIborCapFloorTrade> trades = trades(new double[NB_STRIKES]);
+    SingleCurrencyModelParameters calibrated0 = calibrator.recalibrate(trades, MULTICURVE);
+    assertTrue(calibrated0.getParameters().equalWithTolerance(RATIONAL_2F.getParameters(), TOL_LS));
+    assertEquals(sink.counter(METRIC_FULL), 1L);
+    assertSame(calibrator.recalibrate(trades, MULTICURVE), calibrated0); // no change
+    double[] addOn = new double[NB_STRIKES];
+    addOn[2] = 200.0d;
+    List<ResolvedIborCapFloorTrade> tradesTick = trades(addOn);
+    SingleCurrencyModelParameters calibrated1 = calibrator.recalibrate(tradesTick, MULTICURVE);
+    assertEquals(sink.counter(METRIC_FULL), 1L);
+    assertEquals(sink.counter(METRIC_INCREMENTAL), 1L);
+    SingleCurrencyModelParameters calibratedFull =
+        CALIBRATOR_FULL.calibrateConstraints(tradesTick, MULTICURVE, PRICER_TRADE);
+    assertTrue(calibrated1.getParameters().equalWithTolerance(calibratedFull.getParameters(), TOL_INCREMENTAL));
+    assertTrue(squaredError(tradesTick, calibrated1) <= squaredError(tradesTick, calibrated0));
+  }
+
+  /* Full calibrations when the number of trades change or after a reset. */
+  public void full() {
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    PricingMetrics.setSink(sink);
+    CalibrationWarmStartStore store = CalibrationWarmStartStore.empty();
+    SingleCurrencyModelCapFloorIncrementalCalibrator calibrator =
+        SingleCurrencyModelCapFloorIncrementalCalibrator.of(TEMPLATE, PRICER_TRADE, store, "EUR-RAT2-5Y");
+    List<ResolvedIborCapFloorTrade> trades = trades(new double[NB_STRIKES]);
+    calibrator.recalibrate(trades, MULTICURVE);
+    assertEquals(store.find("EUR-RAT2-5Y").get(), calibrator.getLastParameters());
+    calibrator.recalibrate(trades.subList(0, NB_STRIKES - 1), MULTICURVE);
+    assertEquals(sink.counter(METRIC_FULL), 2L);
+    calibrator.reset();
+    assertEquals(calibrator.getLastParameters(), DoubleArray.EMPTY);
+    calibrator.recalibrate(trades, MULTICURVE);
+    assertEquals(sink.counter(METRIC_FULL), 3L);
+    assertEquals(sink.counter(METRIC_INCREMENTAL), 0L);
+  }
+
+  // Trades with premium equal to the model value plus an add-on
+  private static List<ResolvedIborCapFloorTrade> trades(double[] pvAddOn) {
+    LocalDate spot = EUR_EURIBOR_6M.calculateEffectiveFromFixing(VALUATION_DATE, REF_DATA);
+    LocalDate maturity = spot.plus(MATURITY);
+    List<ResolvedIborCapFloorTrade> trades = new ArrayList<>();
+    for (int k = 0; k < NB_STRIKES; k++) {
+      IborCapFloor cap = cap(spot, maturity, STRIKES[k]);
+      double pvLeg = PRICER_PRODUCT.presentValue(cap.resolve(REF_DATA), MULTICURVE, RATIONAL_2F).getAmount(EUR)
+          .getAmount();
+      AdjustablePayment premium = AdjustablePayment.of(EUR, -pvLeg + pvAddOn[k], VALUATION_DATE);
+      IborCapFloorTrade capTrade = IborCapFloorTrade.builder()
+          .product(cap)
+          .premium(premium)
+          .info(TradeInfo.of(VALUATION_DATE)).build();
+      trades.add(capTrade.resolve(REF_DATA));
+    }
+    return trades;
+  }
+
+  // Sum of the squared trade values
+  private static double squaredError(List<ResolvedIborCapFloorTrade> trades, SingleCurrencyModelParameters model) {
+    double s = 0.0;
+    for (ResolvedIborCapFloorTrade trade : trades) {
+      double pv = PRICER_TRADE.presentValue(trade, MULTICURVE, model).getAmount(EUR).getAmount();
+      s += pv * pv;
+    }
+    return s;
+  }
+
+  private static IborCapFloor cap(LocalDate spot, LocalDate maturity, double strike) {
+    PeriodicSchedule paySchedule =
+        PeriodicSchedule.of(spot, maturity, Frequency.P6M, BUSINESS_ADJ, StubConvention.NONE,
+            RollConventions.NONE);
+    IborCapFloorLeg leg = IborCapFloorLeg.builder()
+        .currency(EUR)
+        .calculation(IborRateCalculation.of(EUR_EURIBOR_6M))
+        .capSchedule(ValueSchedule.of(strike))
+        .notional(ValueSchedule.of(NOTIONAL))
+        .paymentSchedule(paySchedule)
+        .payReceive(PayReceive.RECEIVE).build();
+    return IborCapFloor.of(leg);
+  }
+
+}
@@ -208,6 +208,21 @@ public class HullWhiteOneFactorPiecewiseConstantFormulasTest {
     assertThat(factorComputed).isEqualTo(factorExpected2, TOLERANCE_CONVEXITY_FACTOR);
   }
 
+  /* Factors of successive overnight periods, crossing volatility pillars, versus one factor at a time. */
+  @Test
+  public void futuresConvexityFactors() {
+    double[] times = {0.40, 0.45, 0.50, 0.75, 1.00, 1.90, 2.10, 3.00, 4.75, 5.00, 5.50};
+    double[] factorsComputed = FORMULAS.futuresConvexityFactors(MODEL_PARAMETERS, times);
+    int nbFactors = times.length - 1;
+    assertThat(factorsComputed.length).isEqualTo(nbFactors);
+    for (int i = 0; i < nbFactors; i++) {
+      double s = (i == 0) ? 0.0d : times[i - 1];
+      double factorExpected =
+          FORMULAS.futuresConvexityFactor(MODEL_PARAMETERS, s, times[i], times[i], times[nbFactors]);
+      assertThat(factorsComputed[i]).isEqualTo(factorExpected, TOLERANCE_CONVEXITY_FACTOR);
+    }
+  }
+
   /* Variance of the short rate for a constant volatility. */
   @Test
   public void shortRateVarianceConstantVol() {
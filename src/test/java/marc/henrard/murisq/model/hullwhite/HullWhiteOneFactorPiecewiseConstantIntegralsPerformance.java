@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.hullwhite;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+
+/**
+ * Tests {@link HullWhiteOneFactorPiecewiseConstantIntegrals} performance v 
+ * {@link HullWhiteOneFactorPiecewiseConstantFormulas}.
+ * <p>
+ * Volatility term structure with 100 quarterly periods. The formulas are evaluated on daily overlapping periods
+ * as in the overnight futures convexity computations.
+ *
+ * @author Marc Henrard
+ */
+@Test
+public class HullWhiteOneFactorPiecewiseConstantIntegralsPerformance {
+
+  private static final double MEAN_REVERSION = 0.03;
+  private static final int NB_PERIODS = 100;
+  private static final HullWhiteOneFactorPiecewiseConstantParameters MODEL_PARAMETERS;
+  static {
+    double[] volatility = new double[NB_PERIODS];
+    double[] volatilityTime = new double[NB_PERIODS - 1];
+    for (int i = 0; i < NB_PERIODS; i++) {
+      volatility[i] = 0.010 + 0.002 * Math.sin(i);
+      if (i < NB_PERIODS - 1) {
+        volatilityTime[i] = 0.25 * (i + 1);
+      }
+    }
+    MODEL_PARAMETERS = HullWhiteOneFactorPiecewiseConstantParameters
+        .of(MEAN_REVERSION, DoubleArray.ofUnsafe(volatility), DoubleArray.ofUnsafe(volatilityTime));
+  }
+  private static final HullWhiteOneFactorPiecewiseConstantFormulas FORMULAS =
+      HullWhiteOneFactorPiecewiseConstantFormulas.DEFAULT;
+
+  private static final int NB_DAYS = 25 * 252;
+  private static final double DAY = 1.0d / 252.0d;
+
+  private static final int NB_WARMUP = 5;
+  private static final int NB_REP = 20;
+
+  @Test(enabled = false)
+  public void formulas_v_integrals() {
+    double check = 0.0;
+    for (int loopw = 0; loopw < NB_WARMUP; loopw++) {
+      check += formulas();
+      check += integrals();
+    }
+    System.out.println("  |-> Warm-up finished");
+    long start, end;
+    start = System.currentTimeMillis();
+    for (int loopr = 0; loopr < NB_REP; loopr++) {
+      check += formulas();
+    }
+    end = System.currentTimeMillis();
+    System.out.println("  |-> Formulas " + NB_DAYS + " days x 3 formulas for " + NB_REP + " rep: "
+        + (end - start) + " ms - " + check);
+    start = System.currentTimeMillis();
+    for (int loopr = 0; loopr < NB_REP; loopr++) {
+      check += integrals();
+    }
+    end = System.currentTimeMillis();
+    System.out.println("  |-> Integrals (including construction) " + NB_DAYS + " days x 3 formulas for " 
+        + NB_REP + " rep: " + (end - start) + " ms - " + check);
+  }
+
+  private static double formulas() {
+    double total = 0.0;
+    for (int loopd = 0; loopd < NB_DAYS; loopd++) {
+      double t = loopd * DAY;
+      total += FORMULAS.futuresConvexityFactor(MODEL_PARAMETERS, t, t + DAY, t + DAY, t + 0.25);
+      total += FORMULAS.shortRateVariance(MODEL_PARAMETERS, 0.0, t + DAY);
+      total += FORMULAS.alphaCashAccount(MODEL_PARAMETERS, t, t + DAY, t + 1.0);
+    }
+    return total;
+  }
+
+  private static double integrals() {
+    HullWhiteOneFactorPiecewiseConstantIntegrals integrals =
+        HullWhiteOneFactorPiecewiseConstantIntegrals.of(MODEL_PARAMETERS);
+    double total = 0.0;
+    for (int loopd = 0; loopd < NB_DAYS; loopd++) {
+      double t = loopd * DAY;
+      total += integrals.futuresConvexityFactor(t, t + DAY, t + DAY, t + 0.25);
+      total += integrals.shortRateVariance(0.0, t + DAY);
+      total += integrals.alphaCashAccount(t, t + DAY, t + 1.0);
+    }
+    return total;
+  }
+
+}
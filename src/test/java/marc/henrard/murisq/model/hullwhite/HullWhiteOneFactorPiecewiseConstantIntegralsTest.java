@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.hullwhite;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+
+/**
+ * Tests {@link HullWhiteOneFactorPiecewiseConstantIntegrals}.
+ * 
+ * @author Marc Henrard
+ */
+public class HullWhiteOneFactorPiecewiseConstantIntegralsTest {
+
+  private static final double MEAN_REVERSION = 0.03;
+  private static final DoubleArray VOLATILITY = DoubleArray.of(0.015, 0.011, 0.012, 0.013, 0.014, 0.016);
+  private static final DoubleArray VOLATILITY_TIME = DoubleArray.of(0.5, 1.0, 2.0, 4.0, 5.0);
+  private static final HullWhiteOneFactorPiecewiseConstantParameters MODEL_PARAMETERS =
+      HullWhiteOneFactorPiecewiseConstantParameters.of(MEAN_REVERSION, VOLATILITY, VOLATILITY_TIME);
+  private static final int NB_PERIODS_LONG = 100;
+  private static final HullWhiteOneFactorPiecewiseConstantParameters MODEL_LONG_PARAMETERS;
+  static {
+    double[] volatility = new double[NB_PERIODS_LONG];
+    double[] volatilityTime = new double[NB_PERIODS_LONG - 1];
+    for (int i = 0; i < NB_PERIODS_LONG; i++) {
+      volatility[i] = 0.010 + 0.002 * Math.sin(i);
+      if (i < NB_PERIODS_LONG - 1) {
+        volatilityTime[i] = 0.25 * (i + 1);
+      }
+    }
+    MODEL_LONG_PARAMETERS = HullWhiteOneFactorPiecewiseConstantParameters
+        .of(MEAN_REVERSION, DoubleArray.ofUnsafe(volatility), DoubleArray.ofUnsafe(volatilityTime));
+  }
+  /* Times including volatility times and times after the last one. */
+  private static final double[] TIMES = {0.0, 0.1, 0.5, 0.75, 2.0, 3.3, 4.99, 5.0, 7.5, 24.8, 30.0};
+
+  private static final HullWhiteOneFactorPiecewiseConstantFormulas FORMULAS =
+      HullWhiteOneFactorPiecewiseConstantFormulas.DEFAULT;
+
+  private static final Offset<Double> TOLERANCE_FACTOR = Offset.offset(1E-12);
+  private static final Offset<Double> TOLERANCE_VARIANCE = Offset.offset(1E-12);
+  private static final Offset<Double> TOLERANCE_ALPHA = Offset.offset(1E-10);
+
+  @Test
+  public void formulas() {
+    formulas(MODEL_PARAMETERS);
+  }
+
+  @Test
+  public void formulas_long() {
+    formulas(MODEL_LONG_PARAMETERS);
+  }
+
+  private void formulas(HullWhiteOneFactorPiecewiseConstantParameters parameters) {
+    HullWhiteOneFactorPiecewiseConstantIntegrals integrals = HullWhiteOneFactorPiecewiseConstantIntegrals.of(parameters);
+    for (int i = 0; i < TIMES.length; i++) {
+      double t = TIMES[i];
+      assertThat(integrals.shortRateMeanModelPart(t))
+          .isEqualTo(FORMULAS.shortRateMeanModelPart(parameters, t), TOLERANCE_VARIANCE);
+      assertThat(integrals.varianceCrossTerm(t, t + 1, t + 2, t + 0.5, t + 3))
+          .isEqualTo(FORMULAS.varianceCrossTerm(parameters, t, t + 1, t + 2, t + 0.5, t + 3), TOLERANCE_VARIANCE);
+      for (int j = i; j < TIMES.length; j++) {
+        double s = TIMES[j];
+        assertThat(integrals.alpha2ForwardGPart(t, s))
+            .isEqualTo(FORMULAS.alpha2ForwardGPart(parameters, t, s), TOLERANCE_VARIANCE);
+        assertThat(integrals.shortRateVariance(t, s))
+            .isEqualTo(FORMULAS.shortRateVariance(parameters, t, s), TOLERANCE_VARIANCE);
+        assertThat(integrals.varianceCrossTermConstantVolCashAccount(t, s, s + 1))
+            .isEqualTo(FORMULAS.varianceCrossTermConstantVolCashAccount(parameters, t, s, s + 1), TOLERANCE_VARIANCE);
+        assertThat(integrals.futuresConvexityFactor(t, s, s, s + 0.25))
+            .isEqualTo(FORMULAS.futuresConvexityFactor(parameters, t, s, s, s + 0.25), TOLERANCE_FACTOR);
+        assertThat(integrals.timingAdjustmentFactor(s, s + 0.5, s + 0.75))
+            .isEqualTo(FORMULAS.timingAdjustmentFactor(parameters, s, s + 0.5, s + 0.75), TOLERANCE_FACTOR);
+        if (s > t) {
+          assertThat(integrals.alphaCashAccount(t, s, s + 2))
+              .isEqualTo(FORMULAS.alphaCashAccount(parameters, t, s, s + 2), TOLERANCE_ALPHA);
+        }
+      }
+    }
+  }
+
+}
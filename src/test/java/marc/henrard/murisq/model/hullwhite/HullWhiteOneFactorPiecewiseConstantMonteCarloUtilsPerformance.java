@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.hullwhite;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+
+/**
+ * Tests {@link HullWhiteOneFactorPiecewiseConstantMonteCarloUtils} performance.
+ * <p>
+ * Size of exposure computations: 1,000,000 scenarios x 200 dates. The flat buffer requires 1.6 GB of memory,
+ * the test should be run with a large heap (e.g. -Xmx4g).
+ *
+ * @author Marc Henrard
+ */
+@Test
+public class HullWhiteOneFactorPiecewiseConstantMonteCarloUtilsPerformance {
+
+  private static final double MEAN_REVERSION = 0.03;
+  private static final DoubleArray VOLATILITY = DoubleArray.of(0.015, 0.011, 0.012, 0.013, 0.014, 0.016);
+  private static final DoubleArray VOLATILITY_TIME = DoubleArray.of(0.5, 1.0, 2.0, 4.0, 5.0);
+  private static final HullWhiteOneFactorPiecewiseConstantParameters MODEL_PARAMETERS =
+      HullWhiteOneFactorPiecewiseConstantParameters.of(MEAN_REVERSION, VOLATILITY, VOLATILITY_TIME);
+
+  private static final int NB_SCENARIOS = 1_000_000;
+  private static final int NB_TIMES = 200;
+  private static final long SEED = 20210301L;
+
+  private static final int NB_WARMUP = 1;
+  private static final int NB_REP = 3;
+
+  @Test(enabled = false)
+  public void xPaths_flat() {
+    double[] times = new double[NB_TIMES];
+    for (int looptime = 0; looptime < NB_TIMES; looptime++) {
+      times[looptime] = (looptime + 1) * 0.15d; // 30 years
+    }
+    double[] x = new double[NB_SCENARIOS * NB_TIMES];
+    double check = 0.0;
+    for (int loopw = 0; loopw < NB_WARMUP; loopw++) {
+      HullWhiteOneFactorPiecewiseConstantMonteCarloUtils.xPaths(times, MODEL_PARAMETERS, NB_SCENARIOS, SEED, x);
+      check += x[x.length - 1];
+    }
+    System.out.println("  |-> Warm-up finished");
+    long start, end;
+    start = System.currentTimeMillis();
+    for (int loopr = 0; loopr < NB_REP; loopr++) {
+      HullWhiteOneFactorPiecewiseConstantMonteCarloUtils.xPaths(times, MODEL_PARAMETERS, NB_SCENARIOS, SEED + loopr, x);
+      check += x[x.length - 1];
+    }
+    end = System.currentTimeMillis();
+    System.out.println("  |-> Flat buffer paths " + NB_SCENARIOS + " x " + NB_TIMES + " for " + NB_REP + " rep: "
+        + (end - start) + " ms - " + check);
+  }
+
+}
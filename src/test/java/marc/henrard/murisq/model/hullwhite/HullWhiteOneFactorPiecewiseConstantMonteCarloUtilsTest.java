@@ -4,6 +4,9 @@
 package marc.henrard.murisq.model.hullwhite;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
 
 import org.testng.annotations.Test;
 
@@ -58,4 +61,60 @@ public class HullWhiteOneFactorPiecewiseConstantMonteCarloUtilsTest {
     }
   }
   
+  /* Test flat buffer xPath: reproducibility, independence of the number of threads and distribution */
+  public void xPaths_flat() throws Exception {
+    double[] times = {0.25d, 1.0d, 1.5d, 2.0d, 5.0d, 10.0d};
+    int nbTimes = times.length;
+    int nbScenarios = 100_000;
+    long seed = 1234L;
+    double[] x1 = new double[nbScenarios * nbTimes];
+    HullWhiteOneFactorPiecewiseConstantMonteCarloUtils.xPaths(times, MODEL_PARAMETERS, nbScenarios, seed, x1);
+    double[] x2 = new double[nbScenarios * nbTimes];
+    HullWhiteOneFactorPiecewiseConstantMonteCarloUtils.xPaths(times, MODEL_PARAMETERS, nbScenarios, seed, x2);
+    double[] x3 = new double[nbScenarios * nbTimes];
+    ForkJoinPool pool = new ForkJoinPool(1); // the blocks generated one after the other
+    try {
+      pool.submit(() -> HullWhiteOneFactorPiecewiseConstantMonteCarloUtils
+          .xPaths(times, MODEL_PARAMETERS, nbScenarios, seed, x3)).get();
+    } finally {
+      pool.shutdown();
+    }
+    for (int i = 0; i < nbScenarios * nbTimes; i++) {
+      assertEquals(x1[i], x2[i]);
+      assertEquals(x1[i], x3[i]);
+    }
+    for (int looptime = 0; looptime < nbTimes; looptime++) {
+      double mean = 0.0d;
+      double variance = 0.0d;
+      for (int loopsc = 0; loopsc < nbScenarios; loopsc++) {
+        double value = x1[loopsc * nbTimes + looptime];
+        mean += value;
+        variance += value * value;
+      }
+      mean /= nbScenarios;
+      variance = variance / nbScenarios - mean * mean;
+      double varianceExpected = HW_FORMULAS.shortRateVariance(MODEL_PARAMETERS, 0.0d, times[looptime]);
+      double std = Math.sqrt(varianceExpected);
+      assertTrue(Math.abs(mean) < 4.0d * std / Math.sqrt(nbScenarios));
+      assertEquals(variance, varianceExpected, 2.0E-2 * varianceExpected);
+    }
+    double[] sample = new double[nbTimes];
+    for (int loopsc = 0; loopsc < 10; loopsc++) { // Recover the normals and check with the jagged array version
+      double previous = 0.0d;
+      double timePrevious = 0.0d;
+      for (int looptime = 0; looptime < nbTimes; looptime++) {
+        double expKappa = Math.exp(-MEAN_REVERSION * (times[looptime] - timePrevious));
+        double stdSR = Math.sqrt(HW_FORMULAS.shortRateVariance(MODEL_PARAMETERS, timePrevious, times[looptime]));
+        sample[looptime] = (x1[loopsc * nbTimes + looptime] - expKappa * previous) / stdSR;
+        previous = x1[loopsc * nbTimes + looptime];
+        timePrevious = times[looptime];
+      }
+      double[][] xJagged = HullWhiteOneFactorPiecewiseConstantMonteCarloUtils
+          .xPaths(times, new double[][] {sample}, MODEL_PARAMETERS);
+      for (int looptime = 0; looptime < nbTimes; looptime++) {
+        assertEquals(xJagged[0][looptime], x1[loopsc * nbTimes + looptime], 1.0E-12);
+      }
+    }
+  }
+
 }
@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import com.google.common.collect.ImmutableList;
@@ -35,8 +36,12 @@ import com.opengamma.strata.product.swaption.PhysicalSwaptionSettlement;
 import com.opengamma.strata.product.swaption.ResolvedSwaption;
 import com.opengamma.strata.product.swaption.Swaption;
 
+import marc.henrard.murisq.basics.metrics.HistogramMetricsSink;
+import marc.henrard.murisq.basics.metrics.MetricsSink;
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
 import marc.henrard.murisq.basics.time.ScaledSecondTime;
 import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.model.calibration.CalibrationWarmStartStore;
 import marc.henrard.murisq.pricer.swaption.LmmdddSwaptionPhysicalProductExplicitApproxPricer;
 
 /**
@@ -99,6 +104,12 @@ public class LmmdddSwaptionRootBachelierVolatility1LevelCalibratorTest {
   private static final LmmdddSwaptionRootBachelierVolatility1LevelCalibrator LMM1_CALIBRATOR_2F =
       LmmdddSwaptionRootBachelierVolatility1LevelCalibrator.of(LMM_2F_START);
   private static final Offset<Double> TOLERANCE_APPROX_IV = within(1.0E-8);
+  private static final String METRIC_EVALUATION = "LmmdddSwaptionRootBachelierVolatility1LevelCalibrator.evaluation";
+
+  @AfterEach
+  public void reset() {
+    PricingMetrics.setSink(MetricsSink.NONE);
+  }
 
   /* Test calibration with one factor volatilities. */
   @Test
@@ -168,4 +179,38 @@ public class LmmdddSwaptionRootBachelierVolatility1LevelCalibratorTest {
     } // end loopexp
   }
 
+  /* Test calibration from the result of a previous calibration. */
+  @Test
+  public void calibration_warm_start() {
+    LocalDate expiryDate = EUTA_IMPL.nextOrSame(VALUATION_DATE.plus(Period.ofMonths(12)));
+    SwapTrade swap = EUR_FIXED_1Y_EURIBOR_3M
+        .createTrade(expiryDate, Tenor.TENOR_10Y, BuySell.BUY, NOTIONAL, 0.01, REF_DATA);
+    ResolvedSwaption swaptionResolved = Swaption.builder()
+        .expiryDate(AdjustableDate.of(expiryDate)).expiryTime(VALUATION_TIME).expiryZone(VALUATION_ZONE)
+        .longShort(LongShort.LONG)
+        .swaptionSettlement(PhysicalSwaptionSettlement.DEFAULT)
+        .underlying(swap.getProduct()).build().resolve(REF_DATA);
+    double ivNextDay = IV_TARGET * 1.01;
+    CalibrationWarmStartStore store = CalibrationWarmStartStore.empty();
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    PricingMetrics.setSink(sink);
+    LMM1_CALIBRATOR_2F.calibrate(swaptionResolved, IV_TARGET, MULTICURVE_EUR, store, "EUR-12M-10Y");
+    assertThat(store.find("EUR-12M-10Y")).isPresent();
+    sink.clear();
+    LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters parametersCold =
+        LMM1_CALIBRATOR_2F.calibrate(swaptionResolved, ivNextDay, MULTICURVE_EUR);
+    long evaluationsCold = sink.counter(METRIC_EVALUATION);
+    sink.clear();
+    LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters parametersWarm =
+        LMM1_CALIBRATOR_2F.calibrate(swaptionResolved, ivNextDay, MULTICURVE_EUR, store, "EUR-12M-10Y");
+    long evaluationsWarm = sink.counter(METRIC_EVALUATION);
+    assertThat(evaluationsWarm).isLessThan(evaluationsCold);
+    double ivCold = PRICER_SWAPTION_LMM_APPROX
+        .impliedVolatilityBachelier(swaptionResolved, MULTICURVE_EUR, parametersCold);
+    double ivWarm = PRICER_SWAPTION_LMM_APPROX
+        .impliedVolatilityBachelier(swaptionResolved, MULTICURVE_EUR, parametersWarm);
+    assertThat(ivCold).isEqualTo(ivNextDay, TOLERANCE_APPROX_IV);
+    assertThat(ivWarm).isEqualTo(ivNextDay, TOLERANCE_APPROX_IV);
+  }
+
 }
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.multicurve;
+
+import static com.opengamma.strata.basics.date.DayCounts.ACT_365F;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CharSource;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.io.CsvFile;
+import com.opengamma.strata.collect.io.CsvRow;
+import com.opengamma.strata.market.curve.CurveGroupName;
+import com.opengamma.strata.market.curve.CurveName;
+import com.opengamma.strata.market.curve.Curves;
+import com.opengamma.strata.market.curve.InterpolatedNodalCurve;
+import com.opengamma.strata.market.curve.RatesCurveGroup;
+import com.opengamma.strata.market.curve.interpolator.CurveInterpolators;
+
+import marc.henrard.murisq.model.multicurve.RatesCurvesBacktestRunner.DateResult;
+
+/**
+ * Tests {@link RatesCurvesBacktestRunner}.
+ * 
+ * @author Marc Henrard
+ */
+@Test
+public class RatesCurvesBacktestRunnerTest {
+
+  private static final CurveGroupName GROUP_NAME = CurveGroupName.of("USD-DSCON");
+  private static final CurveName DSC_NAME = CurveName.of("USD-DSCON-OIS");
+  private static final LocalDate START_DATE = LocalDate.of(2018, 8, 1);
+  private static final int NB_DATES = 50;
+  private static final List<LocalDate> DATES = new ArrayList<>();
+  static {
+    for (int i = 0; i < NB_DATES; i++) {
+      DATES.add(START_DATE.plusDays(i));
+    }
+  }
+  private static final BiFunction<LocalDate, ImmutableList<RatesCurveGroup>, DoubleArray> PRICING =
+      (date, groups) -> DoubleArray.of(
+          groups.get(0).findDiscountCurve(Currency.USD).get().yValue(1.0),
+          groups.get(0).findDiscountCurve(Currency.USD).get().yValue(5.0));
+  private static final double TOLERANCE = 1.0E-12;
+
+  /* Results in the order of the dates, with values computed on the curves of each date. */
+  public void run_order() {
+    RatesCurvesBacktestRunner runner = RatesCurvesBacktestRunner.of(DATES, RatesCurvesBacktestRunnerTest::group);
+    ImmutableList<DateResult> results = runner.run(PRICING);
+    assertEquals(results.size(), NB_DATES);
+    for (int i = 0; i < NB_DATES; i++) {
+      DateResult result = results.get(i);
+      assertEquals(result.getValuationDate(), DATES.get(i));
+      DoubleArray expected = PRICING.apply(DATES.get(i), group(DATES.get(i)));
+      assertTrue(result.getValues().equalWithTolerance(expected, TOLERANCE));
+      assertTrue(result.getLoadTimeNanos() >= 0);
+      assertTrue(result.getPricingTimeNanos() >= 0);
+    }
+  }
+
+  /* CSV output with one line per date and the timing columns. */
+  public void run_csv() {
+    RatesCurvesBacktestRunner runner = RatesCurvesBacktestRunner
+        .of(DATES, RatesCurvesBacktestRunnerTest::group)
+        .withParallelism(4);
+    StringBuilder output = new StringBuilder();
+    ImmutableList<DateResult> results = runner.run(PRICING, ImmutableList.of("1Y", "5Y"), output);
+    CsvFile csv = CsvFile.of(CharSource.wrap(output), true);
+    assertEquals(csv.headers(), ImmutableList.of("Valuation Date", "1Y", "5Y", "Load Time (ms)", "Pricing Time (ms)"));
+    assertEquals(csv.rowCount(), NB_DATES);
+    for (int i = 0; i < NB_DATES; i++) {
+      CsvRow row = csv.row(i);
+      assertEquals(row.getField("Valuation Date"), DATES.get(i).toString());
+      assertEquals(Double.parseDouble(row.getField("1Y")), results.get(i).getValues().get(0), TOLERANCE);
+      assertEquals(Double.parseDouble(row.getField("5Y")), results.get(i).getValues().get(1), TOLERANCE);
+    }
+  }
+
+  /* Failure on one date is reported with the date. */
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void run_failure() {
+    LocalDate failureDate = DATES.get(10);
+    RatesCurvesBacktestRunner.of(DATES, RatesCurvesBacktestRunnerTest::group)
+        .run((date, groups) -> {
+          if (date.equals(failureDate)) {
+            throw new IllegalArgumentException("no data");
+          }
+          return PRICING.apply(date, groups);
+        });
+  }
+
+  /* Failure to load the curves on one date is reported with the date. */
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void run_loader_failure() {
+    LocalDate failureDate = DATES.get(10);
+    RatesCurvesBacktestRunner.of(DATES, date -> {
+      if (date.equals(failureDate)) {
+        throw new IllegalArgumentException("no curves");
+      }
+      return group(date);
+    }).run(PRICING);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void run_wrong_headers() {
+    RatesCurvesBacktestRunner.of(DATES, RatesCurvesBacktestRunnerTest::group)
+        .run(PRICING, ImmutableList.of("1Y"), new StringBuilder());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void run_null_headers() {
+    RatesCurvesBacktestRunner.of(DATES, RatesCurvesBacktestRunnerTest::group)
+        .run(PRICING, null, new StringBuilder());
+  }
+
+  private static ImmutableList<RatesCurveGroup> group(LocalDate valuationDate) {
+    double rate = 0.02 + 0.0001 * (valuationDate.toEpochDay() - START_DATE.toEpochDay());
+    InterpolatedNodalCurve dsc = InterpolatedNodalCurve.of(Curves.zeroRates(DSC_NAME, ACT_365F),
+        DoubleArray.of(0.5, 2.0, 10.0), DoubleArray.of(rate, rate + 0.001, rate + 0.003), CurveInterpolators.LINEAR);
+    return ImmutableList.of(RatesCurveGroup.of(GROUP_NAME, ImmutableMap.of(Currency.USD, dsc), ImmutableMap.of()));
+  }
+
+}
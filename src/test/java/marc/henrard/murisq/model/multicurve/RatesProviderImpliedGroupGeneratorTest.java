@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.model.multicurve;
+
+import static org.testng.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.index.IborIndex;
+import com.opengamma.strata.basics.index.IborIndexObservation;
+import com.opengamma.strata.basics.index.IborIndices;
+import com.opengamma.strata.basics.index.Index;
+import com.opengamma.strata.collect.array.DoubleMatrix;
+import com.opengamma.strata.collect.io.ResourceLocator;
+import com.opengamma.strata.loader.csv.RatesCalibrationCsvLoader;
+import com.opengamma.strata.market.curve.Curve;
+import com.opengamma.strata.market.curve.CurveGroupName;
+import com.opengamma.strata.market.curve.CurveInfoType;
+import com.opengamma.strata.market.curve.RatesCurveGroupDefinition;
+import com.opengamma.strata.pricer.ZeroRateDiscountFactors;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProviderBuilder;
+
+import marc.henrard.murisq.dataset.MulticurveStandardDataSet;
+
+/**
+ * Tests {@link RatesProviderImpliedGroupGenerator}.
+ * 
+ * @author Marc Henrard
+ */
+@Test
+public class RatesProviderImpliedGroupGeneratorTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2018, 8, 30);
+
+  /* Curves description */
+  private static final String INTERPOLATION = "zrlinear";
+  private static final String SUFFIX_CSV = ".csv";
+  private static final CurveGroupName CURVE_GROUP_NAME = CurveGroupName.of("USD-DSCONOIS-L3MIRS");
+  private static final String PATH_CONFIG = "src/test/resources/curve-config/USD-DSCONOIS-L3MIRS/";
+  private static final ResourceLocator GROUP_FILE = 
+      ResourceLocator.of(PATH_CONFIG + "USD-DSCONOIS-L3MIRS-group.csv");
+  private static final ResourceLocator SETTINGS_FILE =
+      ResourceLocator.of(PATH_CONFIG + "USD-DSCONOIS-L3MIRS-settings-" + INTERPOLATION + SUFFIX_CSV);
+  private static final ResourceLocator NODES_FILE = 
+      ResourceLocator.of(PATH_CONFIG + "USD-DSCONOIS-L3MIRS-nodes.csv");
+
+  private static final CurveGroupName CURVE_GROUP_NAME_RWM = CurveGroupName.of("USD-DSCONOIS-IBOR3MIRS-RWM");
+  private static final String PATH_CONFIG_RWM = "src/test/resources/curve-config/USD-DSCONOIS-IBOR3MIRS-RWM/";
+  private static final ResourceLocator GROUP_FILE_RWM = 
+      ResourceLocator.of(PATH_CONFIG_RWM + "USD-DSCONOIS-IBOR3MIRS-RWM-group.csv");
+  private static final ResourceLocator SETTINGS_FILE_RWM =
+      ResourceLocator.of(PATH_CONFIG_RWM + "USD-DSCONOIS-IBOR3MIRS-RWM-settings-" + INTERPOLATION + SUFFIX_CSV);
+  private static final ResourceLocator NODES_FILE_RWM = 
+      ResourceLocator.of(PATH_CONFIG_RWM + "USD-DSCONOIS-IBOR3MIRS-RWM-nodes.csv");
+  private static final RatesCurveGroupDefinition GROUP_DEFINITION_RWM = RatesCalibrationCsvLoader
+      .load(GROUP_FILE_RWM, SETTINGS_FILE_RWM, NODES_FILE_RWM).get(CURVE_GROUP_NAME_RWM);
+
+  private static final String QUOTES_FILE = "src/test/resources/quotes/MARKET-DATA-2018-08-30.csv";
+  private static final ImmutableRatesProvider MULTICURVE = MulticurveStandardDataSet
+      .multicurve(VALUATION_DATE, CURVE_GROUP_NAME, GROUP_FILE, SETTINGS_FILE, NODES_FILE, QUOTES_FILE, REF_DATA);
+
+  private static final IborIndex INDEX = IborIndices.USD_LIBOR_3M;
+  private static final int NB_DATES = 60;
+  private static final double SHIFT = 0.0050;
+  private static final double TOLERANCE_DF = 1.0E-12;
+  private static final double TOLERANCE_JAC = 1.0E-10;
+
+  /* Same results as the one-off generation. */
+  public void generate_v_static() {
+    RatesProviderImpliedGroupGenerator generator = RatesProviderImpliedGroupGenerator
+        .of(GROUP_DEFINITION_RWM, MULTICURVE, ImmutableMap.of(), false, REF_DATA);
+    assertEquals(generator.getValuationDate(), VALUATION_DATE);
+    ImmutableRatesProvider expected = RatesProviderImpliedGroupDefinition
+        .generate(GROUP_DEFINITION_RWM, MULTICURVE, REF_DATA);
+    ImmutableRatesProvider computed = generator.generate(MULTICURVE);
+    assertProviders(computed, expected);
+    assertJacobians(computed, expected);
+    ImmutableRatesProvider computedNoJac = generator.generateNoJacobian(MULTICURVE);
+    assertProviders(computedNoJac, expected);
+  }
+
+  /* Same results as the one-off generic generation. */
+  public void generate_v_static_generic() {
+    RatesProviderImpliedGroupGenerator generator = RatesProviderImpliedGroupGenerator
+        .of(GROUP_DEFINITION_RWM, MULTICURVE, ImmutableMap.of(), true, REF_DATA);
+    ImmutableRatesProvider expected = RatesProviderImpliedGroupDefinition
+        .generateGeneric(GROUP_DEFINITION_RWM, MULTICURVE, ImmutableMap.of(), REF_DATA);
+    ImmutableRatesProvider computed = generator.generate(MULTICURVE);
+    assertProviders(computed, expected);
+    assertJacobians(computed, expected);
+  }
+
+  /* Source provider different from the reference: same Jacobians as the one-off generation. */
+  public void generate_v_static_other_source() {
+    RatesProviderImpliedGroupGenerator generator = RatesProviderImpliedGroupGenerator
+        .of(GROUP_DEFINITION_RWM, MULTICURVE, ImmutableMap.of(), false, REF_DATA);
+    ImmutableRatesProvider multicurveShifted = shifted(MULTICURVE, SHIFT);
+    ImmutableRatesProvider expected = RatesProviderImpliedGroupDefinition
+        .generate(GROUP_DEFINITION_RWM, multicurveShifted, REF_DATA);
+    ImmutableRatesProvider computed = generator.generate(multicurveShifted);
+    assertProviders(computed, expected);
+    assertJacobians(computed, expected);
+  }
+
+  /* Batch generation: same results as the one-by-one generation, in the same order. */
+  public void generate_batch() {
+    RatesProviderImpliedGroupGenerator generator = RatesProviderImpliedGroupGenerator
+        .of(GROUP_DEFINITION_RWM, MULTICURVE, ImmutableMap.of(), false, REF_DATA);
+    ImmutableRatesProvider multicurveImplied = generator.generate(MULTICURVE);
+    List<ImmutableRatesProvider> scenarios = ImmutableList.of(MULTICURVE, multicurveImplied, MULTICURVE);
+    for (boolean withJacobian : new boolean[] {true, false}) {
+      List<ImmutableRatesProvider> batch = generator.generate(scenarios, withJacobian);
+      assertEquals(batch.size(), scenarios.size());
+      for (int i = 0; i < scenarios.size(); i++) {
+        assertProviders(batch.get(i), generator.generate(scenarios.get(i), withJacobian));
+      }
+    }
+    List<ImmutableRatesProvider> batchStatic = RatesProviderImpliedGroupDefinition
+        .generate(GROUP_DEFINITION_RWM, scenarios, true, REF_DATA);
+    assertProviders(batchStatic.get(0), RatesProviderImpliedGroupDefinition
+        .generate(GROUP_DEFINITION_RWM, MULTICURVE, REF_DATA));
+    assertJacobians(batchStatic.get(0), RatesProviderImpliedGroupDefinition
+        .generate(GROUP_DEFINITION_RWM, MULTICURVE, REF_DATA));
+  }
+
+  /* Batch generation, scenario other than the first one: same results as the one-off generation. */
+  public void generate_batch_static_other_scenario() {
+    ImmutableRatesProvider multicurveShifted = shifted(MULTICURVE, SHIFT);
+    List<ImmutableRatesProvider> scenarios = ImmutableList.of(MULTICURVE, multicurveShifted);
+    List<ImmutableRatesProvider> batch = RatesProviderImpliedGroupDefinition
+        .generate(GROUP_DEFINITION_RWM, scenarios, true, REF_DATA);
+    ImmutableRatesProvider expected = RatesProviderImpliedGroupDefinition
+        .generate(GROUP_DEFINITION_RWM, multicurveShifted, REF_DATA);
+    assertProviders(batch.get(1), expected);
+    assertJacobians(batch.get(1), expected);
+    List<ImmutableRatesProvider> batchGeneric = RatesProviderImpliedGroupDefinition
+        .generate(GROUP_DEFINITION_RWM, scenarios, ImmutableMap.of(), true, true, REF_DATA);
+    ImmutableRatesProvider expectedGeneric = RatesProviderImpliedGroupDefinition
+        .generateGeneric(GROUP_DEFINITION_RWM, multicurveShifted, ImmutableMap.of(), REF_DATA);
+    assertProviders(batchGeneric.get(1), expectedGeneric);
+    assertJacobians(batchGeneric.get(1), expectedGeneric);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void wrong_valuation_date() {
+    RatesProviderImpliedGroupGenerator generator = RatesProviderImpliedGroupGenerator
+        .of(GROUP_DEFINITION_RWM, MULTICURVE, ImmutableMap.of(), false, REF_DATA);
+    generator.generate(ImmutableRatesProvider.builder(VALUATION_DATE.plusDays(1)).build());
+  }
+
+  // Multi-curve with all the curve parameters shifted
+  static ImmutableRatesProvider shifted(ImmutableRatesProvider multicurve, double shift) {
+    ImmutableRatesProviderBuilder builder = multicurve.toBuilder();
+    for (Entry<Currency, Curve> entry : multicurve.getDiscountCurves().entrySet()) {
+      builder.discountCurve(entry.getKey(), entry.getValue().withPerturbation((i, v, m) -> v + shift));
+    }
+    for (Entry<Index, Curve> entry : multicurve.getIndexCurves().entrySet()) {
+      builder.indexCurve(entry.getKey(), entry.getValue().withPerturbation((i, v, m) -> v + shift));
+    }
+    return builder.build();
+  }
+
+  private static void assertProviders(ImmutableRatesProvider computed, ImmutableRatesProvider expected) {
+    for (int i = 0; i < NB_DATES; i++) {
+      LocalDate date = VALUATION_DATE.plusMonths(6 * i);
+      assertEquals(computed.discountFactor(Currency.USD, date), expected.discountFactor(Currency.USD, date),
+          TOLERANCE_DF);
+      IborIndexObservation obs = IborIndexObservation.of(INDEX, date, REF_DATA);
+      assertEquals(computed.iborIndexRates(INDEX).rate(obs), expected.iborIndexRates(INDEX).rate(obs),
+          TOLERANCE_DF);
+    }
+  }
+
+  private static void assertJacobians(ImmutableRatesProvider computed, ImmutableRatesProvider expected) {
+    DoubleMatrix jacComputed = ((ZeroRateDiscountFactors) computed.discountFactors(Currency.USD)).getCurve()
+        .getMetadata().findInfo(CurveInfoType.JACOBIAN).get().getJacobianMatrix();
+    DoubleMatrix jacExpected = ((ZeroRateDiscountFactors) expected.discountFactors(Currency.USD)).getCurve()
+        .getMetadata().findInfo(CurveInfoType.JACOBIAN).get().getJacobianMatrix();
+    assertEquals(jacComputed.rowCount(), jacExpected.rowCount());
+    assertEquals(jacComputed.columnCount(), jacExpected.columnCount());
+    for (int i = 0; i < jacComputed.rowCount(); i++) {
+      for (int j = 0; j < jacComputed.columnCount(); j++) {
+        assertEquals(jacComputed.get(i, j), jacExpected.get(i, j), TOLERANCE_JAC);
+      }
+    }
+  }
+
+}
@@ -8,11 +8,15 @@ import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_6M;
 import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_6M;
 import static com.opengamma.strata.product.swap.type.FixedOvernightSwapConventions.EUR_FIXED_1Y_EONIA_OIS;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.testng.annotations.Test;
 import org.testng.internal.junit.ArrayAsserts;
@@ -62,8 +66,14 @@ public class RationalTwoFactorFormulasTest {
       RationalTwoFactorParameters20151120DataSet.RATIONAL_2F;
   private static final RationalTwoFactorFormulas FORMULAS = 
       RationalTwoFactorFormulas.DEFAULT;
+  private static final RationalTwoFactorFormulas FORMULAS_HP = 
+      RationalTwoFactorFormulas.HIGH_PERFORMANCE;
 
   private final static double TOLERANCE = 1.0E-10;
+  private final static double TOLERANCE_PV_VECTOR = 1.0E-6;
+  private final static double TOLERANCE_PV_NI = 1.5;
+  private final static double NOTIONAL_HP = 100_000_000.0d;
+  private final static int NB_STEPS_HIGH = 50;
 
   /* Tests the swap coefficients. */
   public void swap_coefficients() {
@@ -241,5 +251,106 @@ public class RationalTwoFactorFormulasTest {
     double pvN = FORMULAS.pvSemiExplicit(new double[] {-1.0d, -2.0d, -3.0d}, 0.0, 0.5, 0.5, 0.1, 10);
     assertEquals(pvN, 0.0d, TOLERANCE);
   }
+
+  /* Tests the vector caplet coefficients and semi-explicit values against the one by one computations. */
+  public void semi_explicit_vector() {
+    List<IborCapletFloorletPeriod> caplets = caplets(1_000_000.0d);
+    double[][] c = FORMULAS.capletCoefficients(caplets, MULTICURVE_EUR, PARAMETERS);
+    assertEquals(c.length, caplets.size());
+    double[] t = expiryTimes(caplets);
+    for (int loopcap = 0; loopcap < caplets.size(); loopcap++) {
+      ArrayAsserts.assertArrayEquals(
+          FORMULAS.capletCoefficients(caplets.get(loopcap), MULTICURVE_EUR, PARAMETERS), c[loopcap], TOLERANCE);
+    }
+    double[] pvComputed =
+        FORMULAS.pvSemiExplicit(c, t, PARAMETERS.a1(), PARAMETERS.a2(), PARAMETERS.getCorrelation(), 10);
+    for (int loopcap = 0; loopcap < caplets.size(); loopcap++) {
+      double pvExpected = FORMULAS
+          .pvSemiExplicit(c[loopcap], t[loopcap], PARAMETERS.a1(), PARAMETERS.a2(), PARAMETERS.getCorrelation(), 10);
+      assertEquals(pvComputed[loopcap], pvExpected, TOLERANCE_PV_VECTOR);
+    }
+  }
+
+  /* Tests the high-performance semi-explicit values against the default implementation. */
+  public void semi_explicit_high_performance() {
+    List<IborCapletFloorletPeriod> caplets = caplets(NOTIONAL_HP);
+    double[][] c = FORMULAS.capletCoefficients(caplets, MULTICURVE_EUR, PARAMETERS);
+    double[] t = expiryTimes(caplets);
+    for (int loopcap = 0; loopcap < caplets.size(); loopcap++) {
+      double pvExpected = FORMULAS
+          .pvSemiExplicit(c[loopcap], t[loopcap], PARAMETERS.a1(), PARAMETERS.a2(), PARAMETERS.getCorrelation(), 10);
+      double pvComputed = FORMULAS_HP
+          .pvSemiExplicit(c[loopcap], t[loopcap], PARAMETERS.a1(), PARAMETERS.a2(), PARAMETERS.getCorrelation(), 10);
+      assertEquals(pvComputed, pvExpected, TOLERANCE_PV_VECTOR);
+    }
+    assertEquals(FORMULAS_HP.pvSemiExplicit(new double[] {-1.0d, -2.0d, -3.0d}, 0.0, 0.5, 0.5, 0.1, 10), 0.0d);
+    assertTrue(FORMULAS_HP.isHighPerformance());
+    assertFalse(FORMULAS.isHighPerformance());
+  }
+
+  /* Tests the high-performance 2-D integration, restricted to the exercise region, against the default one. */
+  public void numerical_integration_high_performance() {
+    List<IborCapletFloorletPeriod> caplets = caplets(NOTIONAL_HP);
+    double[][] c = FORMULAS.capletCoefficients(caplets, MULTICURVE_EUR, PARAMETERS);
+    double[] t = expiryTimes(caplets);
+    double[] pvExpected =
+        FORMULAS.pvNumericalIntegration(c, t, PARAMETERS.a1(), PARAMETERS.a2(), PARAMETERS.getCorrelation(), 10);
+    double[] pvComputed =
+        FORMULAS_HP.pvNumericalIntegration(c, t, PARAMETERS.a1(), PARAMETERS.a2(), PARAMETERS.getCorrelation(), 10);
+    double[] pvComputedHigh = FORMULAS_HP
+        .pvNumericalIntegration(c, t, PARAMETERS.a1(), PARAMETERS.a2(), PARAMETERS.getCorrelation(), NB_STEPS_HIGH);
+    for (int loopcap = 0; loopcap < caplets.size(); loopcap++) {
+      assertEquals(pvComputed[loopcap], pvExpected[loopcap], TOLERANCE_PV_NI);
+      double pvSemiExplicit = FORMULAS
+          .pvSemiExplicit(c[loopcap], t[loopcap], PARAMETERS.a1(), PARAMETERS.a2(), PARAMETERS.getCorrelation(), 10);
+      assertEquals(pvComputedHigh[loopcap], pvSemiExplicit, TOLERANCE_PV_NI);
+    }
+    double[] cSwap = FORMULAS.swapCoefficients(EUR_FIXED_1Y_EURIBOR_6M
+        .createTrade(VALUATION_DATE, Period.ofYears(2), Tenor.TENOR_5Y, BuySell.BUY, NOTIONAL_HP, 0.01, REF_DATA)
+        .resolve(REF_DATA).getProduct(), MULTICURVE_EUR, PARAMETERS);
+    for (int loopsign = 0; loopsign < 2; loopsign++) {
+      double[] x = (loopsign == 0) ? cSwap : new double[] {-cSwap[0], -cSwap[1], -cSwap[2]};
+      double pvSwptExpected =
+          FORMULAS.pvNumericalIntegration(x, 2.0d, PARAMETERS.a1(), PARAMETERS.a2(), PARAMETERS.getCorrelation(), 10);
+      double pvSwptComputed = FORMULAS_HP
+          .pvNumericalIntegration(x, 2.0d, PARAMETERS.a1(), PARAMETERS.a2(), PARAMETERS.getCorrelation(), 10);
+      assertEquals(pvSwptComputed, pvSwptExpected, TOLERANCE_PV_NI);
+    }
+  }
+
+  // Caplets and floorlets with several expiries and strikes
+  private static List<IborCapletFloorletPeriod> caplets(double notional) {
+    List<IborCapletFloorletPeriod> caplets = new ArrayList<>();
+    double[] strikes = new double[] {-0.0050, 0.0, 0.0050, 0.0100, 0.0200};
+    for (int loopexp = 0; loopexp < 10; loopexp++) {
+      LocalDate fixingDate = REF_DATA.getValue(EUR_EURIBOR_6M.getFixingCalendar())
+          .nextOrSame(LocalDate.of(2016 + loopexp, 8, 12));
+      IborRateComputation comp = IborRateComputation.of(EUR_EURIBOR_6M, fixingDate, REF_DATA);
+      LocalDate startDate = comp.getObservation().getEffectiveDate();
+      LocalDate endDate = comp.getObservation().getMaturityDate();
+      for (int loopstrike = 0; loopstrike < strikes.length; loopstrike++) {
+        IborCapletFloorletPeriod.Builder builder = IborCapletFloorletPeriod.builder()
+            .currency(EUR)
+            .notional(notional)
+            .startDate(startDate)
+            .endDate(endDate)
+            .paymentDate(endDate)
+            .yearFraction(0.5d)
+            .iborRate(comp);
+        caplets.add(((loopstrike % 2 == 0) ? builder.caplet(strikes[loopstrike]) :
+            builder.floorlet(strikes[loopstrike])).build());
+      }
+    }
+    return caplets;
+  }
+
+  // Times to expiry of the caplets
+  private static double[] expiryTimes(List<IborCapletFloorletPeriod> caplets) {
+    double[] t = new double[caplets.size()];
+    for (int loopcap = 0; loopcap < caplets.size(); loopcap++) {
+      t[loopcap] = PARAMETERS.relativeTime(caplets.get(loopcap).getFixingDateTime());
+    }
+    return t;
+  }
   
 }
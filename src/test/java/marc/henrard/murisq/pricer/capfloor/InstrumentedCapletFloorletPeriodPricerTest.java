@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.capfloor;
+
+import static com.opengamma.strata.basics.currency.Currency.EUR;
+import static com.opengamma.strata.basics.date.HolidayCalendarIds.EUTA;
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_6M;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.capfloor.IborCapletFloorletPeriod;
+import com.opengamma.strata.product.rate.IborRateComputation;
+
+import marc.henrard.murisq.basics.metrics.HistogramMetricsSink;
+import marc.henrard.murisq.basics.metrics.MetricsSink;
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.dataset.RationalTwoFactorParameters20151120DataSet;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorGenericParameters;
+
+/**
+ * Tests {@link InstrumentedCapletFloorletPeriodPricer}.
+ *
+ * @author Marc Henrard
+ */
+public class InstrumentedCapletFloorletPeriodPricerTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final HolidayCalendar EUTA_IMPL = REF_DATA.getValue(EUTA);
+  private static final ImmutableRatesProvider MULTICURVE = MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+  private static final RationalTwoFactorGenericParameters RATIONAL_2F =
+      RationalTwoFactorParameters20151120DataSet.rational2Factor(LocalTime.of(9, 29), ZoneId.of("Europe/London"));
+
+  private static final RationalTwoFactorCapletFloorletPeriodSemiExplicitPricer PRICER_UNDERLYING =
+      RationalTwoFactorCapletFloorletPeriodSemiExplicitPricer.DEFAULT;
+  private static final InstrumentedCapletFloorletPeriodPricer PRICER_INSTRUMENTED =
+      new InstrumentedCapletFloorletPeriodPricer(PRICER_UNDERLYING);
+  private static final String METRIC_NAME = "RationalTwoFactorCapletFloorletPeriodSemiExplicitPricer.presentValue";
+
+  private static final IborRateComputation COMPUTATION =
+      IborRateComputation.of(EUR_EURIBOR_6M, EUTA_IMPL.nextOrSame(VALUATION_DATE.plusYears(2)), REF_DATA);
+  private static final IborCapletFloorletPeriod CAPLET = IborCapletFloorletPeriod.builder()
+      .currency(EUR)
+      .notional(1_000_000.0d)
+      .startDate(COMPUTATION.getEffectiveDate())
+      .endDate(COMPUTATION.getMaturityDate())
+      .paymentDate(COMPUTATION.getMaturityDate())
+      .yearFraction(COMPUTATION.getYearFraction())
+      .iborRate(COMPUTATION)
+      .caplet(0.0050)
+      .build();
+
+  @AfterEach
+  public void reset() {
+    PricingMetrics.setSink(MetricsSink.NONE);
+  }
+
+  @Test
+  public void underlying() {
+    assertThat(PRICER_INSTRUMENTED.getUnderlying()).isEqualTo(PRICER_UNDERLYING);
+    assertThatIllegalArgumentException().isThrownBy(() -> new InstrumentedCapletFloorletPeriodPricer(null));
+  }
+
+  @Test
+  public void present_value_disabled() {
+    CurrencyAmount pvExpected = PRICER_UNDERLYING.presentValue(CAPLET, MULTICURVE, RATIONAL_2F);
+    CurrencyAmount pvComputed = PRICER_INSTRUMENTED.presentValue(CAPLET, MULTICURVE, RATIONAL_2F);
+    assertThat(pvComputed).isEqualTo(pvExpected);
+  }
+
+  @Test
+  public void present_value_enabled() {
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    PricingMetrics.setSink(sink);
+    CurrencyAmount pvExpected = PRICER_UNDERLYING.presentValue(CAPLET, MULTICURVE, RATIONAL_2F);
+    CurrencyAmount pvComputed = PRICER_INSTRUMENTED.presentValue(CAPLET, MULTICURVE, RATIONAL_2F);
+    assertThat(pvComputed).isEqualTo(pvExpected);
+    assertThat(sink.timer(METRIC_NAME).getCount()).isEqualTo(1L);
+  }
+
+  /* The periods are priced together by the underlying pricer and measured once. */
+  @Test
+  public void present_value_periods() {
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    PricingMetrics.setSink(sink);
+    List<IborCapletFloorletPeriod> caplets = ImmutableList.of(CAPLET, CAPLET);
+    double[] pvExpected = PRICER_UNDERLYING.presentValuePeriods(caplets, MULTICURVE, RATIONAL_2F);
+    double[] pvComputed = PRICER_INSTRUMENTED.presentValuePeriods(caplets, MULTICURVE, RATIONAL_2F);
+    assertThat(pvComputed).containsExactly(pvExpected);
+    assertThat(sink.timer("RationalTwoFactorCapletFloorletPeriodSemiExplicitPricer.presentValuePeriods").getCount())
+        .isEqualTo(1L);
+    assertThat(sink.timer(METRIC_NAME).getCount()).isEqualTo(0L);
+  }
+
+}
@@ -13,6 +13,8 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.Period;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.testng.annotations.Test;
 
@@ -131,6 +133,27 @@ public class RationalTwoFactorCapletFloorletPeriodSemiExplicitNiPricerTest {
     }
   }
 
+  /* Test the pv of several periods v the pv of each period, for caplets and short floorlets. */
+  public void present_value_periods() {
+    List<IborCapletFloorletPeriod> caplets = new ArrayList<>();
+    for (int i = 0; i < NB_EXPIRIES; i++) {
+      for (int k = 0; k < NB_STRIKES; k++) {
+        LocalDate fixingDate = EUTA_IMPL.nextOrSame(VALUATION_DATE.plus(EXPIRIES_PER[i]));
+        IborRateComputation comp = IborRateComputation.of(EUR_EURIBOR_6M, fixingDate, REF_DATA);
+        caplets.add(capletFloorlet(NOTIONAL, comp, STRIKES[k], true));
+        caplets.add(capletFloorlet(-NOTIONAL, comp, STRIKES[k], false));
+      }
+    }
+    double[] pvNumInteg = PRICER_CAP_2_NI.presentValuePeriods(caplets, MULTICURVE, RATIONAL_2F);
+    double[] pvSemiExpl = PRICER_CAP_S_EX.presentValuePeriods(caplets, MULTICURVE, RATIONAL_2F);
+    for (int loopcap = 0; loopcap < caplets.size(); loopcap++) {
+      assertEquals(pvNumInteg[loopcap],
+          PRICER_CAP_2_NI.presentValue(caplets.get(loopcap), MULTICURVE, RATIONAL_2F).getAmount(), 1.0E-6);
+      assertEquals(pvSemiExpl[loopcap],
+          PRICER_CAP_S_EX.presentValue(caplets.get(loopcap), MULTICURVE, RATIONAL_2F).getAmount(), 1.0E-6);
+    }
+  }
+
   /* Test pv of caplet v one period swaption. */
   public void present_value_caplet_swaption() {
     FixedRateSwapLegConvention fixedLegConvention =
@@ -40,6 +40,7 @@ import com.opengamma.strata.product.swap.IborRateCalculation;
 import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
 import marc.henrard.murisq.dataset.RationalTwoFactorParameters20151120DataSet;
 import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorGenericParameters;
+import marc.henrard.murisq.pricer.capfloor.RationalTwoFactorCapletFloorletPeriodNumericalIntegrationPricer;
 import marc.henrard.murisq.pricer.capfloor.RationalTwoFactorCapletFloorletPeriodSemiExplicitPricer;
 import marc.henrard.murisq.pricer.capfloor.SingleCurrencyModelCapFloorLegPricer;
 
@@ -61,6 +62,10 @@ public class SingleCurrencyModelCapFloorLegPricerTest {
       RationalTwoFactorCapletFloorletPeriodSemiExplicitPricer.DEFAULT;
   private static final SingleCurrencyModelCapFloorLegPricer PRICER_LEG_S_EX =
       new SingleCurrencyModelCapFloorLegPricer(PRICER_CAPLET_S_EX);
+  private static final RationalTwoFactorCapletFloorletPeriodNumericalIntegrationPricer PRICER_CAPLET_NI =
+      RationalTwoFactorCapletFloorletPeriodNumericalIntegrationPricer.DEFAULT;
+  private static final SingleCurrencyModelCapFloorLegPricer PRICER_LEG_NI =
+      new SingleCurrencyModelCapFloorLegPricer(PRICER_CAPLET_NI);
   private static final NormalIborCapFloorLegPricer PRICER_LEG_BACHELIER =
       NormalIborCapFloorLegPricer.DEFAULT;
   
@@ -110,6 +115,35 @@ public class SingleCurrencyModelCapFloorLegPricerTest {
     }
   }
 
+  /* Tests present value of long legs, with periods priced in parallel, as sum of periods. */
+  public void present_value_leg_long() {
+    LocalDate spot6M = EUR_EURIBOR_6M.calculateMaturityFromFixing(VALUATION_DATE, REF_DATA);
+    LocalDate maturity = spot6M.plus(Period.ofYears(30));
+    for (int k = 0; k < NB_STRIKES; k++) {
+      PeriodicSchedule paySchedule =
+          PeriodicSchedule.of(spot6M, maturity, Frequency.P6M, BUSINESS_ADJ, StubConvention.NONE,
+              RollConventions.NONE);
+      IborCapFloorLeg leg = IborCapFloorLeg.builder()
+          .currency(EUR)
+          .calculation(IborRateCalculation.of(EUR_EURIBOR_6M))
+          .floorSchedule(ValueSchedule.of(STRIKES[k]))
+          .notional(ValueSchedule.of(NOTIONAL))
+          .paymentSchedule(paySchedule)
+          .payReceive(PayReceive.RECEIVE).build();
+      ResolvedIborCapFloorLeg resolvedLeg = leg.resolve(REF_DATA);
+      double pvSemiExplicit = PRICER_LEG_S_EX.presentValue(resolvedLeg, MULTICURVE, RATIONAL_2F).getAmount();
+      double pvNi = PRICER_LEG_NI.presentValue(resolvedLeg, MULTICURVE, RATIONAL_2F).getAmount();
+      double pvSemiExplicitExpected = 0.0d;
+      double pvNiExpected = 0.0d;
+      for (IborCapletFloorletPeriod p : resolvedLeg.getCapletFloorletPeriods()) {
+        pvSemiExplicitExpected += PRICER_CAPLET_S_EX.presentValue(p, MULTICURVE, RATIONAL_2F).getAmount();
+        pvNiExpected += PRICER_CAPLET_NI.presentValue(p, MULTICURVE, RATIONAL_2F).getAmount();
+      }
+      assertEquals(pvSemiExplicit, pvSemiExplicitExpected, TOLERANCE_PV);
+      assertEquals(pvNi, pvNiExpected, TOLERANCE_PV);
+    }
+  }
+
   /* Tests implied volatility in the Bachelier model. */
   public void implied_volatility_bachelier() {
     LocalDate spot6M = EUR_EURIBOR_6M.calculateMaturityFromFixing(VALUATION_DATE, REF_DATA);
@@ -0,0 +1,253 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.cms;
+
+import static com.opengamma.strata.basics.currency.Currency.EUR;
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_6M;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.date.AdjustableDate;
+import com.opengamma.strata.basics.date.BusinessDayAdjustment;
+import com.opengamma.strata.basics.date.BusinessDayConventions;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.basics.date.HolidayCalendarIds;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.common.LongShort;
+import com.opengamma.strata.product.swap.SwapIndex;
+import com.opengamma.strata.product.swap.SwapIndices;
+import com.opengamma.strata.product.swap.type.FixedIborSwapConvention;
+import com.opengamma.strata.product.swap.type.FixedIborSwapConventions;
+import com.opengamma.strata.product.swaption.PhysicalSwaptionSettlement;
+import com.opengamma.strata.product.swaption.ResolvedSwaption;
+import com.opengamma.strata.product.swaption.Swaption;
+
+import marc.henrard.murisq.basics.time.ScaledSecondTime;
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantParameters;
+import marc.henrard.murisq.pricer.decomposition.MulticurveDecisionScheduleCalculator;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalent;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentSchedule;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentValues;
+import marc.henrard.murisq.pricer.swaption.G2ppSwaptionPhysicalProductNumericalIntegration2DPricer;
+import marc.henrard.murisq.product.cms.CmsSpreadPeriod;
+import marc.henrard.murisq.product.cms.CmsSpreadPeriodResolved;
+
+/**
+ * Tests {@link G2ppCmsSpreadPeriodMonteCarloPricer}.
+ * 
+ * @author Marc Henrard
+ */
+public class G2ppCmsSpreadPeriodMonteCarloPricerTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 29);
+  private static final HolidayCalendar EUTA_IMPL = REF_DATA.getValue(EUR_EURIBOR_6M.getFixingCalendar());
+
+  /* Market Data */
+  private static final ImmutableRatesProvider MULTICURVE_EUR = MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+
+  /* G2++ parameters */
+  private static final G2ppPiecewiseConstantParameters G2PP =
+      G2ppPiecewiseConstantParameters.builder()
+          .currency(EUR)
+          .correlation(-0.50)
+          .kappa1(0.02)
+          .kappa2(0.20)
+          .volatility1(DoubleArray.of(0.01d))
+          .volatility2(DoubleArray.of(0.005d))
+          .volatilityTime(DoubleArray.of())
+          .valuationDate(VALUATION_DATE)
+          .valuationTime(VALUATION_TIME)
+          .valuationZone(VALUATION_ZONE)
+          .timeMeasure(ScaledSecondTime.DEFAULT)
+          .build();
+
+  /* Descriptions of CMS spreads */
+  private static final SwapIndex[] INDICES =
+      new SwapIndex[] {SwapIndices.EUR_EURIBOR_1100_10Y, SwapIndices.EUR_EURIBOR_1100_2Y};
+  private static final double NOTIONAL = 100_000_000.0d;
+  private static final double[] WEIGHTS = {1.50d, 0.75d};
+  private static final double ACCRUAL_FACTOR = 0.50;
+  private static final double STRIKE = 0.01;
+  private static final LocalDate FIXING_DATE = EUTA_IMPL.nextOrSame(VALUATION_DATE.plusYears(5));
+  private static final BusinessDayAdjustment ADJUSTMENT =
+      BusinessDayAdjustment.of(BusinessDayConventions.MODIFIED_FOLLOWING, HolidayCalendarIds.EUTA);
+  private static final CmsSpreadPeriodResolved[] CMS_SPREAD = new CmsSpreadPeriodResolved[3]; // coupon, cap, floor
+  static {
+    FixedIborSwapConvention convention = FixedIborSwapConventions.EUR_FIXED_1Y_LIBOR_6M;
+    LocalDate startDate = convention.calculateSpotDateFromTradeDate(FIXING_DATE, REF_DATA);
+    LocalDate endDate = EUTA_IMPL.nextOrSame(startDate.plusMonths(6));
+    for (int looptype = 0; looptype < 3; looptype++) {
+      CmsSpreadPeriod.Builder builder = CmsSpreadPeriod.builder()
+          .notional(NOTIONAL)
+          .endDate(AdjustableDate.of(endDate, ADJUSTMENT))
+          .startDate(AdjustableDate.of(startDate, ADJUSTMENT))
+          .paymentDate(AdjustableDate.of(endDate, ADJUSTMENT))
+          .yearFraction(ACCRUAL_FACTOR)
+          .fixingDate(FIXING_DATE)
+          .index1(INDICES[0])
+          .weight1(WEIGHTS[0])
+          .index2(INDICES[1])
+          .weight2(WEIGHTS[1]);
+      if (looptype == 1) {
+        builder.caplet(STRIKE);
+      }
+      if (looptype == 2) {
+        builder.floorlet(STRIKE);
+      }
+      CMS_SPREAD[looptype] = builder.build().resolve(REF_DATA);
+    }
+  }
+
+  /* Monte carlo */
+  private static final int NBPATHS = 100_000;
+  private static final long SEED = 20210301L;
+  private static final G2ppCmsSpreadPeriodMonteCarloPricer PRICER_MC =
+      G2ppCmsSpreadPeriodMonteCarloPricer.builder()
+          .nbPaths(NBPATHS)
+          .pathNumberBlock(10_000)
+          .model(G2PP)
+          .seed(SEED).build();
+
+  /* Swaption */
+  private static final double STRIKE_SWAPTION = 0.0125;
+  private static final G2ppSwaptionPhysicalProductNumericalIntegration2DPricer PRICER_SWPT_NI =
+      G2ppSwaptionPhysicalProductNumericalIntegration2DPricer.DEFAULT;
+  private static final boolean PRINT_DETAILS = false;
+
+  /* Coupon = caplet - floorlet + strike * payment. Exact path by path, the payment of the strike is
+   * a martingale in the model and its Monte Carlo estimate is close to the discounted value. */
+  @Test
+  public void coupon_cap_floor_parity() {
+    long start, end;
+    start = System.currentTimeMillis();
+    double pvCoupon = PRICER_MC.presentValueDouble(CMS_SPREAD[0], MULTICURVE_EUR);
+    double pvCap = PRICER_MC.presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    double pvFloor = PRICER_MC.presentValueDouble(CMS_SPREAD[2], MULTICURVE_EUR);
+    end = System.currentTimeMillis();
+    double pvStrike = STRIKE * NOTIONAL * ACCRUAL_FACTOR *
+        MULTICURVE_EUR.discountFactor(EUR, CMS_SPREAD[0].getPaymentDate());
+    if (PRINT_DETAILS) {
+      System.out.println("Coupon: " + pvCoupon + ", caplet: " + pvCap + ", floorlet: " + pvFloor);
+      System.out.println("Computation time: " + (end - start) + " ms.");
+    }
+    assertThat(pvCoupon).isEqualTo(pvCap - pvFloor + pvStrike, within(pvStrike * 1.0E-2));
+    assertThat(pvCap).isGreaterThan(0.0d);
+    assertThat(pvFloor).isGreaterThan(0.0d);
+  }
+
+  /* The results depend only on the seed, not on the parallel execution. */
+  @Test
+  public void reproducible() {
+    double pv1 = PRICER_MC.presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    double pv2 = PRICER_MC.presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    assertThat(pv1).isEqualTo(pv2, within(1.0E-6));
+  }
+
+  /* Successive calls return the same values; the paths of evolve are the paths of the first block. */
+  @Test
+  public void successive_calls() {
+    MulticurveEquivalentSchedule mce = PRICER_MC.multicurveEquivalent(CMS_SPREAD[0]);
+    MulticurveEquivalentValues initialValues = PRICER_MC.initialValues(mce, MULTICURVE_EUR);
+    List<List<MulticurveEquivalentValues>> paths1 = PRICER_MC.evolve(initialValues, mce.getDecisionTimes(), 10);
+    List<List<MulticurveEquivalentValues>> paths2 = PRICER_MC.evolve(initialValues, mce.getDecisionTimes(), 10);
+    assertThat(paths2).isEqualTo(paths1);
+    SplittableRandom[] generators = PRICER_MC.generators(2);
+    List<List<MulticurveEquivalentValues>> pathsBlock1 =
+        PRICER_MC.evolve(initialValues, mce.getDecisionTimes(), 10, generators[0]);
+    List<List<MulticurveEquivalentValues>> pathsBlock2 =
+        PRICER_MC.evolve(initialValues, mce.getDecisionTimes(), 10, generators[1]);
+    assertThat(pathsBlock1).isEqualTo(paths1);
+    for (int looppath = 0; looppath < 10; looppath++) {
+      assertThat(pathsBlock2.get(looppath).get(0).getOnRates())
+          .isNotEqualTo(paths1.get(looppath).get(0).getOnRates());
+    }
+    double pv1 = PRICER_MC.presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    double pv2 = PRICER_MC.presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    assertThat(pv2).isEqualTo(pv1);
+    double pv3 = PRICER_MC.toBuilder().build().presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    assertThat(pv3).isEqualTo(pv1);
+  }
+
+  @Test
+  public void invalid_paths() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PRICER_MC.toBuilder().nbPaths(0).build());
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PRICER_MC.toBuilder().pathNumberBlock(0).build());
+  }
+
+  /* The first underlying swap valued on the paths used by the pricer gives a receiver swaption price that is
+   * compared to the numerical integration formula, within 3 standard deviations of the Monte Carlo estimate. */
+  @Test
+  public void swaption_numerical_integration() {
+    CmsSpreadPeriodResolved cmsSpread = CMS_SPREAD[0];
+    MulticurveEquivalentSchedule mce = PRICER_MC.multicurveEquivalent(cmsSpread);
+    MulticurveEquivalent me = mce.getSchedules().get(0);
+    MulticurveEquivalentValues initialValues = PRICER_MC.initialValues(mce, MULTICURVE_EUR);
+    MulticurveEquivalent me1 =
+        MulticurveDecisionScheduleCalculator.multicurveEquivalent(cmsSpread.getUnderlyingSwap1());
+    int nbDf1 = me1.getDiscountFactorPayments().size();
+    int nbIbor1 = me1.getIborComputations().size();
+    int nbDf = me.getDiscountFactorPayments().size();
+    int nbIbor = me.getIborComputations().size();
+    double[][] coefficients = PRICER_MC.deflatedCoefficients(mce, initialValues, G2PP)[0];
+    double[] iborRates = initialValues.getIborRates().toArrayUnsafe();
+    List<List<MulticurveEquivalentValues>> paths =
+        PRICER_MC.evolve(initialValues, mce.getDecisionTimes(), NBPATHS, new SplittableRandom(SEED));
+    double sum = 0.0;
+    double sum2 = 0.0;
+    for (int looppath = 0; looppath < NBPATHS; looppath++) {
+      double[] x = paths.get(looppath).get(0).getOnRates().toArrayUnsafe();
+      double pvSwap = 0.0; // deflated value, underlying swaps have a fixed rate of 1
+      for (int loopfix = 0; loopfix < nbDf1; loopfix++) {
+        pvSwap += STRIKE_SWAPTION * me.getDiscountFactorPayments().get(loopfix).getPaymentAmount().getAmount() *
+            PRICER_MC.deflatedDiscountFactor(coefficients[loopfix], x[0], x[1]);
+      }
+      for (int loopibor = 0; loopibor < nbIbor1; loopibor++) {
+        double iborRate = PRICER_MC.iborRate(coefficients[nbDf + nbIbor + loopibor],
+            coefficients[nbDf + 2 * nbIbor + loopibor], iborRates[loopibor],
+            me.getIborComputations().get(loopibor).getYearFraction(), x[0], x[1]);
+        pvSwap += me.getIborPayments().get(loopibor).getPaymentAmount().getAmount() * iborRate *
+            PRICER_MC.deflatedDiscountFactor(coefficients[nbDf + loopibor], x[0], x[1]);
+      }
+      double payoff = Math.max(pvSwap, 0.0d) * NOTIONAL;
+      sum += payoff;
+      sum2 += payoff * payoff;
+    }
+    double pvMc = sum / NBPATHS;
+    double error = Math.sqrt((sum2 / NBPATHS - pvMc * pvMc) / NBPATHS);
+    ResolvedSwaption swaption = Swaption.builder()
+        .expiryDate(AdjustableDate.of(FIXING_DATE))
+        .expiryTime(INDICES[0].getFixingTime())
+        .expiryZone(INDICES[0].getFixingZone())
+        .longShort(LongShort.LONG)
+        .swaptionSettlement(PhysicalSwaptionSettlement.DEFAULT)
+        .underlying(INDICES[0].getTemplate()
+            .createTrade(FIXING_DATE, BuySell.SELL, NOTIONAL, STRIKE_SWAPTION, REF_DATA).getProduct())
+        .build().resolve(REF_DATA);
+    double pvNi = PRICER_SWPT_NI.presentValue(swaption, MULTICURVE_EUR, G2PP).getAmount();
+    if (PRINT_DETAILS) {
+      System.out.println("Swaption MC: " + pvMc + " +/- " + error + ", numerical integration: " + pvNi);
+    }
+    assertThat(pvMc).isEqualTo(pvNi, within(3.0d * error));
+  }
+
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.cms;
+
+import static com.opengamma.strata.basics.currency.Currency.EUR;
+import static com.opengamma.strata.basics.date.DayCounts.ACT_365F;
+import static com.opengamma.strata.basics.date.HolidayCalendarIds.EUTA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.DiscountingPaymentPricer;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParametersProvider;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.cms.CmsPeriod;
+import com.opengamma.strata.product.cms.CmsPeriodType;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+import com.opengamma.strata.product.swap.SwapIndex;
+import com.opengamma.strata.product.swap.SwapIndices;
+import com.opengamma.strata.product.swap.type.FixedIborSwapConvention;
+import com.opengamma.strata.product.swap.type.FixedIborSwapConventions;
+
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+
+/**
+ * Tests of {@link HullWhiteCmsPeriodGaussianQuadraturePricer}.
+ * 
+ * @author Marc Henrard
+ */
+public class HullWhiteCmsPeriodGaussianQuadraturePricerTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 0);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/Brussels");
+  private static final HolidayCalendar EUTA_IMPL = REF_DATA.findValue(EUTA).get();
+
+  // Hull-White model parameters
+  private static final double MEAN_REVERSION = 0.01;
+  private static final DoubleArray VOLATILITY = DoubleArray.of(0.01);
+  private static final DoubleArray VOLATILITY_TIME = DoubleArray.of();
+  private static final HullWhiteOneFactorPiecewiseConstantParameters MODEL_PARAMETERS =
+      HullWhiteOneFactorPiecewiseConstantParameters.of(MEAN_REVERSION, VOLATILITY, VOLATILITY_TIME);
+  private static final HullWhiteOneFactorPiecewiseConstantParametersProvider HW_PROVIDER =
+      HullWhiteOneFactorPiecewiseConstantParametersProvider.of(
+          MODEL_PARAMETERS, ACT_365F, VALUATION_DATE.atTime(VALUATION_TIME).atZone(VALUATION_ZONE));
+
+  private static final HullWhiteCmsPeriodGaussianQuadraturePricer PRICER_CMS_GQ =
+      HullWhiteCmsPeriodGaussianQuadraturePricer.DEFAULT;
+  private static final int NB_STEPS = 250;
+  private static final HullWhiteCmsPeriodNumericalIntegrationPricer PRICER_CMS_NI_PRECISION =
+      new HullWhiteCmsPeriodNumericalIntegrationPricer(NB_STEPS, DiscountingPaymentPricer.DEFAULT);
+
+  /* Descriptions of caplets/floorlets */
+  private static final SwapIndex[] INDICES = 
+      new SwapIndex[] {SwapIndices.EUR_EURIBOR_1100_2Y, SwapIndices.EUR_EURIBOR_1100_10Y};
+  private static final Period[] EXPIRIES = new Period[] {Period.ofYears(5), Period.ofYears(20)};
+  private static final Period[] PAYMENT_LAG = new Period[] {Period.ZERO, Period.ofMonths(12)};
+  private static final double[] STRIKES_NI = new double[] {0.0050, 0.0250};
+  private static final double[] STRIKES = new double[] {-0.0050, 0.0050, 0.0250, 0.0500};
+  private static final CmsPeriodType[] TYPES = 
+      new CmsPeriodType[] {CmsPeriodType.COUPON, CmsPeriodType.CAPLET, CmsPeriodType.FLOORLET};
+  private static final double NOTIONAL = 100_000_000.0d;
+  private static final FixedIborSwapConvention CONVENTION = FixedIborSwapConventions.EUR_FIXED_1Y_LIBOR_6M;
+
+  /* Load and calibrate curves */
+  private static final ImmutableRatesProvider MULTICURVE = MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+  
+  /* Constants */
+  private static final Offset<Double> TOLERANCE_PV = offset(5.0E+0);
+  private static final Offset<Double> TOLERANCE_PV_LEG = offset(1.0E-6);
+
+  /* Coupon, caplet and floorlet: present value versus adaptive numerical integration. */
+  @Test
+  public void present_value_v_ni() {
+    for (SwapIndex index : INDICES) {
+      for (Period expiry : EXPIRIES) {
+        for (Period lag : PAYMENT_LAG) {
+          for (CmsPeriodType type : TYPES) {
+            for (double strike : STRIKES_NI) {
+              LocalDate fixingDate = EUTA_IMPL.nextOrSame(VALUATION_DATE.plus(expiry));
+              CmsPeriod cms = cmsPeriod(fixingDate, lag, index, type, strike);
+              CurrencyAmount pvGq = PRICER_CMS_GQ.presentValue(cms, MULTICURVE, HW_PROVIDER);
+              CurrencyAmount pvNi = PRICER_CMS_NI_PRECISION.presentValue(cms, MULTICURVE, HW_PROVIDER);
+              assertThat(pvGq.getCurrency()).isEqualTo(EUR);
+              assertThat(pvGq.getAmount()).isCloseTo(pvNi.getAmount(), TOLERANCE_PV);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /* Cap/floor parity: caplet - floorlet = coupon - strike x payment. */
+  @Test
+  public void cap_floor_parity() {
+    for (SwapIndex index : INDICES) {
+      for (Period expiry : EXPIRIES) {
+        for (double strike : STRIKES) {
+          LocalDate fixingDate = EUTA_IMPL.nextOrSame(VALUATION_DATE.plus(expiry));
+          CmsPeriod coupon = cmsPeriod(fixingDate, Period.ZERO, index, CmsPeriodType.COUPON, 0.0);
+          double pvCoupon = PRICER_CMS_GQ.presentValue(coupon, MULTICURVE, HW_PROVIDER).getAmount();
+          double pvCap = PRICER_CMS_GQ.presentValue(
+              cmsPeriod(fixingDate, Period.ZERO, index, CmsPeriodType.CAPLET, strike), MULTICURVE, HW_PROVIDER)
+              .getAmount();
+          double pvFloor = PRICER_CMS_GQ.presentValue(
+              cmsPeriod(fixingDate, Period.ZERO, index, CmsPeriodType.FLOORLET, strike), MULTICURVE, HW_PROVIDER)
+              .getAmount();
+          double pvStrike = NOTIONAL * coupon.getYearFraction() * strike *
+              MULTICURVE.discountFactor(EUR, coupon.getPaymentDate());
+          assertThat(pvCap - pvFloor).isCloseTo(pvCoupon - pvStrike, TOLERANCE_PV);
+        }
+      }
+    }
+  }
+
+  /* Leg: the present values of the periods are the same as the one computed individually. */
+  @Test
+  public void present_value_leg() {
+    for (CmsPeriodType type : TYPES) {
+      List<CmsPeriod> periods = new ArrayList<>();
+      for (int loopp = 0; loopp < 40; loopp++) {
+        LocalDate fixingDate = EUTA_IMPL.nextOrSame(VALUATION_DATE.plusMonths(6 * (loopp + 1)));
+        periods.add(cmsPeriod(fixingDate, Period.ZERO, SwapIndices.EUR_EURIBOR_1100_10Y, type, 0.0150));
+      }
+      double[] pvLeg = PRICER_CMS_GQ.presentValuePeriods(periods, MULTICURVE, HW_PROVIDER);
+      assertThat(pvLeg.length).isEqualTo(periods.size());
+      for (int loopp = 0; loopp < periods.size(); loopp++) {
+        double pvPeriod = PRICER_CMS_GQ.presentValue(periods.get(loopp), MULTICURVE, HW_PROVIDER).getAmount();
+        assertThat(pvLeg[loopp]).isCloseTo(pvPeriod, TOLERANCE_PV_LEG);
+      }
+    }
+  }
+
+  private CmsPeriod cmsPeriod(LocalDate fixingDate, Period paymentLag, SwapIndex index, CmsPeriodType type,
+      double strike) {
+
+    LocalDate startDate = CONVENTION.calculateSpotDateFromTradeDate(fixingDate, REF_DATA);
+    LocalDate endDate = EUTA_IMPL.nextOrSame(startDate.plusMonths(6));
+    LocalDate paymentDate = EUTA_IMPL.nextOrSame(startDate.plus(paymentLag));
+    ResolvedSwap underlyingSwap = index.getTemplate()
+        .createTrade(fixingDate, BuySell.BUY, 1.0d, 1.0d, REF_DATA).resolve(REF_DATA).getProduct();
+    CmsPeriod.Builder cmsBuilder = CmsPeriod.builder()
+        .fixingDate(fixingDate)
+        .startDate(startDate)
+        .endDate(endDate)
+        .paymentDate(paymentDate)
+        .dayCount(DayCounts.ACT_360)
+        .yearFraction(0.5)
+        .notional(NOTIONAL)
+        .index(index)
+        .underlyingSwap(underlyingSwap)
+        .currency(EUR);
+    if (type.equals(CmsPeriodType.CAPLET)) {
+      cmsBuilder = cmsBuilder.caplet(strike);
+    }
+    if (type.equals(CmsPeriodType.FLOORLET)) {
+      cmsBuilder = cmsBuilder.floorlet(strike);
+    }
+    return cmsBuilder.build();
+  }
+
+}
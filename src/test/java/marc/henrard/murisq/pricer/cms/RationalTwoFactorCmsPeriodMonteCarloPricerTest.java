@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.cms;
+
+import static com.opengamma.strata.basics.currency.Currency.EUR;
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_6M;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.cms.CmsPeriod;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+import com.opengamma.strata.product.swap.SwapIndex;
+import com.opengamma.strata.product.swap.SwapIndices;
+import com.opengamma.strata.product.swap.type.FixedIborSwapConvention;
+import com.opengamma.strata.product.swap.type.FixedIborSwapConventions;
+
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.dataset.RationalParametersDataSet;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorHWShapePlusCstParameters;
+import marc.henrard.murisq.product.cms.CmsPeriodResolved;
+
+/**
+ * Tests {@link RationalTwoFactorCmsPeriodMonteCarloPricer}.
+ * 
+ * @author Marc Henrard
+ */
+public class RationalTwoFactorCmsPeriodMonteCarloPricerTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 29);
+  private static final HolidayCalendar EUTA_IMPL = REF_DATA.getValue(EUR_EURIBOR_6M.getFixingCalendar());
+
+  /* Market and model data */
+  private static final ImmutableRatesProvider MULTICURVE_EUR = MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+  private static final RationalTwoFactorHWShapePlusCstParameters RATIONAL_2F = RationalParametersDataSet
+      .twoFactorHWShaped(VALUATION_TIME, VALUATION_ZONE, MULTICURVE_EUR.discountFactors(EUR));
+
+  /* Descriptions of CMS */
+  private static final SwapIndex INDEX = SwapIndices.EUR_EURIBOR_1100_10Y;
+  private static final double NOTIONAL = 100_000_000.0d;
+  private static final double STRIKE = 0.0150;
+  private static final LocalDate FIXING_DATE = EUTA_IMPL.nextOrSame(VALUATION_DATE.plusYears(5));
+  private static final CmsPeriodResolved[] CMS = new CmsPeriodResolved[3]; // coupon, caplet, floorlet
+  static {
+    FixedIborSwapConvention convention = FixedIborSwapConventions.EUR_FIXED_1Y_LIBOR_6M;
+    LocalDate startDate = convention.calculateSpotDateFromTradeDate(FIXING_DATE, REF_DATA);
+    LocalDate endDate = EUTA_IMPL.nextOrSame(startDate.plusMonths(6));
+    ResolvedSwap underlyingSwap = INDEX.getTemplate()
+        .createTrade(FIXING_DATE, BuySell.BUY, 1.0d, 1.0d, REF_DATA).resolve(REF_DATA).getProduct();
+    CmsPeriod.Builder builder = CmsPeriod.builder()
+        .fixingDate(FIXING_DATE)
+        .startDate(startDate)
+        .endDate(endDate)
+        .paymentDate(endDate)
+        .dayCount(DayCounts.ACT_360)
+        .yearFraction(0.5)
+        .notional(NOTIONAL)
+        .index(INDEX)
+        .underlyingSwap(underlyingSwap)
+        .currency(EUR);
+    CMS[0] = CmsPeriodResolved.of(builder.build());
+    CMS[1] = CmsPeriodResolved.of(builder.caplet(STRIKE).build());
+    CMS[2] = CmsPeriodResolved.of(builder.caplet(null).floorlet(STRIKE).build());
+  }
+
+  /* Monte carlo */
+  private static final int NBPATHS = 100_000;
+  private static final int PATHSPERBLOCK = 10_000;
+  private static final long SEED = 20210301L;
+  private static final RationalTwoFactorCmsPeriodMonteCarloPricer PRICER_CMS_MC =
+      RationalTwoFactorCmsPeriodMonteCarloPricer.builder()
+          .nbPaths(NBPATHS)
+          .pathNumberBlock(PATHSPERBLOCK)
+          .model(RATIONAL_2F)
+          .seed(SEED).build();
+
+  private static final Offset<Double> TOLERANCE_PV_EXACT = within(1.0E-6);
+  private static final boolean PRINT_DETAILS = false;
+
+  /* The results depend only on the seed, not on the parallel execution. */
+  @Test
+  public void reproducible() {
+    double pv1 = PRICER_CMS_MC.presentValueDouble(CMS[0], MULTICURVE_EUR);
+    double pv2 = PRICER_CMS_MC.presentValueDouble(CMS[0], MULTICURVE_EUR);
+    assertThat(pv1).isEqualTo(pv2, TOLERANCE_PV_EXACT);
+    double pv3 = PRICER_CMS_MC.toBuilder().seed(SEED + 1).build().presentValueDouble(CMS[0], MULTICURVE_EUR);
+    assertThat(pv1).isNotEqualTo(pv3);
+  }
+
+  /* Coupon = caplet - floorlet + strike * payment. Exact path by path, the payment of the strike is
+   * a martingale in the model and its Monte Carlo estimate is close to the discounted value. */
+  @Test
+  public void coupon_cap_floor_parity() {
+    long start, end;
+    start = System.currentTimeMillis();
+    double pvCoupon = PRICER_CMS_MC.presentValueDouble(CMS[0], MULTICURVE_EUR);
+    double pvCap = PRICER_CMS_MC.presentValueDouble(CMS[1], MULTICURVE_EUR);
+    double pvFloor = PRICER_CMS_MC.presentValueDouble(CMS[2], MULTICURVE_EUR);
+    end = System.currentTimeMillis();
+    double pvStrike = STRIKE * NOTIONAL * 0.5 * MULTICURVE_EUR.discountFactor(EUR, CMS[0].getPeriod().getPaymentDate());
+    if (PRINT_DETAILS) {
+      System.out.println("Coupon: " + pvCoupon + ", caplet: " + pvCap + ", floorlet: " + pvFloor);
+      System.out.println("Computation time: " + (end - start) + " ms.");
+    }
+    assertThat(pvCoupon).isEqualTo(pvCap - pvFloor + pvStrike, within(pvStrike * 1.0E-2));
+    assertThat(pvCap).isGreaterThan(0.0d);
+    assertThat(pvFloor).isGreaterThan(0.0d);
+  }
+
+}
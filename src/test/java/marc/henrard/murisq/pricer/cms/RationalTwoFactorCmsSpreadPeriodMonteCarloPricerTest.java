@@ -0,0 +1,233 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.cms;
+
+import static com.opengamma.strata.basics.currency.Currency.EUR;
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_6M;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.date.AdjustableDate;
+import com.opengamma.strata.basics.date.BusinessDayAdjustment;
+import com.opengamma.strata.basics.date.BusinessDayConventions;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.basics.date.HolidayCalendarIds;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.common.LongShort;
+import com.opengamma.strata.product.swap.SwapIndex;
+import com.opengamma.strata.product.swap.SwapIndices;
+import com.opengamma.strata.product.swap.type.FixedIborSwapConvention;
+import com.opengamma.strata.product.swap.type.FixedIborSwapConventions;
+import com.opengamma.strata.product.swaption.PhysicalSwaptionSettlement;
+import com.opengamma.strata.product.swaption.ResolvedSwaption;
+import com.opengamma.strata.product.swaption.Swaption;
+
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.dataset.RationalParametersDataSet;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorHWShapePlusCstParameters;
+import marc.henrard.murisq.pricer.decomposition.MulticurveDecisionScheduleCalculator;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalent;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentSchedule;
+import marc.henrard.murisq.pricer.decomposition.MulticurveEquivalentValues;
+import marc.henrard.murisq.pricer.swaption.RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer;
+import marc.henrard.murisq.product.cms.CmsSpreadPeriod;
+import marc.henrard.murisq.product.cms.CmsSpreadPeriodResolved;
+
+/**
+ * Tests {@link RationalTwoFactorCmsSpreadPeriodMonteCarloPricer}.
+ *
+ * @author Marc Henrard
+ */
+public class RationalTwoFactorCmsSpreadPeriodMonteCarloPricerTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 29);
+  private static final HolidayCalendar EUTA_IMPL = REF_DATA.getValue(EUR_EURIBOR_6M.getFixingCalendar());
+
+  /* Market and model data */
+  private static final ImmutableRatesProvider MULTICURVE_EUR = MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+  private static final RationalTwoFactorHWShapePlusCstParameters RATIONAL_2F = RationalParametersDataSet
+      .twoFactorHWShaped(VALUATION_TIME, VALUATION_ZONE, MULTICURVE_EUR.discountFactors(EUR));
+
+  /* Descriptions of CMS spreads */
+  private static final SwapIndex[] INDICES =
+      new SwapIndex[] {SwapIndices.EUR_EURIBOR_1100_10Y, SwapIndices.EUR_EURIBOR_1100_2Y};
+  private static final double NOTIONAL = 100_000_000.0d;
+  private static final double[] WEIGHTS = {1.50d, 0.75d};
+  private static final double ACCRUAL_FACTOR = 0.50;
+  private static final double STRIKE = 0.01;
+  private static final LocalDate FIXING_DATE = EUTA_IMPL.nextOrSame(VALUATION_DATE.plusYears(5));
+  private static final BusinessDayAdjustment ADJUSTMENT =
+      BusinessDayAdjustment.of(BusinessDayConventions.MODIFIED_FOLLOWING, HolidayCalendarIds.EUTA);
+  private static final CmsSpreadPeriodResolved[] CMS_SPREAD = new CmsSpreadPeriodResolved[3]; // coupon, cap, floor
+  static {
+    FixedIborSwapConvention convention = FixedIborSwapConventions.EUR_FIXED_1Y_LIBOR_6M;
+    LocalDate startDate = convention.calculateSpotDateFromTradeDate(FIXING_DATE, REF_DATA);
+    LocalDate endDate = EUTA_IMPL.nextOrSame(startDate.plusMonths(6));
+    for (int looptype = 0; looptype < 3; looptype++) {
+      CmsSpreadPeriod.Builder builder = CmsSpreadPeriod.builder()
+          .notional(NOTIONAL)
+          .endDate(AdjustableDate.of(endDate, ADJUSTMENT))
+          .startDate(AdjustableDate.of(startDate, ADJUSTMENT))
+          .paymentDate(AdjustableDate.of(endDate, ADJUSTMENT))
+          .yearFraction(ACCRUAL_FACTOR)
+          .fixingDate(FIXING_DATE)
+          .index1(INDICES[0])
+          .weight1(WEIGHTS[0])
+          .index2(INDICES[1])
+          .weight2(WEIGHTS[1]);
+      if (looptype == 1) {
+        builder.caplet(STRIKE);
+      }
+      if (looptype == 2) {
+        builder.floorlet(STRIKE);
+      }
+      CMS_SPREAD[looptype] = builder.build().resolve(REF_DATA);
+    }
+  }
+
+  /* Monte carlo */
+  private static final int NBPATHS = 100_000;
+  private static final int PATHSPERBLOCK = 10_000;
+  private static final long SEED = 20210301L;
+  private static final RationalTwoFactorCmsSpreadPeriodMonteCarloPricer PRICER_MC =
+      RationalTwoFactorCmsSpreadPeriodMonteCarloPricer.builder()
+          .nbPaths(NBPATHS)
+          .pathNumberBlock(PATHSPERBLOCK)
+          .model(RATIONAL_2F)
+          .seed(SEED).build();
+
+  /* Swaption */
+  private static final double STRIKE_SWAPTION = 0.0125;
+  private static final RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer PRICER_SWPT_SE =
+      RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer.DEFAULT;
+
+  private static final Offset<Double> TOLERANCE_PV_EXACT = within(1.0E-6);
+  private static final boolean PRINT_DETAILS = false;
+
+  /* The results depend only on the seed, not on the parallel execution. */
+  @Test
+  public void reproducible() {
+    double pv1 = PRICER_MC.presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    double pv2 = PRICER_MC.presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    assertThat(pv1).isEqualTo(pv2, TOLERANCE_PV_EXACT);
+    double pv3 = PRICER_MC.toBuilder().seed(SEED + 1).build().presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    assertThat(pv1).isNotEqualTo(pv3);
+  }
+
+  /* Coupon = caplet - floorlet + strike * payment. Exact path by path, the payment of the strike is
+   * a martingale in the model and its Monte Carlo estimate is close to the discounted value. */
+  @Test
+  public void coupon_cap_floor_parity() {
+    long start, end;
+    start = System.currentTimeMillis();
+    double pvCoupon = PRICER_MC.presentValueDouble(CMS_SPREAD[0], MULTICURVE_EUR);
+    double pvCap = PRICER_MC.presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    double pvFloor = PRICER_MC.presentValueDouble(CMS_SPREAD[2], MULTICURVE_EUR);
+    end = System.currentTimeMillis();
+    double pvStrike = STRIKE * NOTIONAL * ACCRUAL_FACTOR *
+        MULTICURVE_EUR.discountFactor(EUR, CMS_SPREAD[0].getPaymentDate());
+    if (PRINT_DETAILS) {
+      System.out.println("Coupon: " + pvCoupon + ", caplet: " + pvCap + ", floorlet: " + pvFloor);
+      System.out.println("Computation time: " + (end - start) + " ms.");
+    }
+    assertThat(pvCoupon).isEqualTo(pvCap - pvFloor + pvStrike, within(pvStrike * 1.0E-2));
+    assertThat(pvCap).isGreaterThan(0.0d);
+    assertThat(pvFloor).isGreaterThan(0.0d);
+  }
+
+  /* Successive calls return the same values; the paths of evolve are the paths of the first block. */
+  @Test
+  public void successive_calls() {
+    MulticurveEquivalentSchedule mce = PRICER_MC.multicurveEquivalent(CMS_SPREAD[0]);
+    MulticurveEquivalentValues initialValues = PRICER_MC.initialValues(mce, MULTICURVE_EUR);
+    List<List<MulticurveEquivalentValues>> paths1 = PRICER_MC.evolve(initialValues, mce.getDecisionTimes(), 10);
+    List<List<MulticurveEquivalentValues>> paths2 = PRICER_MC.evolve(initialValues, mce.getDecisionTimes(), 10);
+    assertThat(paths2).isEqualTo(paths1);
+    SplittableRandom[] generators = PRICER_MC.generators(2);
+    List<List<MulticurveEquivalentValues>> pathsBlock1 =
+        PRICER_MC.evolve(initialValues, mce.getDecisionTimes(), 10, generators[0]);
+    List<List<MulticurveEquivalentValues>> pathsBlock2 =
+        PRICER_MC.evolve(initialValues, mce.getDecisionTimes(), 10, generators[1]);
+    assertThat(pathsBlock1).isEqualTo(paths1);
+    for (int looppath = 0; looppath < 10; looppath++) {
+      assertThat(pathsBlock2.get(looppath).get(0).getOnRates())
+          .isNotEqualTo(paths1.get(looppath).get(0).getOnRates());
+    }
+    double pv1 = PRICER_MC.presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    double pv2 = PRICER_MC.presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    assertThat(pv2).isEqualTo(pv1);
+    double pv3 = PRICER_MC.toBuilder().build().presentValueDouble(CMS_SPREAD[1], MULTICURVE_EUR);
+    assertThat(pv3).isEqualTo(pv1);
+  }
+
+  @Test
+  public void invalid_paths() {
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PRICER_MC.toBuilder().nbPaths(0).build());
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PRICER_MC.toBuilder().pathNumberBlock(0).build());
+  }
+
+  /* The first underlying swap valued on the paths used by the pricer gives a receiver swaption price that is
+   * compared to the semi-explicit formula, within the Monte Carlo error. */
+  @Test
+  public void swaption_semi_explicit() {
+    CmsSpreadPeriodResolved cmsSpread = CMS_SPREAD[0];
+    MulticurveEquivalentSchedule mce = PRICER_MC.multicurveEquivalent(cmsSpread);
+    MulticurveEquivalentValues initialValues = PRICER_MC.initialValues(mce, MULTICURVE_EUR);
+    MulticurveEquivalent mce1 =
+        MulticurveDecisionScheduleCalculator.multicurveEquivalent(cmsSpread.getUnderlyingSwap1());
+    int nbDf1 = mce1.getDiscountFactorPayments().size();
+    int nbIbor1 = mce1.getIborComputations().size();
+    int nbDf = mce.getSchedules().get(0).getDiscountFactorPayments().size();
+    double[][] coefficients = PRICER_MC.rebasedCoefficients(mce, initialValues, RATIONAL_2F)[0];
+    double[] pvbp = PRICER_MC.sumCoefficients(coefficients, 0, nbDf1); // underlying swaps have a fixed rate of 1
+    double[] pvIborLeg = PRICER_MC.sumCoefficients(coefficients, nbDf, nbDf + nbIbor1);
+    List<List<MulticurveEquivalentValues>> paths =
+        PRICER_MC.evolve(initialValues, mce.getDecisionTimes(), NBPATHS, new SplittableRandom(SEED));
+    double sum = 0.0;
+    double sum2 = 0.0;
+    for (int looppath = 0; looppath < NBPATHS; looppath++) {
+      double[] a = paths.get(looppath).get(0).getOnRates().toArrayUnsafe();
+      double pvSwap = pvIborLeg[0] + pvIborLeg[1] * a[0] + pvIborLeg[2] * a[1] +
+          STRIKE_SWAPTION * (pvbp[0] + pvbp[1] * a[0] + pvbp[2] * a[1]);
+      double payoff = Math.max(pvSwap, 0.0d) * NOTIONAL;
+      sum += payoff;
+      sum2 += payoff * payoff;
+    }
+    double pvMc = sum / NBPATHS;
+    double error = Math.sqrt((sum2 / NBPATHS - pvMc * pvMc) / NBPATHS);
+    ResolvedSwaption swaption = Swaption.builder()
+        .expiryDate(AdjustableDate.of(FIXING_DATE))
+        .expiryTime(INDICES[0].getFixingTime())
+        .expiryZone(INDICES[0].getFixingZone())
+        .longShort(LongShort.LONG)
+        .swaptionSettlement(PhysicalSwaptionSettlement.DEFAULT)
+        .underlying(INDICES[0].getTemplate()
+            .createTrade(FIXING_DATE, BuySell.SELL, NOTIONAL, STRIKE_SWAPTION, REF_DATA).getProduct())
+        .build().resolve(REF_DATA);
+    double pvSe = PRICER_SWPT_SE.presentValue(swaption, MULTICURVE_EUR, RATIONAL_2F).getAmount();
+    if (PRINT_DETAILS) {
+      System.out.println("Swaption MC: " + pvMc + " +/- " + error + ", semi-explicit: " + pvSe);
+    }
+    assertThat(pvMc).isEqualTo(pvSe, within(3.0d * error));
+  }
+
+}
@@ -18,6 +18,7 @@ import com.opengamma.strata.basics.currency.Currency;
 import com.opengamma.strata.basics.date.Tenor;
 import com.opengamma.strata.basics.index.OvernightIndices;
 import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.array.DoubleMatrix;
 import com.opengamma.strata.market.curve.CombinedCurve;
 import com.opengamma.strata.market.curve.CurveParameterSize;
 import com.opengamma.strata.market.curve.Curves;
@@ -109,6 +110,40 @@ public class CalibrationSplitMeasuresTest {
             CURVE_1.getParameterCount() + CURVE_2.getParameterCount()));
   }
 
+  /* Tests derivatives in preallocated rows and in batch */
+  @Test
+  public void test_derivatives_row_batch() {
+    CombinedCurve combined = CombinedCurve.of(CURVE_1, CURVE_2);
+    ImmutableRatesProvider provider = ImmutableRatesProvider.builder(VAL_DATE)
+        .discountCurve(Currency.EUR, combined)
+        .overnightIndexCurve(OvernightIndices.EUR_EONIA, combined)
+        .build();
+    List<CurveParameterSize> curveOrder = ImmutableList.of(
+        CurveParameterSize.of(CURVE_2.getName(), CURVE_2.getParameterCount()),
+        CurveParameterSize.of(CURVE_1.getName(), CURVE_1.getParameterCount()));
+    int nbParameters = CURVE_1.getParameterCount() + CURVE_2.getParameterCount();
+    List<ResolvedSwapTrade> trades = ImmutableList.of(
+        FixedOvernightSwapConventions.EUR_FIXED_1Y_EONIA_OIS
+            .createTrade(VAL_DATE, Tenor.TENOR_6M, BuySell.BUY, 1_000, 0.015, REF_DATA).resolve(REF_DATA),
+        FixedOvernightSwapConventions.EUR_FIXED_1Y_EONIA_OIS
+            .createTrade(VAL_DATE, Tenor.TENOR_18M, BuySell.BUY, 1_000, 0.015, REF_DATA).resolve(REF_DATA),
+        FixedOvernightSwapConventions.EUR_FIXED_1Y_EONIA_OIS
+            .createTrade(VAL_DATE, Tenor.TENOR_2Y, BuySell.SELL, 1_000, 0.010, REF_DATA).resolve(REF_DATA));
+    DoubleMatrix jacobian = CalibrationSplitMeasures.PAR_SPREAD.derivatives(trades, provider, curveOrder);
+    assertThat(jacobian.rowCount()).isEqualTo(trades.size());
+    assertThat(jacobian.columnCount()).isEqualTo(nbParameters);
+    double[] row = new double[nbParameters + 2];
+    for (int i = 0; i < trades.size(); i++) {
+      DoubleArray expected = CalibrationSplitMeasures.PAR_SPREAD.derivative(trades.get(i), provider, curveOrder);
+      assertThat(jacobian.row(i)).isEqualTo(expected);
+      CalibrationSplitMeasures.PAR_SPREAD.derivative(trades.get(i), provider, curveOrder, row);
+      assertThat(DoubleArray.ofUnsafe(row).subArray(0, nbParameters)).isEqualTo(expected);
+    }
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> CalibrationSplitMeasures.PAR_SPREAD
+            .derivative(trades.get(0), provider, curveOrder, new double[nbParameters - 1]));
+  }
+
   //-------------------------------------------------------------------------
   @Test
   public void test_of_array() {
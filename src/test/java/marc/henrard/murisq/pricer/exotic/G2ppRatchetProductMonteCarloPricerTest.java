@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.exotic;
+
+import static com.opengamma.strata.basics.currency.Currency.EUR;
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_3M;
+import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_3M;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.date.BusinessDayAdjustment;
+import com.opengamma.strata.basics.date.BusinessDayConventions;
+import com.opengamma.strata.basics.date.DaysAdjustment;
+import com.opengamma.strata.basics.date.HolidayCalendarIds;
+import com.opengamma.strata.basics.schedule.Frequency;
+import com.opengamma.strata.basics.schedule.PeriodicSchedule;
+import com.opengamma.strata.basics.schedule.RollConventions;
+import com.opengamma.strata.basics.schedule.StubConvention;
+import com.opengamma.strata.basics.value.ValueSchedule;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.swap.DiscountingSwapLegPricer;
+import com.opengamma.strata.product.common.PayReceive;
+import com.opengamma.strata.product.swap.CompoundingMethod;
+import com.opengamma.strata.product.swap.IborRatchetRateCalculation;
+import com.opengamma.strata.product.swap.NotionalSchedule;
+import com.opengamma.strata.product.swap.PaymentSchedule;
+import com.opengamma.strata.product.swap.RateCalculationSwapLeg;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+import com.opengamma.strata.product.swap.ResolvedSwapLeg;
+import com.opengamma.strata.product.swap.SwapLeg;
+
+import marc.henrard.murisq.basics.time.ScaledSecondTime;
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantParameters;
+
+/**
+ * Test {@link G2ppRatchetProductMonteCarloPricer}.
+ * 
+ * @author Marc Henrard
+ */
+public class G2ppRatchetProductMonteCarloPricerTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 29);
+  
+  private static final ImmutableRatesProvider MULTICURVE_EUR = MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+  
+  /* G2++ parameters */
+  private static final G2ppPiecewiseConstantParameters G2PP =
+      G2ppPiecewiseConstantParameters.builder()
+          .currency(EUR)
+          .correlation(-0.50)
+          .kappa1(0.02)
+          .kappa2(0.20)
+          .volatility1(DoubleArray.of(0.01d))
+          .volatility2(DoubleArray.of(0.005d))
+          .volatilityTime(DoubleArray.of())
+          .valuationDate(VALUATION_DATE)
+          .valuationTime(VALUATION_TIME)
+          .valuationZone(VALUATION_ZONE)
+          .timeMeasure(ScaledSecondTime.DEFAULT)
+          .build();
+  
+  /* Pricer */
+  private static final DiscountingSwapLegPricer PRICER_LEG =
+      DiscountingSwapLegPricer.DEFAULT;
+  
+  /* Instrument description */
+  private static final double NOTIONAL = 1_000_000.0d;
+  private static final List<ValueSchedule> COEFFICIENTS_IBOR = new ArrayList<>();
+  static { // Current IBOR no floor, no cap (set at -100% and 100%)
+    COEFFICIENTS_IBOR.add(ValueSchedule.ALWAYS_0); // main previous
+    COEFFICIENTS_IBOR.add(ValueSchedule.ALWAYS_1); // main Ibor             = Ibor
+    COEFFICIENTS_IBOR.add(ValueSchedule.ALWAYS_0); // main fixed
+    COEFFICIENTS_IBOR.add(ValueSchedule.ALWAYS_0); // floor previous
+    COEFFICIENTS_IBOR.add(ValueSchedule.ALWAYS_0); // floor Ibor
+    COEFFICIENTS_IBOR.add(ValueSchedule.of(-1.0)); // floor fixed             no floor (100%)
+    COEFFICIENTS_IBOR.add(ValueSchedule.ALWAYS_0); // cap previous
+    COEFFICIENTS_IBOR.add(ValueSchedule.ALWAYS_0); // cap Ibor
+    COEFFICIENTS_IBOR.add(ValueSchedule.of(1.0)); // cap fixed.               no cap (100%)
+  }
+  private static final LocalDate START_DATE = LocalDate.of(2020, 2, 28);
+  private static final LocalDate END_DATE = LocalDate.of(2022, 2, 28);
+  
+  /* Tests */
+  private static final long SEED = 20210301L;
+  private static final boolean PRINT_DETAILS = false;
+
+  /* Test Monte Carlo comparing Ibor leg with ratchet using trivial coefficients. */
+  @Test
+  public void ratchet_ibor() {
+    long start, end;
+    start = System.currentTimeMillis();
+    ResolvedSwapLeg ratchet = createRatchetSwapLeg(COEFFICIENTS_IBOR);
+    ResolvedSwapLeg iborLeg = EUR_FIXED_1Y_EURIBOR_3M.getFloatingLeg()
+        .toLeg(START_DATE, END_DATE, PayReceive.RECEIVE, NOTIONAL).resolve(REF_DATA);
+    G2ppRatchetProductMonteCarloPricer pricerMc =
+        G2ppRatchetProductMonteCarloPricer.builder()
+            .model(G2PP)
+            .nbPaths(100_000)
+            .seed(SEED)
+            .pathNumberBlock(10_000).build();
+    double pvDsc = PRICER_LEG.presentValue(iborLeg, MULTICURVE_EUR).getAmount();
+    double pvMc = pricerMc.presentValueDouble(ResolvedSwap.of(ratchet), MULTICURVE_EUR);
+    end = System.currentTimeMillis();
+    if (PRINT_DETAILS) {
+      System.out.println(pvDsc);
+      System.out.println(pvMc);
+      System.out.println("Computation time: " + (end - start) + " ms.");
+    }
+    assertThat(pvMc).isEqualTo(pvDsc, within(2.5E+2));
+  }
+
+  public ResolvedSwapLeg createRatchetSwapLeg(List<ValueSchedule> coefficients) {
+    IborRatchetRateCalculation ratchetCalculation = 
+        IborRatchetRateCalculation.of(EUR_EURIBOR_3M, coefficients);
+    Frequency frequency = Frequency.P3M;
+    BusinessDayAdjustment businessDayAdjustment = BusinessDayAdjustment
+        .of(BusinessDayConventions.MODIFIED_FOLLOWING, HolidayCalendarIds.EUTA);
+    PeriodicSchedule accrualSchedule = PeriodicSchedule
+        .of(START_DATE, END_DATE, frequency, businessDayAdjustment, StubConvention.NONE, RollConventions.NONE);
+    SwapLeg leg = RateCalculationSwapLeg
+        .builder()
+        .payReceive(PayReceive.RECEIVE)
+        .accrualSchedule(accrualSchedule)
+        .paymentSchedule(PaymentSchedule.builder()
+            .paymentFrequency(frequency)
+            .paymentDateOffset(DaysAdjustment.NONE)
+            .compoundingMethod(CompoundingMethod.NONE)
+            .build())
+        .notionalSchedule(NotionalSchedule.builder()
+            .currency(EUR_EURIBOR_3M.getCurrency())
+            .finalExchange(false)
+            .initialExchange(false)
+            .amount(ValueSchedule.of(NOTIONAL)).build())
+        .calculation(ratchetCalculation)
+        .build();
+    return leg.resolve(REF_DATA);
+  }
+
+}
@@ -6,6 +6,7 @@ package marc.henrard.murisq.pricer.generic;
 import static org.testng.Assert.assertEquals;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -13,6 +14,7 @@ import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
 import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.date.HolidayCalendar;
 import com.opengamma.strata.basics.index.OvernightIndex;
 import com.opengamma.strata.basics.index.OvernightIndices;
 import com.opengamma.strata.collect.io.ResourceLocator;
@@ -44,6 +46,7 @@ public class FallbackUtilsTest {
   private static final LocalDateDoubleTimeSeries ON_TS = TIME_SERIES.get(IndexQuoteId.of(ON_INDEX));
   
   private static final double TOLERANCE_RATE = 1.0E-6;
+  private static final double TOLERANCE_RATE_BULK = 1.0E-12;
 
   public void compoundedInArrears() {
     OvernightCompoundedRateComputation computation = 
@@ -65,5 +68,23 @@ public class FallbackUtilsTest {
     double rateExpected =  (compositionFactor - 1.0d) / accrualFactorPeriod;
     assertEquals(rateComputed, rateExpected, TOLERANCE_RATE);
   }
+
+  /* Bulk computation v one by one computation. The windows start on each business day from the first date
+   * of the time series and end one month later, unadjusted, no later than the last date of the time series. */
+  public void compoundedInArrearsBulk() {
+    HolidayCalendar calendar = REF_DATA.getValue(ON_INDEX.getFixingCalendar());
+    LocalDate lastFixing = ON_TS.getLatestDate();
+    List<OvernightCompoundedRateComputation> computations = new ArrayList<>();
+    for (LocalDate start = ON_TS.getEarliestDate(); !start.plusMonths(1).isAfter(lastFixing);
+        start = calendar.next(start)) {
+      computations.add(OvernightCompoundedRateComputation.of(ON_INDEX, start, start.plusMonths(1), REF_DATA));
+    }
+    double[] ratesComputed = FallbackUtils.compoundedInArrears(ON_TS, computations, REF_DATA);
+    assertEquals(ratesComputed.length, computations.size());
+    for (int i = 0; i < computations.size(); i++) {
+      assertEquals(ratesComputed[i], FallbackUtils.compoundedInArrears(ON_TS, computations.get(i)),
+          TOLERANCE_RATE_BULK);
+    }
+  }
   
 }
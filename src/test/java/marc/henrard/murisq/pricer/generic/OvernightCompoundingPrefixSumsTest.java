@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.generic;
+
+import static org.testng.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.index.OvernightIndex;
+import com.opengamma.strata.basics.index.OvernightIndices;
+import com.opengamma.strata.collect.io.ResourceLocator;
+import com.opengamma.strata.collect.timeseries.LocalDateDoubleTimeSeries;
+import com.opengamma.strata.data.ObservableId;
+import com.opengamma.strata.loader.csv.FixingSeriesCsvLoader;
+import com.opengamma.strata.market.observable.IndexQuoteId;
+import com.opengamma.strata.pricer.PricingException;
+import com.opengamma.strata.product.rate.OvernightCompoundedRateComputation;
+
+/**
+ * Tests {@link OvernightCompoundingPrefixSums}.
+ * 
+ * @author Marc Henrard
+ */
+@Test
+public class OvernightCompoundingPrefixSumsTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+
+  private static final OvernightIndex ON_INDEX = OvernightIndices.GBP_SONIA;
+  private static final LocalDate FIRST_FIXING_DATE = LocalDate.of(2018, 7, 2);
+  private static final LocalDate END_DATE = LocalDate.of(2018, 10, 31);
+
+  /* Fixings */
+  private static final List<ResourceLocator> FIXING_RESOURCES = ImmutableList.of(
+      ResourceLocator.of("src/test/resources/fixing/GBP-SONIA-FAKE.csv"));
+  private static final Map<ObservableId, LocalDateDoubleTimeSeries> TIME_SERIES =
+      FixingSeriesCsvLoader.load(FIXING_RESOURCES);
+  private static final LocalDateDoubleTimeSeries ON_TS = TIME_SERIES.get(IndexQuoteId.of(ON_INDEX));
+  private static final OvernightCompoundingPrefixSums PREFIX_SUMS =
+      OvernightCompoundingPrefixSums.of(ON_INDEX, ON_TS, FIRST_FIXING_DATE, END_DATE, REF_DATA);
+
+  private static final double TOLERANCE_RATE = 1.0E-12;
+
+  /* Windows of different lengths, including end dates on holidays. */
+  public void compoundedInArrears() {
+    LocalDate[] startDates = {LocalDate.of(2018, 7, 2), LocalDate.of(2018, 7, 17), LocalDate.of(2018, 8, 24)};
+    LocalDate[] endDates = {LocalDate.of(2018, 7, 3), LocalDate.of(2018, 8, 17), LocalDate.of(2018, 8, 27),
+        LocalDate.of(2018, 9, 28)};
+    for (LocalDate start : startDates) {
+      for (LocalDate end : endDates) {
+        if (start.isBefore(end)) {
+          OvernightCompoundedRateComputation computation =
+              OvernightCompoundedRateComputation.of(ON_INDEX, start, end, REF_DATA);
+          assertEquals(PREFIX_SUMS.compoundedInArrears(computation),
+              FallbackUtils.compoundedInArrears(ON_TS, computation), TOLERANCE_RATE);
+          assertEquals(PREFIX_SUMS.compoundedInArrears(start, end),
+              FallbackUtils.compoundedInArrears(ON_TS, computation), TOLERANCE_RATE);
+        }
+      }
+    }
+  }
+
+  /* Windows using fixings after the end of the time series. */
+  @Test(expectedExceptions = PricingException.class)
+  public void missing_fixing() {
+    PREFIX_SUMS.compoundedInArrears(LocalDate.of(2018, 9, 17), LocalDate.of(2018, 10, 17));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void start_not_fixing_date() {
+    PREFIX_SUMS.compoundedInArrears(LocalDate.of(2018, 8, 27), LocalDate.of(2018, 9, 27));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void end_after_range() {
+    PREFIX_SUMS.compoundedInArrears(LocalDate.of(2018, 9, 3), LocalDate.of(2018, 11, 5));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void wrong_index() {
+    PREFIX_SUMS.compoundedInArrears(
+        OvernightCompoundedRateComputation.of(OvernightIndices.USD_FED_FUND,
+            LocalDate.of(2018, 8, 1), LocalDate.of(2018, 9, 4), REF_DATA));
+  }
+
+}
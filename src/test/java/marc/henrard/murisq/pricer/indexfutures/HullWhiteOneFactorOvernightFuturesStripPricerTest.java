@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.indexfutures;
+
+import static com.opengamma.strata.basics.currency.Currency.GBP;
+import static com.opengamma.strata.basics.index.OvernightIndices.GBP_SONIA;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.StandardId;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.value.Rounding;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.market.param.CurrencyParameterSensitivities;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParametersProvider;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.sensitivity.RatesFiniteDifferenceSensitivityCalculator;
+import com.opengamma.strata.product.SecurityId;
+import com.opengamma.strata.product.index.ResolvedOvernightFuture;
+import com.opengamma.strata.product.rate.OvernightRateComputation;
+import com.opengamma.strata.product.swap.OvernightAccrualMethod;
+
+import marc.henrard.murisq.dataset.MulticurveStandardGbpDataSet;
+import marc.henrard.murisq.pricer.indexfutures.HullWhiteOneFactorOvernightFuturesStripPricer.StripResult;
+import marc.henrard.murisq.product.futures.CompoundedOvernightFutures;
+import marc.henrard.murisq.product.futures.CompoundedOvernightFuturesResolved;
+
+/**
+ * Tests {@link HullWhiteOneFactorOvernightFuturesStripPricer}
+ * 
+ * @author Marc Henrard
+ */
+public class HullWhiteOneFactorOvernightFuturesStripPricerTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2017, 12, 29);
+  private static final LocalTime VALUATION_TIME = LocalTime.of(11, 0);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+
+  public static final ImmutableRatesProvider MULTICURVE =
+      MulticurveStandardGbpDataSet.multicurve(VALUATION_DATE, REF_DATA);
+
+  private static final double MEAN_REVERSION = 0.03;
+  private static final DoubleArray VOLATILITY = DoubleArray.of(0.0060, 0.0065, 0.0070);
+  private static final DoubleArray VOLATILITY_TIME = DoubleArray.of(1.0, 3.5);
+  private static final HullWhiteOneFactorPiecewiseConstantParameters HW_PARAMETERS =
+      HullWhiteOneFactorPiecewiseConstantParameters.of(MEAN_REVERSION, VOLATILITY, VOLATILITY_TIME);
+  private static final HullWhiteOneFactorPiecewiseConstantParametersProvider HW_PROVIDER =
+      HullWhiteOneFactorPiecewiseConstantParametersProvider.of(HW_PARAMETERS, DayCounts.ACT_365F,
+          VALUATION_DATE, VALUATION_TIME, VALUATION_ZONE);
+
+  private static final HullWhiteOneFactorOvernightFuturesProductPricer PRICER_FUT =
+      HullWhiteOneFactorOvernightFuturesProductPricer.DEFAULT;
+  private static final HullWhiteOneFactorCompoundedOvernightFuturesProductPricer PRICER_FUT_CMP =
+      HullWhiteOneFactorCompoundedOvernightFuturesProductPricer.DEFAULT;
+  private static final HullWhiteOneFactorOvernightFuturesStripPricer PRICER_STRIP =
+      HullWhiteOneFactorOvernightFuturesStripPricer.DEFAULT;
+  private static final RatesFiniteDifferenceSensitivityCalculator FD =
+      new RatesFiniteDifferenceSensitivityCalculator(1.0E-6);
+
+  private static final SecurityId ID = SecurityId.of(StandardId.of("muRisQ", "Fut"));
+  private static final double NOTIONAL = 500_000;
+  /* Quarterly and overlapping monthly futures, around a change of volatility. */
+  private static final LocalDate[][] ACCRUAL_DATES = {
+      {LocalDate.of(2021, 3, 17), LocalDate.of(2021, 6, 16)},
+      {LocalDate.of(2021, 6, 16), LocalDate.of(2021, 9, 15)},
+      {LocalDate.of(2021, 9, 15), LocalDate.of(2021, 12, 15)},
+      {LocalDate.of(2021, 6, 1), LocalDate.of(2021, 7, 1)},
+      {LocalDate.of(2021, 7, 1), LocalDate.of(2021, 8, 2)}};
+  private static final List<ResolvedOvernightFuture> ON_FUTURES = new ArrayList<>();
+  private static final List<CompoundedOvernightFuturesResolved> CMP_FUTURES = new ArrayList<>();
+  static {
+    for (LocalDate[] dates : ACCRUAL_DATES) {
+      ON_FUTURES.add(ResolvedOvernightFuture.builder()
+          .accrualFactor(0.25)
+          .currency(GBP)
+          .lastTradeDate(dates[0])
+          .notional(NOTIONAL)
+          .overnightRate(OvernightRateComputation
+              .of(GBP_SONIA, dates[0], dates[1], 0, OvernightAccrualMethod.COMPOUNDED, REF_DATA))
+          .securityId(ID)
+          .rounding(Rounding.none())
+          .build());
+      CMP_FUTURES.add(CompoundedOvernightFutures.builder()
+          .securityId(ID)
+          .notional(NOTIONAL)
+          .startAccrualDate(dates[0])
+          .endAccrualDate(dates[1])
+          .index(GBP_SONIA).build().resolve(REF_DATA));
+    }
+  }
+
+  private static final double TOLERANCE_PRICE = 1.0E-12;
+  private static final double TOLERANCE_PV_DELTA = 1.0E-6;
+
+  /* Tests price and convexity v one by one pricer */
+  @Test
+  public void price_strip() {
+    StripResult strip = PRICER_STRIP.priceStrip(ON_FUTURES, MULTICURVE, HW_PROVIDER);
+    assertEquals(strip.getPrices().size(), ON_FUTURES.size());
+    for (int i = 0; i < ON_FUTURES.size(); i++) {
+      ResolvedOvernightFuture futures = ON_FUTURES.get(i);
+      double priceExpected = PRICER_FUT.price(futures, MULTICURVE, HW_PROVIDER);
+      assertEquals(strip.getPrices().get(i), priceExpected, TOLERANCE_PRICE);
+      List<Double> gammas = PRICER_FUT.convexityAdjustmentGammas(futures, MULTICURVE, HW_PROVIDER);
+      double productGamma = 1.0;
+      for (int j = 0; j < gammas.size(); j++) {
+        productGamma *= gammas.get(j);
+      }
+      assertEquals(strip.getConvexityFactors().get(i), productGamma, TOLERANCE_PRICE);
+      LocalDate startDate = futures.getOvernightRate().getStartDate();
+      LocalDate endDate = futures.getOvernightRate().getEndDate();
+      double delta = GBP_SONIA.getDayCount().yearFraction(startDate, endDate);
+      double fwdRatio = MULTICURVE.discountFactor(GBP, startDate) / MULTICURVE.discountFactor(GBP, endDate);
+      assertEquals(strip.getConvexityAdjustments().get(i), fwdRatio * (productGamma - 1.0d) / delta,
+          TOLERANCE_PRICE);
+      assertEquals(strip.getConvexityAdjustments().get(i),
+          PRICER_FUT.convexityAdjustment(futures, MULTICURVE, HW_PROVIDER), TOLERANCE_PRICE);
+      assertTrue(strip.getConvexityAdjustments().get(i) > 0);
+    }
+  }
+
+  /* Tests price for compounded overnight futures v one by one pricer */
+  @Test
+  public void price_strip_compounded() {
+    StripResult strip = PRICER_STRIP.priceStripCompounded(CMP_FUTURES, MULTICURVE, HW_PROVIDER);
+    for (int i = 0; i < CMP_FUTURES.size(); i++) {
+      assertEquals(strip.getPrices().get(i), PRICER_FUT_CMP.price(CMP_FUTURES.get(i), MULTICURVE, HW_PROVIDER),
+          TOLERANCE_PRICE);
+      assertEquals(strip.getConvexityAdjustments().get(i),
+          PRICER_FUT_CMP.convexityAdjustment(CMP_FUTURES.get(i), MULTICURVE, HW_PROVIDER), TOLERANCE_PRICE);
+    }
+  }
+
+  /* Tests price sensitivities v finite difference */
+  @Test
+  public void price_sensitivity_strip() {
+    StripResult strip = PRICER_STRIP.priceStrip(ON_FUTURES, MULTICURVE, HW_PROVIDER);
+    for (int i = 0; i < ON_FUTURES.size(); i++) {
+      ResolvedOvernightFuture futures = ON_FUTURES.get(i);
+      CurrencyParameterSensitivities psComputed =
+          MULTICURVE.parameterSensitivity(strip.getPriceSensitivities().get(i));
+      CurrencyParameterSensitivities psExpected = FD.sensitivity(MULTICURVE,
+          p -> CurrencyAmount.of(GBP, PRICER_FUT.price(futures, p, HW_PROVIDER)));
+      assertTrue(psComputed.equalWithTolerance(psExpected, TOLERANCE_PV_DELTA));
+    }
+  }
+
+  /* The strip of one futures is the futures. */
+  @Test
+  public void price_single() {
+    StripResult strip = PRICER_STRIP.priceStrip(ImmutableList.of(ON_FUTURES.get(1)), MULTICURVE, HW_PROVIDER);
+    assertEquals(strip.getPrices().get(0), PRICER_FUT.price(ON_FUTURES.get(1), MULTICURVE, HW_PROVIDER),
+        TOLERANCE_PRICE);
+  }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.swap;
+
+import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_3M;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.data.Offset.offset;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.Payment;
+import com.opengamma.strata.basics.date.Tenor;
+import com.opengamma.strata.market.param.CurrencyParameterSensitivities;
+import com.opengamma.strata.market.sensitivity.PointSensitivityBuilder;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.swap.NotionalExchange;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+import com.opengamma.strata.product.swap.ResolvedSwapLeg;
+
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+
+/**
+ * Tests {@link CashFlowEquivalentArrays}.
+ *
+ * @author Marc Henrard
+ */
+public class CashFlowEquivalentArraysTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final LocalDate START_DATE = LocalDate.of(2016, 11, 21);
+  private static final ImmutableRatesProvider MULTICURVE_EUR =
+      MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+  private static final double NOTIONAL = 1_000_000.0d;
+  private static final List<ResolvedSwap> SWAPS = ImmutableList.of(
+      EUR_FIXED_1Y_EURIBOR_3M.createTrade(START_DATE, Tenor.TENOR_5Y, BuySell.BUY, NOTIONAL, 0.01, REF_DATA)
+          .resolve(REF_DATA).getProduct(),
+      EUR_FIXED_1Y_EURIBOR_3M.createTrade(START_DATE, Tenor.TENOR_10Y, BuySell.SELL, NOTIONAL, 0.02, REF_DATA)
+          .resolve(REF_DATA).getProduct(),
+      EUR_FIXED_1Y_EURIBOR_3M.createTrade(START_DATE, Tenor.TENOR_2Y, BuySell.BUY, NOTIONAL, 0.00, REF_DATA)
+          .resolve(REF_DATA).getProduct());
+
+  private static final double TOLERANCE_AMOUNT = 1.0E-8;
+  private static final double TOLERANCE_SENSI = 1.0E-6;
+
+  @Test
+  public void swap_compare_calculator() {
+    for (ResolvedSwap swap : SWAPS) {
+      ResolvedSwapLeg cfeExpected = CashFlowEquivalentUtils
+          .sortCompress(CashFlowEquivalentCalculator.cashFlowEquivalentSwap(swap, MULTICURVE_EUR));
+      CashFlowEquivalentArrays cfeComputed = CashFlowEquivalentArrays.of(swap, MULTICURVE_EUR, false);
+      assertArrays(cfeComputed, cfeExpected);
+      assertThat(cfeComputed.hasSensitivities()).isFalse();
+    }
+  }
+
+  @Test
+  public void leg_compare_calculator() {
+    ResolvedSwapLeg cfe = CashFlowEquivalentCalculator.cashFlowEquivalentSwap(SWAPS.get(1), MULTICURVE_EUR);
+    assertArrays(CashFlowEquivalentArrays.of(cfe), CashFlowEquivalentUtils.sortCompress(cfe));
+  }
+
+  @Test
+  public void list_compare_single() {
+    ImmutableList<CashFlowEquivalentArrays> cfes = CashFlowEquivalentArrays.of(SWAPS, MULTICURVE_EUR, false);
+    assertThat(cfes).hasSize(SWAPS.size());
+    for (int loopswap = 0; loopswap < SWAPS.size(); loopswap++) {
+      CashFlowEquivalentArrays cfeSingle = CashFlowEquivalentArrays.of(SWAPS.get(loopswap), MULTICURVE_EUR, false);
+      assertThat(cfes.get(loopswap).amounts()).containsExactly(cfeSingle.amounts());
+      for (int loopcf = 0; loopcf < cfeSingle.size(); loopcf++) {
+        assertThat(cfes.get(loopswap).paymentDate(loopcf)).isEqualTo(cfeSingle.paymentDate(loopcf));
+      }
+    }
+  }
+
+  @Test
+  public void amounts_sensitivity() {
+    for (ResolvedSwap swap : SWAPS) {
+      CashFlowEquivalentArrays cfe = CashFlowEquivalentArrays.of(swap, MULTICURVE_EUR, true);
+      assertThat(cfe.hasSensitivities()).isTrue();
+      double[] amountsBar = new double[cfe.size()];
+      Arrays.fill(amountsBar, 1.0d);
+      PointSensitivityBuilder expected = PointSensitivityBuilder.none();
+      for (PointSensitivityBuilder sensi : CashFlowEquivalentCalculator
+          .cashFlowEquivalentAndSensitivitySwap(swap, MULTICURVE_EUR).values()) {
+        expected = expected.combinedWith(sensi);
+      }
+      CurrencyParameterSensitivities psExpected = MULTICURVE_EUR.parameterSensitivity(expected.build());
+      CurrencyParameterSensitivities psComputed =
+          MULTICURVE_EUR.parameterSensitivity(cfe.amountsSensitivity(amountsBar).build());
+      assertThat(psComputed.equalWithTolerance(psExpected, TOLERANCE_SENSI)).isTrue();
+    }
+  }
+
+  @Test
+  public void amounts_sensitivity_not_computed() {
+    CashFlowEquivalentArrays cfe = CashFlowEquivalentArrays.of(SWAPS.get(0), MULTICURVE_EUR, false);
+    assertThatIllegalArgumentException().isThrownBy(() -> cfe.amountsSensitivity(new double[cfe.size()]));
+  }
+
+  private static void assertArrays(CashFlowEquivalentArrays computed, ResolvedSwapLeg expected) {
+    assertThat(computed.getCurrency()).isEqualTo(expected.getCurrency());
+    assertThat(computed.size()).isEqualTo(expected.getPaymentEvents().size());
+    for (int loopcf = 0; loopcf < computed.size(); loopcf++) {
+      Payment payment = ((NotionalExchange) expected.getPaymentEvents().get(loopcf)).getPayment();
+      assertThat(computed.paymentDate(loopcf)).isEqualTo(payment.getDate());
+      assertThat(computed.amount(loopcf)).isCloseTo(payment.getAmount(), offset(TOLERANCE_AMOUNT));
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.swap;
+
+import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_3M;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.date.Tenor;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.swap.ResolvedSwap;
+import com.opengamma.strata.product.swap.ResolvedSwapLeg;
+
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+
+/**
+ * Tests {@link CashFlowEquivalentCache}.
+ *
+ * @author Marc Henrard
+ */
+public class CashFlowEquivalentCacheTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final LocalDate START_DATE = LocalDate.of(2016, 11, 21);
+  private static final ImmutableRatesProvider MULTICURVE_EUR =
+      MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+  private static final double NOTIONAL = 1_000_000.0d;
+  private static final ResolvedSwap SWAP_1 = EUR_FIXED_1Y_EURIBOR_3M
+      .createTrade(START_DATE, Tenor.TENOR_5Y, BuySell.BUY, NOTIONAL, 0.01, REF_DATA).resolve(REF_DATA).getProduct();
+  private static final ResolvedSwap SWAP_2 = EUR_FIXED_1Y_EURIBOR_3M
+      .createTrade(START_DATE, Tenor.TENOR_10Y, BuySell.SELL, NOTIONAL, 0.02, REF_DATA).resolve(REF_DATA).getProduct();
+  private static final ResolvedSwap SWAP_3 = EUR_FIXED_1Y_EURIBOR_3M
+      .createTrade(START_DATE, Tenor.TENOR_2Y, BuySell.BUY, NOTIONAL, 0.00, REF_DATA).resolve(REF_DATA).getProduct();
+
+  @Test
+  public void of_invalid() {
+    assertThatIllegalArgumentException().isThrownBy(() -> CashFlowEquivalentCache.of(0));
+  }
+
+  @Test
+  public void cash_flow_equivalent() {
+    CashFlowEquivalentCache cache = CashFlowEquivalentCache.of(10);
+    ResolvedSwapLeg cfeExpected = CashFlowEquivalentCalculator.cashFlowEquivalentSwap(SWAP_1, MULTICURVE_EUR);
+    ResolvedSwapLeg cfeComputed = cache.cashFlowEquivalentSwap(SWAP_1, MULTICURVE_EUR);
+    assertThat(cfeComputed).isEqualTo(cfeExpected);
+    assertThat(cache.getHitCount()).isEqualTo(0);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+    assertThat(cache.cashFlowEquivalentSwap(SWAP_1, MULTICURVE_EUR)).isSameAs(cfeComputed);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void cash_flow_equivalent_sort_compress() {
+    CashFlowEquivalentCache cache = CashFlowEquivalentCache.of(10);
+    ResolvedSwapLeg cfeExpected = CashFlowEquivalentUtils
+        .sortCompress(CashFlowEquivalentCalculator.cashFlowEquivalentSwap(SWAP_2, MULTICURVE_EUR));
+    ResolvedSwapLeg cfeComputed = cache.cashFlowEquivalentSwapSortCompress(SWAP_2, MULTICURVE_EUR);
+    assertThat(cfeComputed).isEqualTo(cfeExpected);
+    // the raw and sorted versions are different entries
+    cache.cashFlowEquivalentSwap(SWAP_2, MULTICURVE_EUR);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+    assertThat(cache.cashFlowEquivalentSwapSortCompress(SWAP_2, MULTICURVE_EUR)).isSameAs(cfeComputed);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void cash_flow_equivalent_arrays() {
+    CashFlowEquivalentCache cache = CashFlowEquivalentCache.of(10);
+    CashFlowEquivalentArrays cfeExpected = CashFlowEquivalentArrays.of(SWAP_2, MULTICURVE_EUR, false);
+    CashFlowEquivalentArrays cfeComputed = cache.cashFlowEquivalentArrays(SWAP_2, MULTICURVE_EUR);
+    assertThat(cfeComputed.amounts()).containsExactly(cfeExpected.amounts());
+    assertThat(cfeComputed.paymentDate(0)).isEqualTo(cfeExpected.paymentDate(0));
+    assertThat(cfeComputed.hasSensitivities()).isFalse();
+    // the leg and array versions are different entries
+    cache.cashFlowEquivalentSwapSortCompress(SWAP_2, MULTICURVE_EUR);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+    assertThat(cache.cashFlowEquivalentArrays(SWAP_2, MULTICURVE_EUR)).isSameAs(cfeComputed);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  /* The keys are the instances, not the values. */
+  @Test
+  public void identity_keys() {
+    CashFlowEquivalentCache cache = CashFlowEquivalentCache.of(10);
+    cache.cashFlowEquivalentSwap(SWAP_1, MULTICURVE_EUR);
+    ImmutableRatesProvider multicurveCopy = MULTICURVE_EUR.toBuilder().build();
+    assertThat(multicurveCopy).isEqualTo(MULTICURVE_EUR);
+    cache.cashFlowEquivalentSwap(SWAP_1, multicurveCopy);
+    assertThat(cache.getHitCount()).isEqualTo(0);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void bounded_size() {
+    CashFlowEquivalentCache cache = CashFlowEquivalentCache.of(2);
+    cache.cashFlowEquivalentSwap(SWAP_1, MULTICURVE_EUR);
+    cache.cashFlowEquivalentSwap(SWAP_2, MULTICURVE_EUR);
+    cache.cashFlowEquivalentSwap(SWAP_3, MULTICURVE_EUR);
+    assertThat(cache.size()).isLessThanOrEqualTo(2);
+    cache.clear();
+    assertThat(cache.size()).isEqualTo(0);
+    cache.cashFlowEquivalentSwap(SWAP_1, MULTICURVE_EUR);
+    assertThat(cache.getMissCount()).isEqualTo(4);
+  }
+
+}
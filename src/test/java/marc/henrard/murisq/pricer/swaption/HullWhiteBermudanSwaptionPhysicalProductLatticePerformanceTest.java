@@ -0,0 +1,259 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.swaption;
+
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_3M;
+import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_3M;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.date.AdjustableDate;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.collect.array.DoubleMatrix;
+import com.opengamma.strata.math.impl.linearalgebra.SVDecompositionCommons;
+import com.opengamma.strata.math.linearalgebra.DecompositionResult;
+import com.opengamma.strata.pricer.impl.rate.swap.CashFlowEquivalentCalculator;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParametersProvider;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.common.LongShort;
+import com.opengamma.strata.product.swap.NotionalExchange;
+import com.opengamma.strata.product.swap.ResolvedSwapLeg;
+import com.opengamma.strata.product.swap.Swap;
+import com.opengamma.strata.product.swap.SwapPaymentEvent;
+import com.opengamma.strata.product.swaption.PhysicalSwaptionSettlement;
+import com.opengamma.strata.product.swaption.ResolvedSwaption;
+import com.opengamma.strata.product.swaption.Swaption;
+
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.model.hullwhite.HullWhiteOneFactorPiecewiseConstantFormulas;
+
+/**
+ * Performance of {@link HullWhiteBermudanSwaptionPhysicalProductLatticePricer}.
+ * <p>
+ * The lattice prices, single and batch, are compared to a Longstaff-Schwartz Monte Carlo reference implemented
+ * in the test. The regression is done on the polynomials of degree up to 3 in the state variable for the
+ * in-the-money paths.
+ * 
+ * @author Marc Henrard
+ */
+@Test
+public class HullWhiteBermudanSwaptionPhysicalProductLatticePerformanceTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final HolidayCalendar EUTA_IMPL = REF_DATA.getValue(EUR_EURIBOR_3M.getFixingCalendar());
+
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 29);
+  private static final ImmutableRatesProvider MULTICURVE_EUR =
+      MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+
+  private static final HullWhiteOneFactorPiecewiseConstantParameters HW_PARAMETERS =
+      HullWhiteOneFactorPiecewiseConstantParameters.of(0.03, DoubleArray.of(0.0060, 0.0070, 0.0080), 
+          DoubleArray.of(2.0, 5.0));
+  private static final HullWhiteOneFactorPiecewiseConstantParametersProvider HW_PROVIDER =
+      HullWhiteOneFactorPiecewiseConstantParametersProvider
+          .of(HW_PARAMETERS, DayCounts.ACT_365F, VALUATION_DATE, VALUATION_TIME, VALUATION_ZONE);
+  private static final HullWhiteOneFactorPiecewiseConstantFormulas FORMULAS_HW =
+      HullWhiteOneFactorPiecewiseConstantFormulas.DEFAULT;
+
+  private static final double NOTIONAL = 1_000_000.0d;
+  private static final double[] FIXED_RATES = {0.0050, 0.0100, 0.0150, 0.0200, 0.0250};
+  private static final int NB_RATES = FIXED_RATES.length;
+  private static final LocalDate START_DATE = LocalDate.of(2017, 11, 24);
+  private static final int NB_EXERCISES = 10;
+
+  private static final HullWhiteBermudanSwaptionPhysicalProductLatticePricer PRICER_BERMUDAN =
+      HullWhiteBermudanSwaptionPhysicalProductLatticePricer.DEFAULT;
+
+  private static final int NB_PATHS_LSM = 100_000;
+  private static final int NB_BASIS = 4;
+  private static final long SEED = 123456L;
+
+  @Test(enabled = false)
+  public void present_value_performance() {
+    long startTime, endTime;
+    int nbRep = 10;
+    int nbTests = 100;
+    List<List<ResolvedSwaption>> bermudans = new ArrayList<>();
+    for (int looprate = 0; looprate < NB_RATES; looprate++) {
+      bermudans.add(bermudan(BuySell.BUY, FIXED_RATES[looprate]));
+      bermudans.add(bermudan(BuySell.SELL, FIXED_RATES[looprate]));
+    }
+    int nbBermudans = bermudans.size();
+    /* Accuracy against LSM */
+    double[] pvBatch = PRICER_BERMUDAN.presentValueBatch(bermudans, MULTICURVE_EUR, HW_PROVIDER);
+    for (int loopb = 0; loopb < nbBermudans; loopb++) {
+      double pvLsm = presentValueLsm(bermudans.get(loopb));
+      System.out.println("Bermudan " + loopb + ": lattice " + pvBatch[loopb] + ", LSM " + pvLsm
+          + ", difference " + (pvBatch[loopb] - pvLsm));
+    }
+    /* Performance */
+    for (int looprep = 0; looprep < nbRep; looprep++) {
+      startTime = System.currentTimeMillis();
+      double pvTotal = 0.0d;
+      for (int looptest = 0; looptest < nbTests; looptest++) {
+        for (int loopb = 0; loopb < nbBermudans; loopb++) {
+          pvTotal += PRICER_BERMUDAN.presentValue(bermudans.get(loopb), MULTICURVE_EUR, HW_PROVIDER).getAmount();
+        }
+      }
+      endTime = System.currentTimeMillis();
+      System.out.println("Lattice single: " + nbTests + " x " + nbBermudans + " Bermudans in "
+          + (endTime - startTime) + " ms. " + pvTotal);
+      startTime = System.currentTimeMillis();
+      pvTotal = 0.0d;
+      for (int looptest = 0; looptest < nbTests; looptest++) {
+        double[] pv = PRICER_BERMUDAN.presentValueBatch(bermudans, MULTICURVE_EUR, HW_PROVIDER);
+        pvTotal += pv[0];
+      }
+      endTime = System.currentTimeMillis();
+      System.out.println("Lattice batch: " + nbTests + " x " + nbBermudans + " Bermudans in "
+          + (endTime - startTime) + " ms. " + pvTotal);
+    }
+    startTime = System.currentTimeMillis();
+    double pvLsm = presentValueLsm(bermudans.get(0));
+    endTime = System.currentTimeMillis();
+    System.out.println("LSM: 1 Bermudan with " + NB_PATHS_LSM + " paths in "
+        + (endTime - startTime) + " ms. " + pvLsm);
+  }
+
+  /* Longstaff-Schwartz Monte Carlo reference, with exact simulation of the state variable in the terminal measure. */
+  private static double presentValueLsm(List<ResolvedSwaption> bermudan) {
+    int nbExercises = bermudan.size();
+    Currency ccy = bermudan.get(0).getCurrency();
+    double kappa = HW_PARAMETERS.getMeanReversion();
+    ResolvedSwapLeg[] cfe = new ResolvedSwapLeg[nbExercises];
+    LocalDate terminalDate = VALUATION_DATE;
+    for (int loopex = 0; loopex < nbExercises; loopex++) {
+      cfe[loopex] = CashFlowEquivalentCalculator
+          .cashFlowEquivalentSwap(bermudan.get(loopex).getUnderlying(), MULTICURVE_EUR);
+      for (SwapPaymentEvent event : cfe[loopex].getPaymentEvents()) {
+        terminalDate = (event.getPaymentDate().isAfter(terminalDate)) ? event.getPaymentDate() : terminalDate;
+      }
+    }
+    double expTerminal = Math.exp(-kappa * HW_PROVIDER.relativeTime(terminalDate));
+    /* Paths of the state variable and deflated exercise values */
+    SplittableRandom generator = new SplittableRandom(SEED);
+    double[][] values = new double[nbExercises][NB_PATHS_LSM];
+    double[] y = new double[NB_PATHS_LSM];
+    double[][] states = new double[nbExercises][];
+    double timePrevious = 0.0d;
+    double variance = 0.0d;
+    for (int loopex = 0; loopex < nbExercises; loopex++) {
+      double time = HW_PROVIDER.relativeTime(bermudan.get(loopex).getExpiry());
+      double varianceIncrement = FORMULAS_HW.alpha2ForwardGPart(HW_PARAMETERS, timePrevious, time);
+      variance += varianceIncrement;
+      double std = Math.sqrt(varianceIncrement);
+      for (int looppath = 0; looppath < NB_PATHS_LSM; looppath++) {
+        y[looppath] += std * normal(generator);
+      }
+      states[loopex] = y.clone();
+      List<SwapPaymentEvent> events = cfe[loopex].getPaymentEvents();
+      for (SwapPaymentEvent event : events) {
+        NotionalExchange cf = (NotionalExchange) event;
+        double h = (expTerminal - Math.exp(-kappa * HW_PROVIDER.relativeTime(cf.getPaymentDate()))) / kappa;
+        double amount = cf.getPaymentAmount().getAmount() * MULTICURVE_EUR.discountFactor(ccy, cf.getPaymentDate())
+            * Math.exp(-0.5d * h * h * variance);
+        for (int looppath = 0; looppath < NB_PATHS_LSM; looppath++) {
+          values[loopex][looppath] += amount * Math.exp(-h * y[looppath]);
+        }
+      }
+      timePrevious = time;
+    }
+    /* Backward induction with regression on the in-the-money paths */
+    double[] cashFlows = new double[NB_PATHS_LSM];
+    for (int looppath = 0; looppath < NB_PATHS_LSM; looppath++) {
+      cashFlows[looppath] = Math.max(values[nbExercises - 1][looppath], 0.0d);
+    }
+    SVDecompositionCommons svd = new SVDecompositionCommons();
+    for (int loopex = nbExercises - 2; loopex >= 0; loopex--) {
+      int nbItm = 0;
+      for (int looppath = 0; looppath < NB_PATHS_LSM; looppath++) {
+        nbItm += (values[loopex][looppath] > 0.0d) ? 1 : 0;
+      }
+      if (nbItm < NB_BASIS) {
+        continue;
+      }
+      double[][] basis = new double[nbItm][NB_BASIS];
+      double[] target = new double[nbItm];
+      int loopitm = 0;
+      for (int looppath = 0; looppath < NB_PATHS_LSM; looppath++) {
+        if (values[loopex][looppath] > 0.0d) {
+          basis[loopitm] = basis(states[loopex][looppath]);
+          target[loopitm] = cashFlows[looppath];
+          loopitm++;
+        }
+      }
+      DecompositionResult decomposition = svd.apply(DoubleMatrix.ofUnsafe(basis));
+      double[] beta = decomposition.solve(DoubleArray.ofUnsafe(target)).toArrayUnsafe();
+      for (int looppath = 0; looppath < NB_PATHS_LSM; looppath++) {
+        if (values[loopex][looppath] > 0.0d) {
+          double[] b = basis(states[loopex][looppath]);
+          double continuation = 0.0d;
+          for (int loopbasis = 0; loopbasis < NB_BASIS; loopbasis++) {
+            continuation += beta[loopbasis] * b[loopbasis];
+          }
+          if (values[loopex][looppath] > continuation) {
+            cashFlows[looppath] = values[loopex][looppath];
+          }
+        }
+      }
+    }
+    double pv = 0.0d;
+    for (int looppath = 0; looppath < NB_PATHS_LSM; looppath++) {
+      pv += cashFlows[looppath];
+    }
+    return pv / NB_PATHS_LSM * bermudan.get(0).getLongShort().sign();
+  }
+
+  private static double[] basis(double y) {
+    return new double[] {1.0d, y, y * y, y * y * y};
+  }
+
+  /* Standard normal with the Marsaglia polar method; one of the two values is discarded. */
+  private static double normal(SplittableRandom generator) {
+    double u;
+    double v;
+    double s;
+    do {
+      u = 2.0d * generator.nextDouble() - 1.0d;
+      v = 2.0d * generator.nextDouble() - 1.0d;
+      s = u * u + v * v;
+    } while (s >= 1.0d || s == 0.0d);
+    return u * Math.sqrt(-2.0d * Math.log(s) / s);
+  }
+
+  /* Co-terminal exercise opportunities */
+  private static List<ResolvedSwaption> bermudan(BuySell buySell, double fixedRate) {
+    List<ResolvedSwaption> bermudan = new ArrayList<>();
+    LocalDate endDate = START_DATE.plusYears(NB_EXERCISES);
+    for (int loopex = 0; loopex < NB_EXERCISES; loopex++) {
+      LocalDate startDate = START_DATE.plusYears(loopex);
+      LocalDate expiryDate = EUTA_IMPL.shift(startDate, -2);
+      Swap swap = EUR_FIXED_1Y_EURIBOR_3M
+          .toTrade(expiryDate, startDate, endDate, buySell, NOTIONAL, fixedRate).getProduct();
+      bermudan.add(Swaption.builder()
+          .expiryDate(AdjustableDate.of(expiryDate)).expiryTime(VALUATION_TIME).expiryZone(VALUATION_ZONE)
+          .longShort(LongShort.LONG)
+          .swaptionSettlement(PhysicalSwaptionSettlement.DEFAULT)
+          .underlying(swap)
+          .build().resolve(REF_DATA));
+    }
+    return bermudan;
+  }
+
+}
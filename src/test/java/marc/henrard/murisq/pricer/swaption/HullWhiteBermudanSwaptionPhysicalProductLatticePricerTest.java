@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.swaption;
+
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_3M;
+import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_3M;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.date.AdjustableDate;
+import com.opengamma.strata.basics.date.DayCounts;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParameters;
+import com.opengamma.strata.pricer.model.HullWhiteOneFactorPiecewiseConstantParametersProvider;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.swaption.HullWhiteSwaptionPhysicalProductPricer;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.common.LongShort;
+import com.opengamma.strata.product.swap.Swap;
+import com.opengamma.strata.product.swaption.PhysicalSwaptionSettlement;
+import com.opengamma.strata.product.swaption.ResolvedSwaption;
+import com.opengamma.strata.product.swaption.Swaption;
+
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+
+/**
+ * Tests {@link HullWhiteBermudanSwaptionPhysicalProductLatticePricer}.
+ * 
+ * @author Marc Henrard
+ */
+public class HullWhiteBermudanSwaptionPhysicalProductLatticePricerTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final HolidayCalendar EUTA_IMPL = REF_DATA.getValue(EUR_EURIBOR_3M.getFixingCalendar());
+
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 29);
+  private static final ImmutableRatesProvider MULTICURVE_EUR =
+      MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+
+  /* Hull-White parameters */
+  private static final HullWhiteOneFactorPiecewiseConstantParameters HW_PARAMETERS =
+      HullWhiteOneFactorPiecewiseConstantParameters.of(0.03, DoubleArray.of(0.0060, 0.0070, 0.0080), 
+          DoubleArray.of(2.0, 5.0));
+  private static final HullWhiteOneFactorPiecewiseConstantParametersProvider HW_PROVIDER =
+      HullWhiteOneFactorPiecewiseConstantParametersProvider
+          .of(HW_PARAMETERS, DayCounts.ACT_365F, VALUATION_DATE, VALUATION_TIME, VALUATION_ZONE);
+
+  /* Bermudan description: 2Y into 8Y, exercise yearly */
+  private static final double NOTIONAL = 1_000_000.0d;
+  private static final double FIXED_RATE = 0.0150;
+  private static final LocalDate START_DATE = LocalDate.of(2017, 11, 24);
+  private static final int NB_EXERCISES = 8;
+  private static final LocalDate END_DATE = START_DATE.plusYears(NB_EXERCISES);
+  private static final Period CLOSE_EXERCISE_PERIOD = Period.ofWeeks(2);
+
+  /* Pricers */
+  private static final HullWhiteBermudanSwaptionPhysicalProductLatticePricer PRICER_BERMUDAN =
+      HullWhiteBermudanSwaptionPhysicalProductLatticePricer.DEFAULT;
+  private static final HullWhiteSwaptionPhysicalProductPricer PRICER_SWAPTION_HW =
+      HullWhiteSwaptionPhysicalProductPricer.DEFAULT;
+  private static final HullWhiteBermudanSwaptionPhysicalProductLatticePricer PRICER_BERMUDAN_FINE =
+      new HullWhiteBermudanSwaptionPhysicalProductLatticePricer(601, 8.0d);
+
+  private static final double TOLERANCE_PV_RELATIVE = 1.0E-3;
+
+  /* A single exercise Bermudan is a European swaption. */
+  @Test
+  public void european() {
+    for (int loopex = 0; loopex < NB_EXERCISES; loopex += 3) {
+      for (BuySell buySell : BuySell.values()) {
+        ResolvedSwaption swaption = bermudan(buySell, LongShort.LONG).get(loopex);
+        double pvEuropean = PRICER_SWAPTION_HW.presentValue(swaption, MULTICURVE_EUR, HW_PROVIDER).getAmount();
+        double pvLattice = PRICER_BERMUDAN
+            .presentValue(ImmutableList.of(swaption), MULTICURVE_EUR, HW_PROVIDER).getAmount();
+        assertThat(pvLattice).isEqualTo(pvEuropean, within(Math.abs(pvEuropean) * TOLERANCE_PV_RELATIVE));
+      }
+    }
+  }
+
+  /* The Bermudan is more valuable than each European and less than the sum. Long/short parity. */
+  @Test
+  public void bermudan_bounds() {
+    for (BuySell buySell : BuySell.values()) {
+      List<ResolvedSwaption> bermudan = bermudan(buySell, LongShort.LONG);
+      double pvBermudan = PRICER_BERMUDAN.presentValue(bermudan, MULTICURVE_EUR, HW_PROVIDER).getAmount();
+      double pvEuropeanSum = 0.0d;
+      for (ResolvedSwaption swaption : bermudan) {
+        double pvEuropean = PRICER_SWAPTION_HW.presentValue(swaption, MULTICURVE_EUR, HW_PROVIDER).getAmount();
+        assertThat(pvBermudan).isGreaterThan(pvEuropean);
+        pvEuropeanSum += pvEuropean;
+      }
+      assertThat(pvBermudan).isLessThan(pvEuropeanSum);
+      double pvShort = PRICER_BERMUDAN
+          .presentValue(bermudan(buySell, LongShort.SHORT), MULTICURVE_EUR, HW_PROVIDER).getAmount();
+      assertThat(pvShort).isEqualTo(-pvBermudan, within(1.0E-8));
+    }
+  }
+
+  /* With closely spaced exercise dates, the Bermudan is more valuable than each European and less than the sum. */
+  @Test
+  public void bermudan_bounds_close_exercises() {
+    for (BuySell buySell : BuySell.values()) {
+      List<ResolvedSwaption> bermudan =
+          bermudan(buySell, LongShort.LONG, FIXED_RATE, NOTIONAL, END_DATE, CLOSE_EXERCISE_PERIOD);
+      double pvBermudan = PRICER_BERMUDAN.presentValue(bermudan, MULTICURVE_EUR, HW_PROVIDER).getAmount();
+      double pvEuropeanSum = 0.0d;
+      for (ResolvedSwaption swaption : bermudan) {
+        double pvEuropean = PRICER_SWAPTION_HW.presentValue(swaption, MULTICURVE_EUR, HW_PROVIDER).getAmount();
+        assertThat(pvBermudan).isGreaterThan(pvEuropean);
+        pvEuropeanSum += pvEuropean;
+      }
+      assertThat(pvBermudan).isLessThan(pvEuropeanSum);
+    }
+  }
+
+  /* The default lattice is close to a finer lattice, for yearly and for closely spaced exercise dates. */
+  @Test
+  public void convergence() {
+    for (BuySell buySell : BuySell.values()) {
+      List<List<ResolvedSwaption>> bermudans = ImmutableList.of(
+          bermudan(buySell, LongShort.LONG),
+          bermudan(buySell, LongShort.LONG, FIXED_RATE, NOTIONAL, END_DATE, CLOSE_EXERCISE_PERIOD));
+      for (List<ResolvedSwaption> bermudan : bermudans) {
+        double pv = PRICER_BERMUDAN.presentValue(bermudan, MULTICURVE_EUR, HW_PROVIDER).getAmount();
+        double pvFine = PRICER_BERMUDAN_FINE.presentValue(bermudan, MULTICURVE_EUR, HW_PROVIDER).getAmount();
+        assertThat(pv).isEqualTo(pvFine, within(Math.abs(pvFine) * TOLERANCE_PV_RELATIVE));
+      }
+    }
+  }
+
+  /* The batch results are the results of each Bermudan priced alone. The batch lattice is in the forward measure
+   * of the latest payment of all the swaptions, the results are equal up to the lattice accuracy. */
+  @Test
+  public void batch() {
+    List<List<ResolvedSwaption>> bermudans = ImmutableList.of(
+        bermudan(BuySell.BUY, LongShort.LONG),
+        bermudan(BuySell.SELL, LongShort.LONG, 0.0100, 2 * NOTIONAL, END_DATE, Period.ofYears(1)),
+        bermudan(BuySell.BUY, LongShort.SHORT, 0.0250, NOTIONAL, END_DATE.plusYears(2), Period.ofYears(1)),
+        bermudan(BuySell.SELL, LongShort.SHORT, 0.0200, 0.5 * NOTIONAL, END_DATE.plusYears(1), Period.ofYears(1)));
+    double[] pvBatch = PRICER_BERMUDAN.presentValueBatch(bermudans, MULTICURVE_EUR, HW_PROVIDER);
+    for (int loopb = 0; loopb < bermudans.size(); loopb++) {
+      double pv = PRICER_BERMUDAN.presentValue(bermudans.get(loopb), MULTICURVE_EUR, HW_PROVIDER).getAmount();
+      assertThat(pvBatch[loopb]).isEqualTo(pv, within(Math.abs(pv) * TOLERANCE_PV_RELATIVE));
+    }
+    for (int loopb = 1; loopb < bermudans.size(); loopb++) {
+      assertThat(pvBatch[loopb]).isNotCloseTo(pvBatch[0], within(Math.abs(pvBatch[0]) * 1.0E-2));
+    }
+  }
+
+  /* Co-terminal exercise opportunities, yearly */
+  private static List<ResolvedSwaption> bermudan(BuySell buySell, LongShort longShort) {
+    return bermudan(buySell, longShort, FIXED_RATE, NOTIONAL, END_DATE, Period.ofYears(1));
+  }
+
+  /* Co-terminal exercise opportunities, the start dates of the underlying swaps are separated by a period */
+  private static List<ResolvedSwaption> bermudan(
+      BuySell buySell,
+      LongShort longShort,
+      double fixedRate,
+      double notional,
+      LocalDate endDate,
+      Period exercisePeriod) {
+
+    List<ResolvedSwaption> bermudan = new ArrayList<>();
+    for (int loopex = 0; loopex < NB_EXERCISES; loopex++) {
+      LocalDate startDate = START_DATE.plus(exercisePeriod.multipliedBy(loopex));
+      LocalDate expiryDate = EUTA_IMPL.shift(startDate, -2);
+      Swap swap = EUR_FIXED_1Y_EURIBOR_3M
+          .toTrade(expiryDate, startDate, endDate, buySell, notional, fixedRate).getProduct();
+      bermudan.add(Swaption.builder()
+          .expiryDate(AdjustableDate.of(expiryDate)).expiryTime(VALUATION_TIME).expiryZone(VALUATION_ZONE)
+          .longShort(longShort)
+          .swaptionSettlement(PhysicalSwaptionSettlement.DEFAULT)
+          .underlying(swap)
+          .build().resolve(REF_DATA));
+    }
+    return bermudan;
+  }
+
+}
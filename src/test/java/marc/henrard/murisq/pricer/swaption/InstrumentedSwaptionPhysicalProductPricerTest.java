@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.swaption;
+
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_3M;
+import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_3M;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.basics.date.AdjustableDate;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.basics.date.Tenor;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.common.LongShort;
+import com.opengamma.strata.product.swap.SwapTrade;
+import com.opengamma.strata.product.swaption.PhysicalSwaptionSettlement;
+import com.opengamma.strata.product.swaption.ResolvedSwaption;
+import com.opengamma.strata.product.swaption.Swaption;
+
+import marc.henrard.murisq.basics.metrics.HistogramMetricsSink;
+import marc.henrard.murisq.basics.metrics.MetricsSink;
+import marc.henrard.murisq.basics.metrics.PricingMetrics;
+import marc.henrard.murisq.basics.time.ScaledSecondTime;
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantParameters;
+
+/**
+ * Tests {@link InstrumentedSwaptionPhysicalProductPricer}.
+ *
+ * @author Marc Henrard
+ */
+public class InstrumentedSwaptionPhysicalProductPricerTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final HolidayCalendar EUTA_IMPL = REF_DATA.getValue(EUR_EURIBOR_3M.getFixingCalendar());
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 29);
+  private static final ImmutableRatesProvider MULTICURVE_EUR =
+      MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+  private static final G2ppPiecewiseConstantParameters PARAMETERS =
+      G2ppPiecewiseConstantParameters.builder()
+          .currency(Currency.EUR)
+          .correlation(-0.50)
+          .kappa1(0.02)
+          .kappa2(0.20)
+          .volatility1(DoubleArray.of(0.01d))
+          .volatility2(DoubleArray.of(0.005d))
+          .volatilityTime(DoubleArray.of())
+          .valuationDate(VALUATION_DATE)
+          .valuationTime(VALUATION_TIME)
+          .valuationZone(VALUATION_ZONE)
+          .timeMeasure(ScaledSecondTime.DEFAULT)
+          .build();
+
+  private static final G2ppSwaptionPhysicalProductExplicitApproxPricer PRICER_UNDERLYING =
+      G2ppSwaptionPhysicalProductExplicitApproxPricer.DEFAULT;
+  private static final InstrumentedSwaptionPhysicalProductPricer PRICER_INSTRUMENTED =
+      new InstrumentedSwaptionPhysicalProductPricer(PRICER_UNDERLYING);
+  private static final String METRIC_NAME = "G2ppSwaptionPhysicalProductExplicitApproxPricer.presentValue";
+
+  private static final LocalDate EXPIRY_DATE = EUTA_IMPL.nextOrSame(VALUATION_DATE.plusYears(1));
+  private static final SwapTrade SWAP = EUR_FIXED_1Y_EURIBOR_3M
+      .createTrade(EXPIRY_DATE, Tenor.TENOR_5Y, BuySell.BUY, 1_000_000.0d, 0.01, REF_DATA);
+  private static final ResolvedSwaption SWAPTION = Swaption.builder()
+      .expiryDate(AdjustableDate.of(EXPIRY_DATE)).expiryTime(VALUATION_TIME).expiryZone(VALUATION_ZONE)
+      .longShort(LongShort.LONG)
+      .swaptionSettlement(PhysicalSwaptionSettlement.DEFAULT)
+      .underlying(SWAP.getProduct()).build().resolve(REF_DATA);
+
+  @AfterEach
+  public void reset() {
+    PricingMetrics.setSink(MetricsSink.NONE);
+  }
+
+  @Test
+  public void underlying() {
+    assertThat(PRICER_INSTRUMENTED.getUnderlying()).isEqualTo(PRICER_UNDERLYING);
+    assertThatIllegalArgumentException().isThrownBy(() -> new InstrumentedSwaptionPhysicalProductPricer(null));
+  }
+
+  @Test
+  public void present_value_disabled() {
+    CurrencyAmount pvExpected = PRICER_UNDERLYING.presentValue(SWAPTION, MULTICURVE_EUR, PARAMETERS);
+    CurrencyAmount pvComputed = PRICER_INSTRUMENTED.presentValue(SWAPTION, MULTICURVE_EUR, PARAMETERS);
+    assertThat(pvComputed).isEqualTo(pvExpected);
+  }
+
+  @Test
+  public void present_value_enabled() {
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    PricingMetrics.setSink(sink);
+    CurrencyAmount pvExpected = PRICER_UNDERLYING.presentValue(SWAPTION, MULTICURVE_EUR, PARAMETERS);
+    for (int looprep = 0; looprep < 3; looprep++) {
+      CurrencyAmount pvComputed = PRICER_INSTRUMENTED.presentValue(SWAPTION, MULTICURVE_EUR, PARAMETERS);
+      assertThat(pvComputed).isEqualTo(pvExpected);
+    }
+    assertThat(sink.timer(METRIC_NAME).getCount()).isEqualTo(3L);
+  }
+
+  /* The basket uses the basket pricer of the underlying and measures each swaption. */
+  @Test
+  public void present_value_basket() {
+    HistogramMetricsSink sink = new HistogramMetricsSink();
+    PricingMetrics.setSink(sink);
+    G2ppSwaptionPhysicalProductNumericalIntegration2DPricer pricerNi =
+        G2ppSwaptionPhysicalProductNumericalIntegration2DPricer.DEFAULT;
+    InstrumentedSwaptionPhysicalProductPricer pricerInstrumented =
+        new InstrumentedSwaptionPhysicalProductPricer(pricerNi);
+    List<ResolvedSwaption> swaptions = ImmutableList.of(SWAPTION, SWAPTION, SWAPTION);
+    double[] pvExpected = pricerNi.presentValueBasket(swaptions, MULTICURVE_EUR, PARAMETERS);
+    double[] pvComputed = pricerInstrumented.presentValueBasket(swaptions, MULTICURVE_EUR, PARAMETERS);
+    assertThat(pvComputed).containsExactly(pvExpected);
+    assertThat(sink.timer("G2ppSwaptionPhysicalProductNumericalIntegration2DPricer.presentValue").getCount())
+        .isEqualTo(3L);
+  }
+
+}
@@ -98,6 +98,8 @@ public class LmmdddSwaptionPhysicalProductExplicitApproxPricerTest {
   private static final Offset<Double> TOLERANCE_APPROX = within(1.5E+2);
   private static final Offset<Double> TOLERANCE_APPROX_IV = within(8.0E-6); // Implied volatility withing 0.06 bps
   private static final double TOLERANCE_PV01 = 5.0E+1;
+  private static final Offset<Double> TOLERANCE_PV_CUBE = within(1.0E-6);
+  private static final Offset<Double> TOLERANCE_IV_CUBE = within(1.0E-8);
   private static final boolean PRINT_DETAILS = false;
   
   /* Test v Hull-White model 
@@ -159,6 +161,58 @@ public class LmmdddSwaptionPhysicalProductExplicitApproxPricerTest {
     } // end loopexp
   }
 
+  /* Test the cube pricing v the swaption by swaption pricing. */
+  @Test
+  public void present_value_cube() {
+    List<LocalDate> expiryDates = new ArrayList<>();
+    for (Period expiry : new Period[] {Period.ofMonths(6), Period.ofMonths(12), Period.ofMonths(60)}) {
+      expiryDates.add(EUTA_IMPL.nextOrSame(VALUATION_DATE.plus(expiry)));
+    }
+    List<Tenor> tenors = ImmutableList.of(Tenor.TENOR_2Y, Tenor.TENOR_10Y, Tenor.TENOR_30Y);
+    DoubleArray strikes = DoubleArray.of(-0.0050, 0.0, 0.0050, 0.0100, 0.0200);
+    ResolvedSwapTrade swapMax = EUR_FIXED_1Y_EURIBOR_3M
+        .createTrade(expiryDates.get(0), Tenor.TENOR_40Y, BuySell.BUY, NOTIONAL, 0.0d, REF_DATA).resolve(REF_DATA);
+    List<LocalDate> iborDates = new ArrayList<>();
+    ImmutableList<SwapPaymentPeriod> iborLeg = swapMax.getProduct().getLegs().get(1).getPaymentPeriods();
+    iborDates.add(iborLeg.get(0).getStartDate());
+    for (SwapPaymentPeriod period : iborLeg) {
+      iborDates.add(period.getEndDate());
+    }
+    LiborMarketModelDisplacedDiffusionDeterministicSpreadParameters lmmHw =
+        LmmdddExamplesUtils.lmmHw(MEAN_REVERTION, HW_SIGMA, iborDates,
+            EUR_EONIA, EUR_EURIBOR_3M, ScaledSecondTime.DEFAULT, MULTICURVE_EUR,
+            VALUATION_ZONE, VALUATION_TIME, REF_DATA);
+    LmmdddSwaptionPhysicalProductExplicitApproxPricer.CubeResult cube = PRICER_SWAPTION_LMM_APPROX
+        .presentValueCube(expiryDates, tenors, strikes, EUR_FIXED_1Y_EURIBOR_3M, NOTIONAL, MULTICURVE_EUR, lmmHw,
+            REF_DATA);
+    assertThat(cube.getPresentValues().rowCount()).isEqualTo(expiryDates.size() * tenors.size());
+    assertThat(cube.getPresentValues().columnCount()).isEqualTo(strikes.size());
+    for (int loopexp = 0; loopexp < expiryDates.size(); loopexp++) {
+      for (int looptenor = 0; looptenor < tenors.size(); looptenor++) {
+        for (int loopstrike = 0; loopstrike < strikes.size(); loopstrike++) {
+          SwapTrade swap = EUR_FIXED_1Y_EURIBOR_3M
+              .createTrade(expiryDates.get(loopexp), tenors.get(looptenor), BuySell.BUY, NOTIONAL,
+                  strikes.get(loopstrike), REF_DATA);
+          Swaption swaption = Swaption.builder()
+              .expiryDate(AdjustableDate.of(expiryDates.get(loopexp))).expiryTime(VALUATION_TIME)
+              .expiryZone(VALUATION_ZONE)
+              .longShort(LongShort.LONG)
+              .swaptionSettlement(PhysicalSwaptionSettlement.DEFAULT)
+              .underlying(swap.getProduct()).build();
+          ResolvedSwaption swaptionResolved = swaption.resolve(REF_DATA);
+          double pvExpected =
+              PRICER_SWAPTION_LMM_APPROX.presentValue(swaptionResolved, MULTICURVE_EUR, lmmHw).getAmount();
+          double ivExpected =
+              PRICER_SWAPTION_LMM_APPROX.impliedVolatilityBachelier(swaptionResolved, MULTICURVE_EUR, lmmHw);
+          assertThat(cube.presentValue(loopexp, looptenor, loopstrike)).isEqualTo(pvExpected, TOLERANCE_PV_CUBE);
+          assertThat(cube.getPresentValues().get(loopexp * tenors.size() + looptenor, loopstrike))
+              .isEqualTo(cube.presentValue(loopexp, looptenor, loopstrike));
+          assertThat(cube.impliedVolatility(loopexp, looptenor, loopstrike)).isEqualTo(ivExpected, TOLERANCE_IV_CUBE);
+        } // end loopstrike
+      } // end looptenor
+    } // end loopexp
+  }
+
   /* Test AD rate sensitivities V Finite difference. */
   @Test
   public void sensitivity_hw_like() {
@@ -35,6 +35,7 @@ import marc.henrard.murisq.basics.time.TimeMeasurement;
 import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
 import marc.henrard.murisq.dataset.RationalTwoFactorParameters20151120DataSet;
 import marc.henrard.murisq.model.rationalmulticurve.RationalOneFactorGenericParameters;
+import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorFormulas;
 import marc.henrard.murisq.model.rationalmulticurve.RationalTwoFactorGenericParameters;
 import marc.henrard.murisq.pricer.swaption.RationalOneFactorSwaptionPhysicalProductExplicitPricer;
 import marc.henrard.murisq.pricer.swaption.RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer;
@@ -62,6 +63,12 @@ public class RationalTwoFactorSwaptionPhysicalProductSemiExplicitNiPricerTest {
   private static final int NB_STEP_HIGH = 50; // Can be increased to 100 to improve TOLERANCE_PV_NI
   private static final RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer PRICER_SWPT_2_NI_HIGH =
       new RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer(NB_STEP_HIGH); // High precision for verification
+  private static final RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer PRICER_SWPT_2_NI_HP =
+      new RationalTwoFactorSwaptionPhysicalProductNumericalIntegrationPricer(
+          10, RationalTwoFactorFormulas.HIGH_PERFORMANCE);
+  private static final RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer PRICER_SWPT_S_EX_HP =
+      new RationalTwoFactorSwaptionPhysicalProductSemiExplicitPricer(
+          10, RationalTwoFactorFormulas.HIGH_PERFORMANCE);
   private static final RationalOneFactorSwaptionPhysicalProductExplicitPricer PRICER_SWAPT_1_EX =
       RationalOneFactorSwaptionPhysicalProductExplicitPricer.DEFAULT;
 
@@ -201,5 +208,33 @@ public class RationalTwoFactorSwaptionPhysicalProductSemiExplicitNiPricerTest {
       }
     }
   }
-  
+
+  /* Test the pricers with the high-performance formulas v the default formulas. */
+  public void present_value_high_performance() {
+    for (int i = 0; i < NB_EXPIRIES; i++) {
+      for (int j = 0; j < NB_TENORS; j++) {
+        SwapTrade swap0 = EUR_FIXED_1Y_EURIBOR_6M.createTrade(
+            VALUATION_DATE, EXPIRIES_PER[i], Tenor.of(TENORS_PER[j]), BuySell.BUY, NOTIONAL, 0, REF_DATA);
+        ResolvedSwap swap0Resolved = swap0.getProduct().resolve(REF_DATA);
+        double parRate = PRICER_SWAP.parRate(swap0Resolved, MULTICURVE);
+        LocalDate expiryDate = EUR_EURIBOR_6M.calculateFixingFromEffective(swap0Resolved.getStartDate(), REF_DATA);
+        for (int k = 0; k < NB_MONEYNESS; k++) {
+          SwapTrade swapPayer = EUR_FIXED_1Y_EURIBOR_6M.createTrade(VALUATION_DATE, EXPIRIES_PER[i],
+              Tenor.of(TENORS_PER[j]), BuySell.BUY, NOTIONAL, parRate + MONEYNESS[k], REF_DATA);
+          ResolvedSwaption swptPayerLong = Swaption.builder()
+              .longShort(LongShort.LONG)
+              .expiryDate(AdjustableDate.of(expiryDate)).expiryTime(LocalTime.NOON).expiryZone(ZoneOffset.UTC)
+              .swaptionSettlement(PhysicalSwaptionSettlement.DEFAULT)
+              .underlying(swapPayer.getProduct()).build().resolve(REF_DATA);
+          assertEquals(PRICER_SWPT_2_NI_HP.presentValue(swptPayerLong, MULTICURVE, RATIONAL_2F).getAmount(),
+              PRICER_SWPT_2_NI.presentValue(swptPayerLong, MULTICURVE, RATIONAL_2F).getAmount(), TOLERANCE_PV_NI,
+              "2F NI high performance: " + EXPIRIES_PER[i] + TENORS_PER[j] + MONEYNESS[k]);
+          assertEquals(PRICER_SWPT_S_EX_HP.presentValue(swptPayerLong, MULTICURVE, RATIONAL_2F).getAmount(),
+              PRICER_SWPT_S_EX.presentValue(swptPayerLong, MULTICURVE, RATIONAL_2F).getAmount(), TOLERANCE_PV_PARITY,
+              "2F Semi-explicit high performance: " + EXPIRIES_PER[i] + TENORS_PER[j] + MONEYNESS[k]);
+        }
+      }
+    }
+  }
+
 }
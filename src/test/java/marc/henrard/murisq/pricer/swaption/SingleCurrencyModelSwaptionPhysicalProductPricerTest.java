@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2021 - present by Marc Henrard.
+ */
+package marc.henrard.murisq.pricer.swaption;
+
+import static com.opengamma.strata.basics.index.IborIndices.EUR_EURIBOR_3M;
+import static com.opengamma.strata.product.swap.type.FixedIborSwapConventions.EUR_FIXED_1Y_EURIBOR_3M;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import com.opengamma.strata.basics.ReferenceData;
+import com.opengamma.strata.basics.currency.Currency;
+import com.opengamma.strata.basics.currency.CurrencyAmount;
+import com.opengamma.strata.basics.date.AdjustableDate;
+import com.opengamma.strata.basics.date.HolidayCalendar;
+import com.opengamma.strata.basics.date.Tenor;
+import com.opengamma.strata.collect.array.DoubleArray;
+import com.opengamma.strata.pricer.rate.ImmutableRatesProvider;
+import com.opengamma.strata.pricer.rate.RatesProvider;
+import com.opengamma.strata.product.common.BuySell;
+import com.opengamma.strata.product.common.LongShort;
+import com.opengamma.strata.product.swap.SwapTrade;
+import com.opengamma.strata.product.swaption.PhysicalSwaptionSettlement;
+import com.opengamma.strata.product.swaption.ResolvedSwaption;
+import com.opengamma.strata.product.swaption.Swaption;
+
+import marc.henrard.murisq.basics.time.ScaledSecondTime;
+import marc.henrard.murisq.dataset.MulticurveEur20151120DataSet;
+import marc.henrard.murisq.model.g2pp.G2ppPiecewiseConstantParameters;
+import marc.henrard.murisq.model.generic.SingleCurrencyModelParameters;
+
+/**
+ * Tests {@link SingleCurrencyModelSwaptionPhysicalProductPricer} basket pricing.
+ *
+ * @author Marc Henrard
+ */
+public class SingleCurrencyModelSwaptionPhysicalProductPricerTest {
+
+  private static final ReferenceData REF_DATA = ReferenceData.standard();
+  private static final HolidayCalendar EUTA_IMPL = REF_DATA.getValue(EUR_EURIBOR_3M.getFixingCalendar());
+
+  private static final LocalDate VALUATION_DATE = LocalDate.of(2015, 11, 20);
+  private static final ZoneId VALUATION_ZONE = ZoneId.of("Europe/London");
+  private static final LocalTime VALUATION_TIME = LocalTime.of(10, 29);
+  private static final ImmutableRatesProvider MULTICURVE_EUR =
+      MulticurveEur20151120DataSet.MULTICURVE_EUR_EONIA_20151120;
+
+  /* G2++ parameters */
+  private static final G2ppPiecewiseConstantParameters PARAMETERS =
+      G2ppPiecewiseConstantParameters.builder()
+      .currency(Currency.EUR)
+      .correlation(-0.50)
+      .kappa1(0.02)
+      .kappa2(0.20)
+      .volatility1(DoubleArray.of(0.01d, 0.012d))
+      .volatility2(DoubleArray.of(0.005d, 0.004d))
+      .volatilityTime(DoubleArray.of(2.0d))
+      .valuationDate(VALUATION_DATE)
+      .valuationTime(VALUATION_TIME)
+      .valuationZone(VALUATION_ZONE)
+      .timeMeasure(ScaledSecondTime.DEFAULT)
+      .build();
+
+  /* Swaption description */
+  private static final double NOTIONAL = 1_000_000.0d;
+  private static final Period[] EXPIRIES = new Period[] {Period.ofMonths(6), Period.ofMonths(12), Period.ofYears(5)};
+  private static final Tenor[] TENORS = new Tenor[] {Tenor.TENOR_1Y, Tenor.TENOR_5Y, Tenor.TENOR_10Y};
+  private static final double[] STRIKES = new double[] {0.0000, 0.0050, 0.0100};
+
+  /* Pricers */
+  private static final G2ppSwaptionPhysicalProductNumericalIntegration2DPricer PRICER_SWPT_G2PP_NI =
+      G2ppSwaptionPhysicalProductNumericalIntegration2DPricer.DEFAULT;
+  private static final G2ppSwaptionPhysicalProductExplicitApproxPricer PRICER_SWPT_G2PP_APPROX =
+      G2ppSwaptionPhysicalProductExplicitApproxPricer.DEFAULT;
+
+  private static final Offset<Double> TOLERANCE_PV = Offset.offset(1.0E-8);
+
+  /* Basket with shared quantities by expiry compared to individual prices. */
+  @Test
+  public void basket_ni_common_pool() {
+    List<ResolvedSwaption> swaptions = swaptions();
+    double[] pvBasket = PRICER_SWPT_G2PP_NI.presentValueBasket(swaptions, MULTICURVE_EUR, PARAMETERS);
+    assertThat(pvBasket).hasSize(swaptions.size());
+    for (int loopswpt = 0; loopswpt < swaptions.size(); loopswpt++) {
+      double pv = PRICER_SWPT_G2PP_NI.presentValue(swaptions.get(loopswpt), MULTICURVE_EUR, PARAMETERS).getAmount();
+      assertThat(pvBasket[loopswpt]).isEqualTo(pv, TOLERANCE_PV);
+    }
+  }
+
+  /* Basket with the default basket pricer on a dedicated executor. */
+  @Test
+  public void basket_approx_executor() {
+    List<ResolvedSwaption> swaptions = swaptions();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      double[] pvBasket =
+          PRICER_SWPT_G2PP_APPROX.presentValueBasket(swaptions, MULTICURVE_EUR, PARAMETERS, executor);
+      for (int loopswpt = 0; loopswpt < swaptions.size(); loopswpt++) {
+        double pv = PRICER_SWPT_G2PP_APPROX
+            .presentValue(swaptions.get(loopswpt), MULTICURVE_EUR, PARAMETERS).getAmount();
+        assertThat(pvBasket[loopswpt]).isEqualTo(pv, TOLERANCE_PV);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /* Empty basket. */
+  @Test
+  public void basket_empty() {
+    assertThat(PRICER_SWPT_G2PP_NI.presentValueBasket(new ArrayList<>(), MULTICURVE_EUR, PARAMETERS)).isEmpty();
+  }
+
+  /* The exception of a failed swaption is rethrown as is. */
+  @Test
+  public void basket_failure() {
+    SingleCurrencyModelSwaptionPhysicalProductPricer pricerFailing =
+        new SingleCurrencyModelSwaptionPhysicalProductPricer() {
+          @Override
+          public CurrencyAmount presentValue(
+              ResolvedSwaption swaption,
+              RatesProvider multicurve,
+              SingleCurrencyModelParameters model) {
+
+            throw new IllegalArgumentException("failed");
+          }
+        };
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> pricerFailing.presentValueBasket(swaptions(), MULTICURVE_EUR, PARAMETERS))
+        .withMessage("failed");
+  }
+
+  // Swaptions with several expiries, tenors, strikes and directions
+  private static List<ResolvedSwaption> swaptions() {
+    List<ResolvedSwaption> swaptions = new ArrayList<>();
+    for (Period expiry : EXPIRIES) {
+      LocalDate expiryDate = EUTA_IMPL.nextOrSame(VALUATION_DATE.plus(expiry));
+      for (Tenor tenor : TENORS) {
+        for (int loopstrike = 0; loopstrike < STRIKES.length; loopstrike++) {
+          SwapTrade swap = EUR_FIXED_1Y_EURIBOR_3M.createTrade(expiryDate, tenor,
+              (loopstrike % 2 == 0) ? BuySell.BUY : BuySell.SELL, NOTIONAL, STRIKES[loopstrike], REF_DATA);
+          swaptions.add(Swaption.builder()
+              .expiryDate(AdjustableDate.of(expiryDate)).expiryTime(VALUATION_TIME).expiryZone(VALUATION_ZONE)
+              .longShort(LongShort.LONG)
+              .swaptionSettlement(PhysicalSwaptionSettlement.DEFAULT)
+              .underlying(swap.getProduct()).build().resolve(REF_DATA));
+        }
+      }
+    }
+    return swaptions;
+  }
+
+}